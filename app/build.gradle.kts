@@ -78,6 +78,11 @@ android {
     androidResources {
         noCompress += listOf("tflite", "task")
     }
+
+    testOptions {
+        // android.util.Log calls in plain-Java classes become no-ops in unit tests
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 
@@ -0,0 +1,98 @@
+package com.alignify.ml;
+
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.alignify.utils.TFLiteInterpreter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * On-device throughput benchmark for batched form-model inference.
+ * Compares {@link TFLiteInterpreter#predictBatch} at several batch sizes on a
+ * bundled model. Run it with {@code ./gradlew connectedDebugAndroidTest} and
+ * read the report from logcat under the "InferenceBenchmark" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class InferenceBenchmark {
+    private static final String TAG = "InferenceBenchmark";
+
+    private static final String DEFAULT_MODEL = "squat_model.tflite";
+    private static final int[] DEFAULT_BATCH_SIZES = { 1, 4, 16, 64 };
+
+    private static final int SAMPLES_PER_RUN = 4096;
+    private static final int WARMUP_SAMPLES = 256;
+
+    /**
+     * Benchmark the bundled squat model at batch sizes 1, 4, 16 and 64.
+     */
+    @Test
+    public void batchThroughput() throws IOException {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        String report = runBatchThroughput(context, DEFAULT_MODEL, DEFAULT_BATCH_SIZES);
+        assertTrue(report.contains("batch  64"));
+    }
+
+    /**
+     * Run {@link #SAMPLES_PER_RUN} random feature vectors through the model at
+     * each batch size and report samples per second.
+     */
+    private static String runBatchThroughput(Context context, String assetPath, int[] batchSizes)
+            throws IOException {
+        TFLiteInterpreter interpreter = new TFLiteInterpreter(context, assetPath);
+        try {
+            int inputSize = interpreter.getInputSize();
+            int numClasses = interpreter.getNumClasses();
+            Random random = new Random(42);
+
+            StringBuilder report = new StringBuilder();
+            report.append(String.format(Locale.US, "%s: %d features, %d classes, %d samples per run%n",
+                    assetPath, inputSize, numClasses, SAMPLES_PER_RUN));
+
+            for (int batchSize : batchSizes) {
+                float[][] inputs = new float[batchSize][inputSize];
+                float[][] outputs = new float[batchSize][numClasses];
+                for (float[] input : inputs) {
+                    for (int i = 0; i < inputSize; i++) {
+                        input[i] = random.nextFloat(); // Normalized landmark coordinates
+                    }
+                }
+
+                int batches = Math.max(1, SAMPLES_PER_RUN / batchSize);
+                int warmupBatches = Math.max(1, WARMUP_SAMPLES / batchSize);
+                for (int i = 0; i < warmupBatches; i++) {
+                    interpreter.predictBatch(inputs, outputs);
+                }
+
+                long start = SystemClock.elapsedRealtimeNanos();
+                for (int i = 0; i < batches; i++) {
+                    interpreter.predictBatch(inputs, outputs);
+                }
+                long elapsedNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+                int samples = batches * batchSize;
+                double samplesPerSecond = samples * 1e9 / elapsedNanos;
+                double microsPerSample = elapsedNanos / 1e3 / samples;
+                report.append(String.format(Locale.US, "batch %3d: %10.0f samples/s, %7.2f us/sample%n",
+                        batchSize, samplesPerSecond, microsPerSample));
+            }
+
+            String result = report.toString();
+            Log.i(TAG, result);
+            return result;
+        } finally {
+            interpreter.close();
+        }
+    }
+}
@@ -7,6 +7,8 @@ import android.util.Log;
 
 import androidx.appcompat.app.AppCompatDelegate;
 
+import com.alignify.ml.ModelManager;
+import com.alignify.pose.PoseWarmup;
 import com.mapbox.common.MapboxOptions;
 import com.mapbox.maps.Style;
 
@@ -62,6 +64,16 @@ public class AlignifyApp extends Application {
         }
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ModelManager.trimMemory(level);
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            // Don't hold an untaken GPU landmarker while in the background
+            PoseWarmup.getInstance().release();
+        }
+    }
+
     private static boolean isValidMapboxPublicToken(String token) {
         if (token == null) {
             return false;
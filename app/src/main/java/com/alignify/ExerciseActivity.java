@@ -5,14 +5,17 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
-import android.graphics.Matrix;
-import android.media.MediaMetadataRetriever;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.speech.tts.TextToSpeech;
 import android.util.Log;
+import android.util.Size;
 import android.view.Surface;
 import android.view.View;
 import android.widget.ImageView;
@@ -27,6 +30,8 @@ import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.core.content.ContextCompat;
 
@@ -36,15 +41,43 @@ import com.google.mediapipe.framework.image.MPImage;
 import com.google.mediapipe.tasks.core.Delegate;
 import com.google.mediapipe.tasks.vision.core.RunningMode;
 import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
+import com.alignify.analysis.LandmarkCache;
+import com.alignify.analysis.LandmarkRecording;
+import com.alignify.analysis.OfflineVideoAnalyzer;
+import com.alignify.analysis.RepTimeline;
 import com.alignify.databinding.ActivityExerciseBinding;
 import com.alignify.data.UserRepository;
 import com.alignify.engine.CaloriesEngine;
 import com.alignify.exercises.*;
 import com.alignify.ml.PostureClassifier;
-
+import com.alignify.pose.CameraFrameConverter;
+import com.alignify.pose.DeviceCapabilityProfiler;
+import com.alignify.pose.FrameRateGovernor;
+import com.alignify.pose.LandmarkerModel;
+import com.alignify.pose.PipelineMetrics;
+import com.alignify.pose.PoseAnalysisPipeline;
+import com.alignify.pose.PoseWarmup;
+import com.alignify.pose.PoseFrame;
+import com.alignify.pose.PoseResultConverter;
+import com.alignify.pose.PoseRoiTracker;
+import com.alignify.pose.ThermalThrottle;
+import com.alignify.pose.VideoFrameDecoder;
+import com.alignify.utils.BitmapPool;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -58,17 +91,45 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
 
     private ActivityExerciseBinding binding;
     private ExecutorService cameraExecutor;
+    private ImageAnalysis imageAnalysis; // Use case currently feeding cameraExecutor
     private ExecutorService videoExecutor;
     private Handler mainHandler;
-    private PoseLandmarkerHelper poseLandmarkerHelper;
+    // Replaced on the main thread, read by the camera analyzer
+    private volatile PoseLandmarkerHelper poseLandmarkerHelper;
+    private volatile int frameRotationDegrees = 0; // Rotation of the frame last sent to MediaPipe
+    private volatile int cameraFrameWidth = 1; // Unrotated size of the frame last sent to MediaPipe
+    private volatile int cameraFrameHeight = 1;
+    // Crops camera frames to the tracked person; results are mapped back to the full frame
+    private final PoseRoiTracker roiTracker = new PoseRoiTracker();
+    private final RectF resultCrop = new RectF(); // MediaPipe result thread only
+    // Chooses the landmarker variant and analysis resolution this device can sustain
+    private DeviceCapabilityProfiler capabilityProfiler;
+    // Sheds detection rate, resolution and overlay refresh as the device heats up
+    private ThermalThrottle thermalThrottle;
     private ExerciseDetector exerciseDetector;
     private PostureClassifier postureClassifier;
+    private FrameRateGovernor frameRateGovernor;
+    private PoseAnalysisPipeline analysisPipeline; // Runs the detector and classifier off the UI thread
 
     private final AtomicBoolean isDetecting = new AtomicBoolean(false);
     private String exerciseType = "bicep_curl";
     private boolean isFrontCamera = true;
     private boolean isVideoMode = false;
     private Uri videoUri = null;
+    private boolean quickVideoAnalysis = false; // Report only, no playback
+    private OfflineVideoAnalyzer offlineAnalyzer; // Main thread only, set while analysing
+
+    // Video frames are decoded into pooled bitmaps instead of keeping a fresh
+    // full-resolution bitmap per frame alive until GC. The pool covers the
+    // decoder's queue, the frame being analysed and frames waiting for display.
+    // Frames are decoded at the offline analyzer's size, so the landmarks
+    // cached during playback match what a later analysis would produce.
+    private static final int VIDEO_FRAME_POOL_SIZE = 8;
+    // How far analysis may run ahead of the displayed frame
+    private static final long VIDEO_MAX_LEAD_MS = 100L;
+    private final BitmapPool videoFramePool = new BitmapPool(VIDEO_FRAME_POOL_SIZE);
+    private Bitmap displayedVideoFrame; // Main thread only
+    private Bitmap previousVideoFrame; // Main thread only, may still be in a pending draw
 
     // Text to Speech - optimized settings
     private TextToSpeech tts;
@@ -86,12 +147,29 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
     private boolean voiceFeedbackEnabled = true;
     private boolean textFeedbackEnabled = true;
 
+    // Debug builds: dump the raw landmark stream for replaying detectors on the JVM
+    private static final String RECORDINGS_DIR = "recordings";
+    private boolean recordLandmarks = false;
+    private final Object recorderLock = new Object();
+    private LandmarkRecording.Writer landmarkRecorder; // Guarded by recorderLock
+    private File landmarkRecording; // Guarded by recorderLock
+
     // Session tracking for Firestore
     private long sessionStartTime = 0L;
     private int sessionErrors = 0;
     private int totalDetections = 0;
     private int correctDetections = 0;
 
+    // Startup latency instrumentation (elapsedRealtime ms)
+    private long createdAtMs = 0L;
+    private long detectionStartedAtMs = 0L;
+    private final AtomicBoolean firstResultPending = new AtomicBoolean(false);
+
+    // Per-stage pipeline latency for this session; shown in debug builds, saved with the workout
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics();
+    private static final long METRICS_OVERLAY_INTERVAL_MS = 1000L;
+    private long lastMetricsOverlayMs = 0L; // Main thread only
+
     // Timer for session duration
     private Handler timerHandler;
     private Runnable timerRunnable;
@@ -102,14 +180,14 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
                 if (uri != null) {
                     videoUri = uri;
                     isVideoMode = true;
-                    binding.btnToggle.setText("Process Video");
-                    Toast.makeText(this, "Video selected. Press Start to process.", Toast.LENGTH_SHORT).show();
+                    chooseVideoAnalysisMode();
                 }
             });
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdAtMs = SystemClock.elapsedRealtime();
         binding = ActivityExerciseBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
@@ -182,26 +260,15 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
     }
 
     private void setupExerciseDetector() {
-        switch (exerciseType) {
-            case "bicep_curl":
-                exerciseDetector = new BicepCurlDetector(this);
-                break;
-            case "squat":
-                exerciseDetector = new SquatDetector(this);
-                break;
-            case "lunge":
-                exerciseDetector = new LungeDetector(this);
-                break;
-            case "plank":
-                exerciseDetector = new PlankDetector(this);
-                break;
-            default:
-                exerciseDetector = new BicepCurlDetector(this);
-                break;
-        }
-
+        exerciseDetector = ExerciseDetector.create(exerciseType, TFLiteFormClassifier.loader(this));
+        Log.d(TAG, "Startup: detector ready " + (SystemClock.elapsedRealtime() - createdAtMs) + " ms after onCreate");
         binding.exerciseNameText.setText(exerciseDetector.getExerciseName());
         postureClassifier = new PostureClassifier();
+        analysisPipeline = new PoseAnalysisPipeline(exerciseDetector, postureClassifier, this::renderSnapshot);
+        analysisPipeline.setMetrics(pipelineMetrics);
+        exerciseDetector.setModelLatencyHistogram(pipelineMetrics.get(PipelineMetrics.Stage.MODEL));
+        frameRateGovernor = new FrameRateGovernor(FrameRateGovernor.Config.forExercise(exerciseType));
+        thermalThrottle = new ThermalThrottle(this, this::onThermalStateChanged);
     }
 
     private void setupUI() {
@@ -213,6 +280,7 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
                 if (isDetecting.get() && sessionStartTime > 0) {
                     long elapsed = System.currentTimeMillis() - sessionStartTime;
                     updateTimerDisplay(elapsed);
+                    maybeAdjustQuality();
                     timerHandler.postDelayed(this, 1000);
                 }
             }
@@ -281,7 +349,9 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
 
     private void startDetection() {
         if (isVideoMode) {
-            if (videoUri != null) {
+            if (videoUri != null && quickVideoAnalysis) {
+                analyzeVideo();
+            } else if (videoUri != null) {
                 processVideo();
             } else {
                 Toast.makeText(this, "Please select a video first", Toast.LENGTH_SHORT).show();
@@ -293,6 +363,13 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
             sessionErrors = 0;
             totalDetections = 0;
             correctDetections = 0;
+            frameRateGovernor.reset();
+            pipelineMetrics.reset();
+            roiTracker.reset();
+            thermalThrottle.start(SystemClock.elapsedRealtime());
+            detectionStartedAtMs = SystemClock.elapsedRealtime();
+            firstResultPending.set(true);
+            startLandmarkRecording("camera");
 
             binding.btnToggle.setText("Stop");
             binding.btnToggle.setIcon(ContextCompat.getDrawable(this, R.drawable.ic_stop));
@@ -305,8 +382,16 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
     }
 
     private void stopDetection() {
+        if (offlineAnalyzer != null) {
+            // Finishes through onComplete with the partial timeline
+            offlineAnalyzer.cancel();
+            binding.btnToggle.setEnabled(false);
+            return;
+        }
+
         isDetecting.set(false);
         timerHandler.removeCallbacks(timerRunnable);
+        stopLandmarkRecording();
 
         // Save workout session
         if (sessionStartTime > 0) {
@@ -314,13 +399,17 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
             sessionStartTime = 0; // Prevent double-save in onDestroy
         }
 
-        binding.btnToggle.setText(isVideoMode ? "Process Video" : "Start");
+        binding.btnToggle.setText(isVideoMode ? videoButtonLabel() : "Start");
         binding.btnToggle.setIcon(ContextCompat.getDrawable(this, R.drawable.ic_play));
         binding.exerciseStatusText.setText("Session complete");
 
         if (!isVideoMode) {
-            exerciseDetector.reset();
+            thermalThrottle.stop();
+            analysisPipeline.reset();
             consecutiveErrorCount = 0;
+            Log.d(TAG, "Frame governor: processed=" + frameRateGovernor.getProcessedFrames()
+                    + ", skipped=" + frameRateGovernor.getSkippedFrames());
+            Log.d(TAG, pipelineMetrics.toString());
         }
     }
 
@@ -328,7 +417,7 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
         binding.exerciseStatusText.setText("Ready to start");
         binding.timerText.setText("00:00");
         binding.repCounterText.setText("0");
-        binding.repCounterLabel.setText(exerciseType.equals("plank") ? "HOLD" : "REPS");
+        binding.repCounterLabel.setText(exerciseDetector.isHoldExercise() ? "HOLD" : "REPS");
         binding.feedbackText.setText("Press Start to begin");
         binding.feedbackText.setTextColor(ContextCompat.getColor(this, R.color.text_secondary_dark));
         binding.feedbackIcon.setImageResource(R.drawable.ic_info);
@@ -351,13 +440,23 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
     }
 
     private void showSettingsDialog() {
-        // Toggle feedback settings quickly
+        // Toggle feedback settings quickly; landmark recording is a debug-only extra
+        String[] items = BuildConfig.DEBUG
+                ? new String[] { "Voice Feedback", "Text Feedback", "Record Landmarks" }
+                : new String[] { "Voice Feedback", "Text Feedback" };
+        boolean[] checked = BuildConfig.DEBUG
+                ? new boolean[] { voiceFeedbackEnabled, textFeedbackEnabled, recordLandmarks }
+                : new boolean[] { voiceFeedbackEnabled, textFeedbackEnabled };
         new android.app.AlertDialog.Builder(this)
                 .setTitle("Feedback Settings")
                 .setMultiChoiceItems(
-                        new String[] { "Voice Feedback", "Text Feedback" },
-                        new boolean[] { voiceFeedbackEnabled, textFeedbackEnabled },
+                        items,
+                        checked,
                         (dialog, which, isChecked) -> {
+                            if (which == 2) {
+                                recordLandmarks = isChecked; // Takes effect from the next start
+                                return;
+                            }
                             if (which == 0) {
                                 voiceFeedbackEnabled = isChecked;
                             } else {
@@ -387,6 +486,8 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
         sessionErrors = 0;
         totalDetections = 0;
         correctDetections = 0;
+        pipelineMetrics.reset();
+        startLandmarkRecording("video");
 
         binding.btnToggle.setText("Stop");
         binding.btnToggle.setIcon(ContextCompat.getDrawable(this, R.drawable.ic_stop));
@@ -401,22 +502,19 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
         // Start timer
         timerHandler.post(timerRunnable);
 
-        // Unbind camera to release resources and turn off light
-        ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(this);
-        cameraProviderFuture.addListener(() -> {
-            try {
-                cameraProviderFuture.get().unbindAll();
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to unbind camera", e);
-            }
-        }, ContextCompat.getMainExecutor(this));
+        unbindCamera();
 
         videoExecutor.execute(() -> {
             PoseLandmarkerHelper videoLandmarkerHelper = null;
-            MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+            VideoFrameDecoder decoder = new VideoFrameDecoder(this, videoUri, videoFramePool,
+                    OfflineVideoAnalyzer.FRAME_MAX_EDGE);
+            decoder.setConvertLatencyHistogram(pipelineMetrics.get(PipelineMetrics.Stage.CONVERT));
+            long lastDisplayAtMs = 0L;
+            LandmarkCache.Writer cacheWriter = null;
 
             try {
-                // Create VIDEO mode helper with GPU acceleration
+                // Create VIDEO mode helper with GPU acceleration, on the model
+                // offline analysis uses so both share cached landmarks
                 videoLandmarkerHelper = new PoseLandmarkerHelper(
                         this,
                         RunningMode.VIDEO,
@@ -424,85 +522,75 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
                         0.5f,
                         0.5f,
                         Delegate.GPU, // Try GPU first, auto-fallback to CPU
+                        DeviceCapabilityProfiler.getInstance(this).getCurrentLevel().getModel(),
                         null);
+                videoLandmarkerHelper.setLatencyHistograms(pipelineMetrics.get(PipelineMetrics.Stage.LANDMARKER));
 
-                retriever.setDataSource(this, videoUri);
-                String durationStr = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
-                long duration = durationStr != null ? Long.parseLong(durationStr) : 0L;
-
-                // Real-time synchronization
-                long videoStartTime = System.currentTimeMillis();
-                int frameCount = 0;
-                PoseLandmarkerResult[] lastPoseResult = new PoseLandmarkerResult[1];
-
-                // Performance optimization: Display every frame, detect every 2nd frame
-                int detectionInterval = 2; // Detect every 2nd frame (15 FPS detection for 30 FPS display)
-
-                PoseLandmarkerHelper finalVideoHelper = videoLandmarkerHelper;
+                // Decoding and conversion run ahead on their own threads; this
+                // thread runs the landmarker on every frame and schedules display
+                decoder.start();
+                cacheWriter = openLandmarkCacheWriter(videoLandmarkerHelper.getModel(), decoder.getDurationUs());
 
+                long playbackStartMs = -1L; // Uptime at which presentation time 0 is shown
+                long lastDetectionTimeMs = -1L;
+                boolean cacheComplete = cacheWriter != null;
                 while (isDetecting.get()) {
-                    long elapsedTime = System.currentTimeMillis() - videoStartTime;
-                    if (elapsedTime > duration)
+                    VideoFrameDecoder.Frame frame = decoder.next();
+                    if (frame == null) {
+                        // Played to the end: keep the landmarks for a quick re-analysis
+                        if (cacheComplete) {
+                            commitLandmarkCache(cacheWriter);
+                        }
                         break;
+                    }
+                    Bitmap bitmap = frame.getBitmap();
+                    long frameTimeMs = frame.getPresentationTimeUs() / 1000L;
+
+                    // Pace playback by presentation time. When analysis falls behind,
+                    // playback slows down with it instead of skipping frames.
+                    long nowMs = SystemClock.uptimeMillis();
+                    if (playbackStartMs < 0L || playbackStartMs + frameTimeMs < nowMs) {
+                        playbackStartMs = nowMs - frameTimeMs;
+                    }
+                    long displayAtMs = playbackStartMs + frameTimeMs;
+                    long aheadMs = displayAtMs - nowMs - VIDEO_MAX_LEAD_MS;
+                    if (aheadMs > 0L) {
+                        Thread.sleep(aheadMs);
+                    }
 
-                    Bitmap bitmap = retriever.getFrameAtTime(elapsedTime * 1000, MediaMetadataRetriever.OPTION_CLOSEST);
-
-                    if (bitmap != null) {
-                        Bitmap finalBitmap = bitmap;
-
-                        // Always display the frame for smooth 30 FPS playback
-                        mainHandler.post(() -> {
-                            if (!isDetecting.get()) {
-                                finalBitmap.recycle();
-                                return;
-                            }
-                            binding.videoFrameView.setImageBitmap(finalBitmap);
-                        });
-
-                        // Only run pose detection every Nth frame for performance
-                        boolean shouldDetect = (frameCount % detectionInterval == 0);
-
-                        if (shouldDetect) {
-                            MPImage mpImage = new BitmapImageBuilder(finalBitmap).build();
-                            PoseLandmarkerResult result = finalVideoHelper.detectVideoFrame(mpImage, elapsedTime);
-
-                            if (result != null) {
-                                lastPoseResult[0] = result;
+                    // MediaPipe requires strictly increasing timestamps
+                    if (frameTimeMs > lastDetectionTimeMs) {
+                        lastDetectionTimeMs = frameTimeMs;
+                        MPImage mpImage = new BitmapImageBuilder(bitmap).build();
+                        PoseLandmarkerResult result = videoLandmarkerHelper.detectVideoFrame(mpImage, frameTimeMs);
+
+                        if (result != null) {
+                            PoseFrame poseFrame = PoseResultConverter.toPoseFrame(result, 0);
+                            // Recorded raw, before the pipeline smooths it in place
+                            if (cacheComplete) {
+                                cacheComplete = appendToLandmarkCache(cacheWriter, poseFrame);
                             }
+                            recordLandmarkFrame(poseFrame);
+                            // Analysed off the main thread; the overlay keeps showing
+                            // the last pose until a newer snapshot arrives
+                            analysisPipeline.submit(
+                                    poseFrame,
+                                    bitmap.getWidth(),
+                                    bitmap.getHeight(),
+                                    false);
+                        } else {
+                            cacheComplete = false;
                         }
-
-                        // Update UI with latest pose detection result (may be from previous frame)
-                        if (lastPoseResult[0] != null) {
-                            PoseLandmarkerResult poseResult = lastPoseResult[0];
-                            int finalFrameWidth = finalBitmap.getWidth();
-                            int finalFrameHeight = finalBitmap.getHeight();
-
-                            mainHandler.post(() -> {
-                                if (!isDetecting.get())
-                                    return;
-
-                                binding.overlayView.setResults(
-                                        poseResult,
-                                        finalFrameWidth,
-                                        finalFrameHeight,
-                                        false);
-
-                                ExerciseDetector.DetectionResult detectionResult = exerciseDetector.detect(poseResult);
-                                PostureClassifier.PostureState postureState = postureClassifier.classify(poseResult);
-                                updateUI(detectionResult, postureState);
-                                binding.overlayView.setFeedbackColor(detectionResult.isCorrect());
-                            });
-                        }
-
-                        frameCount++;
                     }
 
-                    // Small yield for responsiveness
-                    try {
-                        Thread.sleep(5);
-                    } catch (InterruptedException e) {
-                        break;
-                    }
+                    mainHandler.postAtTime(() -> {
+                        if (!isDetecting.get()) {
+                            videoFramePool.release(bitmap);
+                            return;
+                        }
+                        showVideoFrame(bitmap);
+                    }, displayAtMs);
+                    lastDisplayAtMs = displayAtMs;
                 }
 
             } catch (Exception e) {
@@ -515,25 +603,31 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
             } finally {
                 // Cleanup resources safely
                 try {
-                    retriever.release();
+                    if (cacheWriter != null) {
+                        cacheWriter.close(); // Discards the entry unless committed
+                    }
+                    decoder.close();
                     if (videoLandmarkerHelper != null) {
                         videoLandmarkerHelper.clearPoseLandmarker();
                     }
                 } catch (Exception e) {
                     Log.e(TAG, "Error releasing resources", e);
                 }
+                Log.d(TAG, "Video frame pool: " + videoFramePool);
 
-                mainHandler.post(() -> {
+                // Finish after the frames already scheduled have been shown
+                mainHandler.postAtTime(() -> {
                     if (!isFinishing()) {
                         isDetecting.set(false);
                         timerHandler.removeCallbacks(timerRunnable);
+                        stopLandmarkRecording();
 
                         // Save workout session
                         if (sessionStartTime > 0) {
                             saveWorkoutSession();
                         }
 
-                        binding.btnToggle.setText("Process Video");
+                        binding.btnToggle.setText(videoButtonLabel());
                         binding.btnToggle.setIcon(ContextCompat.getDrawable(ExerciseActivity.this, R.drawable.ic_play));
                         binding.btnToggle.setEnabled(true);
                         binding.exerciseStatusText.setText("Video complete");
@@ -543,11 +637,289 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
                             restoreCamera();
                         }
                     }
-                });
+                }, lastDisplayAtMs);
+            }
+        });
+    }
+
+    /**
+     * Writer recording the landmarks of the selected video, or null if they
+     * are already cached or can't be. Call on the video executor.
+     */
+    private LandmarkCache.Writer openLandmarkCacheWriter(LandmarkerModel model, long durationUs) {
+        LandmarkCache cache = LandmarkCache.getInstance(this);
+        try {
+            String key = cache.keyFor(videoUri, model, OfflineVideoAnalyzer.FRAME_MAX_EDGE);
+            if (cache.open(key) != null)
+                return null;
+            return cache.create(key, durationUs);
+        } catch (IOException e) {
+            Log.w(TAG, "Video landmarks won't be cached", e);
+            return null;
+        }
+    }
+
+    private boolean appendToLandmarkCache(LandmarkCache.Writer writer, PoseFrame frame) {
+        try {
+            writer.append(frame);
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Stopped caching video landmarks", e);
+            return false;
+        }
+    }
+
+    private void commitLandmarkCache(LandmarkCache.Writer writer) {
+        try {
+            writer.commit();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to cache video landmarks", e);
+        }
+    }
+
+    /**
+     * Start dumping raw landmarks to app-specific external storage when
+     * recording is enabled, for replay in unit tests and benchmarks. Pull them with
+     * {@code adb pull /sdcard/Android/data/<package>/files/recordings}.
+     */
+    private void startLandmarkRecording(String source) {
+        if (!recordLandmarks)
+            return;
+
+        File dir = getExternalFilesDir(RECORDINGS_DIR);
+        if (dir == null) {
+            Toast.makeText(this, "External storage unavailable, not recording", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File file = new File(dir, exerciseType + "-" + stamp + LandmarkRecording.FILE_SUFFIX);
+
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put(LandmarkRecording.KEY_EXERCISE, exerciseType);
+        metadata.put("source", source);
+        metadata.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+        metadata.put("recorded", stamp);
+        synchronized (recorderLock) {
+            stopLandmarkRecording();
+            try {
+                landmarkRecorder = new LandmarkRecording.Writer(new BufferedWriter(
+                        new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)), metadata);
+                landmarkRecording = file;
+            } catch (IOException e) {
+                Log.w(TAG, "Cannot record landmarks to " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Append a raw, unsmoothed frame to the active recording, if any. Called
+     * on the landmarker result thread or the video executor.
+     */
+    private void recordLandmarkFrame(PoseFrame frame) {
+        synchronized (recorderLock) {
+            if (landmarkRecorder == null)
+                return;
+            try {
+                landmarkRecorder.append(frame);
+            } catch (IOException e) {
+                Log.w(TAG, "Stopped recording landmarks", e);
+                stopLandmarkRecording();
+            }
+        }
+    }
+
+    private void stopLandmarkRecording() {
+        synchronized (recorderLock) {
+            if (landmarkRecorder == null)
+                return;
+            int frames = landmarkRecorder.getFrameCount();
+            try {
+                landmarkRecorder.close();
+                Log.i(TAG, "Recorded " + frames + " frames to " + landmarkRecording);
+                String name = landmarkRecording.getName();
+                mainHandler.post(() -> Toast.makeText(getApplicationContext(), "Landmarks saved to " + name,
+                        Toast.LENGTH_SHORT).show());
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to finish landmark recording " + landmarkRecording, e);
+            }
+            landmarkRecorder = null;
+            landmarkRecording = null;
+        }
+    }
+
+    /**
+     * Ask whether a picked video should be played back with live feedback or
+     * only analysed for a report, which runs faster than real time.
+     */
+    private void chooseVideoAnalysisMode() {
+        new android.app.AlertDialog.Builder(this)
+                .setTitle("Analyze video")
+                .setItems(new String[] { "Play with live feedback", "Quick report (no playback)" },
+                        (dialog, which) -> {
+                            quickVideoAnalysis = which == 1;
+                            binding.btnToggle.setText(videoButtonLabel());
+                            Toast.makeText(this, "Video selected. Press " + videoButtonLabel() + " to start.",
+                                    Toast.LENGTH_SHORT).show();
+                        })
+                .show();
+    }
+
+    private String videoButtonLabel() {
+        return quickVideoAnalysis ? "Analyze Video" : "Process Video";
+    }
+
+    /**
+     * Release the camera so it doesn't compete with video decoding, and turn
+     * off its light.
+     */
+    private void unbindCamera() {
+        ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(this);
+        cameraProviderFuture.addListener(() -> {
+            try {
+                cameraProviderFuture.get().unbindAll();
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to unbind camera", e);
+            }
+        }, ContextCompat.getMainExecutor(this));
+    }
+
+    /**
+     * Analyse the selected video as fast as possible, without playback, and
+     * show a per-rep report at the end.
+     */
+    private void analyzeVideo() {
+        if (videoUri == null || offlineAnalyzer != null)
+            return;
+
+        isDetecting.set(true);
+        binding.btnToggle.setText("Cancel");
+        binding.btnToggle.setIcon(ContextCompat.getDrawable(this, R.drawable.ic_stop));
+        binding.btnToggle.setEnabled(true);
+        binding.exerciseStatusText.setText("Analyzing video...");
+        binding.feedbackText.setText("Building your report");
+        binding.cameraPreview.setVisibility(View.GONE);
+        binding.videoFrameView.setVisibility(View.GONE);
+        unbindCamera();
+
+        offlineAnalyzer = new OfflineVideoAnalyzer(this, videoUri, exerciseType);
+        offlineAnalyzer.start(videoExecutor, new OfflineVideoAnalyzer.Listener() {
+            @Override
+            public void onProgress(float fraction, int framesAnalyzed) {
+                binding.exerciseStatusText.setText(fraction >= 0f
+                        ? String.format(Locale.US, "Analyzing video... %d%%", Math.round(fraction * 100f))
+                        : "Analyzing video... " + framesAnalyzed + " frames");
+            }
+
+            @Override
+            public void onComplete(RepTimeline timeline) {
+                finishVideoAnalysis();
+                if (isFinishing())
+                    return;
+
+                binding.repCounterText.setText(String.valueOf(timeline.getRepCount()));
+                updateTimerDisplay(timeline.getDurationMs());
+                if (!timeline.isComplete()) {
+                    binding.exerciseStatusText.setText("Analysis cancelled");
+                    return;
+                }
+                binding.exerciseStatusText.setText("Analysis complete");
+                saveVideoAnalysis(timeline);
+                showVideoReport(timeline);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                finishVideoAnalysis();
+                if (isFinishing())
+                    return;
+
+                binding.exerciseStatusText.setText("Analysis failed");
+                Toast.makeText(ExerciseActivity.this, "Error: " + error.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
     }
 
+    private void finishVideoAnalysis() {
+        offlineAnalyzer = null;
+        isDetecting.set(false);
+        if (isFinishing())
+            return;
+
+        binding.btnToggle.setText(videoButtonLabel());
+        binding.btnToggle.setIcon(ContextCompat.getDrawable(this, R.drawable.ic_play));
+        binding.btnToggle.setEnabled(true);
+        if (!isVideoMode) {
+            restoreCamera();
+        }
+    }
+
+    private void showVideoReport(RepTimeline timeline) {
+        StringBuilder report = new StringBuilder();
+        report.append(timeline.isHoldExercise() ? "Hold: " + timeline.getRepCount() + " s"
+                : "Reps: " + timeline.getRepCount());
+        if (timeline.getPoseFrames() > 0) {
+            int cleanPercent = Math.round(100f * (timeline.getPoseFrames() - timeline.getIncorrectFrames())
+                    / timeline.getPoseFrames());
+            report.append("\nGood form: ").append(cleanPercent).append("% of frames");
+        }
+
+        for (RepTimeline.Rep rep : timeline.getReps()) {
+            report.append(String.format(Locale.US, "\n\n%s %d  %.1f-%.1f s  %d%% good",
+                    timeline.isHoldExercise() ? "Hold" : "Rep", rep.getIndex(),
+                    rep.getStartMs() / 1000f, rep.getEndMs() / 1000f,
+                    Math.round(rep.getCorrectFraction() * 100f)));
+            for (String error : rep.getErrorFrames().keySet()) {
+                report.append("\n  - ").append(error);
+            }
+        }
+
+        new android.app.AlertDialog.Builder(this)
+                .setTitle(exerciseDetector.getExerciseName() + " report")
+                .setMessage(report.toString())
+                .setPositiveButton("Done", null)
+                .show();
+    }
+
+    /**
+     * Save an analysed video as a workout, with its rep timeline.
+     */
+    private void saveVideoAnalysis(RepTimeline timeline) {
+        int durationSeconds = (int) (timeline.getDurationMs() / 1000);
+        int repCount = timeline.getRepCount();
+
+        // Same threshold as live sessions
+        if (durationSeconds < 30 && repCount == 0) {
+            return;
+        }
+
+        int caloriesEstimate = CaloriesEngine.getInstance(this)
+                .getCaloriesFromExercise(exerciseType, durationSeconds);
+        UserRepository.getInstance().saveWorkoutSession(
+                exerciseType,
+                repCount,
+                durationSeconds,
+                timeline.getIncorrectFrames(),
+                null,
+                timeline.toReport(),
+                null);
+        UserRepository.getInstance().recordWorkoutToDaily(durationSeconds, caloriesEstimate);
+
+        Log.d(TAG, "Video analysis saved: " + exerciseType + ", reps=" + repCount + ", duration="
+                + durationSeconds + "s");
+    }
+
+    /**
+     * Display a pooled video frame. A frame is returned to the pool only once a
+     * newer frame has been drawn after it, so the render thread never reads a
+     * bitmap that is being overwritten.
+     */
+    private void showVideoFrame(Bitmap frame) {
+        binding.videoFrameView.setImageBitmap(frame);
+        videoFramePool.release(previousVideoFrame);
+        previousVideoFrame = displayedVideoFrame;
+        displayedVideoFrame = frame;
+    }
+
     private void restoreCamera() {
         binding.cameraPreview.setVisibility(View.VISIBLE);
         binding.videoFrameView.setVisibility(View.GONE);
@@ -563,26 +935,52 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
             return;
         }
 
-        // Shut down previous executor to prevent leak on camera flip
-        if (cameraExecutor != null && !cameraExecutor.isShutdown()) {
-            cameraExecutor.shutdown();
+        // Stop feeding frames before the landmarker is replaced. The previous
+        // executor is shut down once its queued frames drain.
+        if (imageAnalysis != null) {
+            imageAnalysis.clearAnalyzer();
+            imageAnalysis = null;
         }
+        ExecutorService previousExecutor = cameraExecutor;
         cameraExecutor = Executors.newSingleThreadExecutor();
 
-        // Close old helper to prevent resource leak when re-creating (e.g., camera
-        // flip)
-        if (poseLandmarkerHelper != null) {
-            poseLandmarkerHelper.clearPoseLandmarker();
-        }
+        capabilityProfiler = DeviceCapabilityProfiler.getInstance(this);
+        DeviceCapabilityProfiler.Level level = capabilityProfiler.getCurrentLevel();
 
-        poseLandmarkerHelper = new PoseLandmarkerHelper(
-                this,
-                RunningMode.LIVE_STREAM,
-                0.5f,
-                0.5f,
-                0.5f,
-                Delegate.GPU, // GPU acceleration with auto-fallback to CPU
-                this);
+        // Reuse the landmarker prewarmed from the exercise list on first setup
+        PoseLandmarkerHelper prepared = poseLandmarkerHelper == null
+                ? PoseWarmup.getInstance().takePreparedLandmarker()
+                : null;
+        if (prepared != null && prepared.getModel() != level.getModel()) {
+            prepared.clearPoseLandmarker();
+            prepared = null;
+        }
+        PoseLandmarkerHelper retired = null;
+        if (prepared != null) {
+            prepared.setListener(this);
+            poseLandmarkerHelper = prepared;
+        } else {
+            // Close old helper to prevent resource leak when re-creating (e.g., camera
+            // flip or a quality change)
+            retired = poseLandmarkerHelper;
+            poseLandmarkerHelper = new PoseLandmarkerHelper(
+                    this,
+                    RunningMode.LIVE_STREAM,
+                    0.5f,
+                    0.5f,
+                    0.5f,
+                    Delegate.GPU, // GPU acceleration with auto-fallback to CPU
+                    level.getModel(),
+                    this);
+        }
+        // Only once any detectAsync in flight on the old executor has returned
+        retireLandmarker(previousExecutor, retired);
+        poseLandmarkerHelper.setLatencyHistograms(
+                pipelineMetrics.get(PipelineMetrics.Stage.LANDMARKER),
+                capabilityProfiler.getLatencyWindow());
+        capabilityProfiler.startSession(SystemClock.elapsedRealtime());
+        Log.d(TAG, "Startup: landmarker ready " + (SystemClock.elapsedRealtime() - createdAtMs)
+                + " ms after onCreate (prewarmed=" + (prepared != null) + ")");
 
         ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(this);
 
@@ -596,6 +994,62 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
         }, ContextCompat.getMainExecutor(this));
     }
 
+    /**
+     * Close {@code helper} on {@code executor} once the frames already queued
+     * there have run, then shut the executor down. Either may be null.
+     */
+    private static void retireLandmarker(ExecutorService executor, PoseLandmarkerHelper helper) {
+        if (executor == null || executor.isShutdown()) {
+            if (helper != null) {
+                helper.clearPoseLandmarker();
+            }
+            return;
+        }
+        if (helper != null) {
+            executor.execute(helper::clearPoseLandmarker);
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Let the capability profiler judge recent landmarker latency and, if it
+     * picks a different model or resolution, rebuild the landmarker and camera.
+     */
+    private void maybeAdjustQuality() {
+        if (isVideoMode || capabilityProfiler == null)
+            return;
+
+        long now = SystemClock.elapsedRealtime();
+        thermalThrottle.poll(now);
+        if (capabilityProfiler.evaluate(now)) {
+            Log.d(TAG, "Switching to " + capabilityProfiler.getCurrentLevel());
+            setupCamera();
+        }
+    }
+
+    /**
+     * Apply a thermal throttling change: cap the detection rate, the
+     * landmarker quality level and the overlay refresh, and log it with the
+     * session metrics.
+     */
+    private void onThermalStateChanged(ThermalThrottle.State previous, ThermalThrottle.State current,
+            int thermalStatus, float headroom) {
+        frameRateGovernor.setIntervalFloorMs(current.getMinDetectionIntervalMs());
+        binding.overlayView.setMinFrameIntervalMs(current.getOverlayFrameIntervalMs());
+
+        if (previous != current) {
+            long sessionMs = sessionStartTime > 0 ? System.currentTimeMillis() - sessionStartTime : 0L;
+            pipelineMetrics.recordThermalTransition(sessionMs, previous.name(), current.name(), thermalStatus,
+                    headroom);
+        }
+
+        if (capabilityProfiler != null
+                && capabilityProfiler.setMaxLevel(current.getMaxQualityLevel(), SystemClock.elapsedRealtime())) {
+            Log.d(TAG, "Thermal: switching to " + capabilityProfiler.getCurrentLevel());
+            setupCamera();
+        }
+    }
+
     private int getDisplayRotation() {
         android.view.Display display = binding.cameraPreview.getDisplay();
         if (display != null) {
@@ -620,38 +1074,55 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
                 .build();
         preview.setSurfaceProvider(binding.cameraPreview.getSurfaceProvider());
 
+        DeviceCapabilityProfiler.Level level = capabilityProfiler.getCurrentLevel();
+        ResolutionSelector resolutionSelector = new ResolutionSelector.Builder()
+                .setResolutionStrategy(new ResolutionStrategy(
+                        new Size(level.getWidth(), level.getHeight()),
+                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER))
+                .build();
+
         ImageAnalysis imageAnalyzer = new ImageAnalysis.Builder()
+                .setResolutionSelector(resolutionSelector)
                 .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                 .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_RGBA_8888)
                 .setTargetRotation(rotation)
                 .build();
 
-        imageAnalyzer.setAnalyzer(cameraExecutor, imageProxy -> {
-            if (isDetecting.get() && poseLandmarkerHelper != null && poseLandmarkerHelper.isReady()) {
-                Bitmap bitmap = imageProxy.toBitmap();
+        // One converter per analyzer executor; it owns a reusable scratch buffer
+        CameraFrameConverter converter = new CameraFrameConverter();
+        Rect roiCrop = new Rect();
+        roiTracker.reset();
 
-                // Rotate bitmap based on image rotation degrees
+        imageAnalyzer.setAnalyzer(cameraExecutor, imageProxy -> {
+            long frameTimeMs = TimeUnit.NANOSECONDS.toMillis(imageProxy.getImageInfo().getTimestamp());
+            PoseLandmarkerHelper landmarker = poseLandmarkerHelper;
+            if (isDetecting.get() && landmarker != null && landmarker.isReady()
+                    && frameRateGovernor.shouldProcess(frameTimeMs)) {
+                // Hand the RGBA plane to MediaPipe as-is and let it apply the rotation,
+                // instead of materializing and rotating a Bitmap on every frame
                 int rotationDegrees = imageProxy.getImageInfo().getRotationDegrees();
-                Bitmap rotatedBitmap;
-                if (rotationDegrees != 0) {
-                    Matrix matrix = new Matrix();
-                    matrix.postRotate(rotationDegrees);
-                    rotatedBitmap = Bitmap.createBitmap(
-                            bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
-                    bitmap.recycle(); // Recycle original after creating rotated copy
-                } else {
-                    rotatedBitmap = bitmap;
-                }
-
-                MPImage mpImage = new BitmapImageBuilder(rotatedBitmap).build();
-
-                poseLandmarkerHelper.detectLiveStream(
+                long convertStart = System.nanoTime();
+                roiTracker.cropForFrame(frameTimeMs, imageProxy.getWidth(), imageProxy.getHeight(), roiCrop);
+                MPImage mpImage = converter.convert(imageProxy, roiCrop);
+                pipelineMetrics.record(PipelineMetrics.Stage.CONVERT, System.nanoTime() - convertStart);
+                frameRotationDegrees = rotationDegrees;
+                cameraFrameWidth = imageProxy.getWidth();
+                cameraFrameHeight = imageProxy.getHeight();
+
+                frameRateGovernor.onFrameSubmitted(frameTimeMs, System.nanoTime());
+                landmarker.detectLiveStream(
                         mpImage,
-                        imageProxy.getImageInfo().getTimestamp());
+                        converter.optionsFor(rotationDegrees),
+                        frameTimeMs);
             }
             imageProxy.close();
         });
 
+        if (imageAnalysis != null) {
+            imageAnalysis.clearAnalyzer();
+        }
+        imageAnalysis = imageAnalyzer;
+
         try {
             cameraProvider.unbindAll();
             cameraProvider.bindToLifecycle(
@@ -666,32 +1137,76 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
 
     @Override
     public void onResults(PoseLandmarkerResult result, MPImage input) {
-        if (!isDetecting.get() || result == null || result.landmarks().isEmpty())
+        if (!isDetecting.get() || result == null)
             return;
 
-        runOnUiThread(() -> {
-            if (isFinishing() || isDestroyed())
-                return;
+        // Landmarks come back relative to the unrotated crop; map them to the full upright frame
+        int rotationDegrees = frameRotationDegrees;
+        roiTracker.cropForResult(result.timestampMs(), resultCrop);
+        PoseFrame frame = PoseResultConverter.toPoseFrame(result, rotationDegrees, resultCrop);
+        roiTracker.update(frame, rotationDegrees);
+        recordLandmarkFrame(frame); // Empty frames too, so replay sees the same gaps
+
+        if (firstResultPending.compareAndSet(true, false)) {
+            long now = SystemClock.elapsedRealtime();
+            Log.d(TAG, "Startup: first pose result " + (now - detectionStartedAtMs) + " ms after start, "
+                    + (now - createdAtMs) + " ms after onCreate");
+        }
+
+        // Empty results still tell the governor the scene is static
+        frameRateGovernor.onResult(frame, System.nanoTime());
+        if (frame.isEmpty())
+            return;
+
+        boolean isSideways = rotationDegrees == 90 || rotationDegrees == 270;
+        // The input may be a crop, so size the overlay from the full camera frame
+        int frameWidth = isSideways ? cameraFrameHeight : cameraFrameWidth;
+        int frameHeight = isSideways ? cameraFrameWidth : cameraFrameHeight;
+
+        // Detection and classification run on the analysis thread; only rendering reaches the UI
+        analysisPipeline.submit(frame, frameWidth, frameHeight, isFrontCamera);
+    }
+
+    /**
+     * Renders the newest analysis snapshot. Called on the main thread at most once per vsync.
+     */
+    private void renderSnapshot(PoseAnalysisPipeline.Snapshot snapshot) {
+        if (!isDetecting.get() || isFinishing() || isDestroyed())
+            return;
 
-            // Update overlay
-            binding.overlayView.setResults(
-                    result,
-                    input.getWidth(),
-                    input.getHeight(),
-                    isFrontCamera);
+        long renderStart = System.nanoTime();
 
-            // Run exercise detection
-            ExerciseDetector.DetectionResult detectionResult = exerciseDetector.detect(result);
+        // Update overlay
+        binding.overlayView.setResults(
+                snapshot.getFrame(),
+                snapshot.getFrameWidth(),
+                snapshot.getFrameHeight(),
+                snapshot.isFrontCamera());
 
-            // Run posture classification
-            PostureClassifier.PostureState postureState = postureClassifier.classify(result);
+        // Update UI
+        ExerciseDetector.DetectionResult detectionResult = snapshot.getDetectionResult();
+        updateUI(detectionResult, snapshot.getPostureState());
 
-            // Update UI
-            updateUI(detectionResult, postureState);
+        // Update overlay color
+        binding.overlayView.setFeedbackColor(detectionResult.isCorrect());
 
-            // Update overlay color
-            binding.overlayView.setFeedbackColor(detectionResult.isCorrect());
-        });
+        pipelineMetrics.record(PipelineMetrics.Stage.RENDER, System.nanoTime() - renderStart);
+        updateMetricsOverlay();
+    }
+
+    /**
+     * Refresh the latency readout in debug builds, at most once per second.
+     */
+    private void updateMetricsOverlay() {
+        if (!BuildConfig.DEBUG)
+            return;
+
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastMetricsOverlayMs < METRICS_OVERLAY_INTERVAL_MS)
+            return;
+
+        lastMetricsOverlayMs = now;
+        binding.overlayView.setDebugLines(pipelineMetrics.formatOverlayLines());
     }
 
     @Override
@@ -700,8 +1215,14 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
     }
 
     private void updateUI(ExerciseDetector.DetectionResult result, PostureClassifier.PostureState postureState) {
+        // Circuit mode renames itself as it recognises exercises
+        String exerciseName = exerciseDetector.getExerciseName();
+        if (!exerciseName.contentEquals(binding.exerciseNameText.getText())) {
+            binding.exerciseNameText.setText(exerciseName);
+        }
+
         // Update rep counter - plank shows hold time in seconds, others show rep count
-        if (exerciseType.equals("plank")) {
+        if (exerciseDetector.isHoldExercise()) {
             binding.repCounterLabel.setText("HOLD");
             binding.repCounterText.setText(result.getRepCount() + "s");
         } else {
@@ -785,6 +1306,11 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
         if (sessionStartTime == 0)
             return;
 
+        if (exerciseDetector instanceof MultiExerciseDetector) {
+            saveCircuitSession((MultiExerciseDetector) exerciseDetector);
+            return;
+        }
+
         int durationSeconds = (int) ((System.currentTimeMillis() - sessionStartTime) / 1000);
         int repCount = exerciseDetector != null ? exerciseDetector.getRepCount() : 0;
 
@@ -803,6 +1329,7 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
                 repCount,
                 durationSeconds,
                 sessionErrors,
+                pipelineMetrics.toReport(),
                 null);
 
         // Also update daily activity aggregates
@@ -811,6 +1338,36 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
         Log.d(TAG, "Workout saved: " + exerciseType + ", reps=" + repCount + ", duration=" + durationSeconds + "s");
     }
 
+    /**
+     * Saves a circuit session as one workout per recognised exercise, so
+     * history and calories stay per exercise. Errors and metrics aren't
+     * split by exercise and go with the first one saved.
+     */
+    private void saveCircuitSession(MultiExerciseDetector detector) {
+        boolean first = true;
+        for (String type : MultiExerciseDetector.getExerciseTypes()) {
+            int durationSeconds = (int) (detector.getActiveDurationMs(type) / 1000);
+            int repCount = detector.getRepCount(type);
+            if (durationSeconds < 30 && repCount == 0) {
+                continue;
+            }
+
+            int caloriesEstimate = CaloriesEngine.getInstance(this)
+                    .getCaloriesFromExercise(type, durationSeconds);
+            UserRepository.getInstance().saveWorkoutSession(
+                    type,
+                    repCount,
+                    durationSeconds,
+                    first ? sessionErrors : 0,
+                    first ? pipelineMetrics.toReport() : null,
+                    null);
+            UserRepository.getInstance().recordWorkoutToDaily(durationSeconds, caloriesEstimate);
+            first = false;
+
+            Log.d(TAG, "Circuit workout saved: " + type + ", reps=" + repCount + ", duration=" + durationSeconds + "s");
+        }
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
@@ -819,6 +1376,14 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
         if (timerHandler != null && timerRunnable != null) {
             timerHandler.removeCallbacks(timerRunnable);
         }
+        if (thermalThrottle != null) {
+            thermalThrottle.stop();
+        }
+
+        if (offlineAnalyzer != null) {
+            offlineAnalyzer.cancel();
+        }
+        stopLandmarkRecording();
 
         // Save workout if there was an active session
         if (isDetecting.get() && sessionStartTime > 0) {
@@ -826,17 +1391,17 @@ public class ExerciseActivity extends AppCompatActivity implements PoseLandmarke
         }
         isDetecting.set(false);
 
-        if (cameraExecutor != null) {
-            cameraExecutor.shutdown();
+        if (imageAnalysis != null) {
+            imageAnalysis.clearAnalyzer();
         }
+        // Closes the landmarker after any frame still being analyzed
+        retireLandmarker(cameraExecutor, poseLandmarkerHelper);
         if (videoExecutor != null) {
             videoExecutor.shutdown();
         }
-        if (poseLandmarkerHelper != null) {
-            poseLandmarkerHelper.clearPoseLandmarker();
-        }
-        if (exerciseDetector != null) {
-            exerciseDetector.close();
+        videoFramePool.clear();
+        if (analysisPipeline != null) {
+            analysisPipeline.close(); // Closes the detector on the analysis thread
         }
         if (tts != null) {
             tts.stop();
@@ -20,6 +20,8 @@ import androidx.cardview.widget.CardView;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
+import com.alignify.exercises.MultiExerciseDetector;
+import com.alignify.pose.PoseWarmup;
 import com.google.android.material.switchmaterial.SwitchMaterial;
 
 /**
@@ -39,6 +41,7 @@ public class ExercisesFragment extends Fragment {
     private CardView cardBicepCurl;
     private CardView cardLunge;
     private CardView cardPlank;
+    private CardView cardCircuit;
 
     // Feedback toggles
     private SwitchMaterial voiceToggle;
@@ -84,11 +87,19 @@ public class ExercisesFragment extends Fragment {
         setupFeedbackToggles();
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        // Build the landmarker and form models in the background while the user picks
+        PoseWarmup.getInstance().prewarm(requireContext(), PoseWarmup.ALL_EXERCISES);
+    }
+
     private void initViews(View view) {
         cardSquat = view.findViewById(R.id.cardSquat);
         cardBicepCurl = view.findViewById(R.id.cardBicepCurl);
         cardLunge = view.findViewById(R.id.cardLunge);
         cardPlank = view.findViewById(R.id.cardPlank);
+        cardCircuit = view.findViewById(R.id.cardCircuit);
 
         voiceToggle = view.findViewById(R.id.voiceToggle);
         textToggle = view.findViewById(R.id.textToggle);
@@ -147,6 +158,8 @@ public class ExercisesFragment extends Fragment {
             cardLunge.setOnClickListener(v -> checkPermissionAndStart("lunge"));
         if (cardPlank != null)
             cardPlank.setOnClickListener(v -> checkPermissionAndStart("plank"));
+        if (cardCircuit != null)
+            cardCircuit.setOnClickListener(v -> checkPermissionAndStart(MultiExerciseDetector.EXERCISE_TYPE));
     }
 
     private void checkPermissionAndStart(String exerciseType) {
@@ -19,6 +19,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 import androidx.core.content.ContextCompat;
 
+import com.alignify.exercises.MultiExerciseDetector;
 import com.alignify.util.NavigationHelper;
 import com.google.android.material.switchmaterial.SwitchMaterial;
 
@@ -38,6 +39,7 @@ public class MainActivity extends AppCompatActivity {
     private CardView cardBicepCurl;
     private CardView cardLunge;
     private CardView cardPlank;
+    private CardView cardCircuit;
 
     // Feedback toggles
     private SwitchMaterial voiceToggle;
@@ -120,6 +122,7 @@ public class MainActivity extends AppCompatActivity {
         cardBicepCurl = findViewById(R.id.cardBicepCurl);
         cardLunge = findViewById(R.id.cardLunge);
         cardPlank = findViewById(R.id.cardPlank);
+        cardCircuit = findViewById(R.id.cardCircuit);
 
         // Feedback toggles
         voiceToggle = findViewById(R.id.voiceToggle);
@@ -181,6 +184,7 @@ public class MainActivity extends AppCompatActivity {
         cardBicepCurl.setOnClickListener(v -> checkPermissionAndStart("bicep_curl"));
         cardLunge.setOnClickListener(v -> checkPermissionAndStart("lunge"));
         cardPlank.setOnClickListener(v -> checkPermissionAndStart("plank"));
+        cardCircuit.setOnClickListener(v -> checkPermissionAndStart(MultiExerciseDetector.EXERCISE_TYPE));
     }
 
     private void setupBottomNavigation() {
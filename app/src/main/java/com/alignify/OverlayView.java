@@ -4,29 +4,53 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Typeface;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.View;
 
 import androidx.annotation.Nullable;
 
-import com.google.mediapipe.tasks.components.containers.NormalizedLandmark;
-import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
-
-import java.util.List;
+import com.alignify.pose.LandmarkInterpolator;
+import com.alignify.pose.PoseFrame;
 
 /**
  * Custom view for drawing pose landmarks and connections on top of camera
  * preview.
+ *
+ * Landmarks are mapped to view coordinates once per displayed pose (or size
+ * change) into reusable arrays, so onDraw is one drawLines and one drawPoints
+ * call and never allocates.
+ *
+ * Poses arrive at the detection rate, which is usually below the display
+ * rate. Between results a Choreographer callback samples a
+ * {@link LandmarkInterpolator} every vsync, so the skeleton moves smoothly
+ * even when inference is throttled.
  */
 public class OverlayView extends View {
 
-    private PoseLandmarkerResult results;
+    private static final int DEFAULT_LANDMARK_COLOR = Color.parseColor("#FF5722");
+    private static final int DEFAULT_CONNECTION_COLOR = Color.parseColor("#00BCD4");
+    private static final int CORRECT_LANDMARK_COLOR = Color.GREEN;
+    private static final int CORRECT_CONNECTION_COLOR = Color.parseColor("#4CAF50");
+    private static final int INCORRECT_LANDMARK_COLOR = Color.RED;
+    private static final int INCORRECT_CONNECTION_COLOR = Color.parseColor("#F44336");
+
+    private static final float LANDMARK_RADIUS = 10f;
+
+    private final LandmarkInterpolator interpolator = new LandmarkInterpolator();
+    private final PoseFrame displayFrame = new PoseFrame(); // Interpolated pose being drawn
+    private boolean hasResults = false;
+    private boolean frameCallbackPosted = false;
+    private long minFrameIntervalMs = 0L; // Between interpolated frames; 0 is every vsync
     private int imageWidth = 1;
     private int imageHeight = 1;
     private boolean isFrontCamera = true;
 
     private final Paint landmarkPaint;
     private final Paint connectionPaint;
+    private final Paint debugPaint;
+    private String[] debugLines; // Latency readout, drawn top-left when set
 
     // Pose connections for drawing skeleton
     private final int[][] connections = {
@@ -45,6 +69,12 @@ public class OverlayView extends View {
             { 0, 4 }, { 4, 5 }, { 5, 6 }, { 6, 8 }
     };
 
+    // View-space coordinates, rebuilt by mapResults(): x0,y0,x1,y1 per line, x,y per point
+    private final float[] linePoints = new float[connections.length * 4];
+    private final float[] landmarkPoints = new float[PoseFrame.NUM_LANDMARKS * 2];
+    private int lineFloatCount = 0;
+    private int pointFloatCount = 0;
+
     public OverlayView(Context context) {
         this(context, null);
     }
@@ -56,87 +86,179 @@ public class OverlayView extends View {
     public OverlayView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
 
+        // Round caps make each point a filled circle of LANDMARK_RADIUS
         landmarkPaint = new Paint();
-        landmarkPaint.setColor(Color.parseColor("#FF5722"));
+        landmarkPaint.setColor(DEFAULT_LANDMARK_COLOR);
         landmarkPaint.setStyle(Paint.Style.FILL);
-        landmarkPaint.setStrokeWidth(8f);
+        landmarkPaint.setStrokeWidth(LANDMARK_RADIUS * 2f);
+        landmarkPaint.setStrokeCap(Paint.Cap.ROUND);
         landmarkPaint.setAntiAlias(true);
 
         connectionPaint = new Paint();
-        connectionPaint.setColor(Color.parseColor("#00BCD4"));
+        connectionPaint.setColor(DEFAULT_CONNECTION_COLOR);
         connectionPaint.setStyle(Paint.Style.STROKE);
         connectionPaint.setStrokeWidth(4f);
         connectionPaint.setAntiAlias(true);
+
+        debugPaint = new Paint();
+        debugPaint.setColor(Color.WHITE);
+        debugPaint.setTextSize(28f);
+        debugPaint.setTypeface(Typeface.MONOSPACE);
+        debugPaint.setShadowLayer(2f, 1f, 1f, Color.BLACK);
+        debugPaint.setAntiAlias(true);
     }
 
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            frameCallbackPosted = false;
+            updateDisplayFrame(frameTimeNanos);
+        }
+    };
+
     public void setResults(
-            PoseLandmarkerResult poseLandmarkerResult,
+            PoseFrame poseFrame,
             int imageWidth,
             int imageHeight,
             boolean isFrontCamera) {
-        this.results = poseLandmarkerResult;
         this.imageWidth = imageWidth;
         this.imageHeight = imageHeight;
         this.isFrontCamera = isFrontCamera;
 
+        long now = System.nanoTime();
+        interpolator.push(poseFrame, now);
+        updateDisplayFrame(now);
+    }
+
+    /**
+     * Sample the interpolator for {@code frameTimeNanos}, redraw, and keep
+     * sampling on later vsyncs while the pose is still moving.
+     */
+    private void updateDisplayFrame(long frameTimeNanos) {
+        hasResults = interpolator.sample(frameTimeNanos, displayFrame);
+        mapResults();
         invalidate();
+
+        if (hasResults && !frameCallbackPosted && isAttachedToWindow()
+                && interpolator.isAnimating(frameTimeNanos)) {
+            frameCallbackPosted = true;
+            if (minFrameIntervalMs > 0L) {
+                Choreographer.getInstance().postFrameCallbackDelayed(frameCallback, minFrameIntervalMs);
+            } else {
+                Choreographer.getInstance().postFrameCallback(frameCallback);
+            }
+        }
+    }
+
+    /**
+     * Limit how often interpolated frames are drawn between results, e.g. to
+     * save GPU time when the device is hot. 0 draws on every vsync.
+     */
+    public void setMinFrameIntervalMs(long intervalMs) {
+        this.minFrameIntervalMs = Math.max(0L, intervalMs);
+    }
+
+    private void stopAnimating() {
+        if (frameCallbackPosted) {
+            frameCallbackPosted = false;
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        stopAnimating();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mapResults();
+    }
+
+    /**
+     * Map the current results into view coordinates, mirroring x for the front camera.
+     */
+    private void mapResults() {
+        lineFloatCount = 0;
+        pointFloatCount = 0;
+        if (!hasResults || displayFrame.isEmpty())
+            return;
+
+        int landmarkCount = displayFrame.getLandmarkCount();
+        float width = getWidth();
+        float height = getHeight();
+
+        for (int i = 0; i < landmarkCount; i++) {
+            landmarkPoints[pointFloatCount++] = mapX(i, width);
+            landmarkPoints[pointFloatCount++] = displayFrame.y(i) * height;
+        }
+
+        for (int[] connection : connections) {
+            int start = connection[0];
+            int end = connection[1];
+            if (start >= landmarkCount || end >= landmarkCount)
+                continue;
+
+            linePoints[lineFloatCount++] = landmarkPoints[start * 2];
+            linePoints[lineFloatCount++] = landmarkPoints[start * 2 + 1];
+            linePoints[lineFloatCount++] = landmarkPoints[end * 2];
+            linePoints[lineFloatCount++] = landmarkPoints[end * 2 + 1];
+        }
+    }
+
+    private float mapX(int index, float width) {
+        float x = displayFrame.x(index);
+        return (isFrontCamera ? 1f - x : x) * width;
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        if (results != null && !results.landmarks().isEmpty()) {
-            List<NormalizedLandmark> landmarks = results.landmarks().get(0);
-
-            // Draw connections
-            for (int[] connection : connections) {
-                int start = connection[0];
-                int end = connection[1];
-
-                if (start < landmarks.size() && end < landmarks.size()) {
-                    NormalizedLandmark startLandmark = landmarks.get(start);
-                    NormalizedLandmark endLandmark = landmarks.get(end);
-
-                    // Mirror x-coordinate for front camera
-                    float startX = isFrontCamera ? (1f - startLandmark.x()) * getWidth()
-                            : startLandmark.x() * getWidth();
-                    float endX = isFrontCamera ? (1f - endLandmark.x()) * getWidth() : endLandmark.x() * getWidth();
-
-                    canvas.drawLine(
-                            startX,
-                            startLandmark.y() * getHeight(),
-                            endX,
-                            endLandmark.y() * getHeight(),
-                            connectionPaint);
-                }
-            }
-
-            // Draw landmarks
-            for (NormalizedLandmark landmark : landmarks) {
-                // Mirror x-coordinate for front camera
-                float x = isFrontCamera ? (1f - landmark.x()) * getWidth() : landmark.x() * getWidth();
+        if (lineFloatCount > 0) {
+            canvas.drawLines(linePoints, 0, lineFloatCount, connectionPaint);
+        }
+        if (pointFloatCount > 0) {
+            canvas.drawPoints(landmarkPoints, 0, pointFloatCount, landmarkPaint);
+        }
 
-                canvas.drawCircle(
-                        x,
-                        landmark.y() * getHeight(),
-                        10f,
-                        landmarkPaint);
+        if (debugLines != null) {
+            float lineHeight = debugPaint.getTextSize() * 1.2f;
+            for (int i = 0; i < debugLines.length; i++) {
+                canvas.drawText(debugLines[i], 16f, lineHeight * (i + 1), debugPaint);
             }
         }
     }
 
+    /**
+     * Show diagnostic text lines (e.g. pipeline latency) over the preview; null hides them.
+     */
+    public void setDebugLines(@Nullable String[] lines) {
+        this.debugLines = lines;
+        invalidate();
+    }
+
     /**
      * Set the color of landmarks based on detection result.
      */
     public void setFeedbackColor(boolean isCorrect) {
-        landmarkPaint.setColor(isCorrect ? Color.GREEN : Color.RED);
-        connectionPaint.setColor(isCorrect ? Color.parseColor("#4CAF50") : Color.parseColor("#F44336"));
+        int landmarkColor = isCorrect ? CORRECT_LANDMARK_COLOR : INCORRECT_LANDMARK_COLOR;
+        int connectionColor = isCorrect ? CORRECT_CONNECTION_COLOR : INCORRECT_CONNECTION_COLOR;
+        if (landmarkPaint.getColor() == landmarkColor && connectionPaint.getColor() == connectionColor)
+            return;
+
+        landmarkPaint.setColor(landmarkColor);
+        connectionPaint.setColor(connectionColor);
         invalidate();
     }
 
     public void clear() {
-        results = null;
+        stopAnimating();
+        interpolator.reset();
+        hasResults = false;
+        mapResults();
         invalidate();
     }
 }
@@ -1,15 +1,24 @@
 package com.alignify;
 
 import android.content.Context;
+import android.os.SystemClock;
 import android.util.Log;
 
+import com.alignify.ml.ModelManager;
+import com.alignify.pose.LandmarkerDelegateStore;
+import com.alignify.pose.LandmarkerModel;
+import com.alignify.utils.LatencyHistogram;
 import com.google.mediapipe.framework.image.MPImage;
 import com.google.mediapipe.tasks.core.BaseOptions;
 import com.google.mediapipe.tasks.core.Delegate;
+import com.google.mediapipe.tasks.vision.core.ImageProcessingOptions;
 import com.google.mediapipe.tasks.vision.core.RunningMode;
 import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarker;
 import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
 
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+
 /**
  * Helper class for MediaPipe Pose Landmarker.
  * Handles initialization, configuration, and inference for pose detection.
@@ -17,7 +26,10 @@ import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
 public class PoseLandmarkerHelper {
 
     private static final String TAG = "PoseLandmarkerHelper";
-    private static final String MP_POSE_LANDMARKER_TASK = "pose_landmarker_lite.task";
+
+    // Sessions shorter than this don't say much about per-frame latency
+    private static final int MIN_LATENCY_SAMPLES = 30;
+    private static final int PENDING_FRAMES = 8;
 
     private final Context context;
     private final RunningMode runningMode;
@@ -25,9 +37,24 @@ public class PoseLandmarkerHelper {
     private final float minPoseTrackingConfidence;
     private final float minPosePresenceConfidence;
     private final Delegate delegate;
-    private final LandmarkerListener poseLandmarkerListener;
+    private final LandmarkerModel model;
+    private volatile LandmarkerListener poseLandmarkerListener; // Swappable so a prewarmed helper can be handed over
 
     private PoseLandmarker poseLandmarker;
+    private Delegate activeDelegate;
+    private boolean autoDelegate = false; // GPU requested: remembered per device with CPU fallback
+
+    // Per-frame latency for this session. Live-stream submissions are matched to
+    // results by timestamp; guarded by latencyLock.
+    private final Object latencyLock = new Object();
+    private final long[] pendingTimestamps = new long[PENDING_FRAMES];
+    private final long[] pendingSubmitNanos = new long[PENDING_FRAMES];
+    private int pendingNext = 0;
+    private long latencySumNanos = 0L;
+    private int latencySamples = 0;
+    private boolean firstInferenceSeen = false; // First run includes lazy init, so it isn't counted
+    // Optional per-frame distributions, e.g. session metrics and the capability profiler
+    private volatile LatencyHistogram[] latencyHistograms = new LatencyHistogram[0];
 
     public PoseLandmarkerHelper(
             Context context,
@@ -37,33 +64,64 @@ public class PoseLandmarkerHelper {
             float minPosePresenceConfidence,
             Delegate delegate,
             LandmarkerListener poseLandmarkerListener) {
+        this(context, runningMode, minPoseDetectionConfidence, minPoseTrackingConfidence,
+                minPosePresenceConfidence, delegate, LandmarkerModel.LITE, poseLandmarkerListener);
+    }
+
+    public PoseLandmarkerHelper(
+            Context context,
+            RunningMode runningMode,
+            float minPoseDetectionConfidence,
+            float minPoseTrackingConfidence,
+            float minPosePresenceConfidence,
+            Delegate delegate,
+            LandmarkerModel model,
+            LandmarkerListener poseLandmarkerListener) {
         this.context = context;
         this.runningMode = runningMode;
         this.minPoseDetectionConfidence = minPoseDetectionConfidence;
         this.minPoseTrackingConfidence = minPoseTrackingConfidence;
         this.minPosePresenceConfidence = minPosePresenceConfidence;
         this.delegate = delegate;
+        this.model = model;
         this.poseLandmarkerListener = poseLandmarkerListener;
 
         setupPoseLandmarker();
     }
 
     private void setupPoseLandmarker() {
-        // Try GPU first for better performance, fallback to CPU if GPU fails
+        // GPU means "fastest available": start with the delegate that won on this
+        // device before (or GPU on first run), fall back to the other one
         Delegate[] delegatesToTry;
+        LandmarkerDelegateStore delegateStore = null;
         if (delegate == Delegate.GPU) {
-            delegatesToTry = new Delegate[] { Delegate.GPU, Delegate.CPU };
+            autoDelegate = true;
+            delegateStore = LandmarkerDelegateStore.getInstance(context);
+            delegatesToTry = delegateStore.delegatesToTry();
         } else {
             delegatesToTry = new Delegate[] { delegate };
         }
 
+        // Downloaded variants live in ModelManager's directory; the rest are bundled assets
+        MappedByteBuffer downloadedModel = null;
+        try {
+            downloadedModel = ModelManager.getInstance(context).loadModel(model.getModelName());
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to map downloaded " + model.getFileName() + ", using bundled asset", e);
+        }
+
         Exception lastError = null;
 
         for (Delegate currentDelegate : delegatesToTry) {
+            long initStart = SystemClock.elapsedRealtime();
             try {
                 BaseOptions.Builder baseOptionsBuilder = BaseOptions.builder()
-                        .setDelegate(currentDelegate)
-                        .setModelAssetPath(MP_POSE_LANDMARKER_TASK);
+                        .setDelegate(currentDelegate);
+                if (downloadedModel != null) {
+                    baseOptionsBuilder.setModelAssetBuffer(downloadedModel);
+                } else {
+                    baseOptionsBuilder.setModelAssetPath(model.getFileName());
+                }
 
                 PoseLandmarker.PoseLandmarkerOptions.Builder optionsBuilder = PoseLandmarker.PoseLandmarkerOptions
                         .builder()
@@ -76,26 +134,38 @@ public class PoseLandmarkerHelper {
                 if (runningMode == RunningMode.LIVE_STREAM) {
                     optionsBuilder
                             .setResultListener((result, input) -> {
-                                if (poseLandmarkerListener != null) {
-                                    poseLandmarkerListener.onResults(result, input);
+                                onLiveStreamResult(result.timestampMs());
+                                LandmarkerListener listener = poseLandmarkerListener;
+                                if (listener != null) {
+                                    listener.onResults(result, input);
                                 }
                             })
                             .setErrorListener(error -> {
-                                if (poseLandmarkerListener != null) {
+                                LandmarkerListener listener = poseLandmarkerListener;
+                                if (listener != null) {
                                     String errorMessage = error.getMessage() != null ? error.getMessage()
                                             : "Unknown error";
-                                    poseLandmarkerListener.onError(errorMessage);
+                                    listener.onError(errorMessage);
                                 }
                             });
                 }
 
                 poseLandmarker = PoseLandmarker.createFromOptions(context, optionsBuilder.build());
+                activeDelegate = currentDelegate;
+                long initMs = SystemClock.elapsedRealtime() - initStart;
+                if (delegateStore != null) {
+                    delegateStore.recordInit(currentDelegate, initMs, true);
+                }
 
-                Log.i(TAG, "PoseLandmarker initialized successfully with " + currentDelegate.name() + " delegate");
+                Log.i(TAG, "PoseLandmarker (" + model + ") initialized successfully with "
+                        + currentDelegate.name() + " delegate in " + initMs + " ms");
                 return; // Success, exit
 
             } catch (Exception e) {
                 lastError = e;
+                if (delegateStore != null) {
+                    delegateStore.recordInit(currentDelegate, SystemClock.elapsedRealtime() - initStart, false);
+                }
                 Log.w(TAG, "Failed to setup PoseLandmarker with " + currentDelegate.name() + ": " + e.getMessage());
                 // Continue to next delegate
             }
@@ -117,10 +187,24 @@ public class PoseLandmarkerHelper {
     public void detectLiveStream(MPImage imageProxy, long frameTime) {
         PoseLandmarker lm = poseLandmarker; // Local snapshot to avoid TOCTOU race
         if (lm != null) {
+            onLiveStreamSubmit(frameTime);
             lm.detectAsync(imageProxy, frameTime);
         }
     }
 
+    /**
+     * Detect poses in live stream with image processing options (e.g. rotation).
+     * Landmarks are reported in the unrotated input frame.
+     * Results are delivered via the listener callback.
+     */
+    public void detectLiveStream(MPImage image, ImageProcessingOptions options, long frameTime) {
+        PoseLandmarker lm = poseLandmarker; // Local snapshot to avoid TOCTOU race
+        if (lm != null) {
+            onLiveStreamSubmit(frameTime);
+            lm.detectAsync(image, options, frameTime);
+        }
+    }
+
     /**
      * Detect poses in a single image.
      * Returns the result directly.
@@ -130,7 +214,14 @@ public class PoseLandmarkerHelper {
             Log.e(TAG, "detectImage requires IMAGE running mode");
             return null;
         }
-        return poseLandmarker != null ? poseLandmarker.detect(image) : null;
+        PoseLandmarker lm = poseLandmarker;
+        if (lm == null)
+            return null;
+
+        long start = System.nanoTime();
+        PoseLandmarkerResult result = lm.detect(image);
+        recordLatency(System.nanoTime() - start);
+        return result;
     }
 
     /**
@@ -142,7 +233,36 @@ public class PoseLandmarkerHelper {
             Log.e(TAG, "detectVideoFrame requires VIDEO running mode");
             return null;
         }
-        return poseLandmarker != null ? poseLandmarker.detectForVideo(image, frameTimeMs) : null;
+        PoseLandmarker lm = poseLandmarker;
+        if (lm == null)
+            return null;
+
+        long start = System.nanoTime();
+        PoseLandmarkerResult result = lm.detectForVideo(image, frameTimeMs);
+        recordLatency(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Replace the listener that receives live-stream results and errors.
+     */
+    public void setListener(LandmarkerListener listener) {
+        this.poseLandmarkerListener = listener;
+    }
+
+    /**
+     * Also record every per-frame latency into each of {@code histograms};
+     * call with none to stop.
+     */
+    public void setLatencyHistograms(LatencyHistogram... histograms) {
+        this.latencyHistograms = histograms.clone();
+    }
+
+    /**
+     * Landmarker variant this helper was built with.
+     */
+    public LandmarkerModel getModel() {
+        return model;
     }
 
     /**
@@ -159,6 +279,70 @@ public class PoseLandmarkerHelper {
         if (poseLandmarker != null) {
             poseLandmarker.close();
             poseLandmarker = null;
+            reportSessionLatency();
+        }
+    }
+
+    /**
+     * Delegate the landmarker is running on, or null if setup failed.
+     */
+    public Delegate getActiveDelegate() {
+        return activeDelegate;
+    }
+
+    private void onLiveStreamSubmit(long frameTime) {
+        synchronized (latencyLock) {
+            pendingTimestamps[pendingNext] = frameTime;
+            pendingSubmitNanos[pendingNext] = System.nanoTime();
+            pendingNext = (pendingNext + 1) % PENDING_FRAMES;
+        }
+    }
+
+    private void onLiveStreamResult(long frameTime) {
+        long now = System.nanoTime();
+        synchronized (latencyLock) {
+            for (int i = 0; i < PENDING_FRAMES; i++) {
+                if (pendingSubmitNanos[i] != 0L && pendingTimestamps[i] == frameTime) {
+                    long latency = now - pendingSubmitNanos[i];
+                    pendingSubmitNanos[i] = 0L;
+                    recordLatency(latency);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        synchronized (latencyLock) {
+            if (!firstInferenceSeen) {
+                firstInferenceSeen = true;
+                return;
+            }
+            latencySumNanos += nanos;
+            latencySamples++;
+        }
+
+        for (LatencyHistogram histogram : latencyHistograms) {
+            histogram.recordNanos(nanos);
+        }
+    }
+
+    /**
+     * Feed this session's average per-frame latency back into the delegate choice.
+     */
+    private void reportSessionLatency() {
+        float averageMs;
+        int samples;
+        synchronized (latencyLock) {
+            samples = latencySamples;
+            averageMs = samples > 0 ? latencySumNanos / 1e6f / samples : 0f;
+            latencySumNanos = 0L;
+            latencySamples = 0;
+        }
+
+        if (autoDelegate && activeDelegate != null && samples >= MIN_LATENCY_SAMPLES) {
+            Log.d(TAG, activeDelegate.name() + " averaged " + averageMs + " ms/frame over " + samples + " frames");
+            LandmarkerDelegateStore.getInstance(context).recordFrameLatency(activeDelegate, averageMs);
         }
     }
 
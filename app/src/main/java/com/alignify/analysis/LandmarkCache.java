@@ -0,0 +1,364 @@
+package com.alignify.analysis;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import com.alignify.pose.LandmarkerDelegateStore;
+import com.alignify.pose.LandmarkerModel;
+import com.alignify.pose.PoseFrame;
+import com.alignify.pose.PoseSource;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * On-disk cache of the raw per-frame landmark stream the pose landmarker
+ * produced for a video, so analysing the same video again (another exercise
+ * type, tuned thresholds) replays landmarks instead of decoding and running
+ * MediaPipe.
+ *
+ * Entries are keyed by a hash of the video's content, not its URI, since
+ * picker URIs are not stable. Each entry is one file: a fixed header
+ * followed by one fixed-size record per frame (timestamp, landmark count,
+ * packed x/y/z/visibility), read back through a memory map. Frames are
+ * stored before smoothing, exactly as the landmarker returned them, so
+ * replay goes through the same filter and detector as a fresh run.
+ *
+ * The cache is trimmed to {@link #MAX_CACHE_BYTES}, least recently used first.
+ */
+public class LandmarkCache {
+    private static final String TAG = "LandmarkCache";
+    private static final String DIR_NAME = "landmarks";
+    private static final String FILE_SUFFIX = ".lmk";
+
+    // magic, format version, landmarks per record, floats per landmark, frame count, duration (us)
+    private static final int MAGIC = 0x4B4D4C41; // "ALMK"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 * 5 + 8;
+    private static final int RECORD_FLOATS = PoseFrame.NUM_LANDMARKS * PoseFrame.STRIDE;
+    // timestamp (ms), landmark count, landmarks
+    private static final int RECORD_BYTES = 8 + 4 + RECORD_FLOATS * 4;
+
+    // Hashing the whole video would cost seconds for long clips; size plus
+    // three samples tells different recordings apart just as well
+    private static final int HASH_SAMPLE_BYTES = 1 << 20;
+
+    static final long MAX_CACHE_BYTES = 64L * 1024 * 1024;
+
+    private static LandmarkCache instance;
+
+    private final Context context;
+    private final File cacheDir;
+
+    private LandmarkCache(Context context) {
+        this.context = context.getApplicationContext();
+        this.cacheDir = new File(this.context.getCacheDir(), DIR_NAME);
+    }
+
+    /**
+     * Cache in {@code cacheDir}, for tests. {@link #keyFor} needs a context
+     * and is unavailable.
+     */
+    LandmarkCache(File cacheDir) {
+        this.context = null;
+        this.cacheDir = cacheDir;
+    }
+
+    public static synchronized LandmarkCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new LandmarkCache(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Cache key for the landmarks {@code model} produces on the video at
+     * {@code videoUri} decoded to at most {@code frameMaxEdge}. Reads up to a
+     * few megabytes of the video; call off the main thread.
+     */
+    public String keyFor(Uri videoUri, LandmarkerModel model, int frameMaxEdge) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        try (ParcelFileDescriptor pfd = context.getContentResolver().openFileDescriptor(videoUri, "r")) {
+            if (pfd == null) {
+                throw new IOException("Cannot open " + videoUri);
+            }
+            try (FileInputStream input = new FileInputStream(pfd.getFileDescriptor())) {
+                FileChannel channel = input.getChannel();
+                long size = channel.size();
+                digest.update(ByteBuffer.allocate(8).putLong(0, size));
+
+                ByteBuffer sample = ByteBuffer.allocate(HASH_SAMPLE_BYTES);
+                long[] offsets = { 0L, Math.max(0L, size / 2 - HASH_SAMPLE_BYTES / 2),
+                        Math.max(0L, size - HASH_SAMPLE_BYTES) };
+                for (long offset : offsets) {
+                    sample.clear();
+                    while (sample.hasRemaining() && channel.read(sample, offset + sample.position()) > 0) {
+                        // Keep reading until the sample is full or the file ends
+                    }
+                    sample.flip();
+                    digest.update(sample);
+                }
+            }
+        }
+
+        // Landmarks depend on the model, input size and MediaPipe build as well as the video
+        digest.update((model.getModelName() + "|" + frameMaxEdge + "|" + LandmarkerDelegateStore.MEDIAPIPE_VERSION
+                + "|" + FORMAT_VERSION).getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Open the cached landmark stream for {@code key}.
+     *
+     * @return null if there is no valid entry
+     */
+    public Reader open(String key) {
+        File file = fileFor(key);
+        if (!file.isFile())
+            return null;
+
+        try {
+            Reader reader = new Reader(file);
+            file.setLastModified(System.currentTimeMillis()); // For LRU trimming
+            return reader;
+        } catch (IOException e) {
+            Log.w(TAG, "Dropping unreadable entry " + file.getName(), e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Start recording a landmark stream for {@code key}. Nothing becomes
+     * visible to {@link #open} until {@link Writer#commit()}.
+     */
+    public Writer create(String key, long durationUs) throws IOException {
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            throw new IOException("Cannot create " + cacheDir);
+        }
+        return new Writer(this, fileFor(key), durationUs);
+    }
+
+    private File fileFor(String key) {
+        return new File(cacheDir, key + FILE_SUFFIX);
+    }
+
+    /**
+     * Delete the least recently used entries until the cache fits its budget.
+     */
+    private synchronized void trim() {
+        File[] files = cacheDir.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null)
+            return;
+
+        long total = 0L;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= MAX_CACHE_BYTES)
+            return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (total <= MAX_CACHE_BYTES)
+                break;
+            total -= file.length();
+            file.delete();
+            Log.d(TAG, "Evicted " + file.getName());
+        }
+    }
+
+    /**
+     * Replays a cached landmark stream. Returns the same PoseFrame instance on
+     * every call, overwritten with the next record.
+     */
+    public static final class Reader implements PoseSource {
+        private final MappedByteBuffer buffer;
+        private final int frameCount;
+        private final long durationUs;
+        private final PoseFrame frame = new PoseFrame();
+        private final float[] landmarks = new float[RECORD_FLOATS];
+        private int next = 0;
+
+        Reader(File file) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                FileChannel channel = raf.getChannel();
+                // The mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC
+                    || buffer.getInt(4) != FORMAT_VERSION
+                    || buffer.getInt(8) != PoseFrame.NUM_LANDMARKS
+                    || buffer.getInt(12) != PoseFrame.STRIDE) {
+                throw new IOException("Not a landmark cache file");
+            }
+            frameCount = buffer.getInt(16);
+            durationUs = buffer.getLong(20);
+            if (buffer.capacity() != HEADER_BYTES + (long) frameCount * RECORD_BYTES) {
+                throw new IOException("Truncated landmark cache file");
+            }
+            // Checked up front so next() can trust every record
+            for (int i = 0; i < frameCount; i++) {
+                int landmarkCount = buffer.getInt(HEADER_BYTES + i * RECORD_BYTES + 8);
+                if (landmarkCount < 0 || landmarkCount > PoseFrame.NUM_LANDMARKS) {
+                    throw new IOException("Bad landmark count " + landmarkCount + " in frame " + i);
+                }
+            }
+        }
+
+        public int getFrameCount() {
+            return frameCount;
+        }
+
+        @Override
+        public long getDurationMs() {
+            return durationUs > 0L ? durationUs / 1000L : -1L;
+        }
+
+        @Override
+        public PoseFrame next() {
+            if (next >= frameCount)
+                return null;
+
+            int offset = HEADER_BYTES + next * RECORD_BYTES;
+            long timestampMs = buffer.getLong(offset);
+            int landmarkCount = buffer.getInt(offset + 8);
+            int floats = landmarkCount * PoseFrame.STRIDE;
+            for (int i = 0; i < floats; i++) {
+                landmarks[i] = buffer.getFloat(offset + 12 + i * 4);
+            }
+            frame.set(timestampMs, landmarks, landmarkCount);
+            next++;
+            return frame;
+        }
+
+        @Override
+        public void close() {
+            // The mapping is released with the buffer
+        }
+    }
+
+    /**
+     * Appends frames to a temporary file that replaces the entry on
+     * {@link #commit()}. Closing without committing discards it.
+     */
+    public static final class Writer implements Closeable {
+        private final LandmarkCache cache;
+        private final File target;
+        private final File temp;
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private final long durationUs;
+        private int frameCount = 0;
+        private boolean finished = false;
+
+        Writer(LandmarkCache cache, File target, long durationUs) throws IOException {
+            this.cache = cache;
+            this.target = target;
+            this.temp = new File(target.getPath() + ".tmp");
+            this.durationUs = durationUs;
+            this.raf = new RandomAccessFile(temp, "rw");
+            this.raf.setLength(0L);
+            this.channel = raf.getChannel();
+            channel.position(HEADER_BYTES); // Header is written on commit, once the count is known
+        }
+
+        /**
+         * Record one raw landmarker frame, in timestamp order.
+         */
+        public void append(PoseFrame frame) throws IOException {
+            record.clear();
+            record.putLong(frame.getTimestampMs());
+            int landmarkCount = frame.getLandmarkCount();
+            record.putInt(landmarkCount);
+            for (int i = 0; i < landmarkCount; i++) {
+                record.putFloat(frame.x(i));
+                record.putFloat(frame.y(i));
+                record.putFloat(frame.z(i));
+                record.putFloat(frame.visibility(i));
+            }
+            // Fixed-size records keep every frame at a computable offset
+            while (record.position() < RECORD_BYTES) {
+                record.putFloat(0f);
+            }
+            record.flip();
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            frameCount++;
+        }
+
+        /**
+         * Write the header and publish the entry under its key.
+         */
+        public void commit() throws IOException {
+            if (finished) {
+                throw new IOException("Writer already closed");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putInt(PoseFrame.NUM_LANDMARKS)
+                    .putInt(PoseFrame.STRIDE)
+                    .putInt(frameCount)
+                    .putLong(durationUs);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(false);
+            raf.close();
+            finished = true;
+
+            if (!temp.renameTo(target)) {
+                temp.delete();
+                throw new IOException("Cannot publish " + target);
+            }
+            Log.d(TAG, "Cached " + frameCount + " frames in " + target.getName());
+            cache.trim();
+        }
+
+        /**
+         * Discard the entry unless it was committed.
+         */
+        @Override
+        public void close() {
+            if (finished)
+                return;
+            finished = true;
+            try {
+                raf.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Error closing " + temp.getName(), e);
+            }
+            temp.delete();
+        }
+    }
+}
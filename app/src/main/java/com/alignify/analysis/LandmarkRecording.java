@@ -0,0 +1,240 @@
+package com.alignify.analysis;
+
+import com.alignify.pose.PoseFrame;
+import com.alignify.pose.PoseSource;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A recorded sequence of upright, unsmoothed pose frames in a portable text
+ * format, for replaying detectors without a camera in unit tests and the
+ * benchmarks module.
+ *
+ * The file is UTF-8 CSV, one frame per line:
+ *
+ * <pre>
+ * # alignify-landmarks 1
+ * # exercise=squat
+ * # expect.reps=10
+ * timestamp_ms,landmarks,x0,y0,z0,v0,x1,...
+ * 1033,33,0.5123,0.2871,-0.1342,0.9987,...
+ * 1066,0
+ * </pre>
+ *
+ * Lines starting with {@code #} are comments; {@code key=value} comments are
+ * metadata. Floats are written with {@link Float#toString}, which reads back
+ * bit-exact. Unlike {@link LandmarkCache}, the format is meant to be edited
+ * by hand (expectations are added as metadata) and checked in.
+ *
+ * Frames are kept packed in memory, so a recording can be replayed any
+ * number of times.
+ */
+public final class LandmarkRecording {
+
+    public static final String FILE_SUFFIX = ".landmarks.csv";
+    public static final String KEY_EXERCISE = "exercise";
+
+    private static final String FORMAT_LINE = "# alignify-landmarks 1";
+    private static final String COLUMNS_PREFIX = "timestamp_ms,";
+    private static final int RECORD_FLOATS = PoseFrame.NUM_LANDMARKS * PoseFrame.STRIDE;
+
+    private final Map<String, String> metadata;
+    private final int frameCount;
+    private final long[] timestamps;
+    private final int[] landmarkCounts;
+    private final float[] landmarks; // RECORD_FLOATS per frame
+
+    private LandmarkRecording(Map<String, String> metadata, int frameCount, long[] timestamps,
+            int[] landmarkCounts, float[] landmarks) {
+        this.metadata = Collections.unmodifiableMap(metadata);
+        this.frameCount = frameCount;
+        this.timestamps = timestamps;
+        this.landmarkCounts = landmarkCounts;
+        this.landmarks = landmarks;
+    }
+
+    public static LandmarkRecording read(File file) throws IOException {
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            return read(in);
+        }
+    }
+
+    public static LandmarkRecording read(BufferedReader in) throws IOException {
+        String line = in.readLine();
+        if (line == null || !line.trim().equals(FORMAT_LINE)) {
+            throw new IOException("Not a landmark recording");
+        }
+
+        Map<String, String> metadata = new LinkedHashMap<>();
+        int frameCount = 0;
+        long[] timestamps = new long[256];
+        int[] landmarkCounts = new int[256];
+        float[] landmarks = new float[256 * RECORD_FLOATS];
+        int lineNumber = 1;
+
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith(COLUMNS_PREFIX))
+                continue;
+            if (line.startsWith("#")) {
+                int separator = line.indexOf('=');
+                if (separator > 0) {
+                    metadata.put(line.substring(1, separator).trim(), line.substring(separator + 1).trim());
+                }
+                continue;
+            }
+
+            if (frameCount == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, frameCount * 2);
+                landmarkCounts = Arrays.copyOf(landmarkCounts, frameCount * 2);
+                landmarks = Arrays.copyOf(landmarks, frameCount * 2 * RECORD_FLOATS);
+            }
+
+            String[] fields = line.split(",");
+            try {
+                int landmarkCount = Integer.parseInt(fields[1]);
+                if (landmarkCount < 0 || landmarkCount > PoseFrame.NUM_LANDMARKS
+                        || fields.length != 2 + landmarkCount * PoseFrame.STRIDE) {
+                    throw new IOException("Malformed frame at line " + lineNumber);
+                }
+                timestamps[frameCount] = Long.parseLong(fields[0]);
+                landmarkCounts[frameCount] = landmarkCount;
+                int offset = frameCount * RECORD_FLOATS;
+                for (int i = 2; i < fields.length; i++) {
+                    landmarks[offset + i - 2] = Float.parseFloat(fields[i]);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Malformed frame at line " + lineNumber, e);
+            }
+            frameCount++;
+        }
+        return new LandmarkRecording(metadata, frameCount, timestamps, landmarkCounts, landmarks);
+    }
+
+    /**
+     * {@code key=value} comments from the file header, in file order.
+     */
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * @return null if the recording has no such metadata
+     */
+    public String get(String key) {
+        return metadata.get(key);
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public long getDurationMs() {
+        return frameCount > 0 ? timestamps[frameCount - 1] - timestamps[0] : 0L;
+    }
+
+    /**
+     * Replay every frame in order. The source returns the same PoseFrame on
+     * every call, overwritten with the next frame, so it may be smoothed in
+     * place without affecting later replays.
+     */
+    public PoseSource source() {
+        return new PoseSource() {
+            private final PoseFrame frame = new PoseFrame();
+            private final float[] packed = new float[RECORD_FLOATS];
+            private int next = 0;
+
+            @Override
+            public PoseFrame next() {
+                if (next >= frameCount)
+                    return null;
+
+                int landmarkCount = landmarkCounts[next];
+                System.arraycopy(landmarks, next * RECORD_FLOATS, packed, 0, landmarkCount * PoseFrame.STRIDE);
+                frame.set(timestamps[next], packed, landmarkCount);
+                next++;
+                return frame;
+            }
+
+            @Override
+            public long getDurationMs() {
+                return LandmarkRecording.this.getDurationMs();
+            }
+
+            @Override
+            public void close() {
+                // Frames stay in memory for the next replay
+            }
+        };
+    }
+
+    /**
+     * Writes frames as they arrive. Not thread-safe.
+     */
+    public static final class Writer implements Closeable {
+        private final BufferedWriter out;
+        private final StringBuilder line = new StringBuilder(4096);
+        private int frameCount = 0;
+
+        /**
+         * Write the header; {@code metadata} values must not contain line breaks.
+         */
+        public Writer(BufferedWriter out, Map<String, String> metadata) throws IOException {
+            this.out = out;
+            out.write(FORMAT_LINE);
+            out.newLine();
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                out.write("# " + entry.getKey() + "=" + entry.getValue());
+                out.newLine();
+            }
+
+            line.setLength(0);
+            line.append(COLUMNS_PREFIX).append("landmarks");
+            for (int i = 0; i < PoseFrame.NUM_LANDMARKS; i++) {
+                line.append(",x").append(i).append(",y").append(i).append(",z").append(i).append(",v").append(i);
+            }
+            out.write(line.toString());
+            out.newLine();
+        }
+
+        /**
+         * Record one unsmoothed frame, in timestamp order.
+         */
+        public void append(PoseFrame frame) throws IOException {
+            line.setLength(0);
+            int landmarkCount = frame.getLandmarkCount();
+            line.append(frame.getTimestampMs()).append(',').append(landmarkCount);
+            for (int i = 0; i < landmarkCount; i++) {
+                line.append(',').append(frame.x(i))
+                        .append(',').append(frame.y(i))
+                        .append(',').append(frame.z(i))
+                        .append(',').append(frame.visibility(i));
+            }
+            out.write(line.toString());
+            out.newLine();
+            frameCount++;
+        }
+
+        public int getFrameCount() {
+            return frameCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
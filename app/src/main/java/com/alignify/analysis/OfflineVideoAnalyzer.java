@@ -0,0 +1,214 @@
+package com.alignify.analysis;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.alignify.exercises.ExerciseDetector;
+import com.alignify.exercises.TFLiteFormClassifier;
+import com.alignify.pose.DeviceCapabilityProfiler;
+import com.alignify.pose.LandmarkerModel;
+import com.alignify.pose.OneEuroLandmarkFilter;
+import com.alignify.pose.PoseFrame;
+import com.alignify.pose.PoseSource;
+import com.alignify.pose.VideoPoseSource;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * Analyses a workout video for its report rather than for playback: every
+ * frame is run through the pose landmarker and the exercise detector as fast
+ * as the device allows, with no wall-clock pacing.
+ *
+ * Poses come from {@link VideoPoseSource}, whose landmarker runs with the
+ * detector on the executor passed to {@link #start}. The rep timeline logic
+ * itself lives in {@link PoseStreamAnalyzer}.
+ *
+ * The landmarks of a full pass are kept in {@link LandmarkCache}; analysing
+ * the same video again replays them without the decoder or landmarker.
+ */
+public class OfflineVideoAnalyzer {
+    private static final String TAG = "OfflineVideoAnalyzer";
+
+    /**
+     * Called on the main thread.
+     */
+    public interface Listener {
+        /**
+         * @param fraction share of the video analysed, 0-1; negative if the
+         *                 duration is unknown
+         */
+        void onProgress(float fraction, int framesAnalyzed);
+
+        /**
+         * Analysis finished or was cancelled; see {@link RepTimeline#isComplete()}.
+         */
+        void onComplete(RepTimeline timeline);
+
+        void onError(Exception error);
+    }
+
+    /**
+     * Longest edge videos are decoded at for the landmarker. Playback decodes
+     * at the same size so its landmarks can be cached for analysis.
+     */
+    public static final int FRAME_MAX_EDGE = 640;
+
+    private static final long PROGRESS_INTERVAL_MS = 200L;
+
+    private final Context context;
+    private final Uri videoUri;
+    private final String exerciseType;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile PoseStreamAnalyzer streamAnalyzer;
+    private volatile boolean cancelled = false;
+
+    public OfflineVideoAnalyzer(Context context, Uri videoUri, String exerciseType) {
+        this.context = context.getApplicationContext();
+        this.videoUri = videoUri;
+        this.exerciseType = exerciseType;
+    }
+
+    /**
+     * Analyse the video on {@code executor}, reporting to {@code listener} on
+     * the main thread.
+     */
+    public void start(Executor executor, Listener listener) {
+        executor.execute(() -> run(listener));
+    }
+
+    /**
+     * Stop after the current frame; {@link Listener#onComplete} still
+     * receives the partial timeline. Callable from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+        PoseStreamAnalyzer analyzer = streamAnalyzer;
+        if (analyzer != null) {
+            analyzer.cancel();
+        }
+    }
+
+    private void run(Listener listener) {
+        long startMs = SystemClock.elapsedRealtime();
+        LandmarkerModel model = DeviceCapabilityProfiler.getInstance(context).getCurrentLevel().getModel();
+        LandmarkCache cache = LandmarkCache.getInstance(context);
+        PoseSource source = null;
+        ExerciseDetector detector = null;
+        LandmarkCache.Writer cacheWriter = null;
+
+        try {
+            String cacheKey = null;
+            try {
+                cacheKey = cache.keyFor(videoUri, model, FRAME_MAX_EDGE);
+            } catch (IOException e) {
+                Log.w(TAG, "Cannot hash video, landmarks won't be cached", e);
+            }
+            LandmarkCache.Reader cached = cacheKey != null ? cache.open(cacheKey) : null;
+
+            if (cached != null) {
+                // Seen this video before: replay its landmarks, no decoder or landmarker
+                Log.d(TAG, "Replaying " + cached.getFrameCount() + " cached frames");
+                source = cached;
+            } else {
+                source = VideoPoseSource.open(context, videoUri, model, FRAME_MAX_EDGE);
+                if (cacheKey != null) {
+                    cacheWriter = cache.create(cacheKey, Math.max(0L, source.getDurationMs()) * 1000L);
+                    source = new CachingPoseSource(source, cacheWriter);
+                }
+            }
+
+            detector = ExerciseDetector.create(exerciseType, TFLiteFormClassifier.loader(context));
+            PoseStreamAnalyzer analyzer = new PoseStreamAnalyzer(detector, new OneEuroLandmarkFilter());
+            long durationMs = source.getDurationMs();
+            analyzer.setProgressListener(new PoseStreamAnalyzer.ProgressListener() {
+                private long lastReportMs = 0L;
+
+                @Override
+                public void onProgress(int framesAnalyzed, long timestampMs) {
+                    long nowMs = SystemClock.elapsedRealtime();
+                    if (nowMs - lastReportMs < PROGRESS_INTERVAL_MS)
+                        return;
+                    lastReportMs = nowMs;
+                    float fraction = durationMs > 0L ? Math.min(1f, (float) timestampMs / durationMs) : -1f;
+                    mainHandler.post(() -> listener.onProgress(fraction, framesAnalyzed));
+                }
+            }, 1);
+            streamAnalyzer = analyzer;
+            if (cancelled) {
+                analyzer.cancel();
+            }
+
+            RepTimeline timeline = analyzer.analyze(source);
+            Log.i(TAG, "Analysed " + timeline.getFrames() + " frames (" + timeline.getDurationMs() + " ms of video) in "
+                    + (SystemClock.elapsedRealtime() - startMs) + " ms" + (cached != null ? " from cache" : "")
+                    + ", reps=" + timeline.getRepCount() + (timeline.isComplete() ? "" : ", cancelled"));
+
+            // Only a full pass is worth replaying
+            if (cacheWriter != null && timeline.isComplete()) {
+                try {
+                    cacheWriter.commit();
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to cache landmarks", e);
+                }
+            }
+            mainHandler.post(() -> listener.onComplete(timeline));
+        } catch (Exception e) {
+            Log.e(TAG, "Video analysis failed", e);
+            mainHandler.post(() -> listener.onError(e));
+        } finally {
+            if (cacheWriter != null) {
+                cacheWriter.close(); // Discards the entry unless committed
+            }
+            if (source != null) {
+                source.close();
+            }
+            if (detector != null) {
+                detector.close();
+            }
+        }
+    }
+
+    /**
+     * Passes poses through while recording them to the cache. A failed cache
+     * write stops caching but not the analysis.
+     */
+    private static final class CachingPoseSource implements PoseSource {
+        private final PoseSource source;
+        private LandmarkCache.Writer cacheWriter;
+
+        CachingPoseSource(PoseSource source, LandmarkCache.Writer cacheWriter) {
+            this.source = source;
+            this.cacheWriter = cacheWriter;
+        }
+
+        @Override
+        public PoseFrame next() throws IOException {
+            PoseFrame frame = source.next();
+            if (frame != null && cacheWriter != null) {
+                try {
+                    cacheWriter.append(frame);
+                } catch (IOException e) {
+                    Log.w(TAG, "Stopped caching landmarks", e);
+                    cacheWriter.close();
+                    cacheWriter = null;
+                }
+            }
+            return frame;
+        }
+
+        @Override
+        public long getDurationMs() {
+            return source.getDurationMs();
+        }
+
+        @Override
+        public void close() {
+            source.close();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.alignify.analysis;
+
+import com.alignify.exercises.ExerciseDetector;
+import com.alignify.pose.LandmarkFilter;
+import com.alignify.pose.PoseFrame;
+import com.alignify.pose.PoseSource;
+
+import java.io.IOException;
+
+/**
+ * Runs an exercise detector over a stream of pose frames as fast as they
+ * can be produced and collects a {@link RepTimeline}.
+ *
+ * This is the device-independent part of offline video analysis: frames
+ * come from any {@link PoseSource} (the pose landmarker, the landmark cache,
+ * a recording), so rep and error timeline logic can be checked and
+ * benchmarked on the JVM.
+ *
+ * Frames are filtered and detected in order on the calling thread, the same
+ * way {@link com.alignify.pose.PoseAnalysisPipeline} does live, but nothing
+ * is dropped.
+ */
+public class PoseStreamAnalyzer {
+
+    /**
+     * Called on the analysing thread every {@code progressInterval} frames.
+     */
+    public interface ProgressListener {
+        void onProgress(int framesAnalyzed, long timestampMs);
+    }
+
+    private final ExerciseDetector detector;
+    private final LandmarkFilter filter;
+    private ProgressListener progressListener;
+    private int progressInterval = 1;
+    private volatile boolean cancelled = false;
+
+    public PoseStreamAnalyzer(ExerciseDetector detector, LandmarkFilter filter) {
+        this.detector = detector;
+        this.filter = filter;
+    }
+
+    public void setProgressListener(ProgressListener listener, int intervalFrames) {
+        this.progressListener = listener;
+        this.progressInterval = Math.max(1, intervalFrames);
+    }
+
+    /**
+     * Stop {@link #analyze} after the current frame. Callable from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Reset the detector and filter, then analyse every frame of
+     * {@code source} in order. Frames are smoothed in place and not kept.
+     * The source is left open.
+     *
+     * @return the timeline; incomplete if cancelled
+     * @throws IOException if the source fails
+     */
+    public RepTimeline analyze(PoseSource source) throws IOException {
+        detector.reset();
+        filter.reset();
+        RepTimelineBuilder timeline = new RepTimelineBuilder(detector.isHoldExercise());
+
+        int analyzed = 0;
+        PoseFrame frame;
+        while (!cancelled && (frame = source.next()) != null) {
+            filter.apply(frame);
+            ExerciseDetector.DetectionResult result = detector.detect(frame);
+            timeline.add(frame.getTimestampMs(), !frame.isEmpty(), result);
+            analyzed++;
+
+            ProgressListener listener = progressListener;
+            if (listener != null && analyzed % progressInterval == 0) {
+                listener.onProgress(analyzed, frame.getTimestampMs());
+            }
+        }
+        return timeline.build(!cancelled);
+    }
+}
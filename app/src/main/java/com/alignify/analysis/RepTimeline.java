@@ -0,0 +1,242 @@
+package com.alignify.analysis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-rep breakdown and summary of an analysed exercise session, built by
+ * {@link RepTimelineBuilder}. For hold exercises each entry is one hold.
+ *
+ * Plain Java, no Android dependencies, so it can be built and checked on
+ * the JVM.
+ */
+public class RepTimeline {
+
+    /**
+     * Detector stage entered at a point in time.
+     */
+    public static final class StageChange {
+        private final long timestampMs;
+        private final String stage;
+
+        StageChange(long timestampMs, String stage) {
+            this.timestampMs = timestampMs;
+            this.stage = stage;
+        }
+
+        public long getTimestampMs() {
+            return timestampMs;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+    }
+
+    /**
+     * One repetition, or one hold for hold exercises.
+     */
+    public static final class Rep {
+        private final int index;
+        private final long startMs;
+        private final long endMs;
+        private final List<StageChange> stageChanges;
+        private final Map<String, Integer> errorFrames;
+        private final int frames;
+        private final int correctFrames;
+        private final float meanConfidence;
+        private final float minConfidence;
+
+        Rep(int index, long startMs, long endMs, List<StageChange> stageChanges, Map<String, Integer> errorFrames,
+                int frames, int correctFrames, float meanConfidence, float minConfidence) {
+            this.index = index;
+            this.startMs = startMs;
+            this.endMs = endMs;
+            this.stageChanges = Collections.unmodifiableList(stageChanges);
+            this.errorFrames = Collections.unmodifiableMap(errorFrames);
+            this.frames = frames;
+            this.correctFrames = correctFrames;
+            this.meanConfidence = meanConfidence;
+            this.minConfidence = minConfidence;
+        }
+
+        /**
+         * 1-based position in the session.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public long getStartMs() {
+            return startMs;
+        }
+
+        public long getEndMs() {
+            return endMs;
+        }
+
+        public long getDurationMs() {
+            return endMs - startMs;
+        }
+
+        public List<StageChange> getStageChanges() {
+            return stageChanges;
+        }
+
+        /**
+         * Error message to the number of frames in this rep that reported it,
+         * in order of first appearance.
+         */
+        public Map<String, Integer> getErrorFrames() {
+            return errorFrames;
+        }
+
+        public int getFrames() {
+            return frames;
+        }
+
+        /**
+         * Share of this rep's frames the detector judged correct, 0-1.
+         */
+        public float getCorrectFraction() {
+            return frames > 0 ? (float) correctFrames / frames : 0f;
+        }
+
+        public float getMeanConfidence() {
+            return meanConfidence;
+        }
+
+        public float getMinConfidence() {
+            return minConfidence;
+        }
+    }
+
+    private final boolean holdExercise;
+    private final boolean complete;
+    private final List<Rep> reps;
+    private final Map<String, Integer> errorFrames;
+    private final int repCount;
+    private final int frames;
+    private final int poseFrames;
+    private final int correctFrames;
+    private final long durationMs;
+    private final float meanConfidence;
+
+    RepTimeline(boolean holdExercise, boolean complete, List<Rep> reps, Map<String, Integer> errorFrames,
+            int repCount, int frames, int poseFrames, int correctFrames, long durationMs, float meanConfidence) {
+        this.holdExercise = holdExercise;
+        this.complete = complete;
+        this.reps = Collections.unmodifiableList(reps);
+        this.errorFrames = Collections.unmodifiableMap(errorFrames);
+        this.repCount = repCount;
+        this.frames = frames;
+        this.poseFrames = poseFrames;
+        this.correctFrames = correctFrames;
+        this.durationMs = durationMs;
+        this.meanConfidence = meanConfidence;
+    }
+
+    public boolean isHoldExercise() {
+        return holdExercise;
+    }
+
+    /**
+     * False if the analysis was cancelled before the end of the stream.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public List<Rep> getReps() {
+        return reps;
+    }
+
+    /**
+     * Error message to the number of frames that reported it across the
+     * whole session, including frames outside any rep.
+     */
+    public Map<String, Integer> getErrorFrames() {
+        return errorFrames;
+    }
+
+    /**
+     * The detector's final count: reps, or hold seconds for hold exercises.
+     */
+    public int getRepCount() {
+        return repCount;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * Frames in which a pose was found.
+     */
+    public int getPoseFrames() {
+        return poseFrames;
+    }
+
+    /**
+     * Frames with a pose that the detector judged incorrect.
+     */
+    public int getIncorrectFrames() {
+        return poseFrames - correctFrames;
+    }
+
+    /**
+     * Time from the first to the last analysed frame.
+     */
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public float getMeanConfidence() {
+        return meanConfidence;
+    }
+
+    /**
+     * Timeline as nested maps and lists of primitives, suitable for Firestore.
+     */
+    public Map<String, Object> toReport() {
+        List<Map<String, Object>> repReports = new ArrayList<>();
+        for (Rep rep : reps) {
+            List<Map<String, Object>> stages = new ArrayList<>();
+            for (StageChange change : rep.getStageChanges()) {
+                Map<String, Object> stage = new HashMap<>();
+                stage.put("atMs", change.getTimestampMs());
+                stage.put("stage", change.getStage());
+                stages.add(stage);
+            }
+
+            Map<String, Object> repReport = new HashMap<>();
+            repReport.put("index", rep.getIndex());
+            repReport.put("startMs", rep.getStartMs());
+            repReport.put("endMs", rep.getEndMs());
+            repReport.put("frames", rep.getFrames());
+            repReport.put("correctFraction", rep.getCorrectFraction());
+            repReport.put("meanConfidence", rep.getMeanConfidence());
+            repReport.put("minConfidence", rep.getMinConfidence());
+            repReport.put("stages", stages);
+            repReport.put("errors", new LinkedHashMap<>(rep.getErrorFrames()));
+            repReports.add(repReport);
+        }
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("holdExercise", holdExercise);
+        report.put("complete", complete);
+        report.put("repCount", repCount);
+        report.put("frames", frames);
+        report.put("poseFrames", poseFrames);
+        report.put("incorrectFrames", getIncorrectFrames());
+        report.put("durationMs", durationMs);
+        report.put("meanConfidence", meanConfidence);
+        report.put("errors", new LinkedHashMap<>(errorFrames));
+        report.put("reps", repReports);
+        return report;
+    }
+}
@@ -0,0 +1,157 @@
+package com.alignify.analysis;
+
+import com.alignify.exercises.ExerciseDetector;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a stream of per-frame detection results into a {@link RepTimeline}.
+ *
+ * A rep opens at the first stage change after the previous rep closed (the
+ * detector leaving its resting stage) and closes on the frame where the
+ * detector's rep count goes up. Frames before a rep opens count towards the
+ * session totals but not towards any rep, so idle time at the start of a
+ * video doesn't inflate the first rep.
+ *
+ * For hold exercises the count is hold seconds rather than reps, so instead
+ * each uninterrupted run of the hold stage becomes one entry.
+ *
+ * Not thread-safe; allocates only on stage changes, new error messages and
+ * rep boundaries.
+ */
+public class RepTimelineBuilder {
+
+    static final String HOLD_STAGE = "holding";
+
+    private final boolean holdExercise;
+
+    // Session totals
+    private final List<RepTimeline.Rep> reps = new ArrayList<>();
+    private final Map<String, Integer> errorFrames = new LinkedHashMap<>();
+    private int frames = 0;
+    private int poseFrames = 0;
+    private int correctFrames = 0;
+    private double confidenceSum = 0.0;
+    private long firstTimestampMs = -1L;
+    private long lastTimestampMs = -1L;
+    private String lastStage = null;
+    private int lastRepCount = 0;
+
+    // Rep in progress, when repOpen
+    private boolean repOpen = false;
+    private long repStartMs;
+    private List<RepTimeline.StageChange> repStages = new ArrayList<>();
+    private Map<String, Integer> repErrors = new LinkedHashMap<>();
+    private int repFrames;
+    private int repCorrectFrames;
+    private double repConfidenceSum;
+    private float repMinConfidence;
+
+    public RepTimelineBuilder(boolean holdExercise) {
+        this.holdExercise = holdExercise;
+    }
+
+    /**
+     * Add the detector's result for one frame, in timestamp order.
+     *
+     * @param hasPose whether a pose was found in the frame
+     */
+    public void add(long timestampMs, boolean hasPose, ExerciseDetector.DetectionResult result) {
+        if (firstTimestampMs < 0L) {
+            firstTimestampMs = timestampMs;
+        }
+        lastTimestampMs = timestampMs;
+        frames++;
+
+        String stage = result.getStage();
+        boolean stageChanged = lastStage != null && !lastStage.equals(stage);
+        boolean wasFirstFrame = lastStage == null;
+        lastStage = stage;
+
+        if (holdExercise) {
+            boolean holding = HOLD_STAGE.equals(stage);
+            if (holding && !repOpen) {
+                openRep(timestampMs, stage);
+            } else if (!holding && repOpen) {
+                closeRep(timestampMs);
+            }
+        } else if (stageChanged && !repOpen) {
+            openRep(timestampMs, stage);
+        } else if (stageChanged) {
+            repStages.add(new RepTimeline.StageChange(timestampMs, stage));
+        }
+
+        if (hasPose) {
+            poseFrames++;
+            if (result.isCorrect()) {
+                correctFrames++;
+            }
+            confidenceSum += result.getConfidence();
+            countErrors(result.getErrors(), errorFrames);
+
+            if (repOpen) {
+                repFrames++;
+                if (result.isCorrect()) {
+                    repCorrectFrames++;
+                }
+                repConfidenceSum += result.getConfidence();
+                repMinConfidence = Math.min(repMinConfidence, result.getConfidence());
+                countErrors(result.getErrors(), repErrors);
+            }
+        }
+
+        int repCount = result.getRepCount();
+        if (!holdExercise && !wasFirstFrame && repCount > lastRepCount && repOpen) {
+            closeRep(timestampMs);
+        }
+        lastRepCount = repCount;
+    }
+
+    /**
+     * Timeline of everything added so far. A hold still in progress is
+     * closed at the last frame; a rep still in progress is left out.
+     *
+     * @param complete false if the stream was cut short, e.g. cancelled
+     */
+    public RepTimeline build(boolean complete) {
+        if (holdExercise && repOpen) {
+            closeRep(lastTimestampMs);
+        }
+
+        float meanConfidence = poseFrames > 0 ? (float) (confidenceSum / poseFrames) : 0f;
+        long durationMs = frames > 0 ? lastTimestampMs - firstTimestampMs : 0L;
+        return new RepTimeline(holdExercise, complete, new ArrayList<>(reps), new LinkedHashMap<>(errorFrames),
+                lastRepCount, frames, poseFrames, correctFrames, durationMs, meanConfidence);
+    }
+
+    private void openRep(long timestampMs, String stage) {
+        repOpen = true;
+        repStartMs = timestampMs;
+        repStages = new ArrayList<>();
+        repStages.add(new RepTimeline.StageChange(timestampMs, stage));
+        repErrors = new LinkedHashMap<>();
+        repFrames = 0;
+        repCorrectFrames = 0;
+        repConfidenceSum = 0.0;
+        repMinConfidence = Float.MAX_VALUE;
+    }
+
+    private void closeRep(long timestampMs) {
+        repOpen = false;
+        float meanConfidence = repFrames > 0 ? (float) (repConfidenceSum / repFrames) : 0f;
+        float minConfidence = repFrames > 0 ? repMinConfidence : 0f;
+        reps.add(new RepTimeline.Rep(reps.size() + 1, repStartMs, timestampMs, repStages, repErrors,
+                repFrames, repCorrectFrames, meanConfidence, minConfidence));
+    }
+
+    private static void countErrors(List<String> errors, Map<String, Integer> counts) {
+        for (int i = 0; i < errors.size(); i++) {
+            String error = errors.get(i);
+            Integer count = counts.get(error);
+            counts.put(error, count == null ? 1 : count + 1);
+        }
+    }
+}
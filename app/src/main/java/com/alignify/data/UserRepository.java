@@ -165,6 +165,23 @@ public class UserRepository {
      */
     public void saveWorkoutSession(String exercise, int reps, int duration,
             int errorsCount, OnCompleteListener listener) {
+        saveWorkoutSession(exercise, reps, duration, errorsCount, null, listener);
+    }
+
+    /**
+     * Save workout session data with an optional pose pipeline latency report.
+     */
+    public void saveWorkoutSession(String exercise, int reps, int duration,
+            int errorsCount, Map<String, Object> pipelineMetrics, OnCompleteListener listener) {
+        saveWorkoutSession(exercise, reps, duration, errorsCount, pipelineMetrics, null, listener);
+    }
+
+    /**
+     * Save workout session data with optional pipeline metrics and a per-rep
+     * analysis timeline (from offline video analysis).
+     */
+    public void saveWorkoutSession(String exercise, int reps, int duration, int errorsCount,
+            Map<String, Object> pipelineMetrics, Map<String, Object> analysis, OnCompleteListener listener) {
         DocumentReference userDoc = getUserDocument();
         if (userDoc == null) {
             if (listener != null)
@@ -178,6 +195,12 @@ public class UserRepository {
         workout.put("duration", duration);
         workout.put("errorsCount", errorsCount);
         workout.put("timestamp", System.currentTimeMillis());
+        if (pipelineMetrics != null && !pipelineMetrics.isEmpty()) {
+            workout.put("pipelineMetrics", pipelineMetrics);
+        }
+        if (analysis != null && !analysis.isEmpty()) {
+            workout.put("analysis", analysis);
+        }
 
         userDoc.collection("workouts")
                 .add(workout)
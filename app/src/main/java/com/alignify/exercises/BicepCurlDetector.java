@@ -1,9 +1,6 @@
 package com.alignify.exercises;
 
-import android.content.Context;
-import android.util.Log;
-
-import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
+import com.alignify.pose.PoseFrame;
 import com.alignify.utils.LandmarkUtils;
 
 import java.util.ArrayList;
@@ -19,6 +16,8 @@ import java.util.List;
  */
 public class BicepCurlDetector extends ExerciseDetector {
 
+    static final String MODEL_PATH = "bicep_model.tflite";
+
     // Elbow angle thresholds
     private static final float CURL_DOWN_ANGLE = 160f; // Arm extended
     private static final float CURL_UP_ANGLE = 40f; // Arm curled
@@ -31,8 +30,8 @@ public class BicepCurlDetector extends ExerciseDetector {
     private String currentStage = "down";
     private float minAngleReached = Float.MAX_VALUE;
 
-    public BicepCurlDetector(Context context) {
-        super(context, "bicep_model.tflite");
+    public BicepCurlDetector(FormClassifier formClassifier) {
+        super(formClassifier);
     }
 
     @Override
@@ -41,15 +40,18 @@ public class BicepCurlDetector extends ExerciseDetector {
     }
 
     @Override
-    public DetectionResult detect(PoseLandmarkerResult result) {
+    public DetectionResult detect(PoseFeatures features) {
+        PoseFrame frame = features.getFrame();
         List<String> errors = new ArrayList<>();
         boolean isCorrect = true;
 
         // Calculate elbow angles for both arms
-        Float leftElbowAngle = LandmarkUtils.calculateElbowAngle(result, true);
-        Float rightElbowAngle = LandmarkUtils.calculateElbowAngle(result, false);
+        float leftElbowAngle = features.getElbowAngle(true);
+        float rightElbowAngle = features.getElbowAngle(false);
+        boolean hasLeft = !Float.isNaN(leftElbowAngle);
+        boolean hasRight = !Float.isNaN(rightElbowAngle);
 
-        if (leftElbowAngle == null && rightElbowAngle == null) {
+        if (!hasLeft && !hasRight) {
             return new DetectionResult(
                     true,
                     1.0f,
@@ -60,9 +62,9 @@ public class BicepCurlDetector extends ExerciseDetector {
 
         // Use the arm with better visibility
         float elbowAngle;
-        if (leftElbowAngle != null && rightElbowAngle != null) {
+        if (hasLeft && hasRight) {
             elbowAngle = Math.min(leftElbowAngle, rightElbowAngle);
-        } else if (leftElbowAngle != null) {
+        } else if (hasLeft) {
             elbowAngle = leftElbowAngle;
         } else {
             elbowAngle = rightElbowAngle;
@@ -95,7 +97,7 @@ public class BicepCurlDetector extends ExerciseDetector {
         }
 
         // Check for loose upper arm
-        String looseArmError = checkLooseUpperArm(result);
+        String looseArmError = checkLooseUpperArm(frame);
         if (looseArmError != null) {
             errors.add(looseArmError);
             isCorrect = false;
@@ -103,19 +105,15 @@ public class BicepCurlDetector extends ExerciseDetector {
 
         // Check for lean back using ML model if available
         float confidence = 1.0f;
-        if (tfliteInterpreter != null) {
-            try {
-                float[] features = LandmarkUtils.extractBicepFeatures(result);
-                if (features != null) {
-                    int prediction = tfliteInterpreter.predictClass(features);
-                    confidence = tfliteInterpreter.predictConfidence(features);
-                    if (prediction == 1) { // Assuming 1 = lean back error
-                        errors.add("Leaning back - keep torso straight");
-                        isCorrect = false;
-                    }
-                }
-            } catch (Exception e) {
-                Log.w("BicepCurlDetector", "ML inference failed", e);
+        float[] formFeatures;
+        if (hasFormModel()
+                && (formFeatures = features.getFormFeatures(LandmarkUtils.BICEP_FEATURE_LANDMARKS)) != null
+                && classifyForm(formFeatures)) {
+            int prediction = classification.getClassIndex();
+            confidence = classification.getConfidence();
+            if (prediction == 1) { // Assuming 1 = lean back error
+                errors.add("Leaning back - keep torso straight");
+                isCorrect = false;
             }
         }
 
@@ -137,28 +135,23 @@ public class BicepCurlDetector extends ExerciseDetector {
                 errors);
     }
 
-    private String checkLooseUpperArm(PoseLandmarkerResult result) {
+    private String checkLooseUpperArm(PoseFrame frame) {
         // Check both arms to detect loose upper arm regardless of orientation
-        LandmarkUtils.Point2D leftShoulder = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_SHOULDER);
-        LandmarkUtils.Point2D leftElbow = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_ELBOW);
-        LandmarkUtils.Point2D leftHip = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_HIP);
-
-        if (leftShoulder != null && leftElbow != null && leftHip != null) {
-            float angle = LandmarkUtils.calculateAngle(leftHip, leftShoulder, leftElbow);
-            if (angle > LOOSE_ARM_ANGLE_THRESHOLD) {
-                return "Keep upper arm still";
-            }
+        // A missing side yields NaN, which never exceeds the threshold
+        float leftAngle = frame.angle(
+                LandmarkUtils.Landmarks.LEFT_HIP,
+                LandmarkUtils.Landmarks.LEFT_SHOULDER,
+                LandmarkUtils.Landmarks.LEFT_ELBOW);
+        if (leftAngle > LOOSE_ARM_ANGLE_THRESHOLD) {
+            return "Keep upper arm still";
         }
 
-        LandmarkUtils.Point2D rightShoulder = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_SHOULDER);
-        LandmarkUtils.Point2D rightElbow = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_ELBOW);
-        LandmarkUtils.Point2D rightHip = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_HIP);
-
-        if (rightShoulder != null && rightElbow != null && rightHip != null) {
-            float angle = LandmarkUtils.calculateAngle(rightHip, rightShoulder, rightElbow);
-            if (angle > LOOSE_ARM_ANGLE_THRESHOLD) {
-                return "Keep upper arm still";
-            }
+        float rightAngle = frame.angle(
+                LandmarkUtils.Landmarks.RIGHT_HIP,
+                LandmarkUtils.Landmarks.RIGHT_SHOULDER,
+                LandmarkUtils.Landmarks.RIGHT_ELBOW);
+        if (rightAngle > LOOSE_ARM_ANGLE_THRESHOLD) {
+            return "Keep upper arm still";
         }
 
         return null;
@@ -1,64 +1,62 @@
 package com.alignify.exercises;
 
-import android.content.Context;
-import android.util.Log;
+import com.alignify.pose.PoseFrame;
+import com.alignify.utils.ClassificationResult;
+import com.alignify.utils.LatencyHistogram;
 
-import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
-import com.alignify.ml.ModelManager;
-import com.alignify.utils.TFLiteInterpreter;
-
-import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Base class for exercise detectors.
  * Provides common functionality for pose analysis and rep counting.
+ *
+ * Detectors depend only on {@link PoseFrame} and an optional
+ * {@link FormClassifier}, never on MediaPipe, TensorFlow Lite or Android, so
+ * the same code runs on the device and in the JVM replay harness.
  */
 public abstract class ExerciseDetector {
-    private static final String TAG = "ExerciseDetector";
 
-    protected final Context context;
-    protected final String modelPath;
-    protected final String modelName;
-    protected TFLiteInterpreter tfliteInterpreter;
+    protected FormClassifier formClassifier; // Null when no form model is available
+    // Reused for every form-model inference so detect() runs the model once without allocating
+    protected final ClassificationResult classification = new ClassificationResult();
+    private volatile LatencyHistogram modelLatency; // Optional form-model timing for diagnostics
+    private volatile boolean formModelEnabled = true;
+    private PoseFeatures ownFeatures; // For callers that pass bare frames
     protected boolean isInExercise = false;
     protected String lastPrediction = "";
     protected int _repCount = 0;
 
-    public ExerciseDetector(Context context, String modelPath) {
-        this.context = context;
-        this.modelPath = modelPath;
-        this.modelName = modelPath != null ? modelPath.replace(".tflite", "") : null;
-
-        if (modelPath != null) {
-            loadModel();
-        }
+    protected ExerciseDetector(FormClassifier formClassifier) {
+        this.formClassifier = formClassifier;
     }
 
     /**
-     * Load model from cache (downloaded) or assets (bundled).
+     * Create the detector for an exercise type ("squat", "bicep_curl", "lunge", "plank",
+     * or "circuit" to recognise any of them). Unknown types fall back to bicep curl.
+     *
+     * @param loader loads the exercise's form model; null for rules only
      */
-    private void loadModel() {
-        try {
-            ModelManager modelManager = ModelManager.getInstance(context);
-            File cachedModel = modelManager.getModelFileSync(modelName);
-
-            if (cachedModel != null) {
-                // Use downloaded/cached model
-                tfliteInterpreter = new TFLiteInterpreter(cachedModel);
-                Log.d(TAG, "Loaded cached model: " + modelName);
-            } else {
-                // Fallback to bundled asset
-                tfliteInterpreter = new TFLiteInterpreter(context, modelPath);
-                Log.d(TAG, "Loaded bundled model: " + modelPath);
-            }
-        } catch (Exception e) {
-            // Model not available, will use rule-based detection
-            Log.e(TAG, "Failed to load model: " + modelPath, e);
+    public static ExerciseDetector create(String exerciseType, FormClassifier.Loader loader) {
+        switch (exerciseType) {
+            case MultiExerciseDetector.EXERCISE_TYPE:
+                return new MultiExerciseDetector(loader);
+            case "squat":
+                return new SquatDetector(load(loader, SquatDetector.MODEL_PATH));
+            case "lunge":
+                return new LungeDetector(load(loader, LungeDetector.MODEL_PATH));
+            case "plank":
+                return new PlankDetector(load(loader, PlankDetector.MODEL_PATH));
+            case "bicep_curl":
+            default:
+                return new BicepCurlDetector(load(loader, BicepCurlDetector.MODEL_PATH));
         }
     }
 
+    private static FormClassifier load(FormClassifier.Loader loader, String modelPath) {
+        return loader != null ? loader.load(modelPath) : null;
+    }
+
     /**
      * Result of exercise detection.
      */
@@ -122,13 +120,33 @@ public abstract class ExerciseDetector {
     /**
      * Process pose landmarks and detect exercise form.
      */
-    public abstract DetectionResult detect(PoseLandmarkerResult result);
+    public DetectionResult detect(PoseFrame frame) {
+        if (ownFeatures == null) {
+            ownFeatures = new PoseFeatures();
+        }
+        ownFeatures.update(frame);
+        return detect(ownFeatures);
+    }
+
+    /**
+     * Detect exercise form from features already computed for the frame, so
+     * several detectors can share one {@link PoseFeatures} pass.
+     */
+    public abstract DetectionResult detect(PoseFeatures features);
 
     /**
      * Get exercise name.
      */
     public abstract String getExerciseName();
 
+    /**
+     * Whether the exercise is a timed hold rather than repetitions. For holds,
+     * {@link #getRepCount()} is the hold time in seconds.
+     */
+    public boolean isHoldExercise() {
+        return false;
+    }
+
     /**
      * Reset detector state.
      */
@@ -145,12 +163,66 @@ public abstract class ExerciseDetector {
         return _repCount;
     }
 
+    /**
+     * Whether {@link #detect} should run the form model: one is loaded and
+     * it hasn't been switched off with {@link #setFormModelEnabled}.
+     */
+    protected boolean hasFormModel() {
+        return formClassifier != null && formModelEnabled;
+    }
+
+    /**
+     * Switch form-model inference on or off without unloading the model, so
+     * a detector can keep counting reps on rules alone while another
+     * exercise's model runs. Callable from any thread.
+     */
+    public void setFormModelEnabled(boolean enabled) {
+        this.formModelEnabled = enabled;
+    }
+
+    /**
+     * Run the form model on {@code features} into {@link #classification},
+     * timing it when a histogram is attached. Only call when
+     * {@link #hasFormModel()}.
+     *
+     * @return false if inference failed and {@link #classification} is stale
+     */
+    protected boolean classifyForm(float[] features) {
+        LatencyHistogram histogram = modelLatency;
+        long start = histogram != null ? System.nanoTime() : 0L;
+        boolean classified = formClassifier.classify(features, classification);
+        if (histogram != null) {
+            histogram.recordNanos(System.nanoTime() - start);
+        }
+        return classified;
+    }
+
+    /**
+     * Record form-model inference time into {@code histogram}; null to stop.
+     */
+    public void setModelLatencyHistogram(LatencyHistogram histogram) {
+        this.modelLatency = histogram;
+    }
+
+    /**
+     * Run one inference on a zero input so lazy interpreter and delegate setup
+     * happens now rather than on the first real frame.
+     * Returns false if no model is loaded.
+     */
+    public boolean warmUp() {
+        if (formClassifier == null)
+            return false;
+
+        return formClassifier.classify(new float[formClassifier.getInputSize()], classification);
+    }
+
     /**
      * Release resources.
      */
     public void close() {
-        if (tfliteInterpreter != null) {
-            tfliteInterpreter.close();
+        if (formClassifier != null) {
+            formClassifier.close();
+            formClassifier = null;
         }
     }
 }
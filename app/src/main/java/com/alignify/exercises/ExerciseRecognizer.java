@@ -0,0 +1,155 @@
+package com.alignify.exercises;
+
+/**
+ * Recognises which exercise is being performed from the last few seconds of
+ * {@link PoseFeatures}, for circuit workouts where the user moves between
+ * exercises without telling the app.
+ *
+ * A handful of rules over a sliding window, no model:
+ * <ul>
+ * <li>torso mostly horizontal: plank</li>
+ * <li>elbows moving more than knees: bicep curl</li>
+ * <li>knees moving, hips bent unevenly (one thigh forward, one back): lunge</li>
+ * <li>knees moving, hips even: squat</li>
+ * </ul>
+ * Too little movement leaves the current exercise unchanged, so pauses
+ * between reps don't drop it. A different exercise must be seen for
+ * {@link #SWITCH_MS} before it replaces the current one.
+ *
+ * Not thread-safe.
+ */
+public final class ExerciseRecognizer {
+
+    static final long WINDOW_MS = 3000L;
+    static final long SWITCH_MS = 1500L;
+
+    private static final int CAPACITY = 256; // Frames, well over WINDOW_MS at 30 fps
+    private static final long MIN_SPAN_MS = 1000L;
+    private static final int MIN_SAMPLES = 10;
+
+    private static final float PLANK_TORSO_ANGLE = 60f; // Degrees from vertical
+    private static final float PLANK_FRACTION = 0.6f;
+    private static final float MIN_RANGE_OF_MOTION = 35f; // Degrees over the window
+    private static final float LUNGE_HIP_ASYMMETRY = 35f; // Degrees between left and right hip
+
+    // Ring buffer of per-frame values, NaN where not visible
+    private final long[] timestamps = new long[CAPACITY];
+    private final float[] kneeAngles = new float[CAPACITY];
+    private final float[] elbowAngles = new float[CAPACITY];
+    private final float[] hipAsymmetries = new float[CAPACITY];
+    private final float[] torsoAngles = new float[CAPACITY];
+    private int head = 0; // Oldest sample
+    private int size = 0;
+
+    private String exercise;
+    private String pendingExercise;
+    private long pendingSinceMs;
+
+    /**
+     * Add a frame and return the recognised exercise type ("squat",
+     * "bicep_curl", "lunge" or "plank"), or null if none yet. Frames without
+     * a pose only age the window.
+     */
+    public String update(PoseFeatures features) {
+        long timestampMs = features.getFrame().getTimestampMs();
+        while (size > 0 && (timestampMs - timestamps[head] > WINDOW_MS || size == CAPACITY)) {
+            head = (head + 1) % CAPACITY;
+            size--;
+        }
+        if (!features.getFrame().isEmpty()) {
+            int tail = (head + size) % CAPACITY;
+            timestamps[tail] = timestampMs;
+            kneeAngles[tail] = nanMin(features.getKneeAngle(true), features.getKneeAngle(false));
+            elbowAngles[tail] = nanMin(features.getElbowAngle(true), features.getElbowAngle(false));
+            hipAsymmetries[tail] = Math.abs(features.getHipAngle(true) - features.getHipAngle(false));
+            torsoAngles[tail] = features.getTorsoAngle();
+            size++;
+        }
+
+        String candidate = classify();
+        if (candidate == null || candidate.equals(exercise)) {
+            pendingExercise = null;
+        } else if (!candidate.equals(pendingExercise)) {
+            pendingExercise = candidate;
+            pendingSinceMs = timestampMs;
+        } else if (exercise == null || timestampMs - pendingSinceMs >= SWITCH_MS) {
+            exercise = candidate;
+            pendingExercise = null;
+        }
+        return exercise;
+    }
+
+    /**
+     * The last exercise returned by {@link #update}, or null.
+     */
+    public String getExercise() {
+        return exercise;
+    }
+
+    /**
+     * An exercise seen in the window that hasn't yet been seen long enough
+     * to replace the current one, or null.
+     */
+    public String getPendingExercise() {
+        return pendingExercise;
+    }
+
+    public void reset() {
+        head = 0;
+        size = 0;
+        exercise = null;
+        pendingExercise = null;
+    }
+
+    private String classify() {
+        if (size < MIN_SAMPLES || timestamps[(head + size - 1) % CAPACITY] - timestamps[head] < MIN_SPAN_MS)
+            return null;
+
+        int torsoSamples = 0;
+        int horizontalSamples = 0;
+        float kneeMin = Float.MAX_VALUE;
+        float kneeMax = -Float.MAX_VALUE;
+        float elbowMin = Float.MAX_VALUE;
+        float elbowMax = -Float.MAX_VALUE;
+        float hipAsymmetry = 0f;
+        for (int n = 0; n < size; n++) {
+            int i = (head + n) % CAPACITY;
+            if (!Float.isNaN(torsoAngles[i])) {
+                torsoSamples++;
+                if (torsoAngles[i] > PLANK_TORSO_ANGLE) {
+                    horizontalSamples++;
+                }
+            }
+            if (!Float.isNaN(kneeAngles[i])) {
+                kneeMin = Math.min(kneeMin, kneeAngles[i]);
+                kneeMax = Math.max(kneeMax, kneeAngles[i]);
+            }
+            if (!Float.isNaN(elbowAngles[i])) {
+                elbowMin = Math.min(elbowMin, elbowAngles[i]);
+                elbowMax = Math.max(elbowMax, elbowAngles[i]);
+            }
+            if (!Float.isNaN(hipAsymmetries[i])) {
+                hipAsymmetry = Math.max(hipAsymmetry, hipAsymmetries[i]);
+            }
+        }
+
+        if (torsoSamples > 0 && horizontalSamples >= torsoSamples * PLANK_FRACTION)
+            return "plank";
+
+        float kneeRange = kneeMax > kneeMin ? kneeMax - kneeMin : 0f;
+        float elbowRange = elbowMax > elbowMin ? elbowMax - elbowMin : 0f;
+        if (Math.max(kneeRange, elbowRange) < MIN_RANGE_OF_MOTION)
+            return null;
+        if (elbowRange > kneeRange)
+            return "bicep_curl";
+        return hipAsymmetry > LUNGE_HIP_ASYMMETRY ? "lunge" : "squat";
+    }
+
+    private static float nanMin(float a, float b) {
+        if (Float.isNaN(a))
+            return b;
+        if (Float.isNaN(b))
+            return a;
+        return Math.min(a, b);
+    }
+}
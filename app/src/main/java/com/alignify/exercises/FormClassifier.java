@@ -0,0 +1,42 @@
+package com.alignify.exercises;
+
+import com.alignify.utils.ClassificationResult;
+
+/**
+ * Form model an {@link ExerciseDetector} consults on top of its rules.
+ *
+ * Keeps detectors free of TensorFlow Lite and Android classes, so they can
+ * run on the JVM against recorded landmarks, in unit tests and benchmarks.
+ * The on-device implementation
+ * is {@link TFLiteFormClassifier}.
+ */
+public interface FormClassifier {
+
+    /**
+     * Loads the form model bundled as {@code modelPath}.
+     */
+    interface Loader {
+        /**
+         * @return null if the model is unavailable; the detector then uses its
+         *         rules only
+         */
+        FormClassifier load(String modelPath);
+    }
+
+    /**
+     * Number of features the model expects.
+     */
+    int getInputSize();
+
+    /**
+     * Classify one feature vector into {@code result}.
+     *
+     * @return false if inference failed; implementations log the cause
+     */
+    boolean classify(float[] features, ClassificationResult result);
+
+    /**
+     * Release the model. The classifier must not be used afterwards.
+     */
+    void close();
+}
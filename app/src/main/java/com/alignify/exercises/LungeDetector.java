@@ -1,9 +1,6 @@
 package com.alignify.exercises;
 
-import android.content.Context;
-import android.util.Log;
-
-import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
+import com.alignify.pose.PoseFrame;
 import com.alignify.utils.LandmarkUtils;
 
 import java.util.ArrayList;
@@ -18,6 +15,8 @@ import java.util.List;
  */
 public class LungeDetector extends ExerciseDetector {
 
+    static final String MODEL_PATH = "lunge_model.tflite";
+
     // Knee angle thresholds
     private static final float LUNGE_UP_ANGLE = 160f;
     private static final float LUNGE_DOWN_ANGLE = 100f;
@@ -29,8 +28,8 @@ public class LungeDetector extends ExerciseDetector {
     private String currentStage = "up";
     private String leadLeg = "left"; // Track which leg is in front
 
-    public LungeDetector(Context context) {
-        super(context, "lunge_model.tflite");
+    public LungeDetector(FormClassifier formClassifier) {
+        super(formClassifier);
     }
 
     @Override
@@ -39,23 +38,24 @@ public class LungeDetector extends ExerciseDetector {
     }
 
     @Override
-    public DetectionResult detect(PoseLandmarkerResult result) {
+    public DetectionResult detect(PoseFeatures features) {
+        PoseFrame frame = features.getFrame();
         List<String> errors = new ArrayList<>();
         boolean isCorrect = true;
 
         // Determine lead leg based on hip positions
-        LandmarkUtils.Point2D leftAnkle = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_ANKLE);
-        LandmarkUtils.Point2D rightAnkle = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_ANKLE);
+        int leftAnkle = LandmarkUtils.Landmarks.LEFT_ANKLE;
+        int rightAnkle = LandmarkUtils.Landmarks.RIGHT_ANKLE;
 
-        if (leftAnkle != null && rightAnkle != null) {
-            leadLeg = (leftAnkle.y > rightAnkle.y) ? "left" : "right";
+        if (frame.has(leftAnkle, rightAnkle)) {
+            leadLeg = (frame.y(leftAnkle) > frame.y(rightAnkle)) ? "left" : "right";
         }
 
         // Calculate knee angle of lead leg
         boolean isLeft = leadLeg.equals("left");
-        Float kneeAngle = LandmarkUtils.calculateKneeAngle(result, isLeft);
+        float kneeAngle = features.getKneeAngle(isLeft);
 
-        if (kneeAngle == null) {
+        if (Float.isNaN(kneeAngle)) {
             return new DetectionResult(
                     true,
                     1.0f,
@@ -80,7 +80,7 @@ public class LungeDetector extends ExerciseDetector {
 
         // Check knee over toe
         if (currentStage.equals("down")) {
-            String kneeError = checkKneeOverToe(result, isLeft);
+            String kneeError = checkKneeOverToe(frame, isLeft);
             if (kneeError != null) {
                 errors.add(kneeError);
                 isCorrect = false;
@@ -89,22 +89,18 @@ public class LungeDetector extends ExerciseDetector {
 
         // Use ML model if available for additional error detection
         float confidence = 1.0f;
-        if (tfliteInterpreter != null) {
-            try {
-                float[] features = LandmarkUtils.extractLungeFeatures(result);
-                if (features != null) {
-                    int prediction = tfliteInterpreter.predictClass(features);
-                    confidence = tfliteInterpreter.predictConfidence(features);
-                    if (prediction == 1) {
-                        errors.add("Torso leaning - keep upright");
-                        isCorrect = false;
-                    } else if (prediction == 2) {
-                        errors.add("Back knee too high - lower it");
-                        isCorrect = false;
-                    }
-                }
-            } catch (Exception e) {
-                Log.w("LungeDetector", "ML inference failed", e);
+        float[] formFeatures;
+        if (hasFormModel()
+                && (formFeatures = features.getFormFeatures(LandmarkUtils.LUNGE_FEATURE_LANDMARKS)) != null
+                && classifyForm(formFeatures)) {
+            int prediction = classification.getClassIndex();
+            confidence = classification.getConfidence();
+            if (prediction == 1) {
+                errors.add("Torso leaning - keep upright");
+                isCorrect = false;
+            } else if (prediction == 2) {
+                errors.add("Back knee too high - lower it");
+                isCorrect = false;
             }
         }
 
@@ -126,20 +122,16 @@ public class LungeDetector extends ExerciseDetector {
                 errors);
     }
 
-    private String checkKneeOverToe(PoseLandmarkerResult result, boolean isLeft) {
+    private String checkKneeOverToe(PoseFrame frame, boolean isLeft) {
         int kneeIdx = isLeft ? LandmarkUtils.Landmarks.LEFT_KNEE : LandmarkUtils.Landmarks.RIGHT_KNEE;
         int ankleIdx = isLeft ? LandmarkUtils.Landmarks.LEFT_ANKLE : LandmarkUtils.Landmarks.RIGHT_ANKLE;
         int hipIdx = isLeft ? LandmarkUtils.Landmarks.LEFT_HIP : LandmarkUtils.Landmarks.RIGHT_HIP;
 
-        LandmarkUtils.Point2D knee = LandmarkUtils.getPoint2D(result, kneeIdx);
-        LandmarkUtils.Point2D ankle = LandmarkUtils.getPoint2D(result, ankleIdx);
-        LandmarkUtils.Point2D hip = LandmarkUtils.getPoint2D(result, hipIdx);
-
-        if (knee != null && ankle != null && hip != null) {
+        if (frame.has(kneeIdx, ankleIdx, hipIdx)) {
             // Determine forward direction from hip-to-ankle vector
-            float forwardDir = ankle.x - hip.x;
+            float forwardDir = frame.x(ankleIdx) - frame.x(hipIdx);
             // Knee extension past ankle in the forward direction
-            float kneeExtension = (knee.x - ankle.x) * Math.signum(forwardDir);
+            float kneeExtension = (frame.x(kneeIdx) - frame.x(ankleIdx)) * Math.signum(forwardDir);
             if (kneeExtension > KNEE_TOE_THRESHOLD) {
                 return "Keep knee behind toes";
             }
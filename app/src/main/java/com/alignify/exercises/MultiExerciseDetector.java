@@ -0,0 +1,237 @@
+package com.alignify.exercises;
+
+import com.alignify.utils.LatencyHistogram;
+
+/**
+ * Circuit mode: feeds every frame to all exercise detectors and follows
+ * whichever exercise {@link ExerciseRecognizer} says is being performed, so
+ * rep counting switches with the user.
+ *
+ * To keep four detectors affordable, joint angles and form-model inputs are
+ * computed once per frame in a shared {@link PoseFeatures}, and only the
+ * active exercise's form model runs; the others count on rules alone so
+ * they are mid-rep ready when the user switches to them.
+ *
+ * Reps are credited per exercise from the moment its movement was first
+ * seen, so the reps done while recognition catches up are not lost. The
+ * previous exercise keeps only the reps counted before then, so a rep is
+ * never credited to both.
+ *
+ * detect() runs on the analysis thread; the per-exercise totals are
+ * guarded by this detector's lock so they can be read from any thread.
+ */
+public class MultiExerciseDetector extends ExerciseDetector {
+
+    public static final String EXERCISE_TYPE = "circuit";
+
+    static final String[] EXERCISES = { "squat", "bicep_curl", "lunge", "plank" };
+
+    private final ExerciseDetector[] detectors = new ExerciseDetector[EXERCISES.length];
+    private final ExerciseRecognizer recognizer = new ExerciseRecognizer();
+
+    private volatile int active = -1; // Index into EXERCISES, -1 until recognised
+    private int activeBaseline; // Active detector's rep count when it took over
+    private int pendingIndex = -1;
+    private int pendingBaseline;
+    private int previousCountAtPending; // Active detector's rep count when the pending exercise appeared
+    private final int[] creditedReps = new int[EXERCISES.length]; // From earlier turns as the active exercise
+    private final long[] activeDurationMs = new long[EXERCISES.length];
+    private long lastTimestampMs = -1L;
+
+    /**
+     * @param loader loads each exercise's form model; null for rules only
+     */
+    public MultiExerciseDetector(FormClassifier.Loader loader) {
+        super(null);
+        for (int i = 0; i < EXERCISES.length; i++) {
+            detectors[i] = ExerciseDetector.create(EXERCISES[i], loader);
+            detectors[i].setFormModelEnabled(false);
+        }
+    }
+
+    @Override
+    public synchronized DetectionResult detect(PoseFeatures features) {
+        long timestampMs = features.getFrame().getTimestampMs();
+        int current = active;
+        if (current >= 0 && lastTimestampMs >= 0L && timestampMs > lastTimestampMs) {
+            activeDurationMs[current] += timestampMs - lastTimestampMs;
+        }
+        lastTimestampMs = timestampMs;
+
+        int recognized = indexOf(recognizer.update(features));
+        if (recognized >= 0 && recognized != current) {
+            activate(recognized);
+            current = recognized;
+        }
+        int pending = indexOf(recognizer.getPendingExercise());
+        if (pending != pendingIndex) {
+            pendingIndex = pending;
+            pendingBaseline = pending >= 0 ? detectors[pending].getRepCount() : 0;
+            previousCountAtPending = current >= 0 ? detectors[current].getRepCount() : 0;
+        }
+
+        DetectionResult result = null;
+        for (int i = 0; i < detectors.length; i++) {
+            DetectionResult detected = detectors[i].detect(features);
+            if (i == current) {
+                result = detected;
+            }
+        }
+
+        if (result == null) {
+            return new DetectionResult(
+                    true,
+                    1.0f,
+                    "Start any exercise",
+                    0,
+                    "idle");
+        }
+        return new DetectionResult(
+                result.isCorrect(),
+                result.getConfidence(),
+                result.getFeedback(),
+                getRepCount(),
+                result.getStage(),
+                result.getErrors(),
+                result.getCorrectionTip());
+    }
+
+    private void activate(int index) {
+        int previous = active;
+        boolean fromPending = index == pendingIndex;
+        if (previous >= 0) {
+            // Reps since the new exercise was first seen belong to it, not to the previous one
+            int previousCount = detectors[previous].getRepCount();
+            if (fromPending) {
+                previousCount = Math.min(previousCount, previousCountAtPending);
+            }
+            creditedReps[previous] += Math.max(0, previousCount - activeBaseline);
+            detectors[previous].setFormModelEnabled(false);
+        }
+        activeBaseline = fromPending ? pendingBaseline : detectors[index].getRepCount();
+        detectors[index].setFormModelEnabled(true);
+        active = index;
+    }
+
+    private static int indexOf(String exerciseType) {
+        if (exerciseType == null)
+            return -1;
+
+        for (int i = 0; i < EXERCISES.length; i++) {
+            if (EXERCISES[i].equals(exerciseType))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * The exercise currently being counted, or null until one is recognised.
+     */
+    public String getExerciseType() {
+        int current = active;
+        return current >= 0 ? EXERCISES[current] : null;
+    }
+
+    @Override
+    public String getExerciseName() {
+        int current = active;
+        return current >= 0 ? "Circuit: " + detectors[current].getExerciseName() : "Circuit";
+    }
+
+    @Override
+    public boolean isHoldExercise() {
+        int current = active;
+        return current >= 0 && detectors[current].isHoldExercise();
+    }
+
+    /**
+     * Reps (hold seconds for plank) of the current exercise, over the whole
+     * session.
+     */
+    @Override
+    public synchronized int getRepCount() {
+        int current = active;
+        return current >= 0 ? getRepCount(current) : 0;
+    }
+
+    /**
+     * Reps (hold seconds for plank) credited to {@code exerciseType} over the
+     * session.
+     */
+    public synchronized int getRepCount(String exerciseType) {
+        int index = indexOf(exerciseType);
+        return index >= 0 ? getRepCount(index) : 0;
+    }
+
+    private int getRepCount(int index) {
+        int reps = creditedReps[index];
+        if (index == active) {
+            reps += detectors[index].getRepCount() - activeBaseline;
+        }
+        return reps;
+    }
+
+    /**
+     * Time {@code exerciseType} was the recognised exercise, in ms of frame time.
+     */
+    public synchronized long getActiveDurationMs(String exerciseType) {
+        int index = indexOf(exerciseType);
+        return index >= 0 ? activeDurationMs[index] : 0L;
+    }
+
+    /**
+     * Exercise types this detector recognises.
+     */
+    public static String[] getExerciseTypes() {
+        return EXERCISES.clone();
+    }
+
+    @Override
+    public synchronized void reset() {
+        super.reset();
+        for (ExerciseDetector detector : detectors) {
+            detector.reset();
+            detector.setFormModelEnabled(false);
+        }
+        recognizer.reset();
+        active = -1;
+        activeBaseline = 0;
+        pendingIndex = -1;
+        pendingBaseline = 0;
+        previousCountAtPending = 0;
+        lastTimestampMs = -1L;
+        for (int i = 0; i < EXERCISES.length; i++) {
+            creditedReps[i] = 0;
+            activeDurationMs[i] = 0L;
+        }
+    }
+
+    @Override
+    public void setModelLatencyHistogram(LatencyHistogram histogram) {
+        super.setModelLatencyHistogram(histogram);
+        for (ExerciseDetector detector : detectors) {
+            detector.setModelLatencyHistogram(histogram);
+        }
+    }
+
+    /**
+     * Warm up every exercise's model, since any of them may become active.
+     * Returns false if none is loaded.
+     */
+    @Override
+    public boolean warmUp() {
+        boolean warmed = false;
+        for (ExerciseDetector detector : detectors) {
+            warmed |= detector.warmUp();
+        }
+        return warmed;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        for (ExerciseDetector detector : detectors) {
+            detector.close();
+        }
+    }
+}
@@ -1,9 +1,6 @@
 package com.alignify.exercises;
 
-import android.content.Context;
-import android.util.Log;
-
-import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
+import com.alignify.pose.PoseFrame;
 import com.alignify.utils.LandmarkUtils;
 
 import java.util.ArrayList;
@@ -19,6 +16,8 @@ import java.util.List;
  */
 public class PlankDetector extends ExerciseDetector {
 
+    static final String MODEL_PATH = "plank_model.tflite";
+
     // Hip angle thresholds (shoulder-hip-ankle alignment)
     // calculateAngle() returns 0-180, so thresholds must be in that range
     private static final float HIP_ANGLE_IDEAL = 170f; // Nearly straight
@@ -27,12 +26,14 @@ public class PlankDetector extends ExerciseDetector {
     // Shoulder-wrist alignment threshold
     private static final float SHOULDER_WRIST_THRESHOLD = 0.1f;
 
+    // Frame timestamps, so holds are timed correctly when frames arrive faster
+    // or slower than real time (e.g. offline video analysis)
     private long holdStartTime = 0;
     private long totalHoldTime = 0;
     private boolean isHolding = false;
 
-    public PlankDetector(Context context) {
-        super(context, "plank_model.tflite");
+    public PlankDetector(FormClassifier formClassifier) {
+        super(formClassifier);
     }
 
     @Override
@@ -41,17 +42,24 @@ public class PlankDetector extends ExerciseDetector {
     }
 
     @Override
-    public DetectionResult detect(PoseLandmarkerResult result) {
+    public boolean isHoldExercise() {
+        return true;
+    }
+
+    @Override
+    public DetectionResult detect(PoseFeatures features) {
+        PoseFrame frame = features.getFrame();
         List<String> errors = new ArrayList<>();
         boolean isCorrect = true;
+        long frameTime = frame.getTimestampMs();
 
         // Check if person is in plank position
-        boolean isInPlankPosition = checkPlankPosition(result);
+        boolean isInPlankPosition = checkPlankPosition(frame);
 
         if (!isInPlankPosition) {
             if (isHolding) {
                 // End hold
-                totalHoldTime += System.currentTimeMillis() - holdStartTime;
+                totalHoldTime += frameTime - holdStartTime;
                 isHolding = false;
             }
 
@@ -67,22 +75,22 @@ public class PlankDetector extends ExerciseDetector {
 
         // Start or continue hold
         if (!isHolding) {
-            holdStartTime = System.currentTimeMillis();
+            holdStartTime = frameTime;
             isHolding = true;
         }
 
-        long currentHoldTime = (System.currentTimeMillis() - holdStartTime + totalHoldTime) / 1000;
+        long currentHoldTime = (frameTime - holdStartTime + totalHoldTime) / 1000;
         _repCount = (int) currentHoldTime;
 
         // Check hip alignment
-        String hipError = checkHipAlignment(result);
+        String hipError = checkHipAlignment(frame);
         if (hipError != null) {
             errors.add(hipError);
             isCorrect = false;
         }
 
         // Check shoulder alignment
-        String shoulderError = checkShoulderAlignment(result);
+        String shoulderError = checkShoulderAlignment(frame);
         if (shoulderError != null) {
             errors.add(shoulderError);
             isCorrect = false;
@@ -90,29 +98,25 @@ public class PlankDetector extends ExerciseDetector {
 
         // Use ML model if available
         float confidence = 1.0f;
-        if (tfliteInterpreter != null) {
-            try {
-                float[] features = LandmarkUtils.extractPlankFeatures(result);
-                if (features != null) {
-                    int prediction = tfliteInterpreter.predictClass(features);
-                    confidence = tfliteInterpreter.predictConfidence(features);
-                    switch (prediction) {
-                        case 1:
-                            if (!errors.contains("Lower your hips")) {
-                                errors.add("Adjust form");
-                            }
-                            isCorrect = false;
-                            break;
-                        case 2:
-                            if (!errors.contains("Raise your hips")) {
-                                errors.add("Adjust form");
-                            }
-                            isCorrect = false;
-                            break;
+        float[] formFeatures;
+        if (hasFormModel()
+                && (formFeatures = features.getFormFeatures(LandmarkUtils.PLANK_FEATURE_LANDMARKS)) != null
+                && classifyForm(formFeatures)) {
+            int prediction = classification.getClassIndex();
+            confidence = classification.getConfidence();
+            switch (prediction) {
+                case 1:
+                    if (!errors.contains("Lower your hips")) {
+                        errors.add("Adjust form");
+                    }
+                    isCorrect = false;
+                    break;
+                case 2:
+                    if (!errors.contains("Raise your hips")) {
+                        errors.add("Adjust form");
                     }
-                }
-            } catch (Exception e) {
-                Log.w("PlankDetector", "ML inference failed", e);
+                    isCorrect = false;
+                    break;
             }
         }
 
@@ -132,62 +136,48 @@ public class PlankDetector extends ExerciseDetector {
                 errors);
     }
 
-    private boolean checkPlankPosition(PoseLandmarkerResult result) {
+    private boolean checkPlankPosition(PoseFrame frame) {
         // Check left side first, fall back to right side
-        LandmarkUtils.Point2D shoulder = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_SHOULDER);
-        LandmarkUtils.Point2D hip = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_HIP);
-        LandmarkUtils.Point2D ankle = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_ANKLE);
-
-        if (shoulder == null || hip == null || ankle == null) {
-            shoulder = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_SHOULDER);
-            hip = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_HIP);
-            ankle = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_ANKLE);
-        }
+        boolean left = hasLeftSide(frame);
+        int shoulder = left ? LandmarkUtils.Landmarks.LEFT_SHOULDER : LandmarkUtils.Landmarks.RIGHT_SHOULDER;
+        int hip = left ? LandmarkUtils.Landmarks.LEFT_HIP : LandmarkUtils.Landmarks.RIGHT_HIP;
+        int ankle = left ? LandmarkUtils.Landmarks.LEFT_ANKLE : LandmarkUtils.Landmarks.RIGHT_ANKLE;
 
-        if (shoulder == null || hip == null || ankle == null) {
+        if (!frame.has(shoulder, hip, ankle)) {
             return false;
         }
 
         // Check if body is roughly horizontal (plank position)
-        float shoulderHipDiff = Math.abs(shoulder.y - hip.y);
-        float hipAnkleDiff = Math.abs(hip.y - ankle.y);
+        float shoulderHipDiff = Math.abs(frame.y(shoulder) - frame.y(hip));
+        float hipAnkleDiff = Math.abs(frame.y(hip) - frame.y(ankle));
 
         // In plank, these should be relatively small
         return shoulderHipDiff < 0.3f && hipAnkleDiff < 0.3f;
     }
 
-    private String checkHipAlignment(PoseLandmarkerResult result) {
+    private String checkHipAlignment(PoseFrame frame) {
         // Use shoulder-hip-ankle positions to detect alignment
         // The angle alone can't distinguish hips-too-high from hips-sagging
         // since both cause the angle to decrease from 180
-        LandmarkUtils.Point2D shoulder = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_SHOULDER);
-        LandmarkUtils.Point2D hip = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_HIP);
-        LandmarkUtils.Point2D ankle = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_ANKLE);
-
-        if (shoulder == null || hip == null || ankle == null) {
-            shoulder = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_SHOULDER);
-            hip = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_HIP);
-            ankle = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_ANKLE);
-        }
-
-        if (shoulder == null || hip == null || ankle == null) {
-            return null;
-        }
+        boolean left = hasLeftSide(frame);
+        int shoulder = left ? LandmarkUtils.Landmarks.LEFT_SHOULDER : LandmarkUtils.Landmarks.RIGHT_SHOULDER;
+        int hip = left ? LandmarkUtils.Landmarks.LEFT_HIP : LandmarkUtils.Landmarks.RIGHT_HIP;
+        int ankle = left ? LandmarkUtils.Landmarks.LEFT_ANKLE : LandmarkUtils.Landmarks.RIGHT_ANKLE;
 
         // Check hip angle for overall form quality
-        float hipAngle = LandmarkUtils.calculateAngle(shoulder, hip, ankle);
-        if (hipAngle > HIP_ANGLE_LOW_THRESHOLD) {
-            // Form is acceptable
+        float hipAngle = frame.angle(shoulder, hip, ankle);
+        if (Float.isNaN(hipAngle) || hipAngle > HIP_ANGLE_LOW_THRESHOLD) {
+            // Not visible, or form is acceptable
             return null;
         }
 
         // Form is off - determine direction using vertical position
         // In normalized coords, y increases downward
         // Interpolate expected hip y on the shoulder-ankle line
-        float dx = ankle.x - shoulder.x;
-        float t = (Math.abs(dx) > 0.001f) ? (hip.x - shoulder.x) / dx : 0.5f;
-        float expectedY = shoulder.y + t * (ankle.y - shoulder.y);
-        float deviation = hip.y - expectedY;
+        float dx = frame.x(ankle) - frame.x(shoulder);
+        float t = (Math.abs(dx) > 0.001f) ? (frame.x(hip) - frame.x(shoulder)) / dx : 0.5f;
+        float expectedY = frame.y(shoulder) + t * (frame.y(ankle) - frame.y(shoulder));
+        float deviation = frame.y(hip) - expectedY;
 
         // deviation > 0 means hip is below the line (sagging)
         // deviation < 0 means hip is above the line (piked up)
@@ -200,18 +190,18 @@ public class PlankDetector extends ExerciseDetector {
         return null;
     }
 
-    private String checkShoulderAlignment(PoseLandmarkerResult result) {
-        LandmarkUtils.Point2D shoulder = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_SHOULDER);
-        LandmarkUtils.Point2D wrist = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_WRIST);
+    private String checkShoulderAlignment(PoseFrame frame) {
+        int shoulder = LandmarkUtils.Landmarks.LEFT_SHOULDER;
+        int wrist = LandmarkUtils.Landmarks.LEFT_WRIST;
 
-        if (shoulder == null || wrist == null) {
-            shoulder = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_SHOULDER);
-            wrist = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_WRIST);
+        if (!frame.has(shoulder, wrist)) {
+            shoulder = LandmarkUtils.Landmarks.RIGHT_SHOULDER;
+            wrist = LandmarkUtils.Landmarks.RIGHT_WRIST;
         }
 
-        if (shoulder != null && wrist != null) {
+        if (frame.has(shoulder, wrist)) {
             // Check if shoulders are stacked over wrists
-            float xDiff = Math.abs(shoulder.x - wrist.x);
+            float xDiff = Math.abs(frame.x(shoulder) - frame.x(wrist));
             if (xDiff > SHOULDER_WRIST_THRESHOLD) {
                 return "Stack shoulders over wrists";
             }
@@ -220,6 +210,13 @@ public class PlankDetector extends ExerciseDetector {
         return null;
     }
 
+    private static boolean hasLeftSide(PoseFrame frame) {
+        return frame.has(
+                LandmarkUtils.Landmarks.LEFT_SHOULDER,
+                LandmarkUtils.Landmarks.LEFT_HIP,
+                LandmarkUtils.Landmarks.LEFT_ANKLE);
+    }
+
     @Override
     public void reset() {
         super.reset();
@@ -0,0 +1,141 @@
+package com.alignify.exercises;
+
+import com.alignify.pose.PoseFrame;
+import com.alignify.utils.LandmarkUtils;
+import com.alignify.utils.LandmarkUtils.Landmarks;
+
+/**
+ * Per-frame values the detectors and {@link ExerciseRecognizer} read from a
+ * pose, computed once so several consumers can share them. Joint angles are
+ * computed on {@link #update}; form-model inputs on first request, so only
+ * the models that actually run pay for them.
+ *
+ * Not thread-safe. Values are valid until the next {@link #update}.
+ */
+public final class PoseFeatures {
+
+    private static final int MAX_FEATURE_SETS = 4;
+
+    private PoseFrame frame;
+    private float leftKneeAngle;
+    private float rightKneeAngle;
+    private float leftElbowAngle;
+    private float rightElbowAngle;
+    private float leftHipAngle;
+    private float rightHipAngle;
+    private float torsoAngle;
+
+    // Form-model inputs by landmark set, recomputed when stale
+    private int generation = 0;
+    private int featureSets = 0;
+    private final int[][] featureLandmarks = new int[MAX_FEATURE_SETS][];
+    private final float[][] featureValues = new float[MAX_FEATURE_SETS][];
+    private final int[] featureGenerations = new int[MAX_FEATURE_SETS];
+    private final boolean[] featureValid = new boolean[MAX_FEATURE_SETS];
+
+    /**
+     * Compute the features of {@code frame}, which must not change until the
+     * next update.
+     */
+    public void update(PoseFrame frame) {
+        this.frame = frame;
+        generation++;
+        leftKneeAngle = LandmarkUtils.calculateKneeAngle(frame, true);
+        rightKneeAngle = LandmarkUtils.calculateKneeAngle(frame, false);
+        leftElbowAngle = LandmarkUtils.calculateElbowAngle(frame, true);
+        rightElbowAngle = LandmarkUtils.calculateElbowAngle(frame, false);
+        leftHipAngle = LandmarkUtils.calculateHipAngle(frame, true);
+        rightHipAngle = LandmarkUtils.calculateHipAngle(frame, false);
+        torsoAngle = calculateTorsoAngle(frame);
+    }
+
+    public PoseFrame getFrame() {
+        return frame;
+    }
+
+    /**
+     * Hip-knee-ankle angle in degrees, or NaN if the leg is not visible.
+     */
+    public float getKneeAngle(boolean isLeft) {
+        return isLeft ? leftKneeAngle : rightKneeAngle;
+    }
+
+    /**
+     * Shoulder-elbow-wrist angle in degrees, or NaN if the arm is not visible.
+     */
+    public float getElbowAngle(boolean isLeft) {
+        return isLeft ? leftElbowAngle : rightElbowAngle;
+    }
+
+    /**
+     * Shoulder-hip-knee angle in degrees, or NaN if the side is not visible.
+     */
+    public float getHipAngle(boolean isLeft) {
+        return isLeft ? leftHipAngle : rightHipAngle;
+    }
+
+    /**
+     * Torso tilt from vertical in degrees: 0 standing upright, 90 lying flat.
+     * NaN if no shoulder-hip pair is visible.
+     */
+    public float getTorsoAngle() {
+        return torsoAngle;
+    }
+
+    /**
+     * Form-model input for {@code landmarks} (one of the
+     * {@code LandmarkUtils.*_FEATURE_LANDMARKS} arrays), extracted once per
+     * frame however many detectors ask. Do not modify the returned array.
+     *
+     * @return null if any of the landmarks is missing
+     */
+    public float[] getFormFeatures(int[] landmarks) {
+        int slot = 0;
+        while (slot < featureSets && featureLandmarks[slot] != landmarks) {
+            slot++;
+        }
+        if (slot == MAX_FEATURE_SETS) {
+            // More sets than expected: reuse the last slot rather than grow
+            slot = MAX_FEATURE_SETS - 1;
+            featureLandmarks[slot] = null;
+        }
+        if (featureLandmarks[slot] != landmarks) {
+            featureLandmarks[slot] = landmarks;
+            featureValues[slot] = new float[landmarks.length * 2];
+            featureGenerations[slot] = 0;
+            featureSets = Math.max(featureSets, slot + 1);
+        }
+
+        if (featureGenerations[slot] != generation) {
+            featureGenerations[slot] = generation;
+            featureValid[slot] = LandmarkUtils.extractFeatures(frame, landmarks, featureValues[slot]);
+        }
+        return featureValid[slot] ? featureValues[slot] : null;
+    }
+
+    private static float calculateTorsoAngle(PoseFrame frame) {
+        float shoulderX;
+        float shoulderY;
+        float hipX;
+        float hipY;
+        if (frame.has(Landmarks.LEFT_SHOULDER, Landmarks.RIGHT_SHOULDER)
+                && frame.has(Landmarks.LEFT_HIP, Landmarks.RIGHT_HIP)) {
+            shoulderX = (frame.x(Landmarks.LEFT_SHOULDER) + frame.x(Landmarks.RIGHT_SHOULDER)) / 2f;
+            shoulderY = (frame.y(Landmarks.LEFT_SHOULDER) + frame.y(Landmarks.RIGHT_SHOULDER)) / 2f;
+            hipX = (frame.x(Landmarks.LEFT_HIP) + frame.x(Landmarks.RIGHT_HIP)) / 2f;
+            hipY = (frame.y(Landmarks.LEFT_HIP) + frame.y(Landmarks.RIGHT_HIP)) / 2f;
+        } else {
+            boolean left = frame.has(Landmarks.LEFT_SHOULDER, Landmarks.LEFT_HIP);
+            int shoulder = left ? Landmarks.LEFT_SHOULDER : Landmarks.RIGHT_SHOULDER;
+            int hip = left ? Landmarks.LEFT_HIP : Landmarks.RIGHT_HIP;
+            if (!frame.has(shoulder, hip))
+                return Float.NaN;
+
+            shoulderX = frame.x(shoulder);
+            shoulderY = frame.y(shoulder);
+            hipX = frame.x(hip);
+            hipY = frame.y(hip);
+        }
+        return (float) Math.toDegrees(Math.atan2(Math.abs(shoulderX - hipX), Math.abs(shoulderY - hipY)));
+    }
+}
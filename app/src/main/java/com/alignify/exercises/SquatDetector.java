@@ -1,9 +1,6 @@
 package com.alignify.exercises;
 
-import android.content.Context;
-import android.util.Log;
-
-import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
+import com.alignify.pose.PoseFrame;
 import com.alignify.utils.LandmarkUtils;
 
 import java.util.ArrayList;
@@ -18,6 +15,8 @@ import java.util.List;
  */
 public class SquatDetector extends ExerciseDetector {
 
+    static final String MODEL_PATH = "squat_model.tflite";
+
     // Knee angle thresholds for stage detection
     private static final float SQUAT_UP_ANGLE = 160f; // Standing
     private static final float SQUAT_DOWN_ANGLE = 90f; // Squatting
@@ -32,8 +31,8 @@ public class SquatDetector extends ExerciseDetector {
     private String previousStage = "up";
     private String currentStage = "up";
 
-    public SquatDetector(Context context) {
-        super(context, "squat_model.tflite");
+    public SquatDetector(FormClassifier formClassifier) {
+        super(formClassifier);
     }
 
     @Override
@@ -42,15 +41,18 @@ public class SquatDetector extends ExerciseDetector {
     }
 
     @Override
-    public DetectionResult detect(PoseLandmarkerResult result) {
+    public DetectionResult detect(PoseFeatures features) {
+        PoseFrame frame = features.getFrame();
         List<String> errors = new ArrayList<>();
         boolean isCorrect = true;
 
         // Calculate knee angles
-        Float leftKneeAngle = LandmarkUtils.calculateKneeAngle(result, true);
-        Float rightKneeAngle = LandmarkUtils.calculateKneeAngle(result, false);
+        float leftKneeAngle = features.getKneeAngle(true);
+        float rightKneeAngle = features.getKneeAngle(false);
+        boolean hasLeft = !Float.isNaN(leftKneeAngle);
+        boolean hasRight = !Float.isNaN(rightKneeAngle);
 
-        if (leftKneeAngle == null && rightKneeAngle == null) {
+        if (!hasLeft && !hasRight) {
             return new DetectionResult(
                     true,
                     1.0f,
@@ -61,9 +63,9 @@ public class SquatDetector extends ExerciseDetector {
 
         // Average knee angle
         float kneeAngle;
-        if (leftKneeAngle != null && rightKneeAngle != null) {
+        if (hasLeft && hasRight) {
             kneeAngle = (leftKneeAngle + rightKneeAngle) / 2;
-        } else if (leftKneeAngle != null) {
+        } else if (hasLeft) {
             kneeAngle = leftKneeAngle;
         } else {
             kneeAngle = rightKneeAngle;
@@ -84,7 +86,7 @@ public class SquatDetector extends ExerciseDetector {
         }
 
         // Check feet placement
-        String feetError = checkFeetPlacement(result);
+        String feetError = checkFeetPlacement(frame);
         if (feetError != null) {
             errors.add(feetError);
             isCorrect = false;
@@ -92,7 +94,7 @@ public class SquatDetector extends ExerciseDetector {
 
         // Check knee placement (only during down stage)
         if (currentStage.equals("down")) {
-            String kneeError = checkKneePlacement(result);
+            String kneeError = checkKneePlacement(frame);
             if (kneeError != null) {
                 errors.add(kneeError);
                 isCorrect = false;
@@ -101,22 +103,18 @@ public class SquatDetector extends ExerciseDetector {
 
         // Use ML model if available for additional error detection
         float confidence = 1.0f;
-        if (tfliteInterpreter != null) {
-            try {
-                float[] features = LandmarkUtils.extractSquatFeatures(result);
-                if (features != null) {
-                    int prediction = tfliteInterpreter.predictClass(features);
-                    confidence = tfliteInterpreter.predictConfidence(features);
-                    if (prediction == 1) {
-                        errors.add("Knees caving inward");
-                        isCorrect = false;
-                    } else if (prediction == 2) {
-                        errors.add("Leaning too far forward");
-                        isCorrect = false;
-                    }
-                }
-            } catch (Exception e) {
-                Log.w("SquatDetector", "ML inference failed", e);
+        float[] formFeatures;
+        if (hasFormModel()
+                && (formFeatures = features.getFormFeatures(LandmarkUtils.SQUAT_FEATURE_LANDMARKS)) != null
+                && classifyForm(formFeatures)) {
+            int prediction = classification.getClassIndex();
+            confidence = classification.getConfidence();
+            if (prediction == 1) {
+                errors.add("Knees caving inward");
+                isCorrect = false;
+            } else if (prediction == 2) {
+                errors.add("Leaning too far forward");
+                isCorrect = false;
             }
         }
 
@@ -138,18 +136,13 @@ public class SquatDetector extends ExerciseDetector {
                 errors);
     }
 
-    private String checkFeetPlacement(PoseLandmarkerResult result) {
-        LandmarkUtils.Point2D leftShoulder = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_SHOULDER);
-        LandmarkUtils.Point2D rightShoulder = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_SHOULDER);
-        LandmarkUtils.Point2D leftAnkle = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_ANKLE);
-        LandmarkUtils.Point2D rightAnkle = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_ANKLE);
-
-        if (leftShoulder != null && rightShoulder != null &&
-                leftAnkle != null && rightAnkle != null) {
-
-            float shoulderDistance = LandmarkUtils.calculateDistance(leftShoulder, rightShoulder);
-            float feetDistance = LandmarkUtils.calculateDistance(leftAnkle, rightAnkle);
+    private String checkFeetPlacement(PoseFrame frame) {
+        float shoulderDistance = frame.distance(
+                LandmarkUtils.Landmarks.LEFT_SHOULDER, LandmarkUtils.Landmarks.RIGHT_SHOULDER);
+        float feetDistance = frame.distance(
+                LandmarkUtils.Landmarks.LEFT_ANKLE, LandmarkUtils.Landmarks.RIGHT_ANKLE);
 
+        if (!Float.isNaN(shoulderDistance) && !Float.isNaN(feetDistance)) {
             float ratio = feetDistance / shoulderDistance;
 
             if (ratio < FEET_RATIO_MIN) {
@@ -162,18 +155,13 @@ public class SquatDetector extends ExerciseDetector {
         return null;
     }
 
-    private String checkKneePlacement(PoseLandmarkerResult result) {
-        LandmarkUtils.Point2D leftKnee = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_KNEE);
-        LandmarkUtils.Point2D rightKnee = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_KNEE);
-        LandmarkUtils.Point2D leftAnkle = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_ANKLE);
-        LandmarkUtils.Point2D rightAnkle = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_ANKLE);
-
-        if (leftKnee != null && rightKnee != null &&
-                leftAnkle != null && rightAnkle != null) {
-
-            float kneeDistance = LandmarkUtils.calculateDistance(leftKnee, rightKnee);
-            float feetDistance = LandmarkUtils.calculateDistance(leftAnkle, rightAnkle);
+    private String checkKneePlacement(PoseFrame frame) {
+        float kneeDistance = frame.distance(
+                LandmarkUtils.Landmarks.LEFT_KNEE, LandmarkUtils.Landmarks.RIGHT_KNEE);
+        float feetDistance = frame.distance(
+                LandmarkUtils.Landmarks.LEFT_ANKLE, LandmarkUtils.Landmarks.RIGHT_ANKLE);
 
+        if (!Float.isNaN(kneeDistance) && !Float.isNaN(feetDistance)) {
             float ratio = kneeDistance / feetDistance;
 
             if (ratio < KNEE_RATIO_MIN) {
@@ -0,0 +1,86 @@
+package com.alignify.exercises;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.alignify.ml.ModelManager;
+import com.alignify.utils.ClassificationResult;
+import com.alignify.utils.TFLiteInterpreter;
+
+import java.io.File;
+
+/**
+ * {@link FormClassifier} backed by a TensorFlow Lite model, preferring the
+ * downloaded copy in ModelManager's cache over the bundled asset.
+ */
+public class TFLiteFormClassifier implements FormClassifier {
+    private static final String TAG = "TFLiteFormClassifier";
+
+    private final Context context;
+    private final String modelName;
+    private TFLiteInterpreter interpreter;
+
+    private TFLiteFormClassifier(Context context, String modelName, TFLiteInterpreter interpreter) {
+        this.context = context;
+        this.modelName = modelName;
+        this.interpreter = interpreter;
+    }
+
+    /**
+     * Loader for {@link ExerciseDetector#create(String, FormClassifier.Loader)}.
+     */
+    public static FormClassifier.Loader loader(Context context) {
+        Context appContext = context.getApplicationContext();
+        return modelPath -> load(appContext, modelPath);
+    }
+
+    /**
+     * Load model from cache (downloaded) or assets (bundled).
+     *
+     * @return null if neither is usable
+     */
+    public static TFLiteFormClassifier load(Context context, String modelPath) {
+        String modelName = modelPath.replace(".tflite", "");
+        try {
+            ModelManager modelManager = ModelManager.getInstance(context);
+            File cachedModel = modelManager.getModelFileSync(modelName);
+
+            // Threads/XNNPACK/NNAPI are benchmarked once per model version and remembered
+            // Shared across detector instances, so re-entering the screen reuses the interpreter
+            TFLiteInterpreter interpreter = modelManager.acquireInterpreter(modelName, config -> cachedModel != null
+                    ? new TFLiteInterpreter(cachedModel, config) // Use downloaded/cached model
+                    : new TFLiteInterpreter(context, modelPath, config)); // Fallback to bundled asset
+            Log.d(TAG, "Loaded " + (cachedModel != null ? "cached" : "bundled") + " model: " + modelName
+                    + " with " + interpreter.getConfig());
+            return new TFLiteFormClassifier(context, modelName, interpreter);
+        } catch (Exception e) {
+            // Model not available, will use rule-based detection
+            Log.e(TAG, "Failed to load model: " + modelPath, e);
+            return null;
+        }
+    }
+
+    @Override
+    public int getInputSize() {
+        return interpreter.getInputSize();
+    }
+
+    @Override
+    public boolean classify(float[] features, ClassificationResult result) {
+        try {
+            interpreter.classify(features, result);
+            return true;
+        } catch (Exception e) {
+            Log.w(TAG, "ML inference failed for " + modelName, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (interpreter != null) {
+            ModelManager.getInstance(context).releaseInterpreter(interpreter);
+            interpreter = null;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.alignify.ml;
+
+import android.util.Log;
+
+import com.alignify.utils.TFLiteInterpreter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Process-wide, reference-counted cache of form-model interpreters, keyed by
+ * model name and version. Interpreters stay open after their last user
+ * releases them so re-entering an exercise screen skips model mapping and
+ * interpreter construction. Idle entries are closed least-recently-used first
+ * once the cache exceeds its memory budget, or all at once on trim-memory.
+ */
+class InterpreterCache {
+    private static final String TAG = "InterpreterCache";
+
+    private static final class Entry {
+        final String key;
+        final TFLiteInterpreter interpreter;
+        int refCount = 0;
+
+        Entry(String key, TFLiteInterpreter interpreter) {
+            this.key = key;
+            this.interpreter = interpreter;
+        }
+    }
+
+    /**
+     * Creates the interpreter on a cache miss.
+     */
+    interface Loader {
+        TFLiteInterpreter load() throws IOException;
+    }
+
+    /**
+     * A load in progress. Concurrent acquires of the same key wait on it
+     * instead of building a second interpreter.
+     */
+    private static final class PendingLoad {
+        final CountDownLatch done = new CountDownLatch(1);
+        int waiters = 0;
+        boolean invalidated = false;
+        Entry entry;
+        Throwable failure;
+    }
+
+    private final long budgetBytes;
+    // Access order makes iteration least-recently-used first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(8, 0.75f, true);
+    private final Map<TFLiteInterpreter, Entry> byInterpreter = new IdentityHashMap<>();
+    // Invalidated while in use; closed when their last holder releases them
+    private final Map<TFLiteInterpreter, Entry> detached = new IdentityHashMap<>();
+    private final Map<String, PendingLoad> loading = new HashMap<>();
+    private long totalBytes = 0;
+    private int hits = 0;
+    private int misses = 0;
+
+    InterpreterCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Return the cached interpreter for {@code key}, loading it on a miss.
+     * The load runs outside the cache lock, so a slow (benchmarking) load does
+     * not block other models; concurrent misses on the same key share it.
+     * Every call must be balanced by {@link #release}.
+     */
+    TFLiteInterpreter acquire(String key, Loader loader) throws IOException {
+        PendingLoad pending;
+        boolean owner = false;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                entry.refCount++;
+                return entry.interpreter;
+            }
+
+            pending = loading.get(key);
+            if (pending != null) {
+                hits++;
+                pending.waiters++;
+            } else {
+                misses++;
+                pending = new PendingLoad();
+                loading.put(key, pending);
+                owner = true;
+            }
+        }
+
+        return owner ? load(key, loader, pending) : awaitLoad(key, pending);
+    }
+
+    private TFLiteInterpreter load(String key, Loader loader, PendingLoad pending) throws IOException {
+        TFLiteInterpreter interpreter = null;
+        try {
+            interpreter = loader.load();
+        } catch (IOException | RuntimeException | Error e) {
+            synchronized (this) {
+                loading.remove(key);
+                pending.failure = e;
+            }
+            pending.done.countDown();
+            throw e;
+        }
+
+        synchronized (this) {
+            loading.remove(key);
+            Entry entry = new Entry(key, interpreter);
+            // The loader and every waiter hold a reference
+            entry.refCount = 1 + pending.waiters;
+            if (pending.invalidated) {
+                detached.put(interpreter, entry);
+            } else {
+                entries.put(key, entry);
+                byInterpreter.put(interpreter, entry);
+                totalBytes += interpreter.getModelSizeBytes();
+                evictIdleOverBudget();
+            }
+            pending.entry = entry;
+        }
+        pending.done.countDown();
+        return interpreter;
+    }
+
+    private TFLiteInterpreter awaitLoad(String key, PendingLoad pending) throws IOException {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                pending.done.await();
+                break;
+            } catch (InterruptedException e) {
+                // The loader counted this caller in, so it has to take the reference
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            if (pending.failure != null) {
+                throw new IOException("Loading " + key + " failed", pending.failure);
+            }
+            return pending.entry.interpreter;
+        }
+    }
+
+    /**
+     * Drop one reference. The interpreter stays cached while within budget.
+     */
+    synchronized void release(TFLiteInterpreter interpreter) {
+        Entry entry = byInterpreter.get(interpreter);
+        if (entry != null) {
+            if (entry.refCount > 0) {
+                entry.refCount--;
+            }
+            evictIdleOverBudget();
+            return;
+        }
+
+        entry = detached.get(interpreter);
+        if (entry == null) {
+            // Not handed out by this cache, so nobody else owns it
+            interpreter.close();
+            return;
+        }
+
+        // Invalidated while in use (e.g. a newer model version); close with the last holder
+        entry.refCount--;
+        if (entry.refCount <= 0) {
+            detached.remove(interpreter);
+            interpreter.close();
+        }
+    }
+
+    /**
+     * Close every idle interpreter whose key starts with {@code keyPrefix}.
+     * In-use entries, and loads still in flight, are detached so they are
+     * closed on their final release.
+     */
+    synchronized void invalidate(String keyPrefix) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (!entry.key.startsWith(keyPrefix))
+                continue;
+
+            iterator.remove();
+            byInterpreter.remove(entry.interpreter);
+            totalBytes -= entry.interpreter.getModelSizeBytes();
+            if (entry.refCount == 0) {
+                entry.interpreter.close();
+            } else {
+                detached.put(entry.interpreter, entry);
+            }
+        }
+
+        for (Map.Entry<String, PendingLoad> load : loading.entrySet()) {
+            if (load.getKey().startsWith(keyPrefix)) {
+                load.getValue().invalidated = true;
+            }
+        }
+    }
+
+    /**
+     * Close all idle interpreters.
+     */
+    synchronized void trim() {
+        int closed = evictIdle(0);
+        Log.d(TAG, "Trimmed " + closed + " idle interpreters; " + this);
+    }
+
+    private void evictIdleOverBudget() {
+        evictIdle(budgetBytes);
+    }
+
+    private int evictIdle(long targetBytes) {
+        int closed = 0;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (totalBytes > targetBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.refCount > 0)
+                continue;
+
+            iterator.remove();
+            byInterpreter.remove(entry.interpreter);
+            totalBytes -= entry.interpreter.getModelSizeBytes();
+            entry.interpreter.close();
+            closed++;
+        }
+        return closed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "InterpreterCache{entries=" + entries.size() + ", detached=" + detached.size() + ", bytes=" + totalBytes + "/" + budgetBytes
+                + ", hits=" + hits + ", misses=" + misses + "}";
+    }
+}
@@ -1,10 +1,13 @@
 package com.alignify.ml;
 
 import android.app.AlertDialog;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Log;
 
+import com.alignify.utils.InterpreterConfig;
+import com.alignify.utils.TFLiteInterpreter;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.storage.FirebaseStorage;
@@ -18,6 +21,7 @@ import java.io.InputStream;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +35,14 @@ public class ModelManager {
     private static final String TAG = "ModelManager";
     private static final String PREFS_NAME = "ModelVersions";
     private static final String MODELS_DIR = "models";
+    private static final String INTERPRETER_CONFIG_PREFIX = "interpreter_config_";
+
+    // Interpreter config micro-benchmark, run once per model version
+    private static final int TUNING_WARMUP_RUNS = 5;
+    private static final int TUNING_TIMED_RUNS = 30;
+
+    // Form models are ~15 KB each, so this keeps every exercise warm with plenty of headroom
+    private static final long INTERPRETER_CACHE_BUDGET_BYTES = 4L * 1024 * 1024;
 
     // Model names
     public static final String MODEL_SQUAT = "squat_model";
@@ -38,12 +50,16 @@ public class ModelManager {
     public static final String MODEL_LUNGE = "lunge_model";
     public static final String MODEL_BICEP = "bicep_model";
 
+    // MediaPipe pose landmarker bundles (.task); only lite is shipped in the APK
+    public static final String MODEL_POSE_LANDMARKER_PREFIX = "pose_landmarker_";
+
     private static ModelManager instance;
     private final Context context;
     private final FirebaseFirestore firestore;
     private final FirebaseStorage storage;
     private final SharedPreferences prefs;
     private final File modelsDir;
+    private final InterpreterCache interpreterCache = new InterpreterCache(INTERPRETER_CACHE_BUDGET_BYTES);
 
     // Track available updates
     private final Map<String, ModelInfo> availableUpdates = new HashMap<>();
@@ -62,6 +78,13 @@ public class ModelManager {
         void onError(String error);
     }
 
+    /**
+     * Creates an interpreter for one model with the given runtime options.
+     */
+    public interface InterpreterFactory {
+        TFLiteInterpreter create(InterpreterConfig config) throws IOException;
+    }
+
     public static class ModelInfo {
         public String name;
         public int remoteVersion;
@@ -95,6 +118,22 @@ public class ModelManager {
         return instance;
     }
 
+    /**
+     * Release idle cached interpreters when the system is low on memory.
+     * Does nothing if no model has been loaded in this process yet.
+     */
+    public static void trimMemory(int level) {
+        ModelManager manager;
+        synchronized (ModelManager.class) {
+            manager = instance;
+        }
+        // UI_HIDDEN alone is just backgrounding; keep interpreters warm for the user's return
+        if (manager != null && level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                && level != ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            manager.interpreterCache.trim();
+        }
+    }
+
     /**
      * Check for model updates and notify via callback.
      * Shows dialog to user if updates are available.
@@ -210,7 +249,7 @@ public class ModelManager {
      * Returns cached file if available, otherwise falls back to assets.
      */
     public void getModel(String modelName, ModelCallback callback) {
-        File cachedModel = new File(modelsDir, modelName + ".tflite");
+        File cachedModel = new File(modelsDir, modelFileName(modelName));
 
         if (cachedModel.exists()) {
             callback.onModelReady(cachedModel);
@@ -231,7 +270,7 @@ public class ModelManager {
      * Get model file synchronously. Returns null if should use asset.
      */
     public File getModelFileSync(String modelName) {
-        File cachedModel = new File(modelsDir, modelName + ".tflite");
+        File cachedModel = new File(modelsDir, modelFileName(modelName));
         return cachedModel.exists() ? cachedModel : null;
     }
 
@@ -259,8 +298,8 @@ public class ModelManager {
     private void downloadModel(String modelName, String storagePath, int version,
             ModelCallback callback) {
         StorageReference modelRef = storage.getReference().child(storagePath);
-        File tempFile = new File(modelsDir, modelName + ".tflite.tmp");
-        File finalFile = new File(modelsDir, modelName + ".tflite");
+        File tempFile = new File(modelsDir, modelFileName(modelName) + ".tmp");
+        File finalFile = new File(modelsDir, modelFileName(modelName));
 
         modelRef.getFile(tempFile)
                 .addOnSuccessListener(taskSnapshot -> {
@@ -268,6 +307,7 @@ public class ModelManager {
                     if (tempFile.renameTo(finalFile)) {
                         prefs.edit().putInt(modelName, version).apply();
                         availableUpdates.remove(modelName);
+                        interpreterCache.invalidate(modelName + "_v");
                         Log.d(TAG, "Downloaded " + modelName + " v" + version);
                         callback.onModelReady(finalFile);
                     } else {
@@ -282,6 +322,123 @@ public class ModelManager {
                 });
     }
 
+    /**
+     * Get a shared interpreter for the current version of a model. Cache hits
+     * return an already-built interpreter; misses go through
+     * {@link #loadTunedInterpreter}. Callers must hand it back with
+     * {@link #releaseInterpreter} instead of closing it.
+     */
+    public TFLiteInterpreter acquireInterpreter(String modelName, InterpreterFactory factory) throws IOException {
+        String key = modelName + "_v" + getLocalVersion(modelName);
+        return interpreterCache.acquire(key, () -> loadTunedInterpreter(modelName, factory));
+    }
+
+    /**
+     * Return an interpreter obtained from {@link #acquireInterpreter}.
+     */
+    public void releaseInterpreter(TFLiteInterpreter interpreter) {
+        interpreterCache.release(interpreter);
+    }
+
+    /**
+     * Load an interpreter with the fastest runtime config for this device.
+     * The first load of each model version benchmarks every candidate config
+     * and persists the winner; later loads reuse it directly.
+     */
+    public TFLiteInterpreter loadTunedInterpreter(String modelName, InterpreterFactory factory) throws IOException {
+        InterpreterConfig saved = getInterpreterConfig(modelName);
+        if (saved != null) {
+            return factory.create(saved);
+        }
+
+        TFLiteInterpreter best = null;
+        long bestNanos = Long.MAX_VALUE;
+        for (InterpreterConfig candidate : InterpreterConfig.candidates()) {
+            TFLiteInterpreter interpreter;
+            long medianNanos;
+            try {
+                interpreter = factory.create(candidate);
+            } catch (Exception e) {
+                Log.w(TAG, "Skipping " + candidate + " for " + modelName, e);
+                continue;
+            }
+            try {
+                medianNanos = benchmarkInterpreter(interpreter);
+            } catch (Exception e) {
+                Log.w(TAG, "Benchmark failed for " + candidate + " on " + modelName, e);
+                interpreter.close();
+                continue;
+            }
+
+            Log.d(TAG, modelName + " " + interpreter.getConfig() + ": " + medianNanos / 1000 + "us");
+            if (medianNanos < bestNanos) {
+                if (best != null) {
+                    best.close();
+                }
+                best = interpreter;
+                bestNanos = medianNanos;
+            } else {
+                interpreter.close();
+            }
+        }
+
+        if (best == null) {
+            return factory.create(InterpreterConfig.DEFAULT);
+        }
+
+        // Persist what was actually applied, so an NNAPI fallback isn't retried
+        saveInterpreterConfig(modelName, best.getConfig());
+        Log.d(TAG, "Selected " + best.getConfig() + " for " + modelName);
+        return best;
+    }
+
+    /**
+     * Median single-sample inference time in nanoseconds.
+     */
+    private static long benchmarkInterpreter(TFLiteInterpreter interpreter) {
+        float[] input = new float[interpreter.getInputSize()];
+        float[] output = new float[interpreter.getNumClasses()];
+        for (int i = 0; i < TUNING_WARMUP_RUNS; i++) {
+            interpreter.predictInto(input, output);
+        }
+
+        long[] timings = new long[TUNING_TIMED_RUNS];
+        for (int i = 0; i < TUNING_TIMED_RUNS; i++) {
+            long start = System.nanoTime();
+            interpreter.predictInto(input, output);
+            timings[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(timings);
+        return timings[TUNING_TIMED_RUNS / 2];
+    }
+
+    /**
+     * Get the persisted interpreter config for the current version of a model,
+     * or null if it hasn't been benchmarked yet.
+     */
+    public InterpreterConfig getInterpreterConfig(String modelName) {
+        return InterpreterConfig.fromKey(prefs.getString(interpreterConfigKey(modelName), null));
+    }
+
+    /**
+     * Persist the interpreter config for the current version of a model.
+     */
+    public void saveInterpreterConfig(String modelName, InterpreterConfig config) {
+        prefs.edit().putString(interpreterConfigKey(modelName), config.toKey()).apply();
+    }
+
+    /**
+     * File name of a model on disk: MediaPipe task bundles keep their .task
+     * extension, everything else is a TFLite flatbuffer.
+     */
+    private static String modelFileName(String modelName) {
+        return modelName + (modelName.startsWith(MODEL_POSE_LANDMARKER_PREFIX) ? ".task" : ".tflite");
+    }
+
+    private String interpreterConfigKey(String modelName) {
+        return INTERPRETER_CONFIG_PREFIX + modelName + "_v" + getLocalVersion(modelName);
+    }
+
     /**
      * Get locally stored version number for a model.
      */
@@ -302,6 +459,10 @@ public class ModelManager {
                 return "Lunge Detector";
             case MODEL_BICEP:
                 return "Bicep Curl Detector";
+            case MODEL_POSE_LANDMARKER_PREFIX + "full":
+                return "Pose Tracker (Full)";
+            case MODEL_POSE_LANDMARKER_PREFIX + "heavy":
+                return "Pose Tracker (Heavy)";
             default:
                 return modelName.replace("_", " ");
         }
@@ -1,6 +1,6 @@
 package com.alignify.ml;
 
-import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
+import com.alignify.pose.PoseFrame;
 import com.alignify.utils.LandmarkUtils;
 
 /**
@@ -23,44 +23,41 @@ public class PostureClassifier {
     private static final float SLOUCHING_THRESHOLD = 0.25f;
     private static final float CRITICAL_THRESHOLD = 0.40f;
 
-    public PostureState classify(PoseLandmarkerResult result) {
-        if (result == null || result.landmarks().isEmpty()) {
+    public PostureState classify(PoseFrame frame) {
+        if (frame == null || frame.isEmpty()) {
             return PostureState.GOOD;
         }
 
         // Try left side
-        LandmarkUtils.Point2D leftEar = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_EAR);
-        LandmarkUtils.Point2D leftShoulder = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_SHOULDER);
-        LandmarkUtils.Point2D leftHip = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.LEFT_HIP);
-
-        if (leftEar != null && leftShoulder != null && leftHip != null) {
-            float stateRatio = calculateFHP(leftEar, leftShoulder, leftHip);
-            return determineState(stateRatio);
-        }
+        float ratio = calculateFHP(frame,
+                LandmarkUtils.Landmarks.LEFT_EAR,
+                LandmarkUtils.Landmarks.LEFT_SHOULDER,
+                LandmarkUtils.Landmarks.LEFT_HIP);
 
         // Fallback to right side
-        LandmarkUtils.Point2D rightEar = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_EAR);
-        LandmarkUtils.Point2D rightShoulder = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_SHOULDER);
-        LandmarkUtils.Point2D rightHip = LandmarkUtils.getPoint2D(result, LandmarkUtils.Landmarks.RIGHT_HIP);
-
-        if (rightEar != null && rightShoulder != null && rightHip != null) {
-            float stateRatio = calculateFHP(rightEar, rightShoulder, rightHip);
-            return determineState(stateRatio);
+        if (Float.isNaN(ratio)) {
+            ratio = calculateFHP(frame,
+                    LandmarkUtils.Landmarks.RIGHT_EAR,
+                    LandmarkUtils.Landmarks.RIGHT_SHOULDER,
+                    LandmarkUtils.Landmarks.RIGHT_HIP);
         }
 
-        return PostureState.GOOD;
+        return Float.isNaN(ratio) ? PostureState.GOOD : determineState(ratio);
     }
 
     /**
      * Calculates Forward Head Posture (FHP) severity by looking at horizontal displacement
      * of the ear relative to the shoulder, normalized by torso height.
+     * Returns NaN if any of the landmarks is missing.
      */
-    private float calculateFHP(LandmarkUtils.Point2D ear, LandmarkUtils.Point2D shoulder, LandmarkUtils.Point2D hip) {
-        float torsoHeight = Math.abs(shoulder.y - hip.y);
+    private float calculateFHP(PoseFrame frame, int ear, int shoulder, int hip) {
+        if (!frame.has(ear, shoulder, hip)) return Float.NaN;
+
+        float torsoHeight = Math.abs(frame.y(shoulder) - frame.y(hip));
         if (torsoHeight < 0.01f) return 0f; // Avoid division by zero if completely weird pose
 
         // horizontal distance from shoulder to ear
-        float headForwardDistance = Math.abs(ear.x - shoulder.x);
+        float headForwardDistance = Math.abs(frame.x(ear) - frame.x(shoulder));
         return headForwardDistance / torsoHeight;
     }
 
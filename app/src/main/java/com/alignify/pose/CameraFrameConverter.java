@@ -0,0 +1,112 @@
+package com.alignify.pose;
+
+import android.graphics.Rect;
+
+import androidx.camera.core.ImageProxy;
+
+import com.google.mediapipe.framework.image.ByteBufferImageBuilder;
+import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.vision.core.ImageProcessingOptions;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wraps CameraX RGBA_8888 frames as MediaPipe images without going through a
+ * Bitmap. Rotation is not applied to the pixels; pass {@link #optionsFor(int)}
+ * to MediaPipe instead and map the landmarks back with {@link PoseFrame}.
+ * Frames can be cropped to a region of interest, see {@link PoseRoiTracker}.
+ *
+ * Not thread-safe: use one instance per analyzer executor.
+ */
+public class CameraFrameConverter {
+
+    private static final int BYTES_PER_PIXEL = 4;
+
+    // One options instance per quarter turn, built once
+    private final ImageProcessingOptions[] rotationOptions = new ImageProcessingOptions[4];
+
+    // Only used when the camera pads its rows or the frame is cropped; reused across frames
+    private ByteBuffer packedBuffer;
+
+    /**
+     * Wrap the RGBA plane of the given frame.
+     * MediaPipe copies the pixels when the frame is submitted, so the proxy can be
+     * closed as soon as detectAsync() returns.
+     */
+    public MPImage convert(ImageProxy imageProxy) {
+        ImageProxy.PlaneProxy plane = imageProxy.getPlanes()[0];
+        int width = imageProxy.getWidth();
+        int height = imageProxy.getHeight();
+        int rowBytes = width * BYTES_PER_PIXEL;
+        ByteBuffer buffer = plane.getBuffer();
+
+        if (plane.getPixelStride() == BYTES_PER_PIXEL
+                && plane.getRowStride() == rowBytes
+                && buffer.capacity() == rowBytes * height) {
+            // Tightly packed: hand the plane straight to MediaPipe
+            buffer.rewind();
+            return new ByteBufferImageBuilder(buffer, width, height, MPImage.IMAGE_FORMAT_RGBA).build();
+        }
+
+        return new ByteBufferImageBuilder(packRows(buffer, plane.getRowStride(), 0, 0, width, height),
+                width, height, MPImage.IMAGE_FORMAT_RGBA).build();
+    }
+
+    /**
+     * Copy the {@code crop} region of the given frame into a MediaPipe image.
+     * Landmarks come back relative to the crop; {@link PoseFrame} maps them
+     * back to the full frame.
+     */
+    public MPImage convert(ImageProxy imageProxy, Rect crop) {
+        if (crop.left <= 0 && crop.top <= 0
+                && crop.right >= imageProxy.getWidth() && crop.bottom >= imageProxy.getHeight()) {
+            return convert(imageProxy);
+        }
+
+        ImageProxy.PlaneProxy plane = imageProxy.getPlanes()[0];
+        int cropWidth = crop.right - crop.left;
+        int cropHeight = crop.bottom - crop.top;
+        ByteBuffer pixels = packRows(plane.getBuffer(), plane.getRowStride(), crop.left, crop.top,
+                cropWidth, cropHeight);
+        return new ByteBufferImageBuilder(pixels, cropWidth, cropHeight, MPImage.IMAGE_FORMAT_RGBA).build();
+    }
+
+    /**
+     * Image processing options carrying the given clockwise rotation.
+     */
+    public ImageProcessingOptions optionsFor(int rotationDegrees) {
+        int index = ((rotationDegrees / 90) % 4 + 4) % 4;
+        ImageProcessingOptions options = rotationOptions[index];
+        if (options == null) {
+            options = ImageProcessingOptions.builder()
+                    .setRotationDegrees(index * 90)
+                    .build();
+            rotationOptions[index] = options;
+        }
+        return options;
+    }
+
+    /**
+     * Copy a width x height pixel block starting at (left, top) into the
+     * reusable buffer, dropping row padding and anything outside the block.
+     */
+    private ByteBuffer packRows(ByteBuffer source, int rowStride, int left, int top, int width, int height) {
+        int rowBytes = width * BYTES_PER_PIXEL;
+        int size = rowBytes * height;
+        // MediaPipe requires an exact-size buffer; crops change size only when the ROI moves
+        if (packedBuffer == null || packedBuffer.capacity() != size) {
+            packedBuffer = ByteBuffer.allocateDirect(size);
+        }
+        packedBuffer.clear();
+
+        for (int row = 0; row < height; row++) {
+            int start = (top + row) * rowStride + left * BYTES_PER_PIXEL;
+            source.limit(start + rowBytes);
+            source.position(start);
+            packedBuffer.put(source);
+        }
+        source.clear();
+        packedBuffer.rewind();
+        return packedBuffer;
+    }
+}
@@ -0,0 +1,259 @@
+package com.alignify.pose;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.PowerManager;
+import android.util.Log;
+
+import com.alignify.ml.ModelManager;
+import com.alignify.utils.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Picks the camera analysis resolution and pose landmarker variant this
+ * device can sustain, and adjusts it while the camera runs.
+ *
+ * Quality levels form a ladder from a small lite-model frame up to the
+ * heavy model; levels whose model is neither bundled nor downloaded are
+ * left out. Per-frame landmarker latency is collected into a window
+ * histogram. When a window's p95 exceeds {@link #FRAME_BUDGET_MS}, or the
+ * device is close to thermal throttling, the profiler steps down one level.
+ * When p95 is well inside the budget and the device is cool, it steps up.
+ * After a step down, the level above is not retried for
+ * {@link #STEP_UP_BACKOFF_MS}, so the choice doesn't oscillate.
+ *
+ * The last level is remembered per device model and MediaPipe version, so
+ * the next session starts where this one settled.
+ */
+public class DeviceCapabilityProfiler {
+    private static final String TAG = "CapabilityProfiler";
+    private static final String PREFS_NAME = "PoseCapabilityProfile";
+
+    /**
+     * One rung of the quality ladder: landmarker variant plus the analysis
+     * resolution requested from CameraX (landscape sensor orientation).
+     */
+    public static final class Level {
+        private final LandmarkerModel model;
+        private final int width;
+        private final int height;
+
+        Level(LandmarkerModel model, int width, int height) {
+            this.model = model;
+            this.width = width;
+            this.height = height;
+        }
+
+        public LandmarkerModel getModel() {
+            return model;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        String toKey() {
+            return model.name() + "@" + width + "x" + height;
+        }
+
+        @Override
+        public String toString() {
+            return toKey();
+        }
+    }
+
+    // Cheapest first. The landmarker itself runs at 256x256, so beyond 640x480
+    // a larger frame only costs conversion time.
+    private static final Level[] LADDER = {
+            new Level(LandmarkerModel.LITE, 320, 240),
+            new Level(LandmarkerModel.LITE, 640, 480),
+            new Level(LandmarkerModel.FULL, 640, 480),
+            new Level(LandmarkerModel.HEAVY, 640, 480)
+    };
+    // LITE at 640x480, close to what CameraX picked before any tuning
+    private static final int DEFAULT_LEVEL = 1;
+
+    // Per-frame budget for 20 landmarker results per second
+    static final long FRAME_BUDGET_MS = 50L;
+    // Step up only when p95 is below this fraction of the budget
+    static final float STEP_UP_FRACTION = 0.5f;
+    static final int MIN_WINDOW_SAMPLES = 60;
+    // Minimum time on a level before judging it, covers landmarker rebuild
+    static final long MIN_DWELL_MS = 10_000L;
+    static final long STEP_UP_BACKOFF_MS = 60_000L;
+    // PowerManager thermal headroom: 1.0 is where the platform starts throttling
+    static final float HOT_HEADROOM = 0.85f;
+    static final float COOL_HEADROOM = 0.7f;
+    private static final int HEADROOM_FORECAST_SECONDS = 10;
+
+    private static DeviceCapabilityProfiler instance;
+
+    private final SharedPreferences prefs;
+    private final String levelKey;
+    private final PowerManager powerManager;
+    private final List<Level> levels; // Available subset of LADDER
+    private final LatencyHistogram window = new LatencyHistogram();
+
+    // Guarded by this
+    private int levelIndex;
+    private long lastChangeMs = 0L;
+    private int blockedLevelIndex = Integer.MAX_VALUE;
+    private int maxLevelIndex = Integer.MAX_VALUE; // External cap, e.g. thermal
+    private long blockedUntilMs = 0L;
+
+    private DeviceCapabilityProfiler(Context context) {
+        Context appContext = context.getApplicationContext();
+        prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        levelKey = Build.MODEL + "|" + LandmarkerDelegateStore.MEDIAPIPE_VERSION + "|level";
+        powerManager = (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+        levels = findAvailableLevels(appContext);
+
+        levelIndex = Math.min(DEFAULT_LEVEL, levels.size() - 1);
+        String saved = prefs.getString(levelKey, null);
+        for (int i = 0; i < levels.size(); i++) {
+            if (levels.get(i).toKey().equals(saved)) {
+                levelIndex = i;
+            }
+        }
+        Log.d(TAG, "Levels " + levels + ", starting at " + levels.get(levelIndex));
+    }
+
+    public static synchronized DeviceCapabilityProfiler getInstance(Context context) {
+        if (instance == null) {
+            instance = new DeviceCapabilityProfiler(context);
+        }
+        return instance;
+    }
+
+    public synchronized Level getCurrentLevel() {
+        return levels.get(levelIndex);
+    }
+
+    /**
+     * Cap the level at {@code maxIndex} (0 is the cheapest). Doesn't change the
+     * remembered level, so the next session starts from it again.
+     *
+     * @return true if the current level was lowered and the camera and
+     *         landmarker should be rebuilt
+     */
+    public synchronized boolean setMaxLevel(int maxIndex, long nowMs) {
+        maxLevelIndex = Math.max(0, maxIndex);
+        if (levelIndex <= maxLevelIndex)
+            return false;
+
+        Log.i(TAG, "Level " + levels.get(levelIndex) + " -> " + levels.get(maxLevelIndex) + " (capped)");
+        levelIndex = maxLevelIndex;
+        lastChangeMs = nowMs;
+        return true;
+    }
+
+    /**
+     * Histogram the landmarker should record per-frame latency into.
+     */
+    public LatencyHistogram getLatencyWindow() {
+        return window;
+    }
+
+    /**
+     * Start judging a freshly configured camera and landmarker.
+     */
+    public synchronized void startSession(long nowMs) {
+        window.reset();
+        lastChangeMs = nowMs;
+    }
+
+    /**
+     * Judge the latency collected since the last call and move one level if
+     * needed. Call periodically on the main thread, e.g. once a second.
+     *
+     * @return true if {@link #getCurrentLevel()} changed and the camera and
+     *         landmarker should be rebuilt
+     */
+    public synchronized boolean evaluate(long nowMs) {
+        if (window.getCount() < MIN_WINDOW_SAMPLES)
+            return false;
+
+        float p95Ms = window.percentileMicros(95.0) / 1000f;
+        float headroom = readThermalHeadroom();
+        window.reset();
+
+        if (nowMs - lastChangeMs < MIN_DWELL_MS)
+            return false;
+
+        boolean hot = headroom >= HOT_HEADROOM;
+        if ((p95Ms > FRAME_BUDGET_MS || hot) && levelIndex > 0) {
+            blockedLevelIndex = levelIndex;
+            blockedUntilMs = nowMs + STEP_UP_BACKOFF_MS;
+            setLevel(levelIndex - 1, nowMs, "p95 " + p95Ms + " ms, headroom " + headroom);
+            return true;
+        }
+
+        // Unknown headroom (older devices) doesn't block stepping up
+        boolean cool = Float.isNaN(headroom) || headroom < COOL_HEADROOM;
+        boolean blocked = (levelIndex + 1 >= blockedLevelIndex && nowMs < blockedUntilMs)
+                || levelIndex + 1 > maxLevelIndex;
+        if (p95Ms < FRAME_BUDGET_MS * STEP_UP_FRACTION && cool && !blocked && levelIndex < levels.size() - 1) {
+            setLevel(levelIndex + 1, nowMs, "p95 " + p95Ms + " ms, headroom " + headroom);
+            return true;
+        }
+        return false;
+    }
+
+    private void setLevel(int index, long nowMs, String reason) {
+        Log.i(TAG, "Level " + levels.get(levelIndex) + " -> " + levels.get(index) + " (" + reason + ")");
+        levelIndex = index;
+        lastChangeMs = nowMs;
+        prefs.edit().putString(levelKey, levels.get(index).toKey()).apply();
+    }
+
+    /**
+     * Thermal headroom forecast where the platform provides one (API 30+),
+     * approximated from the thermal status on API 29, NaN otherwise.
+     */
+    private float readThermalHeadroom() {
+        if (powerManager == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.Q)
+            return Float.NaN;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            float headroom = powerManager.getThermalHeadroom(HEADROOM_FORECAST_SECONDS);
+            if (!Float.isNaN(headroom))
+                return headroom;
+        }
+
+        int status = powerManager.getCurrentThermalStatus();
+        if (status >= PowerManager.THERMAL_STATUS_MODERATE)
+            return 1f;
+        return status == PowerManager.THERMAL_STATUS_LIGHT ? 0.75f : 0.5f;
+    }
+
+    private static List<Level> findAvailableLevels(Context context) {
+        List<String> assets;
+        try {
+            String[] list = context.getAssets().list("");
+            assets = list != null ? Arrays.asList(list) : new ArrayList<>();
+        } catch (IOException e) {
+            assets = new ArrayList<>();
+        }
+
+        ModelManager modelManager = ModelManager.getInstance(context);
+        List<Level> available = new ArrayList<>();
+        for (Level level : LADDER) {
+            LandmarkerModel model = level.getModel();
+            // LITE is assumed present; PoseLandmarkerHelper reports it if not
+            if (model == LandmarkerModel.LITE || assets.contains(model.getFileName())
+                    || modelManager.getModelFileSync(model.getModelName()) != null) {
+                available.add(level);
+            }
+        }
+        return available;
+    }
+}
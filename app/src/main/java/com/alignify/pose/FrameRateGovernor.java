@@ -0,0 +1,270 @@
+package com.alignify.pose;
+
+import com.alignify.utils.LandmarkUtils;
+
+import java.util.Arrays;
+
+/**
+ * Decides which camera frames are worth sending to the pose landmarker.
+ *
+ * While the user is moving, every frame is processed. Once a whole settle
+ * window of results passes without motion above the exercise's threshold
+ * (plank holds, rest between sets) the frame interval backs off step by step
+ * up to a ceiling, and snaps back to full rate as soon as motion is seen
+ * again. The interval never drops below the measured inference latency, so
+ * frames are not submitted faster than results come back.
+ *
+ * Motion is measured on a smoothed copy of each result, as the distance the
+ * tracked landmarks have moved since the window started rather than from
+ * frame to frame, so landmark jitter does not read as movement.
+ *
+ * Pure Java and clock-free: callers pass frame timestamps and System.nanoTime(),
+ * so recorded landmark sequences can be replayed headlessly.
+ */
+public class FrameRateGovernor {
+
+    // Landmarks that move during the supported exercises
+    private static final int[] TRACKED_LANDMARKS = {
+            LandmarkUtils.Landmarks.LEFT_SHOULDER, LandmarkUtils.Landmarks.RIGHT_SHOULDER,
+            LandmarkUtils.Landmarks.LEFT_ELBOW, LandmarkUtils.Landmarks.RIGHT_ELBOW,
+            LandmarkUtils.Landmarks.LEFT_WRIST, LandmarkUtils.Landmarks.RIGHT_WRIST,
+            LandmarkUtils.Landmarks.LEFT_HIP, LandmarkUtils.Landmarks.RIGHT_HIP,
+            LandmarkUtils.Landmarks.LEFT_KNEE, LandmarkUtils.Landmarks.RIGHT_KNEE,
+            LandmarkUtils.Landmarks.LEFT_ANKLE, LandmarkUtils.Landmarks.RIGHT_ANKLE
+    };
+
+    private static final float LATENCY_SMOOTHING = 0.2f;
+    private static final int MAX_IN_FLIGHT = 8;
+    // Displacement early in a window is averaged over at least this long
+    private static final long MIN_WINDOW_MS = 200L;
+    // Motion needs this many landmarks to move: both wrists in a curl, but not one glitching point
+    private static final int MOVING_LANDMARKS = 2;
+
+    /**
+     * Per-exercise tuning.
+     */
+    public static class Config {
+        public final long minIntervalMs;
+        public final long maxIntervalMs;
+        public final float motionThreshold; // Normalized image units per second
+        public final int settleResults; // Results per window; a still window backs off one step
+
+        public Config(long minIntervalMs, long maxIntervalMs, float motionThreshold, int settleResults) {
+            this.minIntervalMs = minIntervalMs;
+            this.maxIntervalMs = maxIntervalMs;
+            this.motionThreshold = motionThreshold;
+            this.settleResults = settleResults;
+        }
+
+        public static Config forExercise(String exerciseType) {
+            // Thresholds sit between smoothed jitter on a still body (~0.02
+            // units/s) and the slowest stretch of a rep, the turn at the bottom
+            if (exerciseType == null) {
+                return new Config(0L, 200L, 0.06f, 24);
+            }
+            switch (exerciseType) {
+                case "plank":
+                    // Long static holds: drop to ~2 fps. A slow hip sag
+                    // (~0.04 units/s) is still seen at that rate
+                    return new Config(0L, 500L, 0.06f, 10);
+                case "squat":
+                case "lunge":
+                    // Windows of ~0.8 s so the turn of a rep never settles
+                    return new Config(0L, 200L, 0.06f, 24);
+                case "bicep_curl":
+                case "circuit":
+                    // Curls are fast; back off late and not too far.
+                    // Circuits may switch to curls at any time.
+                    return new Config(0L, 150L, 0.06f, 30);
+                default:
+                    return new Config(0L, 200L, 0.06f, 24);
+            }
+        }
+    }
+
+    private final Config config;
+    private final LandmarkFilter landmarkFilter;
+    private final PoseFrame smoothed = new PoseFrame();
+
+    // Smoothed positions at the start of the current window
+    private final float[] windowStart = new float[TRACKED_LANDMARKS.length * 2];
+    private final float[] displacements = new float[TRACKED_LANDMARKS.length];
+    private boolean hasWindowStart = false;
+    private long windowStartMs = 0L;
+
+    private long currentIntervalMs;
+    private long intervalFloorMs = 0L; // External cap on detection rate, e.g. thermal
+    private long lastSubmittedMs = Long.MIN_VALUE;
+    private int stillResults = 0;
+    private float lastVelocity = 0f;
+
+    // Ring of submitted frames awaiting results, for latency measurement
+    private final long[] inFlightTimestamps = new long[MAX_IN_FLIGHT];
+    private final long[] inFlightNanos = new long[MAX_IN_FLIGHT];
+    private int inFlightNext = 0;
+    private float latencyMs = 0f;
+
+    private long processedFrames = 0L;
+    private long skippedFrames = 0L;
+
+    public FrameRateGovernor(Config config) {
+        this(config, new OneEuroLandmarkFilter());
+    }
+
+    /**
+     * @param landmarkFilter smooths results before motion is measured; owned
+     *                       by the governor, not shared with the analysis pipeline
+     */
+    public FrameRateGovernor(Config config, LandmarkFilter landmarkFilter) {
+        this.config = config;
+        this.landmarkFilter = landmarkFilter;
+        this.currentIntervalMs = config.minIntervalMs;
+    }
+
+    /**
+     * Whether the frame with this timestamp should be sent for inference.
+     */
+    public synchronized boolean shouldProcess(long frameTimeMs) {
+        long interval = getCurrentIntervalMs();
+        if (lastSubmittedMs != Long.MIN_VALUE && frameTimeMs - lastSubmittedMs < interval) {
+            skippedFrames++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Record that a frame was handed to the landmarker.
+     */
+    public synchronized void onFrameSubmitted(long frameTimeMs, long nowNanos) {
+        lastSubmittedMs = frameTimeMs;
+        inFlightTimestamps[inFlightNext] = frameTimeMs;
+        inFlightNanos[inFlightNext] = nowNanos;
+        inFlightNext = (inFlightNext + 1) % MAX_IN_FLIGHT;
+        processedFrames++;
+    }
+
+    /**
+     * Feed a landmarker result back in. Empty frames count as still. The
+     * frame is not modified.
+     */
+    public synchronized void onResult(PoseFrame frame, long nowNanos) {
+        updateLatency(frame.getTimestampMs(), nowNanos);
+
+        float velocity = measureVelocity(frame);
+        lastVelocity = velocity;
+
+        if (velocity >= config.motionThreshold) {
+            stillResults = 0;
+            startWindow();
+            currentIntervalMs = config.minIntervalMs;
+            return;
+        }
+
+        stillResults++;
+        if (stillResults >= config.settleResults) {
+            // Back off gradually: first step to ~66 ms, then double up to the ceiling
+            long next = currentIntervalMs <= 0 ? 66L : currentIntervalMs * 2;
+            currentIntervalMs = Math.min(next, config.maxIntervalMs);
+            stillResults = 0;
+            startWindow();
+        }
+    }
+
+    /**
+     * Forget motion history, e.g. when a new set starts.
+     */
+    public synchronized void reset() {
+        landmarkFilter.reset();
+        hasWindowStart = false;
+        stillResults = 0;
+        currentIntervalMs = config.minIntervalMs;
+        lastSubmittedMs = Long.MIN_VALUE;
+        lastVelocity = 0f;
+    }
+
+    /**
+     * Never process frames closer together than {@code floorMs}, regardless
+     * of motion. Survives {@link #reset()}.
+     */
+    public synchronized void setIntervalFloorMs(long floorMs) {
+        intervalFloorMs = floorMs;
+    }
+
+    public synchronized long getCurrentIntervalMs() {
+        return Math.max(Math.max(currentIntervalMs, (long) latencyMs), intervalFloorMs);
+    }
+
+    public synchronized float getLastVelocity() {
+        return lastVelocity;
+    }
+
+    public synchronized float getLatencyMs() {
+        return latencyMs;
+    }
+
+    public synchronized long getProcessedFrames() {
+        return processedFrames;
+    }
+
+    public synchronized long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    private void updateLatency(long timestampMs, long nowNanos) {
+        for (int i = 0; i < MAX_IN_FLIGHT; i++) {
+            if (inFlightNanos[i] != 0L && inFlightTimestamps[i] == timestampMs) {
+                float sample = (nowNanos - inFlightNanos[i]) / 1_000_000f;
+                latencyMs = latencyMs == 0f ? sample : latencyMs + LATENCY_SMOOTHING * (sample - latencyMs);
+                inFlightNanos[i] = 0L;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Speed of the tracked landmarks over the current window, in normalized
+     * units per second: the {@link #MOVING_LANDMARKS}th largest smoothed
+     * displacement since the window started, over the time since then but at
+     * least {@link #MIN_WINDOW_MS}. The first pose of a window only anchors it.
+     */
+    private float measureVelocity(PoseFrame frame) {
+        smoothed.set(frame);
+        landmarkFilter.apply(smoothed); // An empty frame restarts the filter
+        if (smoothed.getLandmarkCount() < PoseFrame.NUM_LANDMARKS) {
+            hasWindowStart = false;
+            return 0f;
+        }
+        if (!hasWindowStart) {
+            startWindow();
+            return 0f;
+        }
+
+        for (int i = 0; i < TRACKED_LANDMARKS.length; i++) {
+            float dx = smoothed.x(TRACKED_LANDMARKS[i]) - windowStart[i * 2];
+            float dy = smoothed.y(TRACKED_LANDMARKS[i]) - windowStart[i * 2 + 1];
+            displacements[i] = (float) Math.sqrt(dx * dx + dy * dy);
+        }
+        Arrays.sort(displacements);
+        float distance = displacements[displacements.length - MOVING_LANDMARKS];
+
+        long elapsedMs = Math.max(smoothed.getTimestampMs() - windowStartMs, MIN_WINDOW_MS);
+        return distance / (elapsedMs / 1000f);
+    }
+
+    /**
+     * Start a new window at the latest smoothed pose, if there is one.
+     */
+    private void startWindow() {
+        if (smoothed.isEmpty() || smoothed.getLandmarkCount() < PoseFrame.NUM_LANDMARKS) {
+            hasWindowStart = false;
+            return;
+        }
+        for (int i = 0; i < TRACKED_LANDMARKS.length; i++) {
+            windowStart[i * 2] = smoothed.x(TRACKED_LANDMARKS[i]);
+            windowStart[i * 2 + 1] = smoothed.y(TRACKED_LANDMARKS[i]);
+        }
+        windowStartMs = smoothed.getTimestampMs();
+        hasWindowStart = true;
+    }
+}
@@ -0,0 +1,31 @@
+package com.alignify.pose;
+
+/**
+ * Smoothing stage applied to pose frames before they reach the detectors.
+ * Implementations filter in place and must not allocate per frame.
+ */
+public interface LandmarkFilter {
+
+    /**
+     * Smooth the landmarks of {@code frame} in place.
+     */
+    void apply(PoseFrame frame);
+
+    /**
+     * Forget all history, e.g. when a new session starts.
+     */
+    void reset();
+
+    /**
+     * Filter that leaves frames untouched.
+     */
+    LandmarkFilter NONE = new LandmarkFilter() {
+        @Override
+        public void apply(PoseFrame frame) {
+        }
+
+        @Override
+        public void reset() {
+        }
+    };
+}
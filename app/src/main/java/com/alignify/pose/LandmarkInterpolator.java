@@ -0,0 +1,103 @@
+package com.alignify.pose;
+
+/**
+ * Produces display-rate landmark positions from lower-rate pose results by
+ * interpolating, or briefly extrapolating, between the last two results.
+ *
+ * Each result is stamped with its arrival time. The spacing between the two
+ * results comes from their frame timestamps, which reflect real motion
+ * better than arrival times jittered by inference. Rendering lags the newest
+ * result by {@link #RENDER_DELAY_FRACTION} of that spacing, so when results
+ * arrive on schedule the display interpolates for the first half of each
+ * interval and extrapolates for the second, and the hand-over to the next
+ * pair is continuous for steady motion. Extrapolation is capped so a stalled
+ * detector freezes the skeleton instead of letting it drift.
+ *
+ * Not thread-safe; used from the main thread.
+ */
+public class LandmarkInterpolator {
+
+    // Portion of the result spacing that rendering lags behind the newest result
+    static final float RENDER_DELAY_FRACTION = 0.5f;
+    // Furthest to extrapolate past the newest result, in result spacings
+    static final float MAX_EXTRAPOLATION = 0.75f;
+    // Results further apart than this are treated as unrelated and not blended
+    static final long MAX_INTERVAL_MS = 500L;
+
+    private final PoseFrame previous = new PoseFrame();
+    private final PoseFrame latest = new PoseFrame();
+    private long latestArrivalNanos = 0L;
+    private boolean hasLatest = false;
+    private boolean hasPair = false;
+
+    /**
+     * Add a new result that arrived at {@code arrivalNanos} (System.nanoTime()).
+     */
+    public void push(PoseFrame frame, long arrivalNanos) {
+        if (frame == null || frame.isEmpty()) {
+            reset();
+            return;
+        }
+
+        hasPair = false;
+        if (hasLatest) {
+            long intervalMs = frame.getTimestampMs() - latest.getTimestampMs();
+            hasPair = intervalMs > 0 && intervalMs <= MAX_INTERVAL_MS
+                    && frame.getLandmarkCount() == latest.getLandmarkCount();
+            previous.set(latest);
+        }
+        latest.set(frame);
+        latestArrivalNanos = arrivalNanos;
+        hasLatest = true;
+    }
+
+    /**
+     * Write the landmark positions to show at {@code nowNanos} into {@code out}.
+     * Returns false if there is nothing to show.
+     */
+    public boolean sample(long nowNanos, PoseFrame out) {
+        if (!hasLatest)
+            return false;
+
+        out.set(latest);
+        if (!hasPair)
+            return true;
+
+        float alpha = blendFactor(nowNanos);
+        int count = latest.getLandmarkCount();
+        for (int i = 0; i < count; i++) {
+            out.setPosition(i,
+                    lerp(previous.x(i), latest.x(i), alpha),
+                    lerp(previous.y(i), latest.y(i), alpha),
+                    lerp(previous.z(i), latest.z(i), alpha));
+        }
+        return true;
+    }
+
+    /**
+     * Whether later samples can still differ from the current one, i.e. the
+     * caller should keep sampling on each vsync.
+     */
+    public boolean isAnimating(long nowNanos) {
+        return hasPair && blendFactor(nowNanos) < 1f + MAX_EXTRAPOLATION;
+    }
+
+    public void reset() {
+        hasLatest = false;
+        hasPair = false;
+    }
+
+    /**
+     * Position between previous (0) and latest (1); above 1 extrapolates.
+     */
+    private float blendFactor(long nowNanos) {
+        float intervalMs = latest.getTimestampMs() - previous.getTimestampMs();
+        float sinceArrivalMs = (nowNanos - latestArrivalNanos) / 1e6f;
+        float alpha = 1f + (sinceArrivalMs - RENDER_DELAY_FRACTION * intervalMs) / intervalMs;
+        return Math.max(0f, Math.min(alpha, 1f + MAX_EXTRAPOLATION));
+    }
+
+    private static float lerp(float from, float to, float alpha) {
+        return from + (to - from) * alpha;
+    }
+}
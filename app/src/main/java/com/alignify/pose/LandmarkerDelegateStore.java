@@ -0,0 +1,151 @@
+package com.alignify.pose;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import com.google.mediapipe.tasks.core.Delegate;
+
+/**
+ * Remembers which MediaPipe delegate works best for the pose landmarker on
+ * this device, so GPU init failures aren't paid again every session.
+ *
+ * Per delegate it stores the init time, whether init failed, and a smoothed
+ * per-frame latency, keyed by device model and MediaPipe version. The
+ * preferred delegate is the one with the lower measured per-frame latency.
+ * Every {@link #PROBE_INTERVAL_SESSIONS} sessions, or after
+ * {@link #PROBE_INTERVAL_MS}, the other delegate is tried once so a driver or
+ * library update can change the decision.
+ */
+public class LandmarkerDelegateStore {
+    private static final String TAG = "LandmarkerDelegateStore";
+    private static final String PREFS_NAME = "LandmarkerDelegates";
+
+    // Bump together with com.google.mediapipe:tasks-vision so results are re-measured
+    public static final String MEDIAPIPE_VERSION = "0.10.9";
+
+    static final int PROBE_INTERVAL_SESSIONS = 20;
+    static final long PROBE_INTERVAL_MS = 7L * 24 * 60 * 60 * 1000;
+
+    // Weight of a new session's latency in the stored average
+    private static final float LATENCY_SMOOTHING = 0.3f;
+
+    private static LandmarkerDelegateStore instance;
+
+    private final SharedPreferences prefs;
+    private final String keyPrefix;
+
+    private LandmarkerDelegateStore(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        keyPrefix = Build.MODEL + "|" + MEDIAPIPE_VERSION + "|";
+    }
+
+    public static synchronized LandmarkerDelegateStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new LandmarkerDelegateStore(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Order in which delegates should be tried for this session. The first
+     * entry is either the remembered winner or, when a re-probe is due, the
+     * other delegate; the remaining one is the fallback.
+     */
+    public synchronized Delegate[] delegatesToTry() {
+        Delegate preferred = getPreferred();
+        if (preferred == null) {
+            // Nothing measured yet: GPU first, as before
+            return new Delegate[] { Delegate.GPU, Delegate.CPU };
+        }
+
+        Delegate other = preferred == Delegate.GPU ? Delegate.CPU : Delegate.GPU;
+        int sessions = prefs.getInt(key("sessions"), 0) + 1;
+        long lastProbe = prefs.getLong(key("lastProbe"), 0L);
+        boolean probeDue = sessions >= PROBE_INTERVAL_SESSIONS
+                || System.currentTimeMillis() - lastProbe >= PROBE_INTERVAL_MS;
+
+        SharedPreferences.Editor editor = prefs.edit();
+        if (probeDue) {
+            editor.putInt(key("sessions"), 0).putLong(key("lastProbe"), System.currentTimeMillis());
+            editor.apply();
+            Log.d(TAG, "Re-probing " + other + " (preferred " + preferred + ")");
+            return new Delegate[] { other, preferred };
+        }
+
+        editor.putInt(key("sessions"), sessions).apply();
+        return new Delegate[] { preferred, other };
+    }
+
+    /**
+     * Record the outcome of creating a landmarker with {@code delegate}.
+     */
+    public synchronized void recordInit(Delegate delegate, long initMs, boolean success) {
+        SharedPreferences.Editor editor = prefs.edit();
+        editor.putLong(key(delegate, "initMs"), initMs);
+        editor.putBoolean(key(delegate, "failed"), !success);
+        if (!prefs.contains(key("lastProbe"))) {
+            editor.putLong(key("lastProbe"), System.currentTimeMillis());
+        }
+        editor.apply();
+        updatePreferred();
+    }
+
+    /**
+     * Fold a session's average per-frame latency into the stored value.
+     */
+    public synchronized void recordFrameLatency(Delegate delegate, float frameMs) {
+        float previous = prefs.getFloat(key(delegate, "frameMs"), 0f);
+        float smoothed = previous > 0f ? previous + LATENCY_SMOOTHING * (frameMs - previous) : frameMs;
+        prefs.edit().putFloat(key(delegate, "frameMs"), smoothed).apply();
+        updatePreferred();
+    }
+
+    private void updatePreferred() {
+        Delegate preferred = pickFaster();
+        if (preferred != null) {
+            prefs.edit().putString(key("preferred"), preferred.name()).apply();
+        }
+    }
+
+    /**
+     * Fastest delegate that initialized, by per-frame latency. A delegate that
+     * initialized but has no latency yet only wins when it's the only option.
+     */
+    private Delegate pickFaster() {
+        Delegate best = null;
+        float bestMs = Float.MAX_VALUE;
+        for (Delegate delegate : new Delegate[] { Delegate.GPU, Delegate.CPU }) {
+            if (!prefs.contains(key(delegate, "failed")) || prefs.getBoolean(key(delegate, "failed"), true))
+                continue;
+
+            float frameMs = prefs.getFloat(key(delegate, "frameMs"), 0f);
+            float score = frameMs > 0f ? frameMs : Float.MAX_VALUE / 2;
+            if (best == null || score < bestMs) {
+                best = delegate;
+                bestMs = score;
+            }
+        }
+        return best;
+    }
+
+    private Delegate getPreferred() {
+        String name = prefs.getString(key("preferred"), null);
+        if (name == null)
+            return null;
+        try {
+            return Delegate.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String key(String field) {
+        return keyPrefix + field;
+    }
+
+    private String key(Delegate delegate, String field) {
+        return keyPrefix + delegate.name() + "." + field;
+    }
+}
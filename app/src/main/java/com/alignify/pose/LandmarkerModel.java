@@ -0,0 +1,32 @@
+package com.alignify.pose;
+
+/**
+ * MediaPipe pose landmarker variants, cheapest first. Only LITE ships in the
+ * APK; FULL and HEAVY are used when bundled as well or downloaded through
+ * ModelManager.
+ */
+public enum LandmarkerModel {
+    LITE("pose_landmarker_lite"),
+    FULL("pose_landmarker_full"),
+    HEAVY("pose_landmarker_heavy");
+
+    private final String modelName;
+
+    LandmarkerModel(String modelName) {
+        this.modelName = modelName;
+    }
+
+    /**
+     * Name used by ModelManager for versioning and downloads.
+     */
+    public String getModelName() {
+        return modelName;
+    }
+
+    /**
+     * Bundled asset / downloaded file name.
+     */
+    public String getFileName() {
+        return modelName + ".task";
+    }
+}
@@ -0,0 +1,111 @@
+package com.alignify.pose;
+
+/**
+ * One-Euro filter over every landmark coordinate.
+ *
+ * Slow movements are heavily smoothed, which removes the jitter that makes
+ * joint angles flicker around stage thresholds, while fast movements raise
+ * the cutoff so reps are not lagged. State lives in flat float arrays
+ * indexed like {@link PoseFrame}, so filtering never allocates.
+ *
+ * See Casiez et al., "1€ Filter: A Simple Speed-based Low-pass Filter for
+ * Noisy Input in Interactive Systems", CHI 2012.
+ */
+public class OneEuroLandmarkFilter implements LandmarkFilter {
+
+    // Tuned for normalized image coordinates at 15-30 FPS
+    public static final float DEFAULT_MIN_CUTOFF_HZ = 1.5f;
+    public static final float DEFAULT_BETA = 10f;
+    public static final float DEFAULT_DERIVATIVE_CUTOFF_HZ = 1.0f;
+
+    private static final int COORDS = 3; // x, y, z
+    private static final long MAX_GAP_MS = 1000L; // Longer gaps restart the filter
+    private static final float FALLBACK_DT_S = 1f / 30f;
+
+    private final float minCutoffHz;
+    private final float beta;
+    private final float derivativeCutoffHz;
+
+    private final float[] value = new float[PoseFrame.NUM_LANDMARKS * COORDS];
+    private final float[] derivative = new float[PoseFrame.NUM_LANDMARKS * COORDS];
+    private boolean initialized = false;
+    private long lastTimestampMs = 0L;
+
+    public OneEuroLandmarkFilter() {
+        this(DEFAULT_MIN_CUTOFF_HZ, DEFAULT_BETA, DEFAULT_DERIVATIVE_CUTOFF_HZ);
+    }
+
+    /**
+     * @param minCutoffHz        cutoff while still; lower means smoother but laggier
+     * @param beta               how quickly the cutoff rises with speed
+     * @param derivativeCutoffHz cutoff used to smooth the speed estimate itself
+     */
+    public OneEuroLandmarkFilter(float minCutoffHz, float beta, float derivativeCutoffHz) {
+        this.minCutoffHz = minCutoffHz;
+        this.beta = beta;
+        this.derivativeCutoffHz = derivativeCutoffHz;
+    }
+
+    @Override
+    public void apply(PoseFrame frame) {
+        if (frame == null || frame.isEmpty()) {
+            // Person left the frame; don't blend the next pose with the old one
+            initialized = false;
+            return;
+        }
+
+        int count = frame.getLandmarkCount();
+        long timestampMs = frame.getTimestampMs();
+        long gapMs = timestampMs - lastTimestampMs;
+
+        if (!initialized || gapMs > MAX_GAP_MS || gapMs < 0) {
+            for (int i = 0; i < count; i++) {
+                int offset = i * COORDS;
+                value[offset] = frame.x(i);
+                value[offset + 1] = frame.y(i);
+                value[offset + 2] = frame.z(i);
+                derivative[offset] = 0f;
+                derivative[offset + 1] = 0f;
+                derivative[offset + 2] = 0f;
+            }
+            initialized = true;
+            lastTimestampMs = timestampMs;
+            return;
+        }
+
+        float dt = gapMs > 0 ? gapMs / 1000f : FALLBACK_DT_S;
+        float derivativeAlpha = alpha(derivativeCutoffHz, dt);
+
+        for (int i = 0; i < count; i++) {
+            int offset = i * COORDS;
+            float x = filter(offset, frame.x(i), dt, derivativeAlpha);
+            float y = filter(offset + 1, frame.y(i), dt, derivativeAlpha);
+            float z = filter(offset + 2, frame.z(i), dt, derivativeAlpha);
+            frame.setPosition(i, x, y, z);
+        }
+        lastTimestampMs = timestampMs;
+    }
+
+    @Override
+    public void reset() {
+        initialized = false;
+        lastTimestampMs = 0L;
+    }
+
+    private float filter(int index, float raw, float dt, float derivativeAlpha) {
+        float previous = value[index];
+        float rawDerivative = (raw - previous) / dt;
+        float smoothedDerivative = derivative[index] + derivativeAlpha * (rawDerivative - derivative[index]);
+        derivative[index] = smoothedDerivative;
+
+        float cutoff = minCutoffHz + beta * Math.abs(smoothedDerivative);
+        float smoothed = previous + alpha(cutoff, dt) * (raw - previous);
+        value[index] = smoothed;
+        return smoothed;
+    }
+
+    private static float alpha(float cutoffHz, float dt) {
+        float tau = 1f / (2f * (float) Math.PI * cutoffHz);
+        return 1f / (1f + tau / dt);
+    }
+}
@@ -0,0 +1,158 @@
+package com.alignify.pose;
+
+import com.alignify.utils.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-stage latency histograms for one exercise session of the pose pipeline.
+ *
+ * Each stage is recorded from the thread that runs it (camera executor,
+ * MediaPipe callback, analysis thread, main thread) without locking or
+ * allocating. Percentiles are read for the debug overlay and attached to the
+ * saved workout as a report.
+ */
+public class PipelineMetrics {
+
+    /**
+     * Pipeline stages in frame order. DETECT includes MODEL.
+     */
+    public enum Stage {
+        CONVERT("convert"), // ImageProxy to MPImage
+        LANDMARKER("landmarker"), // detectLiveStream to result callback
+        FILTER("filter"), // Landmark smoothing
+        DETECT("detect"), // Exercise detector, rules and form model
+        MODEL("model"), // Form-model inference alone
+        CLASSIFY("classify"), // Posture classifier
+        RENDER("render"); // Overlay and UI update on the main thread
+
+        private final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final double[] PERCENTILES = { 50.0, 95.0, 99.0 };
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+    // Rare events, so a synchronized list is fine here
+    private final List<Map<String, Object>> thermalTransitions = new ArrayList<>();
+
+    public PipelineMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].recordNanos(nanos);
+    }
+
+    public LatencyHistogram get(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        synchronized (thermalTransitions) {
+            thermalTransitions.clear();
+        }
+    }
+
+    /**
+     * Note a thermal throttling change so it can be correlated with the
+     * session's form results.
+     *
+     * @param sessionMs time since the session started
+     * @param headroom  PowerManager thermal headroom, NaN if unknown
+     */
+    public void recordThermalTransition(long sessionMs, String from, String to, int thermalStatus, float headroom) {
+        Map<String, Object> transition = new HashMap<>();
+        transition.put("atMs", sessionMs);
+        transition.put("from", from);
+        transition.put("to", to);
+        transition.put("status", thermalStatus);
+        if (!Float.isNaN(headroom)) {
+            transition.put("headroom", headroom);
+        }
+        synchronized (thermalTransitions) {
+            thermalTransitions.add(transition);
+        }
+    }
+
+    /**
+     * One line per stage with samples: "detect   p50 3.1 p95 5.4 p99 9.8 ms".
+     */
+    public String[] formatOverlayLines() {
+        int count = 0;
+        for (LatencyHistogram histogram : histograms) {
+            if (histogram.getCount() > 0)
+                count++;
+        }
+
+        String[] lines = new String[count];
+        int line = 0;
+        for (Stage stage : STAGES) {
+            LatencyHistogram histogram = get(stage);
+            if (histogram.getCount() == 0)
+                continue;
+            lines[line++] = String.format(Locale.US, "%-10s p50 %.1f p95 %.1f p99 %.1f ms",
+                    stage.getKey(),
+                    histogram.percentileMicros(50.0) / 1000f,
+                    histogram.percentileMicros(95.0) / 1000f,
+                    histogram.percentileMicros(99.0) / 1000f);
+        }
+        return lines;
+    }
+
+    /**
+     * Session report keyed by stage, in microseconds, suitable for Firestore:
+     * {@code {detect: {count, mean, max, p50, p95, p99}, ...}}, plus the
+     * thermal transitions under "thermal" if there were any.
+     */
+    public Map<String, Object> toReport() {
+        Map<String, Object> report = new HashMap<>();
+        for (Stage stage : STAGES) {
+            LatencyHistogram histogram = get(stage);
+            if (histogram.getCount() == 0)
+                continue;
+
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("count", histogram.getCount());
+            stats.put("meanUs", histogram.getMeanMicros());
+            stats.put("maxUs", histogram.getMaxMicros());
+            for (double percentile : PERCENTILES) {
+                stats.put("p" + (int) percentile + "Us", histogram.percentileMicros(percentile));
+            }
+            report.put(stage.getKey(), stats);
+        }
+
+        synchronized (thermalTransitions) {
+            if (!thermalTransitions.isEmpty()) {
+                report.put("thermal", new ArrayList<>(thermalTransitions));
+            }
+        }
+        return report;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("PipelineMetrics");
+        for (String line : formatOverlayLines()) {
+            builder.append('\n').append(line);
+        }
+        return builder.toString();
+    }
+}
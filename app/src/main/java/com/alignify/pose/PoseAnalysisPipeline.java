@@ -0,0 +1,235 @@
+package com.alignify.pose;
+
+import android.util.Log;
+import android.view.Choreographer;
+
+import com.alignify.exercises.ExerciseDetector;
+import com.alignify.ml.PostureClassifier;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single-threaded analysis stage between the pose landmarker and the UI.
+ *
+ * Frames are handed over latest-wins: if the analysis thread is still busy,
+ * a newer frame replaces the waiting one instead of queueing behind it.
+ * Finished snapshots are coalesced the same way and delivered on the main
+ * thread at most once per vsync, so the UI only ever renders the newest state.
+ *
+ * Frames are smoothed by a {@link LandmarkFilter} on the analysis thread
+ * before any detector sees them, so every detector and the overlay share the
+ * same stabilized landmarks.
+ *
+ * Must be constructed on the main thread.
+ */
+public class PoseAnalysisPipeline {
+    private static final String TAG = "PoseAnalysisPipeline";
+
+    /**
+     * Receives analysis snapshots on the main thread.
+     */
+    public interface Listener {
+        void onSnapshot(Snapshot snapshot);
+    }
+
+    /**
+     * Immutable result of analysing one pose frame.
+     */
+    public static final class Snapshot {
+        private final PoseFrame frame;
+        private final int frameWidth;
+        private final int frameHeight;
+        private final boolean isFrontCamera;
+        private final ExerciseDetector.DetectionResult detectionResult;
+        private final PostureClassifier.PostureState postureState;
+
+        Snapshot(Input input, ExerciseDetector.DetectionResult detectionResult,
+                PostureClassifier.PostureState postureState) {
+            this.frame = input.frame;
+            this.frameWidth = input.frameWidth;
+            this.frameHeight = input.frameHeight;
+            this.isFrontCamera = input.isFrontCamera;
+            this.detectionResult = detectionResult;
+            this.postureState = postureState;
+        }
+
+        public PoseFrame getFrame() {
+            return frame;
+        }
+
+        public int getFrameWidth() {
+            return frameWidth;
+        }
+
+        public int getFrameHeight() {
+            return frameHeight;
+        }
+
+        public boolean isFrontCamera() {
+            return isFrontCamera;
+        }
+
+        public ExerciseDetector.DetectionResult getDetectionResult() {
+            return detectionResult;
+        }
+
+        public PostureClassifier.PostureState getPostureState() {
+            return postureState;
+        }
+    }
+
+    private static final class Input {
+        final PoseFrame frame;
+        final int frameWidth;
+        final int frameHeight;
+        final boolean isFrontCamera;
+        final int generation;
+
+        Input(PoseFrame frame, int frameWidth, int frameHeight, boolean isFrontCamera, int generation) {
+            this.frame = frame;
+            this.frameWidth = frameWidth;
+            this.frameHeight = frameHeight;
+            this.isFrontCamera = isFrontCamera;
+            this.generation = generation;
+        }
+    }
+
+    private final ExerciseDetector exerciseDetector;
+    private final PostureClassifier postureClassifier;
+    private final LandmarkFilter landmarkFilter; // Analysis thread only
+    private final Listener listener;
+    private final Choreographer choreographer;
+    private final ExecutorService analysisExecutor = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "PoseAnalysis"));
+
+    private final AtomicReference<Input> pendingInput = new AtomicReference<>();
+    private final AtomicReference<Snapshot> latestSnapshot = new AtomicReference<>();
+    private final AtomicBoolean frameCallbackPosted = new AtomicBoolean(false);
+    // Bumped on reset so results from the previous session are never shown
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile boolean closed = false;
+    private volatile PipelineMetrics metrics; // Optional per-stage timing
+
+    private long analyzedFrames = 0; // Analysis thread only
+    private final AtomicInteger droppedInputs = new AtomicInteger();
+    private final AtomicInteger droppedSnapshots = new AtomicInteger();
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            frameCallbackPosted.set(false);
+            Snapshot snapshot = latestSnapshot.getAndSet(null);
+            if (snapshot != null && !closed) {
+                listener.onSnapshot(snapshot);
+            }
+        }
+    };
+
+    public PoseAnalysisPipeline(ExerciseDetector exerciseDetector, PostureClassifier postureClassifier,
+            Listener listener) {
+        this(exerciseDetector, postureClassifier, new OneEuroLandmarkFilter(), listener);
+    }
+
+    public PoseAnalysisPipeline(ExerciseDetector exerciseDetector, PostureClassifier postureClassifier,
+            LandmarkFilter landmarkFilter, Listener listener) {
+        this.exerciseDetector = exerciseDetector;
+        this.postureClassifier = postureClassifier;
+        this.landmarkFilter = landmarkFilter;
+        this.listener = listener;
+        this.choreographer = Choreographer.getInstance();
+    }
+
+    /**
+     * Record filter, detect and classify timings into {@code metrics}; null to stop.
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Hands a frame to the analysis thread. Callable from any thread; never blocks.
+     */
+    public void submit(PoseFrame frame, int frameWidth, int frameHeight, boolean isFrontCamera) {
+        if (closed || frame == null)
+            return;
+
+        Input input = new Input(frame, frameWidth, frameHeight, isFrontCamera, generation.get());
+        // Only schedule work when the slot was empty; otherwise the queued task picks up this frame
+        if (pendingInput.getAndSet(input) == null) {
+            analysisExecutor.execute(this::analyzeLatest);
+        } else {
+            droppedInputs.incrementAndGet();
+        }
+    }
+
+    /**
+     * Discards pending work and resets the detector and filter on the analysis thread.
+     */
+    public void reset() {
+        if (closed)
+            return;
+
+        generation.incrementAndGet();
+        pendingInput.set(null);
+        latestSnapshot.set(null);
+        analysisExecutor.execute(() -> {
+            exerciseDetector.reset();
+            landmarkFilter.reset();
+            Log.d(TAG, "Reset after " + analyzedFrames + " frames, dropped inputs="
+                    + droppedInputs.getAndSet(0) + ", dropped snapshots=" + droppedSnapshots.getAndSet(0));
+            analyzedFrames = 0;
+        });
+    }
+
+    /**
+     * Stops delivering snapshots and closes the detector once in-flight work is done.
+     */
+    public void close() {
+        if (closed)
+            return;
+
+        closed = true;
+        pendingInput.set(null);
+        choreographer.removeFrameCallback(frameCallback);
+        analysisExecutor.execute(exerciseDetector::close);
+        analysisExecutor.shutdown();
+    }
+
+    private void analyzeLatest() {
+        Input input = pendingInput.getAndSet(null);
+        if (input == null || closed)
+            return;
+
+        PipelineMetrics stageMetrics = metrics;
+        long start = System.nanoTime();
+
+        // The frame is not yet visible to any other thread, so it is smoothed in place
+        landmarkFilter.apply(input.frame);
+        long filtered = System.nanoTime();
+        ExerciseDetector.DetectionResult detectionResult = exerciseDetector.detect(input.frame);
+        long detected = System.nanoTime();
+        PostureClassifier.PostureState postureState = postureClassifier.classify(input.frame);
+        long classified = System.nanoTime();
+        analyzedFrames++;
+
+        if (stageMetrics != null) {
+            stageMetrics.record(PipelineMetrics.Stage.FILTER, filtered - start);
+            stageMetrics.record(PipelineMetrics.Stage.DETECT, detected - filtered);
+            stageMetrics.record(PipelineMetrics.Stage.CLASSIFY, classified - detected);
+        }
+
+        if (input.generation != generation.get())
+            return;
+
+        if (latestSnapshot.getAndSet(new Snapshot(input, detectionResult, postureState)) != null) {
+            droppedSnapshots.incrementAndGet();
+        }
+        if (frameCallbackPosted.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(frameCallback);
+        }
+    }
+}
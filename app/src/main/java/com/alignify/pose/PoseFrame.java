@@ -0,0 +1,157 @@
+package com.alignify.pose;
+
+/**
+ * Upright, normalized pose landmarks for a single frame.
+ * Landmarks are stored in one flat array as (x, y, z, visibility) per landmark,
+ * already rotated into the display orientation so detectors and the overlay
+ * never need to know how the camera sensor is mounted.
+ *
+ * Geometry helpers work on primitives and return NaN when a landmark is
+ * missing, so detector hot paths do not allocate per lookup. NaN compares
+ * false against any threshold, which makes a missing landmark fail every
+ * range check without an explicit null test.
+ *
+ * Plain Java on purpose: MediaPipe results are converted by
+ * {@link PoseResultConverter}, so detectors can be driven from recordings on
+ * the JVM.
+ */
+public class PoseFrame {
+
+    public static final int NUM_LANDMARKS = 33;
+    public static final int STRIDE = 4; // x, y, z, visibility
+
+    private final float[] data = new float[NUM_LANDMARKS * STRIDE];
+    private int landmarkCount = 0;
+    private long timestampMs = 0L;
+
+    /**
+     * Fill this frame from packed (x, y, z, visibility) landmarks that are
+     * already upright and normalized, e.g. recorded or synthetic poses.
+     */
+    public void set(long timestampMs, float[] landmarks, int landmarkCount) {
+        this.timestampMs = timestampMs;
+        this.landmarkCount = Math.min(landmarkCount, NUM_LANDMARKS);
+        System.arraycopy(landmarks, 0, data, 0, this.landmarkCount * STRIDE);
+    }
+
+    /**
+     * Copy another frame into this one, replacing any previous contents.
+     */
+    public void set(PoseFrame other) {
+        landmarkCount = other.landmarkCount;
+        timestampMs = other.timestampMs;
+        System.arraycopy(other.data, 0, data, 0, landmarkCount * STRIDE);
+    }
+
+    /**
+     * Start refilling this frame with {@code landmarkCount} landmarks, to be
+     * written with {@link #setLandmark}.
+     */
+    public void reset(long timestampMs, int landmarkCount) {
+        this.timestampMs = timestampMs;
+        this.landmarkCount = Math.min(landmarkCount, NUM_LANDMARKS);
+    }
+
+    /**
+     * Overwrite one landmark, including its visibility.
+     */
+    public void setLandmark(int landmarkIndex, float x, float y, float z, float visibility) {
+        int offset = landmarkIndex * STRIDE;
+        data[offset] = x;
+        data[offset + 1] = y;
+        data[offset + 2] = z;
+        data[offset + 3] = visibility;
+    }
+
+    /**
+     * Whether a pose was detected in this frame.
+     */
+    public boolean isEmpty() {
+        return landmarkCount == 0;
+    }
+
+    public int getLandmarkCount() {
+        return landmarkCount;
+    }
+
+    public long getTimestampMs() {
+        return timestampMs;
+    }
+
+    /**
+     * Whether the landmark at {@code landmarkIndex} was detected in this frame.
+     */
+    public boolean has(int landmarkIndex) {
+        return landmarkIndex < landmarkCount;
+    }
+
+    public boolean has(int first, int second) {
+        return has(first) && has(second);
+    }
+
+    public boolean has(int first, int second, int third) {
+        return has(first) && has(second) && has(third);
+    }
+
+    public float x(int landmarkIndex) {
+        return data[landmarkIndex * STRIDE];
+    }
+
+    public float y(int landmarkIndex) {
+        return data[landmarkIndex * STRIDE + 1];
+    }
+
+    public float z(int landmarkIndex) {
+        return data[landmarkIndex * STRIDE + 2];
+    }
+
+    public float visibility(int landmarkIndex) {
+        return data[landmarkIndex * STRIDE + 3];
+    }
+
+    /**
+     * Angle in degrees (0-180) at {@code vertex} between the segments to
+     * {@code first} and {@code third}, or NaN if any landmark is missing.
+     */
+    public float angle(int first, int vertex, int third) {
+        if (!has(first, vertex, third))
+            return Float.NaN;
+
+        float vx = x(vertex);
+        float vy = y(vertex);
+        double radians = Math.atan2(y(third) - vy, x(third) - vx) -
+                Math.atan2(y(first) - vy, x(first) - vx);
+        float angle = (float) Math.toDegrees(radians);
+
+        // Normalize to 0-360 range
+        if (angle < 0)
+            angle += 360f;
+
+        // Return the smaller angle
+        return angle > 180f ? 360f - angle : angle;
+    }
+
+    /**
+     * Euclidean distance between two landmarks in normalized image
+     * coordinates, or NaN if either is missing.
+     */
+    public float distance(int first, int second) {
+        if (!has(first, second))
+            return Float.NaN;
+
+        float dx = x(first) - x(second);
+        float dy = y(first) - y(second);
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Overwrite the position of one landmark, e.g. with a smoothed estimate.
+     * Visibility is left untouched.
+     */
+    public void setPosition(int landmarkIndex, float x, float y, float z) {
+        int offset = landmarkIndex * STRIDE;
+        data[offset] = x;
+        data[offset + 1] = y;
+        data[offset + 2] = z;
+    }
+}
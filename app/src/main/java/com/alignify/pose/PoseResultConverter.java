@@ -0,0 +1,107 @@
+package com.alignify.pose;
+
+import android.graphics.RectF;
+
+import com.alignify.utils.LandmarkUtils;
+import com.google.mediapipe.tasks.components.containers.Landmark;
+import com.google.mediapipe.tasks.components.containers.NormalizedLandmark;
+import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
+
+import java.util.List;
+
+/**
+ * Converts MediaPipe pose landmarker results into upright {@link PoseFrame}s.
+ * The only place that knows about MediaPipe's landmark classes, so everything
+ * downstream of the landmarker works on plain frames.
+ */
+public final class PoseResultConverter {
+
+    private PoseResultConverter() {
+    }
+
+    /**
+     * Build a frame from a MediaPipe result.
+     *
+     * @param rotationDegrees clockwise rotation that was passed to MediaPipe via
+     *                        ImageProcessingOptions (0, 90, 180 or 270). MediaPipe
+     *                        reports landmarks in the unrotated input frame, so they
+     *                        are rotated here into the upright frame.
+     */
+    public static PoseFrame toPoseFrame(PoseLandmarkerResult result, int rotationDegrees) {
+        PoseFrame frame = new PoseFrame();
+        fill(frame, result, rotationDegrees);
+        return frame;
+    }
+
+    /**
+     * Build a frame from a MediaPipe result computed on a crop of the camera
+     * frame, mapping the landmarks back to full-frame coordinates.
+     *
+     * @param crop normalized crop in the unrotated frame, as passed to MediaPipe
+     */
+    public static PoseFrame toPoseFrame(PoseLandmarkerResult result, int rotationDegrees, RectF crop) {
+        PoseFrame frame = new PoseFrame();
+        fill(frame, result, rotationDegrees, crop.left, crop.top, crop.right - crop.left, crop.bottom - crop.top);
+        return frame;
+    }
+
+    /**
+     * Fill {@code frame} from a MediaPipe result, replacing any previous contents.
+     */
+    public static void fill(PoseFrame frame, PoseLandmarkerResult result, int rotationDegrees) {
+        fill(frame, result, rotationDegrees, 0f, 0f, 1f, 1f);
+    }
+
+    /**
+     * Fill {@code frame} from a MediaPipe result computed on the normalized crop
+     * (cropLeft, cropTop, cropWidth, cropHeight) of the unrotated frame.
+     */
+    public static void fill(PoseFrame frame, PoseLandmarkerResult result, int rotationDegrees,
+            float cropLeft, float cropTop, float cropWidth, float cropHeight) {
+        if (result.landmarks().isEmpty()) {
+            frame.reset(result.timestampMs(), 0);
+            return;
+        }
+
+        List<NormalizedLandmark> landmarks = result.landmarks().get(0);
+        int landmarkCount = Math.min(landmarks.size(), PoseFrame.NUM_LANDMARKS);
+        frame.reset(result.timestampMs(), landmarkCount);
+
+        for (int i = 0; i < landmarkCount; i++) {
+            NormalizedLandmark landmark = landmarks.get(i);
+            float x = cropLeft + landmark.x() * cropWidth;
+            float y = cropTop + landmark.y() * cropHeight;
+            float z = landmark.z() * cropWidth; // z shares x's scale
+            float visibility = landmark.visibility().isPresent() ? landmark.visibility().get() : 1f;
+
+            switch (rotationDegrees) {
+                case 90:
+                    frame.setLandmark(i, 1f - y, x, z, visibility);
+                    break;
+                case 180:
+                    frame.setLandmark(i, 1f - x, 1f - y, z, visibility);
+                    break;
+                case 270:
+                    frame.setLandmark(i, y, 1f - x, z, visibility);
+                    break;
+                default:
+                    frame.setLandmark(i, x, y, z, visibility);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Extract 3D point from PoseLandmarkerResult (world coordinates).
+     */
+    public static LandmarkUtils.Point3D getPoint3D(PoseLandmarkerResult result, int landmarkIndex) {
+        if (result.worldLandmarks().isEmpty())
+            return null;
+        List<Landmark> landmarks = result.worldLandmarks().get(0);
+        if (landmarkIndex >= landmarks.size())
+            return null;
+
+        Landmark landmark = landmarks.get(landmarkIndex);
+        return new LandmarkUtils.Point3D(landmark.x(), landmark.y(), landmark.z());
+    }
+}
@@ -0,0 +1,214 @@
+package com.alignify.pose;
+
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Chooses the region of each camera frame to send to the pose landmarker
+ * once a person is being tracked, so background pixels are neither copied
+ * nor processed.
+ *
+ * The region is the padded bounding box of the last pose, kept in the
+ * unrotated sensor frame the camera delivers. It only moves when the body
+ * approaches its edge or it has become much larger than the body: MediaPipe
+ * tracks the pose between live-stream frames in image coordinates, and a
+ * crop that shifted every frame would break that tracking. When no pose is
+ * found the full frame is used again.
+ *
+ * Live-stream results arrive asynchronously, so the crop used for each
+ * submitted frame is remembered by timestamp until its result comes back.
+ *
+ * Thread-safe: frames are cropped on the camera executor and results
+ * arrive on MediaPipe's callback thread.
+ */
+public class PoseRoiTracker {
+
+    // Padding around the pose bounding box, as a fraction of its size per side
+    static final float PADDING = 0.25f;
+    // Never crop tighter than this fraction of the frame per axis
+    static final float MIN_SIZE = 0.3f;
+    // Crops covering more of the frame than this aren't worth the copy
+    static final float MAX_CROP_AREA = 0.7f;
+    // Re-crop when the pose comes within this fraction of the crop's edge
+    static final float EDGE_MARGIN = 0.05f;
+    // Re-crop when the crop is this many times larger than needed
+    static final float MAX_SLACK = 2.0f;
+
+    private static final int PENDING_FRAMES = 8;
+
+    // Current crop in normalized sensor coordinates; full frame when not tracking
+    private float left = 0f;
+    private float top = 0f;
+    private float right = 1f;
+    private float bottom = 1f;
+    private boolean tracking = false;
+
+    private final long[] pendingTimestamps = new long[PENDING_FRAMES];
+    private final float[] pendingCrops = new float[PENDING_FRAMES * 4];
+    private int pendingNext = 0;
+    private final float[] axis = new float[2]; // Scratch for clampAxis
+
+    /**
+     * Pixel crop for a frame about to be submitted; the whole frame when not
+     * tracking. The crop is remembered under {@code frameTimeMs} for
+     * {@link #cropForResult}.
+     *
+     * @return true if {@code outCrop} is smaller than the frame
+     */
+    public synchronized boolean cropForFrame(long frameTimeMs, int imageWidth, int imageHeight, Rect outCrop) {
+        int cropLeft = (int) (left * imageWidth);
+        int cropTop = (int) (top * imageHeight);
+        int cropRight = Math.min(imageWidth, (int) Math.ceil(right * imageWidth));
+        int cropBottom = Math.min(imageHeight, (int) Math.ceil(bottom * imageHeight));
+        outCrop.set(cropLeft, cropTop, cropRight, cropBottom);
+
+        int offset = pendingNext * 4;
+        pendingTimestamps[pendingNext] = frameTimeMs;
+        pendingCrops[offset] = cropLeft / (float) imageWidth;
+        pendingCrops[offset + 1] = cropTop / (float) imageHeight;
+        pendingCrops[offset + 2] = cropRight / (float) imageWidth;
+        pendingCrops[offset + 3] = cropBottom / (float) imageHeight;
+        pendingNext = (pendingNext + 1) % PENDING_FRAMES;
+
+        return cropRight - cropLeft < imageWidth || cropBottom - cropTop < imageHeight;
+    }
+
+    /**
+     * Normalized sensor-frame crop that was used for the frame submitted at
+     * {@code frameTimeMs}. Falls back to the full frame if it is unknown.
+     */
+    public synchronized void cropForResult(long frameTimeMs, RectF outCrop) {
+        for (int i = 0; i < PENDING_FRAMES; i++) {
+            if (pendingTimestamps[i] == frameTimeMs) {
+                int offset = i * 4;
+                outCrop.set(pendingCrops[offset], pendingCrops[offset + 1],
+                        pendingCrops[offset + 2], pendingCrops[offset + 3]);
+                return;
+            }
+        }
+        outCrop.set(0f, 0f, 1f, 1f);
+    }
+
+    /**
+     * Update the crop from a full-frame, upright pose. An empty frame means
+     * tracking was lost and the next frames are sent whole.
+     */
+    public synchronized void update(PoseFrame frame, int rotationDegrees) {
+        if (frame == null || frame.isEmpty()) {
+            reset();
+            return;
+        }
+
+        // Upright bounding box, clamped to the frame
+        float minX = 1f, minY = 1f, maxX = 0f, maxY = 0f;
+        for (int i = 0; i < frame.getLandmarkCount(); i++) {
+            float x = Math.max(0f, Math.min(1f, frame.x(i)));
+            float y = Math.max(0f, Math.min(1f, frame.y(i)));
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+
+        // Back into the sensor frame (inverse of PoseFrame's rotation)
+        float boxLeft, boxTop, boxRight, boxBottom;
+        switch (rotationDegrees) {
+            case 90:
+                boxLeft = minY;
+                boxRight = maxY;
+                boxTop = 1f - maxX;
+                boxBottom = 1f - minX;
+                break;
+            case 180:
+                boxLeft = 1f - maxX;
+                boxRight = 1f - minX;
+                boxTop = 1f - maxY;
+                boxBottom = 1f - minY;
+                break;
+            case 270:
+                boxLeft = 1f - maxY;
+                boxRight = 1f - minY;
+                boxTop = minX;
+                boxBottom = maxX;
+                break;
+            default:
+                boxLeft = minX;
+                boxRight = maxX;
+                boxTop = minY;
+                boxBottom = maxY;
+                break;
+        }
+
+        if (tracking && fitsCurrentCrop(boxLeft, boxTop, boxRight, boxBottom))
+            return;
+
+        // Padded target crop, at least MIN_SIZE per axis and inside the frame
+        float padX = (boxRight - boxLeft) * PADDING;
+        float padY = (boxBottom - boxTop) * PADDING;
+        axis[0] = boxLeft - padX;
+        axis[1] = boxRight + padX;
+        clampAxis(axis);
+        float newLeft = axis[0], newRight = axis[1];
+        axis[0] = boxTop - padY;
+        axis[1] = boxBottom + padY;
+        clampAxis(axis);
+        float newTop = axis[0], newBottom = axis[1];
+
+        if ((newRight - newLeft) * (newBottom - newTop) > MAX_CROP_AREA) {
+            reset();
+            return;
+        }
+
+        left = newLeft;
+        top = newTop;
+        right = newRight;
+        bottom = newBottom;
+        tracking = true;
+    }
+
+    public synchronized boolean isTracking() {
+        return tracking;
+    }
+
+    /**
+     * Go back to sending whole frames.
+     */
+    public synchronized void reset() {
+        left = 0f;
+        top = 0f;
+        right = 1f;
+        bottom = 1f;
+        tracking = false;
+    }
+
+    /**
+     * Whether the current crop still holds the box with some margin and isn't
+     * needlessly large for it.
+     */
+    private boolean fitsCurrentCrop(float boxLeft, float boxTop, float boxRight, float boxBottom) {
+        float marginX = (right - left) * EDGE_MARGIN;
+        float marginY = (bottom - top) * EDGE_MARGIN;
+        // Edges touching the frame border can't be improved by moving
+        boolean inside = (boxLeft >= left + marginX || left <= 0f)
+                && (boxRight <= right - marginX || right >= 1f)
+                && (boxTop >= top + marginY || top <= 0f)
+                && (boxBottom <= bottom - marginY || bottom >= 1f);
+        if (!inside)
+            return false;
+
+        float needed = Math.max(MIN_SIZE, (boxRight - boxLeft) * (1f + 2f * PADDING))
+                * Math.max(MIN_SIZE, (boxBottom - boxTop) * (1f + 2f * PADDING));
+        return (right - left) * (bottom - top) <= needed * MAX_SLACK;
+    }
+
+    /**
+     * Grow {@code range} to MIN_SIZE around its centre and shift it inside [0, 1].
+     */
+    private static void clampAxis(float[] range) {
+        float size = Math.min(1f, Math.max(MIN_SIZE, range[1] - range[0]));
+        float centre = (range[0] + range[1]) * 0.5f;
+        float start = Math.max(0f, Math.min(1f - size, centre - size * 0.5f));
+        range[0] = start;
+        range[1] = start + size;
+    }
+}
@@ -0,0 +1,34 @@
+package com.alignify.pose;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A finite stream of upright, unsmoothed pose frames in timestamp order, as
+ * detectors consume them offline. Implementations adapt the pose landmarker
+ * running over a video ({@link VideoPoseSource}), the landmark cache and
+ * recorded files, so stream analysis never sees where frames come from.
+ *
+ * Live camera results are pushed rather than pulled; they reach the same
+ * {@link PoseFrame} form through {@link PoseResultConverter}.
+ */
+public interface PoseSource extends Closeable {
+
+    /**
+     * Next frame, or null at the end of the stream. May return the same
+     * instance on every call, overwritten with the next frame, so callers
+     * must not keep it; they may modify it, e.g. smooth it in place.
+     */
+    PoseFrame next() throws IOException;
+
+    /**
+     * Length of the stream in milliseconds, or -1 if unknown.
+     */
+    long getDurationMs();
+
+    /**
+     * Release whatever produces the frames. Safe to call more than once.
+     */
+    @Override
+    void close();
+}
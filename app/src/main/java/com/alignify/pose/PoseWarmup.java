@@ -0,0 +1,160 @@
+package com.alignify.pose;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.alignify.PoseLandmarkerHelper;
+import com.alignify.exercises.ExerciseDetector;
+import com.alignify.exercises.TFLiteFormClassifier;
+import com.google.mediapipe.framework.image.ByteBufferImageBuilder;
+import com.google.mediapipe.framework.image.MPImage;
+import com.google.mediapipe.tasks.core.Delegate;
+import com.google.mediapipe.tasks.vision.core.RunningMode;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds the live-stream pose landmarker and the exercise form models on a
+ * background thread before ExerciseActivity needs them, and runs one dummy
+ * inference through each so delegate compilation and lazy init are paid
+ * ahead of time.
+ *
+ * The prepared landmarker, built with the variant DeviceCapabilityProfiler
+ * currently picks, is handed over once via {@link #takePreparedLandmarker()}. Form models stay warm in ModelManager's
+ * interpreter cache, so the activity's detectors pick them up as cache hits.
+ */
+public class PoseWarmup {
+    private static final String TAG = "PoseWarmup";
+
+    public static final String[] ALL_EXERCISES = { "squat", "bicep_curl", "lunge", "plank" };
+
+    // Small blank frame; big enough for the detector stage to run end to end
+    private static final int DUMMY_FRAME_SIZE = 256;
+
+    private static PoseWarmup instance;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "PoseWarmup"));
+
+    // Guarded by this
+    private PoseLandmarkerHelper preparedLandmarker;
+    private boolean landmarkerPending = false;
+
+    private PoseWarmup() {
+    }
+
+    public static synchronized PoseWarmup getInstance() {
+        if (instance == null) {
+            instance = new PoseWarmup();
+        }
+        return instance;
+    }
+
+    /**
+     * Start warming the landmarker and the given exercises' models. Returns
+     * immediately; repeated calls while a landmarker is prepared or pending
+     * only warm the models, which are cache hits after the first time.
+     */
+    public void prewarm(Context context, String... exerciseTypes) {
+        Context appContext = context.getApplicationContext();
+        boolean buildLandmarker;
+        synchronized (this) {
+            buildLandmarker = preparedLandmarker == null && !landmarkerPending;
+            landmarkerPending |= buildLandmarker;
+        }
+
+        executor.execute(() -> {
+            if (buildLandmarker) {
+                warmLandmarker(appContext);
+            }
+            for (String exerciseType : exerciseTypes) {
+                warmExercise(appContext, exerciseType);
+            }
+        });
+    }
+
+    /**
+     * Take the prewarmed live-stream landmarker, or null if none is ready yet.
+     * The caller owns the returned helper and must set its listener.
+     */
+    public synchronized PoseLandmarkerHelper takePreparedLandmarker() {
+        PoseLandmarkerHelper helper = preparedLandmarker;
+        preparedLandmarker = null;
+        return helper;
+    }
+
+    /**
+     * Close a prepared landmarker nobody has taken, e.g. under memory pressure.
+     */
+    public void release() {
+        PoseLandmarkerHelper helper = takePreparedLandmarker();
+        if (helper != null) {
+            helper.clearPoseLandmarker();
+        }
+    }
+
+    private void warmLandmarker(Context appContext) {
+        long start = SystemClock.elapsedRealtime();
+        PoseLandmarkerHelper helper = null;
+        try {
+            // Same options and variant as ExerciseActivity's live-stream landmarker
+            LandmarkerModel model = DeviceCapabilityProfiler.getInstance(appContext).getCurrentLevel().getModel();
+            helper = new PoseLandmarkerHelper(
+                    appContext,
+                    RunningMode.LIVE_STREAM,
+                    0.5f,
+                    0.5f,
+                    0.5f,
+                    Delegate.GPU,
+                    model,
+                    null);
+            long setupMs = SystemClock.elapsedRealtime() - start;
+
+            if (helper.isReady()) {
+                // Timestamp 0 keeps every later camera timestamp strictly increasing
+                ByteBuffer blank = ByteBuffer.allocateDirect(DUMMY_FRAME_SIZE * DUMMY_FRAME_SIZE * 4);
+                MPImage image = new ByteBufferImageBuilder(
+                        blank, DUMMY_FRAME_SIZE, DUMMY_FRAME_SIZE, MPImage.IMAGE_FORMAT_RGBA).build();
+                helper.detectLiveStream(image, 0L);
+            }
+
+            Log.i(TAG, "Landmarker warm in " + (SystemClock.elapsedRealtime() - start)
+                    + " ms (setup " + setupMs + " ms)");
+        } catch (Exception e) {
+            Log.w(TAG, "Landmarker warm-up failed", e);
+            if (helper != null) {
+                helper.clearPoseLandmarker();
+                helper = null;
+            }
+        }
+
+        synchronized (this) {
+            landmarkerPending = false;
+            if (helper != null && helper.isReady()) {
+                preparedLandmarker = helper;
+                return;
+            }
+        }
+        if (helper != null) {
+            helper.clearPoseLandmarker();
+        }
+    }
+
+    private void warmExercise(Context appContext, String exerciseType) {
+        long start = SystemClock.elapsedRealtime();
+        ExerciseDetector detector = ExerciseDetector.create(exerciseType, TFLiteFormClassifier.loader(appContext));
+        try {
+            boolean warmed = detector.warmUp();
+            Log.i(TAG, exerciseType + " model " + (warmed ? "warm" : "unavailable") + " in "
+                    + (SystemClock.elapsedRealtime() - start) + " ms");
+        } catch (Exception e) {
+            Log.w(TAG, "Model warm-up failed for " + exerciseType, e);
+        } finally {
+            // Returns the interpreter to ModelManager's cache, where it stays open
+            detector.close();
+        }
+    }
+}
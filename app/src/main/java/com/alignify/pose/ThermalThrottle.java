@@ -0,0 +1,214 @@
+package com.alignify.pose;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+/**
+ * Tracks how hot the device is during a camera session and maps it to a
+ * {@link State} that tells the pipeline how much work to shed.
+ *
+ * Thermal status changes arrive through PowerManager's listener (API 29+).
+ * Thermal headroom (API 30+) is polled, because it rises well before the
+ * status changes and allows throttling before the SoC does. Heating up is
+ * applied immediately. Cooling down goes one state at a time, and only after
+ * the lower reading has held for {@link #COOL_DOWN_MS}, so the pipeline
+ * doesn't flap around a threshold.
+ *
+ * All methods must be called on the main thread.
+ */
+public class ThermalThrottle {
+    private static final String TAG = "ThermalThrottle";
+
+    /**
+     * Work-shedding levels, coolest first.
+     */
+    public enum State {
+        // detection interval floor, highest quality level, overlay frame interval
+        NOMINAL(0L, Integer.MAX_VALUE, 0L),
+        WARM(66L, Integer.MAX_VALUE, 0L), // ~15 fps detection
+        HOT(100L, 1, 33L), // ~10 fps, lite model, overlay at 30 fps
+        CRITICAL(200L, 0, 66L); // ~5 fps, smallest frame, overlay at 15 fps
+
+        private final long minDetectionIntervalMs;
+        private final int maxQualityLevel;
+        private final long overlayFrameIntervalMs;
+
+        State(long minDetectionIntervalMs, int maxQualityLevel, long overlayFrameIntervalMs) {
+            this.minDetectionIntervalMs = minDetectionIntervalMs;
+            this.maxQualityLevel = maxQualityLevel;
+            this.overlayFrameIntervalMs = overlayFrameIntervalMs;
+        }
+
+        /**
+         * Lower bound for FrameRateGovernor's frame interval.
+         */
+        public long getMinDetectionIntervalMs() {
+            return minDetectionIntervalMs;
+        }
+
+        /**
+         * Highest DeviceCapabilityProfiler level index allowed.
+         */
+        public int getMaxQualityLevel() {
+            return maxQualityLevel;
+        }
+
+        /**
+         * Minimum time between interpolated overlay frames; 0 is every vsync.
+         */
+        public long getOverlayFrameIntervalMs() {
+            return overlayFrameIntervalMs;
+        }
+    }
+
+    /**
+     * Notified on the main thread when the state changes, and once from
+     * {@link #start} with the initial state ({@code previous} may equal
+     * {@code current} then).
+     */
+    public interface Listener {
+        void onThermalStateChanged(State previous, State current, int thermalStatus, float headroom);
+    }
+
+    static final long COOL_DOWN_MS = 30_000L;
+    // getThermalHeadroom is rate limited by the platform; poll well below that
+    static final long HEADROOM_POLL_INTERVAL_MS = 5_000L;
+    private static final int HEADROOM_FORECAST_SECONDS = 10;
+
+    // Headroom thresholds; 1.0 is where the platform starts throttling
+    static final float WARM_HEADROOM = 0.7f;
+    static final float HOT_HEADROOM = 0.85f;
+    static final float CRITICAL_HEADROOM = 1.0f;
+
+    private final PowerManager powerManager;
+    private final Context context;
+    private final Listener listener;
+    private PowerManager.OnThermalStatusChangedListener statusListener;
+
+    private State state = State.NOMINAL;
+    private int thermalStatus = 0; // PowerManager.THERMAL_STATUS_NONE
+    private float headroom = Float.NaN;
+    private long lastHeadroomPollMs = -HEADROOM_POLL_INTERVAL_MS;
+    private long coolerSinceMs = -1L; // When readings first dropped below the current state
+
+    public ThermalThrottle(Context context, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.powerManager = (PowerManager) this.context.getSystemService(Context.POWER_SERVICE);
+        this.listener = listener;
+    }
+
+    /**
+     * Start listening for thermal status changes. The listener is called
+     * right away with the state for the current reading, so a cap left over
+     * from an earlier session that ended hot is lifted or re-applied.
+     */
+    public void start(long nowMs) {
+        if (statusListener != null)
+            return;
+
+        if (powerManager != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            statusListener = status -> {
+                thermalStatus = status;
+                update(SystemClock.elapsedRealtime());
+            };
+            powerManager.addThermalStatusListener(ContextCompat.getMainExecutor(context), statusListener);
+            thermalStatus = powerManager.getCurrentThermalStatus();
+            refreshHeadroom(nowMs);
+        }
+
+        // Start from the current reading rather than wherever the last session ended
+        coolerSinceMs = -1L;
+        setState(stateFor(thermalStatus, headroom));
+    }
+
+    public void stop() {
+        if (statusListener != null) {
+            powerManager.removeThermalStatusListener(statusListener);
+            statusListener = null;
+        }
+    }
+
+    /**
+     * Refresh the headroom forecast if due and re-evaluate, including any
+     * pending cool-down. Call periodically, e.g. once a second.
+     */
+    public void poll(long nowMs) {
+        refreshHeadroom(nowMs);
+        update(nowMs);
+    }
+
+    private void refreshHeadroom(long nowMs) {
+        if (powerManager != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                && nowMs - lastHeadroomPollMs >= HEADROOM_POLL_INTERVAL_MS) {
+            lastHeadroomPollMs = nowMs;
+            headroom = powerManager.getThermalHeadroom(HEADROOM_FORECAST_SECONDS);
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private void update(long nowMs) {
+        State target = stateFor(thermalStatus, headroom);
+        if (target.ordinal() > state.ordinal()) {
+            coolerSinceMs = -1L;
+            setState(target);
+            return;
+        }
+
+        if (target.ordinal() == state.ordinal()) {
+            coolerSinceMs = -1L;
+            return;
+        }
+
+        // Cooler than the current state: step down one level once it has held
+        if (coolerSinceMs < 0L) {
+            coolerSinceMs = nowMs;
+        } else if (nowMs - coolerSinceMs >= COOL_DOWN_MS) {
+            coolerSinceMs = -1L;
+            setState(State.values()[state.ordinal() - 1]);
+        }
+    }
+
+    private void setState(State next) {
+        State previous = state;
+        state = next;
+        Log.i(TAG, previous + " -> " + next + " (status " + thermalStatus + ", headroom " + headroom + ")");
+        listener.onThermalStateChanged(previous, next, thermalStatus, headroom);
+    }
+
+    /**
+     * The hotter of what the thermal status and the headroom forecast say.
+     */
+    static State stateFor(int thermalStatus, float headroom) {
+        State fromStatus;
+        if (thermalStatus >= PowerManager.THERMAL_STATUS_SEVERE) {
+            fromStatus = State.CRITICAL;
+        } else if (thermalStatus == PowerManager.THERMAL_STATUS_MODERATE) {
+            fromStatus = State.HOT;
+        } else if (thermalStatus == PowerManager.THERMAL_STATUS_LIGHT) {
+            fromStatus = State.WARM;
+        } else {
+            fromStatus = State.NOMINAL;
+        }
+
+        State fromHeadroom;
+        if (Float.isNaN(headroom) || headroom < WARM_HEADROOM) {
+            fromHeadroom = State.NOMINAL;
+        } else if (headroom < HOT_HEADROOM) {
+            fromHeadroom = State.WARM;
+        } else if (headroom < CRITICAL_HEADROOM) {
+            fromHeadroom = State.HOT;
+        } else {
+            fromHeadroom = State.CRITICAL;
+        }
+
+        return fromStatus.ordinal() >= fromHeadroom.ordinal() ? fromStatus : fromHeadroom;
+    }
+}
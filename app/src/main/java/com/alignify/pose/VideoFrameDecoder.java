@@ -0,0 +1,383 @@
+package com.alignify.pose;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.ImageFormat;
+import android.media.Image;
+import android.media.ImageReader;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import com.alignify.utils.BitmapPool;
+import com.alignify.utils.LatencyHistogram;
+import com.alignify.utils.YuvToRgbaConverter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes every frame of a video file in order, with the hardware decoder,
+ * into upright pooled bitmaps tagged with their presentation time.
+ *
+ * Three stages run on their own threads and hand frames on through bounded
+ * buffers, so a slow consumer stalls the decoder instead of piling up frames:
+ * <ol>
+ * <li>"VideoDecode" feeds MediaExtractor samples to MediaCodec and renders
+ * each output buffer into an ImageReader surface. It only renders while the
+ * reader has a free image slot.</li>
+ * <li>"VideoConvert" turns each YUV image into an ARGB_8888 bitmap from the
+ * pool, scaled to at most {@code maxEdge} and rotated upright, and queues
+ * it.</li>
+ * <li>The caller takes frames with {@link #next()}, e.g. to run the pose
+ * landmarker, and returns each bitmap to the pool when done with it.</li>
+ * </ol>
+ *
+ * {@link #start()}, {@link #next()} and {@link #close()} must be called from
+ * the same thread.
+ */
+public class VideoFrameDecoder implements AutoCloseable {
+    private static final String TAG = "VideoFrameDecoder";
+
+    /**
+     * A decoded, upright frame. The bitmap belongs to the caller until it is
+     * released back to the pool.
+     */
+    public static final class Frame {
+        private final Bitmap bitmap;
+        private final long presentationTimeUs;
+
+        Frame(Bitmap bitmap, long presentationTimeUs) {
+            this.bitmap = bitmap;
+            this.presentationTimeUs = presentationTimeUs;
+        }
+
+        public Bitmap getBitmap() {
+            return bitmap;
+        }
+
+        public long getPresentationTimeUs() {
+            return presentationTimeUs;
+        }
+    }
+
+    // Marks the end of the stream in the frame queue
+    private static final Frame END_OF_STREAM = new Frame(null, -1L);
+
+    // Images the decoder may have in flight to the converter
+    private static final int READER_MAX_IMAGES = 3;
+    private static final int QUEUE_CAPACITY = 2;
+    private static final long CODEC_TIMEOUT_US = 10_000L;
+    // How often blocked stages check whether the decoder was closed
+    private static final long POLL_INTERVAL_MS = 50L;
+
+    private final Context context;
+    private final Uri uri;
+    private final BitmapPool bitmapPool;
+    private final int maxEdge;
+
+    private final BlockingQueue<Frame> frames = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // Free reader slots: taken before rendering, given back once the frame is queued
+    private final Semaphore imageSlots = new Semaphore(READER_MAX_IMAGES - 1);
+    private final YuvToRgbaConverter converter = new YuvToRgbaConverter(); // Convert thread only
+    private volatile LatencyHistogram convertLatency;
+    private volatile boolean running = false;
+    private volatile Exception failure;
+
+    private MediaExtractor extractor;
+    private MediaCodec codec;
+    private ImageReader imageReader;
+    private HandlerThread convertThread;
+    private Thread decodeThread;
+    private int rotationDegrees = 0;
+    private int frameWidth;
+    private int frameHeight;
+    private long durationUs = 0L;
+
+    public VideoFrameDecoder(Context context, Uri uri, BitmapPool bitmapPool, int maxEdge) {
+        this.context = context.getApplicationContext();
+        this.uri = uri;
+        this.bitmapPool = bitmapPool;
+        this.maxEdge = maxEdge;
+    }
+
+    /**
+     * Also record per-frame YUV conversion time into {@code histogram}.
+     */
+    public void setConvertLatencyHistogram(LatencyHistogram histogram) {
+        this.convertLatency = histogram;
+    }
+
+    /**
+     * Open the video's first video track and start decoding.
+     *
+     * @throws IOException if the file can't be read or has no decodable video
+     */
+    public void start() throws IOException {
+        extractor = new MediaExtractor();
+        extractor.setDataSource(context, uri, null);
+
+        MediaFormat format = null;
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            MediaFormat trackFormat = extractor.getTrackFormat(i);
+            String mime = trackFormat.getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith("video/")) {
+                extractor.selectTrack(i);
+                format = trackFormat;
+                break;
+            }
+        }
+        if (format == null) {
+            throw new IOException("No video track in " + uri);
+        }
+
+        int width = format.getInteger(MediaFormat.KEY_WIDTH);
+        int height = format.getInteger(MediaFormat.KEY_HEIGHT);
+        rotationDegrees = format.getInteger(MediaFormat.KEY_ROTATION, 0);
+        if (format.containsKey(MediaFormat.KEY_DURATION)) {
+            durationUs = format.getLong(MediaFormat.KEY_DURATION);
+        }
+
+        // Upright output size, scaled down to maxEdge
+        boolean sideways = rotationDegrees % 180 != 0;
+        int uprightWidth = sideways ? height : width;
+        int uprightHeight = sideways ? width : height;
+        float scale = Math.min(1f, (float) maxEdge / Math.max(uprightWidth, uprightHeight));
+        frameWidth = Math.max(1, Math.round(uprightWidth * scale));
+        frameHeight = Math.max(1, Math.round(uprightHeight * scale));
+
+        convertThread = new HandlerThread("VideoConvert");
+        convertThread.start();
+        imageReader = ImageReader.newInstance(width, height, ImageFormat.YUV_420_888, READER_MAX_IMAGES);
+        imageReader.setOnImageAvailableListener(this::onImageAvailable, new Handler(convertThread.getLooper()));
+
+        codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+        codec.configure(format, imageReader.getSurface(), null, 0);
+        codec.start();
+
+        Log.d(TAG, "Decoding " + width + "x" + height + " rotated " + rotationDegrees
+                + " into " + frameWidth + "x" + frameHeight);
+        running = true;
+        decodeThread = new Thread(this::decodeLoop, "VideoDecode");
+        decodeThread.start();
+    }
+
+    /**
+     * Next frame in presentation order, blocking until it is decoded.
+     *
+     * @return null at the end of the video
+     * @throws IOException if decoding failed
+     */
+    public Frame next() throws IOException, InterruptedException {
+        Frame frame = frames.take();
+        if (frame != END_OF_STREAM)
+            return frame;
+
+        // Keep returning the end for repeated calls
+        frames.offer(END_OF_STREAM);
+        if (failure != null) {
+            throw new IOException("Video decoding failed", failure);
+        }
+        return null;
+    }
+
+    public long getDurationUs() {
+        return durationUs;
+    }
+
+    /**
+     * Size of the bitmaps returned by {@link #next()}.
+     */
+    public int getFrameWidth() {
+        return frameWidth;
+    }
+
+    public int getFrameHeight() {
+        return frameHeight;
+    }
+
+    /**
+     * Stop all stages and release the codec. Frames still queued go back to
+     * the pool; frames already returned by {@link #next()} stay with the
+     * caller.
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (decodeThread != null) {
+            try {
+                decodeThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            releaseCodec();
+        }
+
+        if (convertThread != null) {
+            convertThread.quitSafely();
+            try {
+                convertThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (imageReader != null) {
+            imageReader.close();
+        }
+
+        releaseQueuedFrames();
+    }
+
+    private void releaseQueuedFrames() {
+        Frame frame;
+        while ((frame = frames.poll()) != null) {
+            if (frame != END_OF_STREAM) {
+                bitmapPool.release(frame.getBitmap());
+            }
+        }
+    }
+
+    /**
+     * Decode thread: feed samples in, render decoded buffers to the reader.
+     */
+    private void decodeLoop() {
+        MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+        boolean inputDone = false;
+        boolean outputDone = false;
+        try {
+            while (running && !outputDone) {
+                if (!inputDone) {
+                    int inputIndex = codec.dequeueInputBuffer(CODEC_TIMEOUT_US);
+                    if (inputIndex >= 0) {
+                        ByteBuffer input = codec.getInputBuffer(inputIndex);
+                        int size = extractor.readSampleData(input, 0);
+                        if (size < 0) {
+                            codec.queueInputBuffer(inputIndex, 0, 0, 0L, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            codec.queueInputBuffer(inputIndex, 0, size, extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+
+                int outputIndex = codec.dequeueOutputBuffer(info, CODEC_TIMEOUT_US);
+                if (outputIndex < 0)
+                    continue; // Try again, format or buffers changed
+
+                outputDone = (info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0;
+                boolean render = info.size > 0 && acquireSlots(1);
+                // The surface timestamp carries presentationTimeUs to the Image
+                codec.releaseOutputBuffer(outputIndex, render);
+            }
+
+            // Let the converter finish the frames already rendered
+            if (outputDone && acquireSlots(READER_MAX_IMAGES - 1)) {
+                imageSlots.release(READER_MAX_IMAGES - 1);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Decoding failed", e);
+            failure = e;
+        } finally {
+            releaseCodec();
+            enqueue(END_OF_STREAM);
+        }
+    }
+
+    /**
+     * Convert thread: one YUV image to a queued bitmap.
+     */
+    private void onImageAvailable(ImageReader reader) {
+        Image image;
+        while ((image = reader.acquireNextImage()) != null) {
+            Bitmap bitmap = null;
+            long presentationTimeUs = image.getTimestamp() / 1000L;
+            try {
+                if (running) {
+                    long start = System.nanoTime();
+                    bitmap = bitmapPool.acquire(frameWidth, frameHeight, Bitmap.Config.ARGB_8888);
+                    converter.convert(image, rotationDegrees, bitmap);
+                    LatencyHistogram histogram = convertLatency;
+                    if (histogram != null) {
+                        histogram.recordNanos(System.nanoTime() - start);
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Dropping frame at " + presentationTimeUs + " us", e);
+                bitmapPool.release(bitmap);
+                bitmap = null;
+            } finally {
+                image.close();
+            }
+
+            // The slot is given back only once the frame is queued, so the
+            // decoder's end-of-stream wait also covers the queue hand-off
+            try {
+                if (bitmap != null && !enqueue(new Frame(bitmap, presentationTimeUs))) {
+                    bitmapPool.release(bitmap);
+                }
+            } finally {
+                imageSlots.release();
+            }
+        }
+    }
+
+    /**
+     * Wait for queue space; the end-of-stream marker is queued even after close.
+     *
+     * @return false if the frame was not queued because the decoder was closed
+     */
+    private boolean enqueue(Frame frame) {
+        try {
+            while (!frames.offer(frame, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                if (!running) {
+                    if (frame != END_OF_STREAM)
+                        return false;
+                    releaseQueuedFrames(); // Nobody is consuming; make room for the marker
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Wait for image slots.
+     *
+     * @return false if the decoder was closed while waiting
+     */
+    private boolean acquireSlots(int permits) throws InterruptedException {
+        while (running) {
+            if (imageSlots.tryAcquire(permits, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS))
+                return true;
+        }
+        return false;
+    }
+
+    private void releaseCodec() {
+        try {
+            if (codec != null) {
+                codec.stop();
+                codec.release();
+                codec = null;
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Error releasing decoder", e);
+        }
+        if (extractor != null) {
+            extractor.release();
+            extractor = null;
+        }
+    }
+}
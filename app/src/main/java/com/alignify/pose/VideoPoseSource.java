@@ -0,0 +1,122 @@
+package com.alignify.pose;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.util.Log;
+
+import com.alignify.PoseLandmarkerHelper;
+import com.alignify.utils.BitmapPool;
+import com.google.mediapipe.framework.image.BitmapImageBuilder;
+import com.google.mediapipe.tasks.core.Delegate;
+import com.google.mediapipe.tasks.vision.core.RunningMode;
+import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
+
+import java.io.IOException;
+
+/**
+ * Poses of every frame of a video, produced as fast as the device allows:
+ * {@link VideoFrameDecoder} decodes ahead on its own threads while the pose
+ * landmarker runs in VIDEO mode on the thread calling {@link #next()}.
+ *
+ * Frames are decoded small, since nothing is displayed and the landmarker
+ * works at 256x256 anyway. Frames whose timestamp doesn't increase, or that
+ * the landmarker fails on, are skipped.
+ */
+public class VideoPoseSource implements PoseSource {
+    private static final String TAG = "VideoPoseSource";
+
+    private static final int FRAME_POOL_SIZE = 4;
+
+    private final BitmapPool framePool = new BitmapPool(FRAME_POOL_SIZE);
+    private final VideoFrameDecoder decoder;
+    private final PoseLandmarkerHelper landmarker;
+    private final PoseFrame frame = new PoseFrame();
+    private long lastTimestampMs = -1L;
+    private boolean closed = false;
+
+    private VideoPoseSource(Context context, Uri videoUri, LandmarkerModel model, int maxEdge) {
+        decoder = new VideoFrameDecoder(context, videoUri, framePool, maxEdge);
+        landmarker = new PoseLandmarkerHelper(
+                context,
+                RunningMode.VIDEO,
+                0.5f,
+                0.5f,
+                0.5f,
+                Delegate.GPU, // Fastest available, remembered per device
+                model,
+                null);
+    }
+
+    /**
+     * Start decoding {@code videoUri} with frames at most {@code maxEdge}
+     * pixels on their long side.
+     *
+     * @throws IOException if the video can't be decoded
+     * @throws IllegalStateException if the landmarker can't be initialized
+     */
+    public static VideoPoseSource open(Context context, Uri videoUri, LandmarkerModel model, int maxEdge)
+            throws IOException {
+        VideoPoseSource source = new VideoPoseSource(context, videoUri, model, maxEdge);
+        try {
+            if (!source.landmarker.isReady()) {
+                throw new IllegalStateException("Pose landmarker could not be initialized");
+            }
+            source.decoder.start();
+            return source;
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public PoseFrame next() throws IOException {
+        while (true) {
+            VideoFrameDecoder.Frame decoded;
+            try {
+                decoded = decoder.next();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            if (decoded == null)
+                return null;
+
+            Bitmap bitmap = decoded.getBitmap();
+            long timestampMs = decoded.getPresentationTimeUs() / 1000L;
+            PoseLandmarkerResult result = null;
+            try {
+                // MediaPipe requires strictly increasing timestamps
+                if (timestampMs > lastTimestampMs) {
+                    lastTimestampMs = timestampMs;
+                    result = landmarker.detectVideoFrame(new BitmapImageBuilder(bitmap).build(), timestampMs);
+                }
+            } finally {
+                framePool.release(bitmap);
+            }
+
+            if (result != null) {
+                PoseResultConverter.fill(frame, result, 0);
+                return frame;
+            }
+        }
+    }
+
+    @Override
+    public long getDurationMs() {
+        long durationUs = decoder.getDurationUs();
+        return durationUs > 0L ? durationUs / 1000L : -1L;
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        decoder.close();
+        landmarker.clearPoseLandmarker();
+        Log.d(TAG, "Frame pool: " + framePool);
+        framePool.clear();
+    }
+}
@@ -0,0 +1,101 @@
+package com.alignify.utils;
+
+import android.graphics.Bitmap;
+
+/**
+ * Fixed-size pool of reusable Bitmaps matched by width, height and config.
+ * Free bitmaps live in a ring of slots; when the ring is full the oldest free
+ * bitmap is recycled to make room. Hit/miss counters make it easy to confirm
+ * that a steady-state frame loop no longer allocates.
+ */
+public class BitmapPool {
+
+    private final Bitmap[] slots;
+    private int nextSlot = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public BitmapPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        slots = new Bitmap[capacity];
+    }
+
+    /**
+     * Get a mutable bitmap of the given size and config.
+     * Contents are undefined; callers are expected to overwrite every pixel.
+     */
+    public synchronized Bitmap acquire(int width, int height, Bitmap.Config config) {
+        for (int i = 0; i < slots.length; i++) {
+            Bitmap bitmap = slots[i];
+            if (bitmap != null && bitmap.getWidth() == width && bitmap.getHeight() == height
+                    && bitmap.getConfig() == config) {
+                slots[i] = null;
+                hits++;
+                return bitmap;
+            }
+        }
+
+        misses++;
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Return a bitmap to the pool. The caller must not touch it afterwards.
+     */
+    public synchronized void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        if (!bitmap.isMutable()) {
+            bitmap.recycle();
+            return;
+        }
+
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == null) {
+                slots[i] = bitmap;
+                return;
+            }
+        }
+
+        // Pool is full - evict the oldest slot in ring order
+        slots[nextSlot].recycle();
+        slots[nextSlot] = bitmap;
+        nextSlot = (nextSlot + 1) % slots.length;
+        evictions++;
+    }
+
+    /**
+     * Recycle every pooled bitmap. Counters are kept.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null) {
+                slots[i].recycle();
+                slots[i] = null;
+            }
+        }
+        nextSlot = 0;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BitmapPool{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+}
@@ -0,0 +1,26 @@
+package com.alignify.utils;
+
+/**
+ * Reusable holder for a single form-model classification. Callers keep one
+ * instance and pass it to {@link TFLiteInterpreter#classify} every frame.
+ */
+public final class ClassificationResult {
+    float[] probabilities = new float[0];
+    int classIndex = -1;
+    float confidence = 0f;
+
+    /**
+     * Probabilities of the last classification. Overwritten by the next call.
+     */
+    public float[] getProbabilities() {
+        return probabilities;
+    }
+
+    public int getClassIndex() {
+        return classIndex;
+    }
+
+    public float getConfidence() {
+        return confidence;
+    }
+}
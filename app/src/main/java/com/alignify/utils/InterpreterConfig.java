@@ -0,0 +1,112 @@
+package com.alignify.utils;
+
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runtime options for a {@link TFLiteInterpreter}: CPU thread count,
+ * XNNPACK on/off and NNAPI offload. Immutable and serializable to a short
+ * key so the fastest choice can be persisted per model.
+ */
+public final class InterpreterConfig {
+
+    /** Let TFLite pick the thread count. */
+    public static final int DEFAULT_THREADS = -1;
+
+    /** Same behaviour as {@code new Interpreter(model)} with no options. */
+    public static final InterpreterConfig DEFAULT = new InterpreterConfig(DEFAULT_THREADS, true, false);
+
+    private final int numThreads;
+    private final boolean useXnnpack;
+    private final boolean useNnapi;
+
+    public InterpreterConfig(int numThreads, boolean useXnnpack, boolean useNnapi) {
+        this.numThreads = numThreads;
+        this.useXnnpack = useXnnpack;
+        this.useNnapi = useNnapi;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public boolean isXnnpackEnabled() {
+        return useXnnpack;
+    }
+
+    public boolean isNnapiEnabled() {
+        return useNnapi;
+    }
+
+    /**
+     * Same config without NNAPI, used when the delegate can't be applied.
+     */
+    public InterpreterConfig withoutNnapi() {
+        return useNnapi ? new InterpreterConfig(numThreads, useXnnpack, false) : this;
+    }
+
+    /**
+     * Configs worth trying on this device, cheapest first.
+     */
+    public static List<InterpreterConfig> candidates() {
+        List<InterpreterConfig> configs = new ArrayList<>();
+        configs.add(new InterpreterConfig(1, true, false));
+        configs.add(new InterpreterConfig(2, true, false));
+        configs.add(new InterpreterConfig(4, true, false));
+        configs.add(new InterpreterConfig(2, false, false));
+        // NNAPI 1.1 (Android 9) is the first release with reliable float op coverage
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            configs.add(new InterpreterConfig(DEFAULT_THREADS, true, true));
+        }
+        return configs;
+    }
+
+    /**
+     * Compact form for SharedPreferences, e.g. "t2x1n0".
+     */
+    public String toKey() {
+        return "t" + numThreads + "x" + (useXnnpack ? 1 : 0) + "n" + (useNnapi ? 1 : 0);
+    }
+
+    /**
+     * Parse a key produced by {@link #toKey()}. Returns null if malformed.
+     */
+    public static InterpreterConfig fromKey(String key) {
+        if (key == null)
+            return null;
+
+        int x = key.indexOf('x');
+        int n = key.indexOf('n');
+        if (!key.startsWith("t") || x < 0 || n != x + 2 || key.length() != n + 2)
+            return null;
+
+        try {
+            int threads = Integer.parseInt(key.substring(1, x));
+            return new InterpreterConfig(threads, key.charAt(x + 1) == '1', key.charAt(n + 1) == '1');
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof InterpreterConfig))
+            return false;
+        InterpreterConfig other = (InterpreterConfig) o;
+        return numThreads == other.numThreads && useXnnpack == other.useXnnpack && useNnapi == other.useNnapi;
+    }
+
+    @Override
+    public int hashCode() {
+        return (numThreads * 31 + (useXnnpack ? 1 : 0)) * 31 + (useNnapi ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "InterpreterConfig{threads=" + numThreads + ", xnnpack=" + useXnnpack + ", nnapi=" + useNnapi + "}";
+    }
+}
@@ -1,9 +1,6 @@
 package com.alignify.utils;
 
-import com.google.mediapipe.tasks.vision.poselandmarker.PoseLandmarkerResult;
-import com.google.mediapipe.tasks.components.containers.NormalizedLandmark;
-
-import java.util.List;
+import com.alignify.pose.PoseFrame;
 
 /**
  * Utility functions for working with MediaPipe pose landmarks.
@@ -97,167 +94,126 @@ public class LandmarkUtils {
     }
 
     /**
-     * Extract 2D point from PoseLandmarkerResult.
+     * Extract 2D point from an upright PoseFrame.
+     * Allocates; hot paths should use the primitive accessors on PoseFrame.
      */
-    public static Point2D getPoint2D(PoseLandmarkerResult result, int landmarkIndex) {
-        if (result.landmarks().isEmpty())
-            return null;
-        List<NormalizedLandmark> landmarks = result.landmarks().get(0);
-        if (landmarkIndex >= landmarks.size())
+    public static Point2D getPoint2D(PoseFrame frame, int landmarkIndex) {
+        if (frame.isEmpty() || landmarkIndex >= frame.getLandmarkCount())
             return null;
 
-        NormalizedLandmark landmark = landmarks.get(landmarkIndex);
-        return new Point2D(landmark.x(), landmark.y());
+        return new Point2D(frame.x(landmarkIndex), frame.y(landmarkIndex));
     }
 
-    /**
-     * Extract 3D point from PoseLandmarkerResult (world coordinates).
-     */
-    public static Point3D getPoint3D(PoseLandmarkerResult result, int landmarkIndex) {
-        if (result.worldLandmarks().isEmpty())
-            return null;
-        List<com.google.mediapipe.tasks.components.containers.Landmark> landmarks = result.worldLandmarks().get(0);
-        if (landmarkIndex >= landmarks.size())
-            return null;
-
-        com.google.mediapipe.tasks.components.containers.Landmark landmark = landmarks.get(landmarkIndex);
-        return new Point3D(landmark.x(), landmark.y(), landmark.z());
-    }
+    // Landmarks fed to each exercise's form model, as (x, y) pairs in this order
+    public static final int[] BICEP_FEATURE_LANDMARKS = {
+            Landmarks.NOSE,
+            Landmarks.LEFT_SHOULDER, Landmarks.RIGHT_SHOULDER,
+            Landmarks.LEFT_ELBOW, Landmarks.RIGHT_ELBOW,
+            Landmarks.LEFT_WRIST, Landmarks.RIGHT_WRIST,
+            Landmarks.LEFT_HIP, Landmarks.RIGHT_HIP
+    };
+
+    public static final int[] SQUAT_FEATURE_LANDMARKS = {
+            Landmarks.LEFT_SHOULDER, Landmarks.RIGHT_SHOULDER,
+            Landmarks.LEFT_HIP, Landmarks.RIGHT_HIP,
+            Landmarks.LEFT_KNEE, Landmarks.RIGHT_KNEE,
+            Landmarks.LEFT_ANKLE, Landmarks.RIGHT_ANKLE
+    };
+
+    public static final int[] LUNGE_FEATURE_LANDMARKS = SQUAT_FEATURE_LANDMARKS;
+
+    public static final int[] PLANK_FEATURE_LANDMARKS = {
+            Landmarks.LEFT_SHOULDER, Landmarks.RIGHT_SHOULDER,
+            Landmarks.LEFT_ELBOW, Landmarks.RIGHT_ELBOW,
+            Landmarks.LEFT_WRIST, Landmarks.RIGHT_WRIST,
+            Landmarks.LEFT_HIP, Landmarks.RIGHT_HIP,
+            Landmarks.LEFT_KNEE, Landmarks.RIGHT_KNEE,
+            Landmarks.LEFT_ANKLE, Landmarks.RIGHT_ANKLE
+    };
 
     /**
      * Extract features for bicep curl detection.
      * Returns coordinates for: nose, shoulders, elbows, wrists, hips
      */
-    public static float[] extractBicepFeatures(PoseLandmarkerResult result) {
-        int[] indices = {
-                Landmarks.NOSE,
-                Landmarks.LEFT_SHOULDER, Landmarks.RIGHT_SHOULDER,
-                Landmarks.LEFT_ELBOW, Landmarks.RIGHT_ELBOW,
-                Landmarks.LEFT_WRIST, Landmarks.RIGHT_WRIST,
-                Landmarks.LEFT_HIP, Landmarks.RIGHT_HIP
-        };
-
-        return extractFeatures(result, indices);
+    public static float[] extractBicepFeatures(PoseFrame frame) {
+        return extractFeatures(frame, BICEP_FEATURE_LANDMARKS);
     }
 
     /**
      * Extract features for squat detection.
      * Returns coordinates for: shoulders, hips, knees, ankles
      */
-    public static float[] extractSquatFeatures(PoseLandmarkerResult result) {
-        int[] indices = {
-                Landmarks.LEFT_SHOULDER, Landmarks.RIGHT_SHOULDER,
-                Landmarks.LEFT_HIP, Landmarks.RIGHT_HIP,
-                Landmarks.LEFT_KNEE, Landmarks.RIGHT_KNEE,
-                Landmarks.LEFT_ANKLE, Landmarks.RIGHT_ANKLE
-        };
-
-        return extractFeatures(result, indices);
+    public static float[] extractSquatFeatures(PoseFrame frame) {
+        return extractFeatures(frame, SQUAT_FEATURE_LANDMARKS);
     }
 
     /**
      * Extract features for lunge detection.
      * Returns coordinates for: shoulders, hips, knees, ankles
      */
-    public static float[] extractLungeFeatures(PoseLandmarkerResult result) {
-        int[] indices = {
-                Landmarks.LEFT_SHOULDER, Landmarks.RIGHT_SHOULDER,
-                Landmarks.LEFT_HIP, Landmarks.RIGHT_HIP,
-                Landmarks.LEFT_KNEE, Landmarks.RIGHT_KNEE,
-                Landmarks.LEFT_ANKLE, Landmarks.RIGHT_ANKLE
-        };
-
-        return extractFeatures(result, indices);
+    public static float[] extractLungeFeatures(PoseFrame frame) {
+        return extractFeatures(frame, LUNGE_FEATURE_LANDMARKS);
     }
 
     /**
      * Extract features for plank detection.
      * Returns coordinates for: shoulders, elbows, wrists, hips, knees, ankles
      */
-    public static float[] extractPlankFeatures(PoseLandmarkerResult result) {
-        int[] indices = {
-                Landmarks.LEFT_SHOULDER, Landmarks.RIGHT_SHOULDER,
-                Landmarks.LEFT_ELBOW, Landmarks.RIGHT_ELBOW,
-                Landmarks.LEFT_WRIST, Landmarks.RIGHT_WRIST,
-                Landmarks.LEFT_HIP, Landmarks.RIGHT_HIP,
-                Landmarks.LEFT_KNEE, Landmarks.RIGHT_KNEE,
-                Landmarks.LEFT_ANKLE, Landmarks.RIGHT_ANKLE
-        };
-
-        return extractFeatures(result, indices);
+    public static float[] extractPlankFeatures(PoseFrame frame) {
+        return extractFeatures(frame, PLANK_FEATURE_LANDMARKS);
     }
 
     /**
      * Generic feature extraction for given landmark indices.
      */
-    private static float[] extractFeatures(PoseLandmarkerResult result, int[] indices) {
-        if (result.landmarks().isEmpty())
-            return null;
-
+    private static float[] extractFeatures(PoseFrame frame, int[] indices) {
         float[] features = new float[indices.length * 2]; // x, y for each landmark
+        return extractFeatures(frame, indices, features) ? features : null;
+    }
+
+    /**
+     * Write (x, y) for each landmark in {@code indices} into {@code out}
+     * without allocating. Returns false if any landmark is missing.
+     */
+    public static boolean extractFeatures(PoseFrame frame, int[] indices, float[] out) {
+        if (frame.isEmpty())
+            return false;
 
         for (int i = 0; i < indices.length; i++) {
-            Point2D point = getPoint2D(result, indices[i]);
-            if (point == null)
-                return null;
-            features[i * 2] = point.x;
-            features[i * 2 + 1] = point.y;
+            int index = indices[i];
+            if (!frame.has(index))
+                return false;
+            out[i * 2] = frame.x(index);
+            out[i * 2 + 1] = frame.y(index);
         }
 
-        return features;
+        return true;
     }
 
     /**
-     * Calculate elbow angle for bicep curl.
+     * Calculate elbow angle for bicep curl, or NaN if the arm is not visible.
      */
-    public static Float calculateElbowAngle(PoseLandmarkerResult result, boolean isLeft) {
-        int shoulderIdx = isLeft ? Landmarks.LEFT_SHOULDER : Landmarks.RIGHT_SHOULDER;
-        int elbowIdx = isLeft ? Landmarks.LEFT_ELBOW : Landmarks.RIGHT_ELBOW;
-        int wristIdx = isLeft ? Landmarks.LEFT_WRIST : Landmarks.RIGHT_WRIST;
-
-        Point2D shoulder = getPoint2D(result, shoulderIdx);
-        Point2D elbow = getPoint2D(result, elbowIdx);
-        Point2D wrist = getPoint2D(result, wristIdx);
-
-        if (shoulder == null || elbow == null || wrist == null)
-            return null;
-
-        return calculateAngle(shoulder, elbow, wrist);
+    public static float calculateElbowAngle(PoseFrame frame, boolean isLeft) {
+        return isLeft
+                ? frame.angle(Landmarks.LEFT_SHOULDER, Landmarks.LEFT_ELBOW, Landmarks.LEFT_WRIST)
+                : frame.angle(Landmarks.RIGHT_SHOULDER, Landmarks.RIGHT_ELBOW, Landmarks.RIGHT_WRIST);
     }
 
     /**
-     * Calculate knee angle for squat/lunge.
+     * Calculate knee angle for squat/lunge, or NaN if the leg is not visible.
      */
-    public static Float calculateKneeAngle(PoseLandmarkerResult result, boolean isLeft) {
-        int hipIdx = isLeft ? Landmarks.LEFT_HIP : Landmarks.RIGHT_HIP;
-        int kneeIdx = isLeft ? Landmarks.LEFT_KNEE : Landmarks.RIGHT_KNEE;
-        int ankleIdx = isLeft ? Landmarks.LEFT_ANKLE : Landmarks.RIGHT_ANKLE;
-
-        Point2D hip = getPoint2D(result, hipIdx);
-        Point2D knee = getPoint2D(result, kneeIdx);
-        Point2D ankle = getPoint2D(result, ankleIdx);
-
-        if (hip == null || knee == null || ankle == null)
-            return null;
-
-        return calculateAngle(hip, knee, ankle);
+    public static float calculateKneeAngle(PoseFrame frame, boolean isLeft) {
+        return isLeft
+                ? frame.angle(Landmarks.LEFT_HIP, Landmarks.LEFT_KNEE, Landmarks.LEFT_ANKLE)
+                : frame.angle(Landmarks.RIGHT_HIP, Landmarks.RIGHT_KNEE, Landmarks.RIGHT_ANKLE);
     }
 
     /**
-     * Calculate hip angle for plank.
+     * Calculate hip angle for plank, or NaN if the side is not visible.
      */
-    public static Float calculateHipAngle(PoseLandmarkerResult result, boolean isLeft) {
-        int shoulderIdx = isLeft ? Landmarks.LEFT_SHOULDER : Landmarks.RIGHT_SHOULDER;
-        int hipIdx = isLeft ? Landmarks.LEFT_HIP : Landmarks.RIGHT_HIP;
-        int kneeIdx = isLeft ? Landmarks.LEFT_KNEE : Landmarks.RIGHT_KNEE;
-
-        Point2D shoulder = getPoint2D(result, shoulderIdx);
-        Point2D hip = getPoint2D(result, hipIdx);
-        Point2D knee = getPoint2D(result, kneeIdx);
-
-        if (shoulder == null || hip == null || knee == null)
-            return null;
-
-        return calculateAngle(shoulder, hip, knee);
+    public static float calculateHipAngle(PoseFrame frame, boolean isLeft) {
+        return isLeft
+                ? frame.angle(Landmarks.LEFT_SHOULDER, Landmarks.LEFT_HIP, Landmarks.LEFT_KNEE)
+                : frame.angle(Landmarks.RIGHT_SHOULDER, Landmarks.RIGHT_HIP, Landmarks.RIGHT_KNEE);
     }
 }
@@ -0,0 +1,115 @@
+package com.alignify.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free latency histogram with HDR-style log-linear buckets.
+ *
+ * Values are recorded in microseconds. Below 64 us every microsecond has its
+ * own bucket; above that each power of two is split into 32 sub-buckets, so
+ * any reported percentile is within about 3% of the true value. Recording is
+ * a couple of atomic increments and never allocates, so it is safe to call
+ * from every pipeline thread on every frame.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // 32
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2; // 64 us
+    private static final int MAX_SHIFT = 20; // Up to ~67 s, far beyond any frame
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + MAX_SHIFT * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Record one sample given in nanoseconds.
+     */
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000L);
+    }
+
+    public void recordMicros(long micros) {
+        if (micros < 0)
+            micros = 0;
+
+        counts.incrementAndGet(bucketIndex(micros));
+        totalCount.incrementAndGet();
+        totalMicros.addAndGet(micros);
+
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    /**
+     * Value at the given percentile (0-100) in microseconds, or 0 if empty.
+     * Concurrent writers may make the result lag by a few samples.
+     */
+    public long percentileMicros(double percentile) {
+        long total = totalCount.get();
+        if (total == 0)
+            return 0L;
+
+        long target = Math.max(1L, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(bucketMidpoint(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    public long getMeanMicros() {
+        long count = totalCount.get();
+        return count > 0 ? totalMicros.get() / count : 0L;
+    }
+
+    /**
+     * Clear all samples. Samples recorded concurrently may survive the reset.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+        totalCount.set(0L);
+        totalMicros.set(0L);
+        maxMicros.set(0L);
+    }
+
+    private static int bucketIndex(long micros) {
+        if (micros < LINEAR_LIMIT)
+            return (int) micros;
+
+        // Shift so the value keeps SUB_BUCKET_BITS + 1 significant bits
+        int shift = (63 - Long.numberOfLeadingZeros(micros)) - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT)
+            return BUCKET_COUNT - 1;
+
+        int subBucket = (int) (micros >>> shift) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long bucketMidpoint(int index) {
+        if (index < LINEAR_LIMIT)
+            return index;
+
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long lower = (long) ((index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lower + ((1L << shift) >> 1);
+    }
+}
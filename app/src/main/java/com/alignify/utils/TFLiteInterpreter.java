@@ -2,69 +2,143 @@ package com.alignify.utils;
 
 import android.content.Context;
 import android.content.res.AssetFileDescriptor;
+import android.util.Log;
 
 import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.nnapi.NnApiDelegate;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 
 /**
  * TensorFlow Lite interpreter wrapper for exercise classification models.
  * Supports loading from both assets and cached files.
+ * Inference calls are serialized, so one instance can be shared between
+ * detectors through ModelManager's interpreter cache.
  */
 public class TFLiteInterpreter {
+    private static final String TAG = "TFLiteInterpreter";
 
     private final Interpreter interpreter;
+    private InterpreterConfig config; // Config actually applied, after any NNAPI fallback
+    private NnApiDelegate nnApiDelegate;
+    private final long modelSizeBytes;
     private final ByteBuffer inputBuffer;
     private final ByteBuffer outputBuffer;
     private final int[] inputShape;
     private final int[] outputShape;
+    private final FloatBuffer inputFloats;
+    private final FloatBuffer outputFloats;
+
+    // Batched inference state. Batch size 1 uses the buffers above; larger
+    // batches share buffers that only grow, run through views sized exactly
+    // for the current batch since the interpreter wants exact byte counts
+    private int tensorBatchSize = 1;
+    private int batchCapacity = 0; // Samples the batch buffers hold
+    private ByteBuffer batchInputBuffer;
+    private ByteBuffer batchOutputBuffer;
+    private ByteBuffer batchInputView;
+    private ByteBuffer batchOutputView;
+    private FloatBuffer batchInputFloats;
+    private FloatBuffer batchOutputFloats;
 
     /**
      * Create interpreter from asset file.
      */
     public TFLiteInterpreter(Context context, String modelPath) throws IOException {
-        MappedByteBuffer model = loadModelFromAsset(context, modelPath);
-        interpreter = new Interpreter(model);
+        this(context, modelPath, InterpreterConfig.DEFAULT);
+    }
 
-        // Initialize buffers
-        inputShape = interpreter.getInputTensor(0).shape();
-        outputShape = interpreter.getOutputTensor(0).shape();
-        inputBuffer = allocateBuffer(inputShape);
-        outputBuffer = allocateBuffer(outputShape);
+    /**
+     * Create interpreter from asset file with explicit runtime options.
+     */
+    public TFLiteInterpreter(Context context, String modelPath, InterpreterConfig config) throws IOException {
+        this(loadModelFromAsset(context, modelPath), config);
     }
 
     /**
      * Create interpreter from file (for cached/downloaded models).
      */
     public TFLiteInterpreter(File modelFile) throws IOException {
-        MappedByteBuffer model = loadModelFromFile(modelFile);
-        interpreter = new Interpreter(model);
+        this(modelFile, InterpreterConfig.DEFAULT);
+    }
+
+    /**
+     * Create interpreter from file with explicit runtime options.
+     */
+    public TFLiteInterpreter(File modelFile, InterpreterConfig config) throws IOException {
+        this(loadModelFromFile(modelFile), config);
+    }
+
+    private TFLiteInterpreter(MappedByteBuffer model, InterpreterConfig config) {
+        interpreter = createInterpreter(model, config);
+        modelSizeBytes = model.capacity();
 
         // Initialize buffers
         inputShape = interpreter.getInputTensor(0).shape();
         outputShape = interpreter.getOutputTensor(0).shape();
         inputBuffer = allocateBuffer(inputShape);
         outputBuffer = allocateBuffer(outputShape);
+        inputFloats = inputBuffer.asFloatBuffer();
+        outputFloats = outputBuffer.asFloatBuffer();
+    }
+
+    /**
+     * Build the interpreter, falling back to CPU if the NNAPI delegate
+     * is unavailable or rejects the model.
+     */
+    private Interpreter createInterpreter(MappedByteBuffer model, InterpreterConfig requested) {
+        if (requested.isNnapiEnabled()) {
+            NnApiDelegate delegate = null;
+            try {
+                delegate = new NnApiDelegate();
+                Interpreter nnapiInterpreter = new Interpreter(model, buildOptions(requested).addDelegate(delegate));
+                nnApiDelegate = delegate;
+                config = requested;
+                return nnapiInterpreter;
+            } catch (Exception | UnsatisfiedLinkError e) {
+                if (delegate != null) {
+                    delegate.close();
+                }
+                Log.w(TAG, "NNAPI delegate unavailable, using CPU", e);
+                requested = requested.withoutNnapi();
+            }
+        }
+
+        config = requested;
+        return new Interpreter(model, buildOptions(requested));
+    }
+
+    private static Interpreter.Options buildOptions(InterpreterConfig config) {
+        Interpreter.Options options = new Interpreter.Options();
+        if (config.getNumThreads() > 0) {
+            options.setNumThreads(config.getNumThreads());
+        }
+        options.setUseXNNPACK(config.isXnnpackEnabled());
+        return options;
+    }
+
+    private static ByteBuffer allocateBuffer(int[] shape) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(byteSize(shape));
+        buffer.order(ByteOrder.nativeOrder());
+        return buffer;
     }
 
-    private ByteBuffer allocateBuffer(int[] shape) {
+    private static int byteSize(int[] shape) {
         int size = 1;
         for (int dim : shape) {
             size *= dim;
         }
-        size *= 4; // 4 bytes for float
-        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
-        buffer.order(ByteOrder.nativeOrder());
-        return buffer;
+        return size * 4; // 4 bytes for float
     }
 
-    private MappedByteBuffer loadModelFromAsset(Context context, String modelPath) throws IOException {
+    private static MappedByteBuffer loadModelFromAsset(Context context, String modelPath) throws IOException {
         try (AssetFileDescriptor fileDescriptor = context.getAssets().openFd(modelPath);
              FileInputStream inputStream = new FileInputStream(fileDescriptor.getFileDescriptor());
              FileChannel fileChannel = inputStream.getChannel()) {
@@ -74,7 +148,7 @@ public class TFLiteInterpreter {
         }
     }
 
-    private MappedByteBuffer loadModelFromFile(File modelFile) throws IOException {
+    private static MappedByteBuffer loadModelFromFile(File modelFile) throws IOException {
         try (FileInputStream inputStream = new FileInputStream(modelFile);
              FileChannel fileChannel = inputStream.getChannel()) {
             return fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
@@ -82,24 +156,31 @@ public class TFLiteInterpreter {
     }
 
     /**
-     * Run inference on input features.
-     * 
+     * Run inference once, writing the output probabilities into {@code out}.
+     * Does not allocate.
+     *
      * @param input Float array of input features
-     * @return Float array of output probabilities
+     * @param out   Array of at least {@link #getNumClasses()} elements
      */
-    public float[] predict(float[] input) {
+    public synchronized void predictInto(float[] input, float[] out) {
         // Validate input size matches model expectation
         int expectedSize = inputShape.length > 1 ? inputShape[1] : inputShape[0];
         if (input.length != expectedSize) {
             throw new IllegalArgumentException(
                     "Input size " + input.length + " doesn't match model expected size " + expectedSize);
         }
-
-        // Clear and populate input buffer
-        inputBuffer.clear();
-        for (float value : input) {
-            inputBuffer.putFloat(value);
+        int numClasses = outputShape[1];
+        if (out.length < numClasses) {
+            throw new IllegalArgumentException(
+                    "Output size " + out.length + " is smaller than model output size " + numClasses);
         }
+
+        // A previous batch call may have resized the input tensor
+        resizeBatch(1);
+
+        // Populate input buffer
+        inputFloats.clear();
+        inputFloats.put(input);
         inputBuffer.rewind();
 
         // Clear output buffer
@@ -109,48 +190,139 @@ public class TFLiteInterpreter {
         interpreter.run(inputBuffer, outputBuffer);
 
         // Extract output
-        outputBuffer.rewind();
+        outputFloats.clear();
+        outputFloats.get(out, 0, numClasses);
+    }
+
+    /**
+     * Run inference on several feature vectors in a single interpreter call.
+     * The input tensor is resized to the batch dimension, which amortizes the
+     * JNI and op-dispatch overhead over the whole batch. Resizing is only done
+     * when the batch size changes, so callers should keep it steady; the next
+     * single-sample call resizes back to 1. Batch buffers are kept across
+     * calls and only reallocated for a larger batch than seen before.
+     *
+     * @param inputs  Feature vectors, each of {@link #getInputSize()} elements
+     * @param outputs At least {@code inputs.length} arrays of at least
+     *                {@link #getNumClasses()} elements, filled with probabilities
+     */
+    public synchronized void predictBatch(float[][] inputs, float[][] outputs) {
+        int batchSize = inputs.length;
+        if (batchSize == 0)
+            return;
+        if (inputShape.length < 2) {
+            throw new IllegalStateException("Model input has no batch dimension");
+        }
+        if (outputs.length < batchSize) {
+            throw new IllegalArgumentException(
+                    "Expected " + batchSize + " output arrays but got " + outputs.length);
+        }
+
+        int inputSize = inputShape[1];
         int numClasses = outputShape[1];
-        float[] output = new float[numClasses];
-        for (int i = 0; i < numClasses; i++) {
-            output[i] = outputBuffer.getFloat();
+        resizeBatch(batchSize);
+
+        // A batch of one fits the single-sample buffers; batch buffers are only used above that
+        boolean single = batchSize == 1;
+        ByteBuffer inBuffer = single ? inputBuffer : batchInputView;
+        ByteBuffer outBuffer = single ? outputBuffer : batchOutputView;
+        FloatBuffer inFloats = single ? inputFloats : batchInputFloats;
+        FloatBuffer outFloats = single ? outputFloats : batchOutputFloats;
+
+        inFloats.clear();
+        for (float[] input : inputs) {
+            if (input.length != inputSize) {
+                throw new IllegalArgumentException(
+                        "Input size " + input.length + " doesn't match model expected size " + inputSize);
+            }
+            inFloats.put(input);
+        }
+        inBuffer.rewind();
+        outBuffer.clear();
+
+        interpreter.run(inBuffer, outBuffer);
+
+        outFloats.clear();
+        for (int i = 0; i < batchSize; i++) {
+            outFloats.get(outputs[i], 0, numClasses);
+        }
+    }
+
+    private void resizeBatch(int batchSize) {
+        if (batchSize == tensorBatchSize)
+            return;
+
+        int[] shape = inputShape.clone();
+        shape[0] = batchSize;
+        interpreter.resizeInput(0, shape);
+        interpreter.allocateTensors();
+        tensorBatchSize = batchSize;
+        if (batchSize == 1)
+            return; // Batch buffers stay for the next batch
+
+        int[] outShape = outputShape.clone();
+        outShape[0] = batchSize;
+        if (batchSize > batchCapacity) {
+            batchInputBuffer = allocateBuffer(shape);
+            batchOutputBuffer = allocateBuffer(outShape);
+            batchCapacity = batchSize;
+        } else if (batchInputView != null && batchInputView.capacity() == byteSize(shape)) {
+            return; // Back to the batch size the views were made for
         }
+        batchInputView = view(batchInputBuffer, byteSize(shape));
+        batchOutputView = view(batchOutputBuffer, byteSize(outShape));
+        batchInputFloats = batchInputView.asFloatBuffer();
+        batchOutputFloats = batchOutputView.asFloatBuffer();
+    }
 
-        return output;
+    /**
+     * The first {@code size} bytes of {@code buffer}, sharing its memory.
+     */
+    private static ByteBuffer view(ByteBuffer buffer, int size) {
+        ByteBuffer view = buffer.duplicate();
+        view.clear();
+        view.limit(size);
+        return view.slice().order(ByteOrder.nativeOrder());
     }
 
     /**
-     * Get the predicted class index.
+     * Run inference once and fill {@code result} with the probabilities,
+     * the most likely class and its confidence.
      */
-    public int predictClass(float[] input) {
-        float[] probabilities = predict(input);
+    public synchronized void classify(float[] input, ClassificationResult result) {
+        int numClasses = outputShape[1];
+        if (result.probabilities.length != numClasses) {
+            result.probabilities = new float[numClasses];
+        }
+        float[] probabilities = result.probabilities;
+        predictInto(input, probabilities);
+
         int maxIndex = 0;
         float maxValue = probabilities[0];
-
-        for (int i = 1; i < probabilities.length; i++) {
+        for (int i = 1; i < numClasses; i++) {
             if (probabilities[i] > maxValue) {
                 maxValue = probabilities[i];
                 maxIndex = i;
             }
         }
 
-        return maxIndex;
+        result.classIndex = maxIndex;
+        result.confidence = maxValue;
     }
 
     /**
-     * Get the confidence of the predicted class.
+     * Runtime options in effect. Differs from the requested config when
+     * NNAPI was requested but had to fall back to CPU.
      */
-    public float predictConfidence(float[] input) {
-        float[] probabilities = predict(input);
-        float maxValue = probabilities[0];
-
-        for (int i = 1; i < probabilities.length; i++) {
-            if (probabilities[i] > maxValue) {
-                maxValue = probabilities[i];
-            }
-        }
+    public InterpreterConfig getConfig() {
+        return config;
+    }
 
-        return maxValue;
+    /**
+     * Size of the mapped model file, used to budget cached interpreters.
+     */
+    public long getModelSizeBytes() {
+        return modelSizeBytes;
     }
 
     /**
@@ -170,7 +342,11 @@ public class TFLiteInterpreter {
     /**
      * Close the interpreter and release resources.
      */
-    public void close() {
+    public synchronized void close() {
         interpreter.close();
+        if (nnApiDelegate != null) {
+            nnApiDelegate.close();
+            nnApiDelegate = null;
+        }
     }
 }
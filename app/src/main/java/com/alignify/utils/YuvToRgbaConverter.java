@@ -0,0 +1,193 @@
+package com.alignify.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.media.Image;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts YUV_420_888 images (e.g. decoded video frames) into ARGB_8888
+ * bitmaps, scaling to the bitmap's size and applying a clockwise rotation in
+ * the same pass.
+ *
+ * Scaling is nearest-neighbour: only the pixels that end up in the bitmap are
+ * converted, so a 1080p frame shown at 720p costs about half a full
+ * conversion. Colours use BT.601 limited range, which is what phone
+ * encoders write. The sampling tables and pixel buffers are reused while the
+ * image crop, rotation and output size stay the same, so steady-state
+ * conversion doesn't allocate.
+ *
+ * Not thread-safe: use one instance per conversion thread.
+ */
+public class YuvToRgbaConverter {
+
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private byte[] yBytes = new byte[0];
+    private byte[] uBytes = new byte[0];
+    private byte[] vBytes = new byte[0];
+    private byte[] rgbaBytes = new byte[0];
+    private ByteBuffer rgbaBuffer;
+
+    // Source pixel for output (col, row) is (colX[col] + rowX[row], colY[col] + rowY[row])
+    private int[] colX = new int[0];
+    private int[] colY = new int[0];
+    private int[] rowX = new int[0];
+    private int[] rowY = new int[0];
+    private final Rect tableCrop = new Rect();
+    private final Rect fullFrame = new Rect(); // Used when the image reports no crop
+    private int tableRotation = -1;
+    private int tableWidth = -1;
+    private int tableHeight = -1;
+
+    /**
+     * Convert the crop region of {@code image} into {@code out}. {@code out}
+     * must be a mutable ARGB_8888 bitmap whose aspect ratio matches the
+     * rotated crop; its size sets the output resolution.
+     *
+     * @param rotationDegrees clockwise rotation to apply, a multiple of 90
+     */
+    public void convert(Image image, int rotationDegrees, Bitmap out) {
+        Rect crop = image.getCropRect();
+        if (crop == null || crop.isEmpty()) {
+            fullFrame.set(0, 0, image.getWidth(), image.getHeight());
+            crop = fullFrame;
+        }
+
+        int width = out.getWidth();
+        int height = out.getHeight();
+        int rotation = ((rotationDegrees / 90) % 4 + 4) % 4 * 90;
+        if (!crop.equals(tableCrop) || rotation != tableRotation
+                || width != tableWidth || height != tableHeight) {
+            buildTables(crop, rotation, width, height);
+        }
+
+        Image.Plane[] planes = image.getPlanes();
+        yBytes = copyPlane(planes[0].getBuffer(), yBytes);
+        uBytes = copyPlane(planes[1].getBuffer(), uBytes);
+        vBytes = copyPlane(planes[2].getBuffer(), vBytes);
+        int yRowStride = planes[0].getRowStride();
+        int yPixelStride = planes[0].getPixelStride();
+        int uRowStride = planes[1].getRowStride();
+        int uPixelStride = planes[1].getPixelStride();
+        int vRowStride = planes[2].getRowStride();
+        int vPixelStride = planes[2].getPixelStride();
+
+        int size = width * height * BYTES_PER_PIXEL;
+        if (rgbaBytes.length != size) {
+            rgbaBytes = new byte[size];
+            rgbaBuffer = ByteBuffer.wrap(rgbaBytes);
+        }
+
+        byte[] rgba = rgbaBytes;
+        int offset = 0;
+        for (int row = 0; row < height; row++) {
+            int baseX = rowX[row];
+            int baseY = rowY[row];
+            for (int col = 0; col < width; col++) {
+                int x = colX[col] + baseX;
+                int y = colY[col] + baseY;
+                int chromaX = x >> 1;
+                int chromaY = y >> 1;
+
+                int luma = (yBytes[y * yRowStride + x * yPixelStride] & 0xFF) - 16;
+                int u = (uBytes[chromaY * uRowStride + chromaX * uPixelStride] & 0xFF) - 128;
+                int v = (vBytes[chromaY * vRowStride + chromaX * vPixelStride] & 0xFF) - 128;
+
+                int scaledLuma = 298 * Math.max(luma, 0) + 128;
+                rgba[offset++] = clamp((scaledLuma + 409 * v) >> 8);
+                rgba[offset++] = clamp((scaledLuma - 100 * u - 208 * v) >> 8);
+                rgba[offset++] = clamp((scaledLuma + 516 * u) >> 8);
+                rgba[offset++] = (byte) 0xFF;
+            }
+        }
+
+        rgbaBuffer.rewind();
+        out.copyPixelsFromBuffer(rgbaBuffer);
+    }
+
+    /**
+     * Precompute which source pixel each output column and row samples.
+     * Rotation makes output columns walk source rows, so each axis table
+     * contributes to both source coordinates.
+     */
+    private void buildTables(Rect crop, int rotation, int width, int height) {
+        if (colX.length != width) {
+            colX = new int[width];
+            colY = new int[width];
+        }
+        if (rowX.length != height) {
+            rowX = new int[height];
+            rowY = new int[height];
+        }
+
+        int cropWidth = crop.width();
+        int cropHeight = crop.height();
+        for (int col = 0; col < width; col++) {
+            switch (rotation) {
+                case 90:
+                    colX[col] = 0;
+                    colY[col] = crop.top + sample(width - 1 - col, width, cropHeight);
+                    break;
+                case 180:
+                    colX[col] = crop.left + sample(width - 1 - col, width, cropWidth);
+                    colY[col] = 0;
+                    break;
+                case 270:
+                    colX[col] = 0;
+                    colY[col] = crop.top + sample(col, width, cropHeight);
+                    break;
+                default:
+                    colX[col] = crop.left + sample(col, width, cropWidth);
+                    colY[col] = 0;
+                    break;
+            }
+        }
+        for (int row = 0; row < height; row++) {
+            switch (rotation) {
+                case 90:
+                    rowX[row] = crop.left + sample(row, height, cropWidth);
+                    rowY[row] = 0;
+                    break;
+                case 180:
+                    rowX[row] = 0;
+                    rowY[row] = crop.top + sample(height - 1 - row, height, cropHeight);
+                    break;
+                case 270:
+                    rowX[row] = crop.left + sample(height - 1 - row, height, cropWidth);
+                    rowY[row] = 0;
+                    break;
+                default:
+                    rowX[row] = 0;
+                    rowY[row] = crop.top + sample(row, height, cropHeight);
+                    break;
+            }
+        }
+
+        tableCrop.set(crop);
+        tableRotation = rotation;
+        tableWidth = width;
+        tableHeight = height;
+    }
+
+    /**
+     * Source index, out of {@code sourceCount}, under the centre of output
+     * index {@code index} out of {@code outputCount}.
+     */
+    private static int sample(int index, int outputCount, int sourceCount) {
+        return Math.min(sourceCount - 1, (int) ((index + 0.5f) * sourceCount / outputCount));
+    }
+
+    private static byte[] copyPlane(ByteBuffer plane, byte[] target) {
+        plane.rewind();
+        int size = plane.remaining();
+        byte[] bytes = target.length >= size ? target : new byte[size];
+        plane.get(bytes, 0, size);
+        return bytes;
+    }
+
+    private static byte clamp(int value) {
+        return (byte) (value < 0 ? 0 : Math.min(value, 255));
+    }
+}
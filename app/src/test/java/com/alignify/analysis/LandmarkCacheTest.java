@@ -0,0 +1,185 @@
+package com.alignify.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.alignify.pose.PoseFrame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+/**
+ * Writes {@link LandmarkCache} entries to a temporary directory and reads
+ * them back, including files damaged after they were written.
+ */
+public class LandmarkCacheTest {
+
+    private static final String KEY = "0123abcd";
+    private static final int FRAMES = 90;
+
+    private File dir;
+    private LandmarkCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("landmark-cache").toFile();
+        cache = new LandmarkCache(dir);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void roundTripsFramesExactly() throws IOException {
+        write(FRAMES);
+
+        LandmarkCache.Reader reader = cache.open(KEY);
+        assertNotNull(reader);
+        assertEquals(FRAMES, reader.getFrameCount());
+        assertEquals(3000L, reader.getDurationMs());
+
+        PoseFrame expected = new PoseFrame();
+        for (int i = 0; i < FRAMES; i++) {
+            PoseFrame frame = reader.next();
+            assertNotNull(frame);
+            fill(expected, i);
+            assertEquals(expected.getTimestampMs(), frame.getTimestampMs());
+            assertEquals(expected.getLandmarkCount(), frame.getLandmarkCount());
+            for (int j = 0; j < expected.getLandmarkCount(); j++) {
+                assertEquals(expected.x(j), frame.x(j), 0f);
+                assertEquals(expected.y(j), frame.y(j), 0f);
+                assertEquals(expected.z(j), frame.z(j), 0f);
+                assertEquals(expected.visibility(j), frame.visibility(j), 0f);
+            }
+        }
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void nothingIsVisibleUntilCommit() throws IOException {
+        LandmarkCache.Writer writer = cache.create(KEY, 0L);
+        PoseFrame frame = new PoseFrame();
+        fill(frame, 0);
+        writer.append(frame);
+        assertNull(cache.open(KEY));
+
+        writer.close();
+        assertNull(cache.open(KEY));
+        assertEquals("Temporary file removed", 0, entries().length);
+    }
+
+    @Test
+    public void rejectsAndDeletesTruncatedFile() throws IOException {
+        File file = write(FRAMES);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 100);
+        }
+
+        assertNull(cache.open(KEY));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void rejectsAndDeletesFileWithTooManyLandmarks() throws IOException {
+        File file = write(FRAMES);
+        setLandmarkCount(file, FRAMES - 1, PoseFrame.NUM_LANDMARKS + 1);
+
+        assertNull(cache.open(KEY));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void rejectsAndDeletesFileWithNegativeLandmarkCount() throws IOException {
+        File file = write(FRAMES);
+        setLandmarkCount(file, 10, -1);
+
+        assertNull(cache.open(KEY));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void rejectsAndDeletesFileThatIsNotACacheEntry() throws IOException {
+        File file = write(FRAMES);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeInt(0);
+        }
+
+        assertNull(cache.open(KEY));
+        assertFalse(file.exists());
+    }
+
+    /**
+     * Commit {@code frames} frames from {@link #fill} under {@link #KEY}.
+     */
+    private File write(int frames) throws IOException {
+        try (LandmarkCache.Writer writer = cache.create(KEY, 3_000_000L)) {
+            PoseFrame frame = new PoseFrame();
+            for (int i = 0; i < frames; i++) {
+                fill(frame, i);
+                writer.append(frame);
+            }
+            writer.commit();
+        }
+        File[] entries = entries();
+        assertEquals(1, entries.length);
+        return entries[0];
+    }
+
+    private File[] entries() {
+        File[] files = dir.listFiles();
+        assertNotNull(files);
+        return files;
+    }
+
+    /**
+     * Every tenth frame has no pose and every seventh only the upper body;
+     * coordinates are values a text format would round.
+     */
+    private static void fill(PoseFrame frame, int index) {
+        int landmarkCount = index % 10 == 5 ? 0 : index % 7 == 3 ? 25 : PoseFrame.NUM_LANDMARKS;
+        frame.reset(index * 33L, landmarkCount);
+        for (int i = 0; i < landmarkCount; i++) {
+            float value = (index * PoseFrame.NUM_LANDMARKS + i) / 3f;
+            frame.setLandmark(i, value, -value, value * 1e-7f, 1f / (i + 1));
+        }
+    }
+
+    /**
+     * Overwrite the landmark count of one record, found by searching for its
+     * timestamp rather than relying on the file layout.
+     */
+    private static void setLandmarkCount(File file, int frameIndex, int landmarkCount) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        long timestampMs = frameIndex * 33L;
+        int offset = -1;
+        for (int i = bytes.length - 12; i >= 0 && offset < 0; i -= 4) {
+            if (buffer.getLong(i) == timestampMs) {
+                offset = i;
+            }
+        }
+        assertTrue("No record at " + timestampMs, offset >= 0);
+        buffer.putInt(offset + 8, landmarkCount);
+        Files.write(file.toPath(), bytes);
+    }
+}
@@ -0,0 +1,150 @@
+package com.alignify.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.alignify.pose.PoseFrame;
+import com.alignify.pose.PoseSource;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes {@link LandmarkRecording}s through its Writer and reads them back,
+ * checking that frames survive the text format bit for bit.
+ */
+public class LandmarkRecordingTest {
+
+    // Values decimal text tends to round: thirds, denormals, signed zero, extremes
+    private static final float[] AWKWARD = {
+            1f / 3f, 0.1f, -0f, Float.MIN_VALUE, Float.MIN_NORMAL, Float.MAX_VALUE, 1e-7f, -123.456f,
+            Float.intBitsToFloat(0x3f7fffff), // just below 1
+    };
+
+    private static final int FRAMES = 300; // more than the reader's initial capacity
+
+    @Test
+    public void roundTripsFloatsBitExactly() throws IOException {
+        LandmarkRecording recording = LandmarkRecording.read(reader(write(FRAMES)));
+        assertEquals(FRAMES, recording.getFrameCount());
+        assertEquals((FRAMES - 1) * 33L, recording.getDurationMs());
+
+        PoseFrame expected = new PoseFrame();
+        PoseSource source = recording.source();
+        for (int i = 0; i < FRAMES; i++) {
+            PoseFrame frame = source.next();
+            assertNotNull(frame);
+            fill(expected, i);
+            assertEquals(expected.getTimestampMs(), frame.getTimestampMs());
+            assertEquals(expected.getLandmarkCount(), frame.getLandmarkCount());
+            for (int j = 0; j < expected.getLandmarkCount(); j++) {
+                String at = "frame " + i + ", landmark " + j;
+                assertBits(at, expected.x(j), frame.x(j));
+                assertBits(at, expected.y(j), frame.y(j));
+                assertBits(at, expected.z(j), frame.z(j));
+                assertBits(at, expected.visibility(j), frame.visibility(j));
+            }
+        }
+        assertNull(source.next());
+    }
+
+    @Test
+    public void keepsMetadataInOrder() throws IOException {
+        LandmarkRecording recording = LandmarkRecording.read(reader(write(1)));
+
+        assertEquals("squat", recording.get(LandmarkRecording.KEY_EXERCISE));
+        assertEquals("9-11", recording.get("expect.reps"));
+        assertNull(recording.get("expect.posture"));
+        assertEquals("[exercise, expect.reps]", recording.getMetadata().keySet().toString());
+    }
+
+    @Test
+    public void replaysFromTheStartEachTime() throws IOException {
+        LandmarkRecording recording = LandmarkRecording.read(reader(write(5)));
+
+        PoseFrame first = recording.source().next();
+        first.setPosition(0, 9f, 9f, 9f); // Smoothing in place must not leak into the next replay
+        PoseFrame again = recording.source().next();
+        assertEquals(0L, again.getTimestampMs());
+        assertBits("landmark 0", AWKWARD[0], again.x(0));
+    }
+
+    @Test
+    public void rejectsMissingFormatLine() {
+        assertRejected("timestamp_ms,landmarks\n0,0\n");
+    }
+
+    @Test
+    public void rejectsFrameWithWrongNumberOfValues() {
+        assertRejected("# alignify-landmarks 1\n0,1,0.5,0.5,0\n");
+    }
+
+    @Test
+    public void rejectsLandmarkCountOutOfRange() {
+        assertRejected("# alignify-landmarks 1\n0,34\n");
+        assertRejected("# alignify-landmarks 1\n0,-1\n");
+    }
+
+    @Test
+    public void rejectsUnparsableNumbers() {
+        assertRejected("# alignify-landmarks 1\nnow,0\n");
+        assertRejected("# alignify-landmarks 1\n0,1,0.5,half,0,1\n");
+    }
+
+    private static String write(int frames) throws IOException {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put(LandmarkRecording.KEY_EXERCISE, "squat");
+        metadata.put("expect.reps", "9-11");
+
+        StringWriter out = new StringWriter();
+        PoseFrame frame = new PoseFrame();
+        try (LandmarkRecording.Writer writer = new LandmarkRecording.Writer(new BufferedWriter(out), metadata)) {
+            for (int i = 0; i < frames; i++) {
+                fill(frame, i);
+                writer.append(frame);
+            }
+            assertEquals(frames, writer.getFrameCount());
+        }
+        return out.toString();
+    }
+
+    /**
+     * Every tenth frame has no pose and every seventh only the upper body.
+     */
+    private static void fill(PoseFrame frame, int index) {
+        int landmarkCount = index % 10 == 5 ? 0 : index % 7 == 3 ? 25 : PoseFrame.NUM_LANDMARKS;
+        frame.reset(index * 33L, landmarkCount);
+        for (int i = 0; i < landmarkCount; i++) {
+            int k = index + i;
+            frame.setLandmark(i, AWKWARD[k % AWKWARD.length], (index * PoseFrame.NUM_LANDMARKS + i) / 7f,
+                    -AWKWARD[(k + 3) % AWKWARD.length], 1f / (i + 1));
+        }
+    }
+
+    private static BufferedReader reader(String text) {
+        return new BufferedReader(new StringReader(text));
+    }
+
+    private static void assertRejected(String text) {
+        try {
+            LandmarkRecording.read(reader(text));
+            fail("Read malformed recording: " + text);
+        } catch (IOException expected) {
+            // Malformed input is reported as IOException
+        }
+    }
+
+    private static void assertBits(String at, float expected, float actual) {
+        assertEquals(at + ": " + expected + " vs " + actual,
+                Float.floatToIntBits(expected), Float.floatToIntBits(actual));
+    }
+}
@@ -0,0 +1,213 @@
+package com.alignify.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.alignify.exercises.ExerciseDetector;
+import com.alignify.ml.PostureClassifier;
+import com.alignify.pose.OneEuroLandmarkFilter;
+import com.alignify.pose.PoseFrame;
+import com.alignify.pose.PoseSource;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays the checked-in {@link LandmarkRecording}s under
+ * {@code resources/recordings} through {@link PoseStreamAnalyzer}, with the
+ * app's smoothing filter and the detectors' rules, and checks them against
+ * the expectations in their metadata:
+ * <ul>
+ * <li>{@code expect.reps}: exact rep count ({@code 10}) or range ({@code 9-11});
+ * hold seconds for planks</li>
+ * <li>{@code expect.errors}: {@code |}-separated error messages that must occur</li>
+ * <li>{@code expect.no_errors}: error messages that must not occur</li>
+ * <li>{@code expect.posture}: the most frequent {@link PostureClassifier.PostureState}</li>
+ * </ul>
+ *
+ * Recordings from the app's record mode go in the same folder, with a test
+ * method here for each.
+ */
+public class RecordingReplayTest {
+
+    private static final String KEY_EXPECT_REPS = "expect.reps";
+    private static final String KEY_EXPECT_ERRORS = "expect.errors";
+    private static final String KEY_EXPECT_NO_ERRORS = "expect.no_errors";
+    private static final String KEY_EXPECT_POSTURE = "expect.posture";
+
+    @Test
+    public void squat() throws IOException {
+        replay("squat_synthetic");
+    }
+
+    @Test
+    public void lunge() throws IOException {
+        replay("lunge_synthetic");
+    }
+
+    @Test
+    public void bicepCurl() throws IOException {
+        replay("bicep_curl_synthetic");
+    }
+
+    @Test
+    public void plank() throws IOException {
+        replay("plank_synthetic");
+    }
+
+    @Test
+    public void replayIsRepeatable() throws IOException {
+        LandmarkRecording recording = load("squat_synthetic");
+        ExerciseDetector detector = ExerciseDetector.create("squat", null);
+        PoseStreamAnalyzer analyzer = new PoseStreamAnalyzer(detector, new OneEuroLandmarkFilter());
+
+        RepTimeline first = analyzer.analyze(recording.source());
+        RepTimeline second = analyzer.analyze(recording.source());
+
+        assertEquals(recording.getFrameCount(), first.getFrames());
+        assertEquals(first.getRepCount(), second.getRepCount());
+        assertEquals(first.getErrorFrames(), second.getErrorFrames());
+        detector.close();
+    }
+
+    /**
+     * Load {@code recordings/<name>.landmarks.csv} from the test resources.
+     */
+    public static LandmarkRecording load(String name) throws IOException {
+        String path = "recordings/" + name + LandmarkRecording.FILE_SUFFIX;
+        InputStream in = RecordingReplayTest.class.getClassLoader().getResourceAsStream(path);
+        assertNotNull("Missing test resource " + path, in);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return LandmarkRecording.read(reader);
+        }
+    }
+
+    /**
+     * {@code source} with {@code offsetMs} added to every timestamp, for
+     * playing recordings back to back. Shifts the frames in place.
+     */
+    public static PoseSource shifted(PoseSource source, long offsetMs) {
+        return new PoseSource() {
+            @Override
+            public PoseFrame next() throws IOException {
+                PoseFrame frame = source.next();
+                if (frame != null) {
+                    frame.reset(offsetMs + frame.getTimestampMs(), frame.getLandmarkCount());
+                }
+                return frame;
+            }
+
+            @Override
+            public long getDurationMs() {
+                return source.getDurationMs();
+            }
+
+            @Override
+            public void close() {
+                source.close();
+            }
+        };
+    }
+
+    private static void replay(String name) throws IOException {
+        LandmarkRecording recording = load(name);
+        String exerciseType = recording.get(LandmarkRecording.KEY_EXERCISE);
+        assertNotNull(name + " has no exercise", exerciseType);
+
+        ExerciseDetector detector = ExerciseDetector.create(exerciseType, null);
+        RepTimeline timeline;
+        try {
+            timeline = new PoseStreamAnalyzer(detector, new OneEuroLandmarkFilter()).analyze(recording.source());
+        } finally {
+            detector.close();
+        }
+        assertTrue(timeline.isComplete());
+
+        List<String> failures = new ArrayList<>();
+        checkReps(recording.get(KEY_EXPECT_REPS), timeline.getRepCount(), failures);
+        for (String error : split(recording.get(KEY_EXPECT_ERRORS))) {
+            if (!timeline.getErrorFrames().containsKey(error)) {
+                failures.add("errors: expected '" + error + "', got " + timeline.getErrorFrames().keySet());
+            }
+        }
+        for (String error : split(recording.get(KEY_EXPECT_NO_ERRORS))) {
+            Integer frames = timeline.getErrorFrames().get(error);
+            if (frames != null) {
+                failures.add("errors: unexpected '" + error + "' in " + frames + " frames");
+            }
+        }
+
+        String posture = recording.get(KEY_EXPECT_POSTURE);
+        if (posture != null) {
+            PostureClassifier.PostureState dominant = dominantPosture(recording);
+            if (dominant == null || !dominant.name().equalsIgnoreCase(posture)) {
+                failures.add("posture: expected " + posture + ", got " + dominant);
+            }
+        }
+
+        assertTrue(name + ": " + failures, failures.isEmpty());
+    }
+
+    private static void checkReps(String expected, int reps, List<String> failures) {
+        if (expected == null)
+            return;
+
+        int separator = expected.indexOf('-');
+        int min = Integer.parseInt((separator > 0 ? expected.substring(0, separator) : expected).trim());
+        int max = separator > 0 ? Integer.parseInt(expected.substring(separator + 1).trim()) : min;
+        if (reps < min || reps > max) {
+            failures.add("reps: expected " + expected + ", got " + reps);
+        }
+    }
+
+    /**
+     * Most frequent posture over the frames with a pose, classified on
+     * smoothed frames as in the live pipeline.
+     */
+    private static PostureClassifier.PostureState dominantPosture(LandmarkRecording recording) throws IOException {
+        PostureClassifier classifier = new PostureClassifier();
+        OneEuroLandmarkFilter filter = new OneEuroLandmarkFilter();
+        Map<PostureClassifier.PostureState, Integer> frames = new EnumMap<>(PostureClassifier.PostureState.class);
+        PoseSource source = recording.source();
+        PoseFrame frame;
+        while ((frame = source.next()) != null) {
+            filter.apply(frame);
+            PostureClassifier.PostureState state = classifier.classify(frame);
+            if (!frame.isEmpty()) {
+                Integer count = frames.get(state);
+                frames.put(state, count == null ? 1 : count + 1);
+            }
+        }
+
+        PostureClassifier.PostureState dominant = null;
+        for (Map.Entry<PostureClassifier.PostureState, Integer> entry : frames.entrySet()) {
+            if (dominant == null || entry.getValue() > frames.get(dominant)) {
+                dominant = entry.getKey();
+            }
+        }
+        return dominant;
+    }
+
+    private static List<String> split(String values) {
+        List<String> result = new ArrayList<>();
+        if (values == null)
+            return result;
+
+        for (String value : values.split("\\|")) {
+            if (!value.trim().isEmpty()) {
+                result.add(value.trim());
+            }
+        }
+        return result;
+    }
+}
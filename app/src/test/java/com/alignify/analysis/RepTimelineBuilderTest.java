@@ -0,0 +1,176 @@
+package com.alignify.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.alignify.exercises.ExerciseDetector;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Feeds {@link RepTimelineBuilder} hand-written detector results and checks
+ * where reps and holds start and end, and which frames they are credited.
+ */
+public class RepTimelineBuilderTest {
+
+    private static final long FRAME_MS = 33L;
+
+    private final RepTimelineBuilder reps = new RepTimelineBuilder(false);
+    private final RepTimelineBuilder holds = new RepTimelineBuilder(true);
+    private long timestampMs = 0L;
+
+    @Test
+    public void repRunsFromLeavingRestToCountGoingUp() {
+        add(reps, 3, "up", 0);
+        long start = add(reps, 4, "down", 0);
+        long end = add(reps, 1, "up", 1);
+        add(reps, 2, "up", 1);
+
+        RepTimeline timeline = reps.build(true);
+        assertEquals(1, timeline.getRepCount());
+        assertEquals(1, timeline.getReps().size());
+        RepTimeline.Rep rep = timeline.getReps().get(0);
+        assertEquals(1, rep.getIndex());
+        assertEquals(start, rep.getStartMs());
+        assertEquals(end, rep.getEndMs());
+        assertEquals("Down frames and the closing frame", 5, rep.getFrames());
+        assertEquals(10, timeline.getFrames());
+
+        List<RepTimeline.StageChange> stages = rep.getStageChanges();
+        assertEquals(2, stages.size());
+        assertEquals("down", stages.get(0).getStage());
+        assertEquals(start, stages.get(0).getTimestampMs());
+        assertEquals("up", stages.get(1).getStage());
+        assertEquals(end, stages.get(1).getTimestampMs());
+    }
+
+    @Test
+    public void nextRepOpensAtTheNextStageChange() {
+        add(reps, 1, "up", 0);
+        add(reps, 2, "down", 0);
+        long firstEnd = add(reps, 1, "up", 1);
+        add(reps, 5, "up", 1); // idle between reps
+        long secondStart = add(reps, 2, "down", 1);
+        long secondEnd = add(reps, 1, "up", 2);
+
+        List<RepTimeline.Rep> timeline = reps.build(true).getReps();
+        assertEquals(2, timeline.size());
+        assertEquals(firstEnd, timeline.get(0).getEndMs());
+        assertEquals(2, timeline.get(1).getIndex());
+        assertEquals(secondStart, timeline.get(1).getStartMs());
+        assertEquals(secondEnd, timeline.get(1).getEndMs());
+    }
+
+    @Test
+    public void repInProgressIsLeftOut() {
+        add(reps, 1, "up", 0);
+        add(reps, 2, "down", 0);
+        add(reps, 1, "up", 1);
+        add(reps, 3, "down", 1);
+
+        RepTimeline timeline = reps.build(false);
+        assertFalse(timeline.isComplete());
+        assertEquals(1, timeline.getReps().size());
+        assertEquals(1, timeline.getRepCount());
+    }
+
+    @Test
+    public void countAlreadyAboveZeroOnFirstFrameIsNotARep() {
+        // Stream joined mid-session
+        add(reps, 3, "up", 4);
+
+        RepTimeline timeline = reps.build(true);
+        assertEquals(4, timeline.getRepCount());
+        assertTrue(timeline.getReps().isEmpty());
+    }
+
+    @Test
+    public void errorsAndPoselessFramesOutsideRepsOnlyCountForTheSession() {
+        addError(reps, 2, "up", 0, "Keep your back straight");
+        add(reps, 1, "down", 0);
+        addError(reps, 2, "down", 0, "Push knees outward");
+        addNoPose(reps, 2, "down", 0);
+        add(reps, 1, "up", 1);
+
+        RepTimeline timeline = reps.build(true);
+        assertEquals(8, timeline.getFrames());
+        assertEquals(6, timeline.getPoseFrames());
+        assertEquals(4, timeline.getIncorrectFrames());
+        assertEquals(Integer.valueOf(2), timeline.getErrorFrames().get("Keep your back straight"));
+        assertEquals(Integer.valueOf(2), timeline.getErrorFrames().get("Push knees outward"));
+
+        RepTimeline.Rep rep = timeline.getReps().get(0);
+        assertEquals("Pose frames from opening to closing", 4, rep.getFrames());
+        assertEquals(0.5f, rep.getCorrectFraction(), 1e-6f);
+        assertEquals(Integer.valueOf(2), rep.getErrorFrames().get("Push knees outward"));
+        assertNull(rep.getErrorFrames().get("Keep your back straight"));
+    }
+
+    @Test
+    public void eachRunOfTheHoldStageIsOneHold() {
+        add(holds, 3, "rest", 0);
+        long firstStart = add(holds, 40, RepTimelineBuilder.HOLD_STAGE, 1);
+        long firstEnd = add(holds, 5, "rest", 1);
+        long secondStart = add(holds, 31, RepTimelineBuilder.HOLD_STAGE, 2);
+        long last = timestampMs - FRAME_MS;
+
+        RepTimeline timeline = holds.build(true);
+        assertTrue(timeline.isHoldExercise());
+        assertEquals(2, timeline.getRepCount());
+        List<RepTimeline.Rep> timelineHolds = timeline.getReps();
+        assertEquals(2, timelineHolds.size());
+
+        assertEquals(firstStart, timelineHolds.get(0).getStartMs());
+        assertEquals("Closed on the first frame out of the hold", firstEnd, timelineHolds.get(0).getEndMs());
+        assertEquals(40, timelineHolds.get(0).getFrames());
+
+        assertEquals(secondStart, timelineHolds.get(1).getStartMs());
+        assertEquals("Still holding: closed at the last frame", last, timelineHolds.get(1).getEndMs());
+        assertEquals(31, timelineHolds.get(1).getFrames());
+    }
+
+    @Test
+    public void holdCountGoingUpDoesNotSplitAHold() {
+        add(holds, 1, "rest", 0);
+        for (int second = 0; second < 5; second++) {
+            add(holds, 30, RepTimelineBuilder.HOLD_STAGE, second);
+        }
+
+        assertEquals(1, holds.build(true).getReps().size());
+    }
+
+    /**
+     * Add {@code count} correct frames with a pose.
+     *
+     * @return timestamp of the first
+     */
+    private long add(RepTimelineBuilder builder, int count, String stage, int repCount) {
+        return add(builder, count, true, stage, repCount, Collections.<String>emptyList());
+    }
+
+    private long addError(RepTimelineBuilder builder, int count, String stage, int repCount, String error) {
+        return add(builder, count, true, stage, repCount, Collections.singletonList(error));
+    }
+
+    private long addNoPose(RepTimelineBuilder builder, int count, String stage, int repCount) {
+        return add(builder, count, false, stage, repCount, Collections.<String>emptyList());
+    }
+
+    private long add(RepTimelineBuilder builder, int count, boolean hasPose, String stage, int repCount,
+            List<String> errors) {
+        long first = timestampMs;
+        for (int i = 0; i < count; i++) {
+            ExerciseDetector.DetectionResult result = new ExerciseDetector.DetectionResult(
+                    errors.isEmpty(), 0.9f, "", repCount, stage, new ArrayList<>(errors));
+            builder.add(timestampMs, hasPose, result);
+            timestampMs += FRAME_MS;
+        }
+        return first;
+    }
+}
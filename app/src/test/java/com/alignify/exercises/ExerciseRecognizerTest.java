@@ -0,0 +1,162 @@
+package com.alignify.exercises;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.alignify.analysis.RecordingReplayTest;
+import com.alignify.pose.PoseFrame;
+import com.alignify.pose.PoseSource;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays the checked-in recordings back to back into
+ * {@link ExerciseRecognizer} and checks how quickly it follows a change of
+ * exercise, and that pauses don't make it drop or change the exercise.
+ */
+public class ExerciseRecognizerTest {
+
+    private static final long FRAME_MS = 33L;
+
+    private final List<PoseFrame> frames = new ArrayList<>();
+    private long endMs = 0L;
+
+    @Test
+    public void recognisesEachExercise() throws IOException {
+        String[] names = { "squat", "lunge", "bicep_curl", "plank" };
+        long[] startsMs = { 0L, 0L, 0L, 2000L }; // The plank recording starts standing
+        for (int i = 0; i < names.length; i++) {
+            frames.clear();
+            endMs = 0L;
+            append(names[i] + "_synthetic");
+            long recognisedMs = firstTimeRecognised(new ExerciseRecognizer(), 0, names[i]);
+            assertTrue(names[i] + " never recognised", recognisedMs >= 0L);
+            long latencyMs = recognisedMs - startsMs[i];
+            assertTrue(names[i] + " recognised after " + latencyMs + " ms",
+                    latencyMs <= ExerciseRecognizer.WINDOW_MS);
+        }
+    }
+
+    @Test
+    public void switchesAfterTheNewExerciseHolds() throws IOException {
+        append("squat_synthetic");
+        int lungeStart = frames.size();
+        long lungeStartMs = endMs;
+        append("lunge_synthetic");
+
+        ExerciseRecognizer recognizer = new ExerciseRecognizer();
+        for (int i = 0; i < lungeStart; i++) {
+            update(recognizer, frames.get(i));
+        }
+        assertEquals("squat", recognizer.getExercise());
+
+        long switchedMs = firstTimeRecognised(recognizer, lungeStart, "lunge");
+        assertTrue("Never switched to lunge", switchedMs >= 0L);
+        long latencyMs = switchedMs - lungeStartMs;
+        assertTrue("Switched after " + latencyMs + " ms", latencyMs >= ExerciseRecognizer.SWITCH_MS
+                && latencyMs <= ExerciseRecognizer.SWITCH_MS + ExerciseRecognizer.WINDOW_MS);
+    }
+
+    @Test
+    public void keepsExerciseWhileStandingStill() throws IOException {
+        append("squat_synthetic");
+        PoseFrame last = frames.get(frames.size() - 1);
+        appendStill(last, 10_000L);
+        append("squat_synthetic");
+
+        assertAlwaysSquatOnceRecognised();
+    }
+
+    @Test
+    public void keepsExerciseWhileOutOfFrame() throws IOException {
+        append("squat_synthetic");
+        appendStill(null, 10_000L);
+        append("squat_synthetic");
+
+        assertAlwaysSquatOnceRecognised();
+    }
+
+    @Test
+    public void resetForgetsTheExercise() throws IOException {
+        append("squat_synthetic");
+        ExerciseRecognizer recognizer = new ExerciseRecognizer();
+        for (PoseFrame frame : frames) {
+            update(recognizer, frame);
+        }
+        assertEquals("squat", recognizer.getExercise());
+
+        recognizer.reset();
+        assertNull(recognizer.getExercise());
+        assertNull(recognizer.getPendingExercise());
+    }
+
+    private void assertAlwaysSquatOnceRecognised() {
+        ExerciseRecognizer recognizer = new ExerciseRecognizer();
+        boolean recognised = false;
+        for (PoseFrame frame : frames) {
+            String exercise = update(recognizer, frame);
+            if (recognised) {
+                assertEquals("at " + frame.getTimestampMs() + " ms", "squat", exercise);
+                assertNull("at " + frame.getTimestampMs() + " ms", recognizer.getPendingExercise());
+            }
+            recognised |= exercise != null;
+        }
+        assertTrue(recognised);
+    }
+
+    /**
+     * Feed frames from {@code start} until {@code exercise} is recognised.
+     *
+     * @return the frame time it was recognised at, or -1
+     */
+    private long firstTimeRecognised(ExerciseRecognizer recognizer, int start, String exercise) {
+        for (int i = start; i < frames.size(); i++) {
+            PoseFrame frame = frames.get(i);
+            if (exercise.equals(update(recognizer, frame)))
+                return frame.getTimestampMs();
+        }
+        return -1L;
+    }
+
+    private static String update(ExerciseRecognizer recognizer, PoseFrame frame) {
+        PoseFeatures features = new PoseFeatures();
+        features.update(frame);
+        return recognizer.update(features);
+    }
+
+    /**
+     * Append a recording's frames, continuing from the last frame's time.
+     */
+    private void append(String recordingName) throws IOException {
+        PoseSource source = RecordingReplayTest.shifted(RecordingReplayTest.load(recordingName).source(), endMs);
+        PoseFrame frame;
+        while ((frame = source.next()) != null) {
+            PoseFrame copy = new PoseFrame();
+            copy.set(frame);
+            frames.add(copy);
+            endMs = copy.getTimestampMs() + FRAME_MS;
+        }
+    }
+
+    /**
+     * Append {@code durationMs} of {@code pose} held still, or of frames
+     * without a pose if null.
+     */
+    private void appendStill(PoseFrame pose, long durationMs) {
+        long startMs = endMs;
+        while (endMs - startMs < durationMs) {
+            PoseFrame copy = new PoseFrame();
+            if (pose != null) {
+                copy.set(pose);
+            }
+            copy.reset(endMs, pose != null ? pose.getLandmarkCount() : 0);
+            frames.add(copy);
+            endMs += FRAME_MS;
+        }
+    }
+}
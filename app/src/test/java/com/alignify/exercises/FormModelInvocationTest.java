@@ -0,0 +1,177 @@
+package com.alignify.exercises;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.alignify.analysis.RecordingReplayTest;
+import com.alignify.pose.PoseFrame;
+import com.alignify.pose.PoseSource;
+import com.alignify.utils.ClassificationResult;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replays the checked-in recordings through the detectors with a counting
+ * {@link FormClassifier} and checks how often the form model runs: at most
+ * once per frame, never without a pose, and in circuit mode only for the
+ * active exercise.
+ */
+public class FormModelInvocationTest {
+
+    @Test
+    public void squatClassifiesAtMostOncePerFrame() throws IOException {
+        assertAtMostOneClassifyPerFrame("squat", SquatDetector.MODEL_PATH, "squat_synthetic");
+    }
+
+    @Test
+    public void lungeClassifiesAtMostOncePerFrame() throws IOException {
+        assertAtMostOneClassifyPerFrame("lunge", LungeDetector.MODEL_PATH, "lunge_synthetic");
+    }
+
+    @Test
+    public void bicepCurlClassifiesAtMostOncePerFrame() throws IOException {
+        assertAtMostOneClassifyPerFrame("bicep_curl", BicepCurlDetector.MODEL_PATH, "bicep_curl_synthetic");
+    }
+
+    @Test
+    public void plankClassifiesAtMostOncePerFrame() throws IOException {
+        assertAtMostOneClassifyPerFrame("plank", PlankDetector.MODEL_PATH, "plank_synthetic");
+    }
+
+    @Test
+    public void circuitRunsOnlyTheActiveModel() throws IOException {
+        CountingLoader loader = new CountingLoader();
+        MultiExerciseDetector detector = new MultiExerciseDetector(loader);
+
+        // Squats, then lunges straight after
+        long offsetMs = replayCircuit(detector, loader, "squat_synthetic", 0L);
+        assertEquals("squat", detector.getExerciseType());
+        replayCircuit(detector, loader, "lunge_synthetic", offsetMs);
+        assertEquals("lunge", detector.getExerciseType());
+
+        assertTrue(loader.get(SquatDetector.MODEL_PATH).calls > 0);
+        assertTrue(loader.get(LungeDetector.MODEL_PATH).calls > 0);
+        assertEquals(0, loader.get(BicepCurlDetector.MODEL_PATH).calls);
+        assertEquals(0, loader.get(PlankDetector.MODEL_PATH).calls);
+        detector.close();
+    }
+
+    private static void assertAtMostOneClassifyPerFrame(String exerciseType, String modelPath, String recordingName)
+            throws IOException {
+        CountingLoader loader = new CountingLoader();
+        ExerciseDetector detector = ExerciseDetector.create(exerciseType, loader);
+        CountingClassifier classifier = loader.get(modelPath);
+
+        int classified = 0;
+        PoseSource source = RecordingReplayTest.load(recordingName).source();
+        PoseFrame frame;
+        while ((frame = source.next()) != null) {
+            int before = classifier.calls;
+            ExerciseDetector.DetectionResult result = detector.detect(frame);
+            int calls = classifier.calls - before;
+            String at = recordingName + " frame at " + frame.getTimestampMs();
+            assertTrue(at + ": " + calls + " calls", calls <= 1);
+            if (frame.isEmpty()) {
+                assertEquals(at, 0, calls);
+            }
+            // The stub leaves confidence at 0; rule-only results report 1
+            assertEquals(at, result.getConfidence() == 0f ? 1 : 0, calls);
+            classified += calls;
+        }
+        assertTrue(recordingName + ": model ran on " + classified + " frames", classified > 0);
+        assertEquals(1, loader.classifiers.size());
+        detector.close();
+    }
+
+    /**
+     * Feed a recording to {@code detector} shifted by {@code offsetMs},
+     * checking after each frame that only the active exercise's model ran,
+     * at most once.
+     *
+     * @return timestamp to continue from
+     */
+    private static long replayCircuit(MultiExerciseDetector detector, CountingLoader loader, String recordingName,
+            long offsetMs) throws IOException {
+        Map<String, Integer> before = new HashMap<>();
+        long lastMs = offsetMs;
+        PoseSource source = RecordingReplayTest.shifted(RecordingReplayTest.load(recordingName).source(), offsetMs);
+        PoseFrame frame;
+        while ((frame = source.next()) != null) {
+            lastMs = frame.getTimestampMs();
+
+            for (Map.Entry<String, CountingClassifier> entry : loader.classifiers.entrySet()) {
+                before.put(entry.getKey(), entry.getValue().calls);
+            }
+            detector.detect(frame);
+
+            String activeModel = modelPath(detector.getExerciseType());
+            for (Map.Entry<String, CountingClassifier> entry : loader.classifiers.entrySet()) {
+                int calls = entry.getValue().calls - before.get(entry.getKey());
+                String at = recordingName + " frame at " + lastMs + ", " + entry.getKey();
+                if (entry.getKey().equals(activeModel)) {
+                    assertTrue(at + ": " + calls + " calls", calls <= 1);
+                } else {
+                    assertEquals(at + " is inactive", 0, calls);
+                }
+            }
+        }
+        return lastMs + 33L;
+    }
+
+    private static String modelPath(String exerciseType) {
+        if (exerciseType == null)
+            return null;
+
+        switch (exerciseType) {
+            case "squat":
+                return SquatDetector.MODEL_PATH;
+            case "lunge":
+                return LungeDetector.MODEL_PATH;
+            case "plank":
+                return PlankDetector.MODEL_PATH;
+            default:
+                return BicepCurlDetector.MODEL_PATH;
+        }
+    }
+
+    private static final class CountingLoader implements FormClassifier.Loader {
+        final Map<String, CountingClassifier> classifiers = new HashMap<>();
+
+        @Override
+        public FormClassifier load(String modelPath) {
+            CountingClassifier classifier = new CountingClassifier();
+            classifiers.put(modelPath, classifier);
+            return classifier;
+        }
+
+        CountingClassifier get(String modelPath) {
+            CountingClassifier classifier = classifiers.get(modelPath);
+            assertNotNull("Not loaded: " + modelPath, classifier);
+            return classifier;
+        }
+    }
+
+    private static final class CountingClassifier implements FormClassifier {
+        int calls;
+
+        @Override
+        public int getInputSize() {
+            return 0;
+        }
+
+        @Override
+        public boolean classify(float[] features, ClassificationResult result) {
+            calls++;
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
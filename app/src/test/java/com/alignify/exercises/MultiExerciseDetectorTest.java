@@ -0,0 +1,111 @@
+package com.alignify.exercises;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.alignify.analysis.RecordingReplayTest;
+import com.alignify.pose.PoseFrame;
+import com.alignify.pose.PoseSource;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+/**
+ * Plays the checked-in recordings back to back through
+ * {@link MultiExerciseDetector} and checks that each rep is credited to one
+ * exercise only.
+ */
+public class MultiExerciseDetectorTest {
+
+    private static final long FRAME_MS = 33L;
+
+    private final MultiExerciseDetector detector = new MultiExerciseDetector(null);
+    private long endMs = 0L;
+
+    @Test
+    public void creditsRepsOnceFromSquatsToLunges() throws IOException {
+        assertCreditedOnce("squat", "lunge");
+    }
+
+    @Test
+    public void creditsRepsOnceFromLungesToSquats() throws IOException {
+        assertCreditedOnce("lunge", "squat");
+    }
+
+    @Test
+    public void creditsNothingToExercisesNotPerformed() throws IOException {
+        replay("squat_synthetic");
+        replay("squat_synthetic");
+
+        assertEquals("squat", detector.getExerciseType());
+        assertEquals(2 * reps("squat"), detector.getRepCount("squat"));
+        assertEquals(0, detector.getRepCount("lunge"));
+        assertEquals(0, detector.getRepCount("bicep_curl"));
+        assertEquals(0, detector.getRepCount("plank"));
+        assertEquals(0L, detector.getActiveDurationMs("lunge"));
+        assertTrue(detector.getActiveDurationMs("squat") > 0L);
+        detector.close();
+    }
+
+    @Test
+    public void resetStartsOver() throws IOException {
+        replay("squat_synthetic");
+        detector.reset();
+
+        assertNull(detector.getExerciseType());
+        assertEquals(0, detector.getRepCount());
+        assertEquals(0, detector.getRepCount("squat"));
+        assertEquals(0L, detector.getActiveDurationMs("squat"));
+        detector.close();
+    }
+
+    /**
+     * Play {@code first}'s recording, then {@code second}'s. Every rep must be
+     * credited exactly once; while recognition catches up, a rep at the
+     * boundary may go to either exercise.
+     */
+    private void assertCreditedOnce(String first, String second) throws IOException {
+        int firstReps = reps(first);
+        int secondReps = reps(second);
+
+        replay(first + "_synthetic");
+        replay(second + "_synthetic");
+
+        assertEquals(second, detector.getExerciseType());
+        int creditedFirst = detector.getRepCount(first);
+        int creditedSecond = detector.getRepCount(second);
+        String credited = first + " " + creditedFirst + ", " + second + " " + creditedSecond;
+        assertEquals(credited, firstReps + secondReps, creditedFirst + creditedSecond);
+        assertTrue(credited, Math.abs(creditedFirst - firstReps) <= 1);
+        assertEquals(creditedSecond, detector.getRepCount());
+        detector.close();
+    }
+
+    /**
+     * Reps the exercise's own detector counts on its recording.
+     */
+    private static int reps(String exerciseType) throws IOException {
+        ExerciseDetector single = ExerciseDetector.create(exerciseType, null);
+        PoseSource source = RecordingReplayTest.load(exerciseType + "_synthetic").source();
+        PoseFrame frame;
+        while ((frame = source.next()) != null) {
+            single.detect(frame);
+        }
+        single.close();
+        return single.getRepCount();
+    }
+
+    /**
+     * Feed a recording, continuing from the last frame's time.
+     */
+    private void replay(String recordingName) throws IOException {
+        PoseSource source = RecordingReplayTest.shifted(RecordingReplayTest.load(recordingName).source(), endMs);
+        PoseFrame frame;
+        while ((frame = source.next()) != null) {
+            endMs = frame.getTimestampMs() + FRAME_MS;
+            detector.detect(frame);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.alignify.pose;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.alignify.analysis.RecordingReplayTest;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+/**
+ * Drives {@link FrameRateGovernor} with synthetic frame timestamps and
+ * result times, the way the camera analyzer and landmarker callback do.
+ * Unsmoothed, so offsets map straight to speeds, except for the checked-in
+ * recordings, which replay with the app's smoothing and per-exercise tuning.
+ */
+public class FrameRateGovernorTest {
+
+    private static final long FRAME_MS = 33L;
+    private static final long INFERENCE_MS = 5L;
+    // Still for 4 results before each back-off step, ceiling 200 ms
+    private static final FrameRateGovernor.Config CONFIG = new FrameRateGovernor.Config(0L, 200L, 0.1f, 4);
+
+    private final float[] landmarks = new float[PoseFrame.NUM_LANDMARKS * PoseFrame.STRIDE];
+    private final PoseFrame frame = new PoseFrame();
+    private long frameTimeMs = 0L;
+
+    @Test
+    public void backsOffStepByStepWhileStill() {
+        FrameRateGovernor governor = new FrameRateGovernor(CONFIG, LandmarkFilter.NONE);
+
+        // First result has no baseline and counts as motion
+        assertTrue(offer(governor, 0f, INFERENCE_MS));
+        assertEquals("Full rate, limited only by latency", INFERENCE_MS, governor.getCurrentIntervalMs());
+
+        stillResults(governor, 4);
+        assertEquals(66L, governor.getCurrentIntervalMs());
+        stillResults(governor, 4);
+        assertEquals(132L, governor.getCurrentIntervalMs());
+        stillResults(governor, 4);
+        assertEquals(200L, governor.getCurrentIntervalMs());
+        stillResults(governor, 8);
+        assertEquals("Interval is capped at the ceiling", 200L, governor.getCurrentIntervalMs());
+        assertTrue(governor.getSkippedFrames() > 0L);
+    }
+
+    @Test
+    public void skipsFramesInsideTheInterval() {
+        FrameRateGovernor governor = new FrameRateGovernor(CONFIG, LandmarkFilter.NONE);
+        offer(governor, 0f, INFERENCE_MS);
+        stillResults(governor, 4);
+        assertEquals(66L, governor.getCurrentIntervalMs());
+
+        // The last still result was submitted at frameTimeMs
+        assertFalse(governor.shouldProcess(frameTimeMs + FRAME_MS));
+        assertTrue(governor.shouldProcess(frameTimeMs + 66L));
+    }
+
+    @Test
+    public void snapsBackToFullRateOnMotion() {
+        FrameRateGovernor governor = new FrameRateGovernor(CONFIG, LandmarkFilter.NONE);
+        offer(governor, 0f, INFERENCE_MS);
+        stillResults(governor, 12);
+        assertEquals(200L, governor.getCurrentIntervalMs());
+
+        // 0.05 units in 200 ms is 0.25 units/s, well above the threshold
+        long next = frameTimeMs + 200L;
+        submit(governor, next, 0.05f, INFERENCE_MS);
+        assertTrue(governor.getLastVelocity() >= CONFIG.motionThreshold);
+        assertEquals(INFERENCE_MS, governor.getCurrentIntervalMs());
+        assertTrue(governor.shouldProcess(next + FRAME_MS));
+    }
+
+    @Test
+    public void smallMovementsCountAsStill() {
+        FrameRateGovernor governor = new FrameRateGovernor(CONFIG, LandmarkFilter.NONE);
+        offer(governor, 0f, INFERENCE_MS);
+
+        // 0.001 units per 33 ms frame is 0.03 units/s, below the threshold
+        for (int i = 1; i <= 4; i++) {
+            submit(governor, frameTimeMs + FRAME_MS, i * 0.001f, INFERENCE_MS);
+        }
+        assertEquals(66L, governor.getCurrentIntervalMs());
+    }
+
+    @Test
+    public void intervalNeverDropsBelowInferenceLatency() {
+        FrameRateGovernor governor = new FrameRateGovernor(CONFIG, LandmarkFilter.NONE);
+
+        // Moving every frame, but results take 80 ms to come back
+        float offset = 0f;
+        for (int i = 0; i < 10; i++) {
+            offset += 0.02f;
+            submit(governor, frameTimeMs + 100L, offset, 80L);
+        }
+        assertEquals(80f, governor.getLatencyMs(), 0.5f);
+        assertEquals(80L, governor.getCurrentIntervalMs());
+
+        long submittedMs = frameTimeMs;
+        assertFalse(governor.shouldProcess(submittedMs + FRAME_MS));
+        assertTrue(governor.shouldProcess(submittedMs + 80L));
+    }
+
+    @Test
+    public void intervalFloorCapsRateAndSurvivesReset() {
+        FrameRateGovernor governor = new FrameRateGovernor(CONFIG, LandmarkFilter.NONE);
+        governor.setIntervalFloorMs(100L);
+
+        float offset = 0f;
+        for (int i = 0; i < 5; i++) {
+            offset += 0.05f;
+            submit(governor, frameTimeMs + 100L, offset, INFERENCE_MS);
+        }
+        assertEquals("Moving, but held at the floor", 100L, governor.getCurrentIntervalMs());
+        assertFalse(governor.shouldProcess(frameTimeMs + FRAME_MS));
+
+        governor.reset();
+        assertEquals(100L, governor.getCurrentIntervalMs());
+
+        // Backing off beyond the floor still works
+        stillResults(governor, 13);
+        assertEquals(200L, governor.getCurrentIntervalMs());
+
+        governor.setIntervalFloorMs(0L);
+        submit(governor, frameTimeMs + 200L, offset + 0.1f, INFERENCE_MS);
+        assertEquals(INFERENCE_MS, governor.getCurrentIntervalMs());
+    }
+
+    @Test
+    public void backsOffDuringPlankHold() throws IOException {
+        FrameRateGovernor.Config config = FrameRateGovernor.Config.forExercise("plank");
+        FrameRateGovernor governor = new FrameRateGovernor(config);
+
+        // The recording stands for 2 s, then holds a plank with the hips slowly sagging
+        int holdFrames = 0;
+        int holdProcessed = 0;
+        long maxIntervalMs = 0L;
+        PoseSource source = RecordingReplayTest.load("plank_synthetic").source();
+        PoseFrame frame;
+        while ((frame = source.next()) != null) {
+            boolean processed = replay(governor, frame);
+            if (frame.getTimestampMs() >= 4000L) {
+                holdFrames++;
+                holdProcessed += processed ? 1 : 0;
+                maxIntervalMs = Math.max(maxIntervalMs, governor.getCurrentIntervalMs());
+            }
+        }
+        assertEquals(config.maxIntervalMs, maxIntervalMs);
+        assertTrue(holdProcessed + " of " + holdFrames + " hold frames processed", holdProcessed * 4 < holdFrames);
+    }
+
+    @Test
+    public void staysAtFullRateDuringReps() throws IOException {
+        for (String exerciseType : new String[] { "squat", "lunge", "bicep_curl" }) {
+            FrameRateGovernor governor = new FrameRateGovernor(FrameRateGovernor.Config.forExercise(exerciseType));
+            PoseSource source = RecordingReplayTest.load(exerciseType + "_synthetic").source();
+            PoseFrame frame;
+            while ((frame = source.next()) != null) {
+                replay(governor, frame);
+            }
+            assertTrue(exerciseType, governor.getProcessedFrames() > 0L);
+            assertEquals(exerciseType, 0L, governor.getSkippedFrames());
+        }
+    }
+
+    /**
+     * Offer a recorded camera frame and, if accepted, deliver it as the result.
+     */
+    private static boolean replay(FrameRateGovernor governor, PoseFrame frame) {
+        long timeMs = frame.getTimestampMs();
+        if (!governor.shouldProcess(timeMs))
+            return false;
+
+        long submittedNanos = timeMs * 1_000_000L;
+        governor.onFrameSubmitted(timeMs, submittedNanos);
+        governor.onResult(frame, submittedNanos + INFERENCE_MS * 1_000_000L);
+        return true;
+    }
+
+    /**
+     * Feed one still frame per accepted camera frame until {@code count}
+     * results have been delivered.
+     */
+    private void stillResults(FrameRateGovernor governor, int count) {
+        float offset = landmarks[0];
+        int delivered = 0;
+        while (delivered < count) {
+            frameTimeMs += FRAME_MS;
+            if (governor.shouldProcess(frameTimeMs)) {
+                deliver(governor, frameTimeMs, offset, INFERENCE_MS);
+                delivered++;
+            }
+        }
+    }
+
+    private boolean offer(FrameRateGovernor governor, float offset, long inferenceMs) {
+        frameTimeMs += FRAME_MS;
+        if (!governor.shouldProcess(frameTimeMs))
+            return false;
+
+        deliver(governor, frameTimeMs, offset, inferenceMs);
+        return true;
+    }
+
+    /**
+     * Submit the frame at {@code timeMs} unconditionally and deliver its result.
+     */
+    private void submit(FrameRateGovernor governor, long timeMs, float offset, long inferenceMs) {
+        frameTimeMs = timeMs;
+        deliver(governor, timeMs, offset, inferenceMs);
+    }
+
+    private void deliver(FrameRateGovernor governor, long timeMs, float offset, long inferenceMs) {
+        long submittedNanos = timeMs * 1_000_000L;
+        governor.onFrameSubmitted(timeMs, submittedNanos);
+
+        // Whole body shifted right by offset
+        for (int i = 0; i < PoseFrame.NUM_LANDMARKS; i++) {
+            landmarks[i * PoseFrame.STRIDE] = offset;
+            landmarks[i * PoseFrame.STRIDE + 1] = 0.5f;
+            landmarks[i * PoseFrame.STRIDE + 3] = 1f;
+        }
+        frame.set(timeMs, landmarks, PoseFrame.NUM_LANDMARKS);
+        governor.onResult(frame, submittedNanos + inferenceMs * 1_000_000L);
+    }
+}
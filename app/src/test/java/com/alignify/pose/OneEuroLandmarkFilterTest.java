@@ -0,0 +1,145 @@
+package com.alignify.pose;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Feeds {@link OneEuroLandmarkFilter} synthetic landmark streams at 30 fps
+ * and checks its noise reduction, its lag on real movement, and when it
+ * restarts instead of blending with stale state.
+ */
+public class OneEuroLandmarkFilterTest {
+
+    private static final long FRAME_MS = 33L;
+    private static final int FRAMES = 600; // 20 s
+    private static final int WARMUP_FRAMES = 30;
+
+    private final float[] landmarks = new float[PoseFrame.NUM_LANDMARKS * PoseFrame.STRIDE];
+    private final PoseFrame frame = new PoseFrame();
+
+    @Test
+    public void reducesNoiseOnStillLandmarks() {
+        OneEuroLandmarkFilter filter = new OneEuroLandmarkFilter();
+        Random random = new Random(1L);
+        double rawError = 0.0;
+        double filteredError = 0.0;
+
+        for (int i = 0; i < FRAMES; i++) {
+            float noisy = 0.5f + (float) random.nextGaussian() * 0.01f;
+            setAll(i * FRAME_MS, noisy);
+            filter.apply(frame);
+            if (i >= WARMUP_FRAMES) {
+                rawError += Math.abs(noisy - 0.5f);
+                filteredError += Math.abs(frame.x(0) - 0.5f);
+            }
+        }
+
+        int measured = FRAMES - WARMUP_FRAMES;
+        rawError /= measured;
+        filteredError /= measured;
+        assertTrue("filtered " + filteredError + " vs raw " + rawError, filteredError < rawError * 0.6);
+        assertTrue("filtered error " + filteredError, filteredError < 0.005);
+    }
+
+    @Test
+    public void tracksMovementWithLittleLag() {
+        OneEuroLandmarkFilter filter = new OneEuroLandmarkFilter();
+        double maxError = 0.0;
+        double totalError = 0.0;
+
+        // 0.5 Hz, 0.3 amplitude: roughly a squat's knee travel at a brisk pace
+        for (int i = 0; i < FRAMES; i++) {
+            long timestampMs = i * FRAME_MS;
+            float expected = 0.5f + 0.3f * (float) Math.sin(2.0 * Math.PI * 0.5 * timestampMs / 1000.0);
+            setAll(timestampMs, expected);
+            filter.apply(frame);
+            if (i >= WARMUP_FRAMES) {
+                float error = Math.abs(frame.y(0) - expected);
+                maxError = Math.max(maxError, error);
+                totalError += error;
+            }
+        }
+
+        assertTrue("max error " + maxError, maxError < 0.03);
+        assertTrue("mean error " + totalError / (FRAMES - WARMUP_FRAMES),
+                totalError / (FRAMES - WARMUP_FRAMES) < 0.015);
+    }
+
+    @Test
+    public void smoothsConsecutiveFrames() {
+        OneEuroLandmarkFilter filter = new OneEuroLandmarkFilter();
+        settle(filter, 0.2f);
+
+        setAll(31 * FRAME_MS, 0.8f);
+        filter.apply(frame);
+        assertTrue("Blended with the previous pose", frame.x(0) > 0.2f && frame.x(0) < 0.8f);
+    }
+
+    @Test
+    public void restartsAfterEmptyFrame() {
+        OneEuroLandmarkFilter filter = new OneEuroLandmarkFilter();
+        settle(filter, 0.2f);
+
+        frame.set(31 * FRAME_MS, landmarks, 0);
+        filter.apply(frame);
+        setAll(32 * FRAME_MS, 0.8f);
+        filter.apply(frame);
+        assertEquals(0.8f, frame.x(0), 0f);
+    }
+
+    @Test
+    public void restartsAfterLongGap() {
+        OneEuroLandmarkFilter filter = new OneEuroLandmarkFilter();
+        settle(filter, 0.2f);
+
+        setAll(30 * FRAME_MS + 1001L, 0.8f);
+        filter.apply(frame);
+        assertEquals(0.8f, frame.x(0), 0f);
+    }
+
+    @Test
+    public void restartsWhenTimestampsGoBackwards() {
+        OneEuroLandmarkFilter filter = new OneEuroLandmarkFilter();
+        settle(filter, 0.2f);
+
+        setAll(10 * FRAME_MS, 0.8f);
+        filter.apply(frame);
+        assertEquals(0.8f, frame.x(0), 0f);
+    }
+
+    @Test
+    public void restartsAfterReset() {
+        OneEuroLandmarkFilter filter = new OneEuroLandmarkFilter();
+        settle(filter, 0.2f);
+
+        filter.reset();
+        setAll(31 * FRAME_MS, 0.8f);
+        filter.apply(frame);
+        assertEquals(0.8f, frame.x(0), 0f);
+    }
+
+    /**
+     * Hold every landmark at {@code value} from 0 to 30 * FRAME_MS.
+     */
+    private void settle(OneEuroLandmarkFilter filter, float value) {
+        for (int i = 0; i <= 30; i++) {
+            setAll(i * FRAME_MS, value);
+            filter.apply(frame);
+        }
+        assertEquals(value, frame.x(0), 1e-6f);
+    }
+
+    private void setAll(long timestampMs, float value) {
+        for (int i = 0; i < PoseFrame.NUM_LANDMARKS; i++) {
+            landmarks[i * PoseFrame.STRIDE] = value;
+            landmarks[i * PoseFrame.STRIDE + 1] = value;
+            landmarks[i * PoseFrame.STRIDE + 2] = 0f;
+            landmarks[i * PoseFrame.STRIDE + 3] = 1f;
+        }
+        frame.set(timestampMs, landmarks, PoseFrame.NUM_LANDMARKS);
+    }
+}
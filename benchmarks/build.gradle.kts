@@ -0,0 +1,71 @@
+plugins {
+    java
+    id("me.champeau.jmh")
+}
+
+// Detectors and landmark math are plain Java (no Android, MediaPipe or
+// TFLite), so they are compiled straight from the app's sources for the JVM
+// rather than depending on the Android module, next to the replay runner
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java", "src/main/java"))
+            include(
+                "com/alignify/benchmarks/**",
+                "com/alignify/pose/PoseFrame.java",
+                "com/alignify/pose/PoseSource.java",
+                "com/alignify/pose/LandmarkFilter.java",
+                "com/alignify/pose/OneEuroLandmarkFilter.java",
+                "com/alignify/utils/LandmarkUtils.java",
+                "com/alignify/utils/ClassificationResult.java",
+                "com/alignify/utils/LatencyHistogram.java",
+                "com/alignify/exercises/ExerciseDetector.java",
+                "com/alignify/exercises/FormClassifier.java",
+                "com/alignify/exercises/PoseFeatures.java",
+                "com/alignify/exercises/ExerciseRecognizer.java",
+                "com/alignify/exercises/*Detector.java",
+                "com/alignify/ml/PostureClassifier.java",
+                "com/alignify/analysis/RepTimeline.java",
+                "com/alignify/analysis/RepTimelineBuilder.java",
+                "com/alignify/analysis/PoseStreamAnalyzer.java",
+                "com/alignify/analysis/LandmarkRecording.java"
+            )
+        }
+    }
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+// Directory of LandmarkRecording files, relative to the project root; without it
+// the benchmarks use synthetic streams
+val recordingsDir: String? = providers.gradleProperty("recordings").orNull?.let { rootProject.file(it).absolutePath }
+
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc") // Allocations per op as gc.alloc.rate.norm
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+    if (recordingsDir != null) {
+        jvmArgsAppend.add("-Dalignify.recordings=$recordingsDir")
+    }
+}
+
+// ./gradlew :benchmarks:replay -Precordings=<dir>
+tasks.register<JavaExec>("replay") {
+    group = "verification"
+    description = "Replays landmark recordings through the detectors and reports their throughput."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("com.alignify.benchmarks.DetectorReplay")
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf(recordingsDir ?: throw GradleException("Pass the recordings directory with -Precordings=<dir>"))
+    })
+}
@@ -0,0 +1,69 @@
+package com.alignify.benchmarks;
+
+import com.alignify.exercises.ExerciseDetector;
+import com.alignify.ml.PostureClassifier;
+import com.alignify.pose.PoseFrame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame cost of each exercise detector (rules only, no form model) and
+ * of the posture classifier, fed the smoothed frames of a session in order
+ * so stage changes, rep counting and error checks all happen at their real
+ * rates. {@code circuit} is all four detectors plus exercise recognition.
+ * The detector is reset whenever the stream wraps around.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DetectorBenchmark {
+
+    @Param({ "squat", "lunge", "bicep_curl", "plank", "circuit" })
+    public String exercise;
+
+    private PoseFrame[] poses;
+    private int next = 0;
+    private ExerciseDetector detector;
+    private final PostureClassifier postureClassifier = new PostureClassifier();
+
+    @Setup
+    public void setUp() throws IOException {
+        poses = LandmarkStreams.smoothedPoses(LandmarkStreams.forExercise(exercise));
+        detector = ExerciseDetector.create(exercise, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        detector.close();
+    }
+
+    private PoseFrame nextPose() {
+        PoseFrame pose = poses[next];
+        if (++next == poses.length) {
+            next = 0;
+            detector.reset(); // Timestamps jump back
+        }
+        return pose;
+    }
+
+    @Benchmark
+    public ExerciseDetector.DetectionResult detect() {
+        return detector.detect(nextPose());
+    }
+
+    @Benchmark
+    public PostureClassifier.PostureState classifyPosture() {
+        return postureClassifier.classify(nextPose());
+    }
+}
@@ -0,0 +1,93 @@
+package com.alignify.benchmarks;
+
+import com.alignify.pose.PoseFrame;
+import com.alignify.utils.LandmarkUtils;
+import com.alignify.utils.LandmarkUtils.Landmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame landmark math. Each call takes the next frame of the stream, so
+ * results depend on real landmark positions rather than one constant input.
+ *
+ * The {@code Point2D} benchmarks measure the {@link LandmarkUtils.Point2D}
+ * helpers as callers use them (boxing landmarks first); the {@code primitive}
+ * ones measure the equivalent {@link PoseFrame} accessors the detectors use.
+ * Run with the GC profiler to compare allocations per op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class LandmarkMathBenchmark {
+
+    @Param({ "squat" })
+    public String exercise;
+
+    private PoseFrame[] poses;
+    private int next = 0;
+    private final float[] features = new float[LandmarkUtils.SQUAT_FEATURE_LANDMARKS.length * 2];
+
+    @Setup
+    public void setUp() throws IOException {
+        poses = LandmarkStreams.smoothedPoses(LandmarkStreams.forExercise(exercise));
+    }
+
+    private PoseFrame nextPose() {
+        PoseFrame pose = poses[next];
+        next = next + 1 == poses.length ? 0 : next + 1;
+        return pose;
+    }
+
+    @Benchmark
+    public float calculateAnglePoint2D() {
+        PoseFrame pose = nextPose();
+        LandmarkUtils.Point2D hip = LandmarkUtils.getPoint2D(pose, Landmarks.LEFT_HIP);
+        LandmarkUtils.Point2D knee = LandmarkUtils.getPoint2D(pose, Landmarks.LEFT_KNEE);
+        LandmarkUtils.Point2D ankle = LandmarkUtils.getPoint2D(pose, Landmarks.LEFT_ANKLE);
+        return LandmarkUtils.calculateAngle(hip, knee, ankle);
+    }
+
+    @Benchmark
+    public float calculateAnglePrimitive() {
+        return nextPose().angle(Landmarks.LEFT_HIP, Landmarks.LEFT_KNEE, Landmarks.LEFT_ANKLE);
+    }
+
+    @Benchmark
+    public float calculateKneeAngle() {
+        return LandmarkUtils.calculateKneeAngle(nextPose(), true);
+    }
+
+    @Benchmark
+    public float calculateDistancePoint2D() {
+        PoseFrame pose = nextPose();
+        LandmarkUtils.Point2D left = LandmarkUtils.getPoint2D(pose, Landmarks.LEFT_ANKLE);
+        LandmarkUtils.Point2D right = LandmarkUtils.getPoint2D(pose, Landmarks.RIGHT_ANKLE);
+        return LandmarkUtils.calculateDistance(left, right);
+    }
+
+    @Benchmark
+    public float calculateDistancePrimitive() {
+        return nextPose().distance(Landmarks.LEFT_ANKLE, Landmarks.RIGHT_ANKLE);
+    }
+
+    @Benchmark
+    public float[] extractFeatures() {
+        LandmarkUtils.extractFeatures(nextPose(), LandmarkUtils.SQUAT_FEATURE_LANDMARKS, features);
+        return features;
+    }
+
+    @Benchmark
+    public float[] extractFeaturesAllocating() {
+        return LandmarkUtils.extractSquatFeatures(nextPose());
+    }
+}
@@ -0,0 +1,65 @@
+package com.alignify.benchmarks;
+
+import com.alignify.analysis.LandmarkRecording;
+import com.alignify.pose.OneEuroLandmarkFilter;
+import com.alignify.pose.PoseFrame;
+import com.alignify.pose.PoseSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Landmark streams for the benchmarks: the first recording for the exercise
+ * in the directory named by the {@code alignify.recordings} system property
+ * (set by {@code -Precordings=<dir>}), or a synthetic session otherwise.
+ */
+final class LandmarkStreams {
+
+    static final String RECORDINGS_PROPERTY = "alignify.recordings";
+
+    private static final int SYNTHETIC_FRAMES = 1800; // One minute at 30 fps
+    private static final long SYNTHETIC_SEED = 42L;
+
+    private LandmarkStreams() {
+    }
+
+    static LandmarkRecording forExercise(String exerciseType) throws IOException {
+        String dir = System.getProperty(RECORDINGS_PROPERTY);
+        if (dir != null) {
+            File[] files = new File(dir).listFiles((d, name) -> name.endsWith(LandmarkRecording.FILE_SUFFIX));
+            if (files != null) {
+                Arrays.sort(files);
+                for (File file : files) {
+                    LandmarkRecording recording = LandmarkRecording.read(file);
+                    if (exerciseType.equals(recording.get(LandmarkRecording.KEY_EXERCISE))) {
+                        return recording;
+                    }
+                }
+            }
+        }
+        return SyntheticPoses.generate(exerciseType, SYNTHETIC_FRAMES, SYNTHETIC_SEED);
+    }
+
+    /**
+     * The stream's frames with a pose, smoothed the way the live pipeline
+     * smooths them before detection, as independent copies.
+     */
+    static PoseFrame[] smoothedPoses(LandmarkRecording recording) throws IOException {
+        OneEuroLandmarkFilter filter = new OneEuroLandmarkFilter();
+        List<PoseFrame> poses = new ArrayList<>(recording.getFrameCount());
+        PoseSource frames = recording.source();
+        PoseFrame frame;
+        while ((frame = frames.next()) != null) {
+            filter.apply(frame);
+            if (!frame.isEmpty()) {
+                PoseFrame copy = new PoseFrame();
+                copy.set(frame);
+                poses.add(copy);
+            }
+        }
+        return poses.toArray(new PoseFrame[0]);
+    }
+}
@@ -0,0 +1,289 @@
+package com.alignify.benchmarks;
+
+import com.alignify.analysis.LandmarkRecording;
+import com.alignify.pose.PoseFrame;
+import com.alignify.utils.LandmarkUtils.Landmarks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates landmark streams that look like a landmarker watching someone
+ * exercise, or move through all four exercises for {@code circuit}: a
+ * simple 2D skeleton driven through repetitions at 30 fps with
+ * landmark jitter, timestamp jitter, uneven visibility, dropped frames and
+ * the occasional form error, so detectors take every branch they would on
+ * a real session.
+ *
+ * Only used when no recordings are supplied; real recordings are preferred.
+ */
+final class SyntheticPoses {
+
+    private static final long FRAME_INTERVAL_MS = 33L;
+    private static final float REP_SECONDS = 2.4f;
+    private static final float POSITION_NOISE = 0.003f;
+    private static final float DROPPED_FRAME_RATE = 0.02f;
+    private static final String[] CIRCUIT = { "squat", "bicep_curl", "lunge", "plank" };
+    private static final float CIRCUIT_SEGMENT_SECONDS = 15f;
+
+    private static final float SHIN = 0.17f;
+    private static final float THIGH = 0.17f;
+    private static final float TORSO = 0.25f;
+    private static final float UPPER_ARM = 0.13f;
+    private static final float FOREARM = 0.12f;
+
+    private final Random random;
+    private final float[] pose = new float[PoseFrame.NUM_LANDMARKS * PoseFrame.STRIDE];
+
+    private SyntheticPoses(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * A {@code frameCount}-frame session of {@code exerciseType}, identical
+     * for the same seed.
+     */
+    static LandmarkRecording generate(String exerciseType, int frameCount, long seed) throws IOException {
+        SyntheticPoses generator = new SyntheticPoses(seed);
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put(LandmarkRecording.KEY_EXERCISE, exerciseType);
+        metadata.put("source", "synthetic");
+
+        StringWriter text = new StringWriter();
+        PoseFrame frame = new PoseFrame();
+        try (LandmarkRecording.Writer writer = new LandmarkRecording.Writer(new BufferedWriter(text), metadata)) {
+            long timestampMs = 0L;
+            for (int i = 0; i < frameCount; i++) {
+                timestampMs += FRAME_INTERVAL_MS + generator.random.nextInt(7) - 3;
+                float seconds = timestampMs / 1000f;
+                generator.pose(exerciseType, seconds);
+                boolean dropped = generator.random.nextFloat() < DROPPED_FRAME_RATE;
+                frame.set(timestampMs, generator.pose, dropped ? 0 : PoseFrame.NUM_LANDMARKS);
+                writer.append(frame);
+            }
+        }
+        return LandmarkRecording.read(new BufferedReader(new StringReader(text.toString())));
+    }
+
+    private void pose(String exerciseType, float seconds) {
+        if (exerciseType.equals("circuit")) {
+            // Each exercise in turn, without a pause in between
+            exerciseType = CIRCUIT[(int) (seconds / CIRCUIT_SEGMENT_SECONDS) % CIRCUIT.length];
+        }
+        int rep = (int) (seconds / REP_SECONDS);
+        // 0 at rest, 1 at the bottom of the rep
+        float depth = (float) (1.0 - Math.cos(2.0 * Math.PI * seconds / REP_SECONDS)) / 2f;
+
+        switch (exerciseType) {
+            case "squat":
+                squat(depth, rep % 3 == 2);
+                break;
+            case "lunge":
+                lunge(depth, rep % 3 == 2);
+                break;
+            case "plank":
+                plank(seconds);
+                break;
+            case "bicep_curl":
+            default:
+                bicepCurl(depth, rep % 4 == 3);
+                break;
+        }
+        addNoise();
+    }
+
+    /**
+     * Front view, knees bending and torso leaning; knees cave in on faulty reps.
+     */
+    private void squat(float depth, boolean faulty) {
+        float kneeAngle = 172f - 92f * depth;
+        float shinLean = 25f * depth;
+        float torsoLean = -30f * depth;
+        for (int side = 0; side < 2; side++) {
+            float centerward = side == 0 ? 1f : -1f;
+            float ankleX = side == 0 ? 0.40f : 0.60f;
+            float kneeX = ankleX + (float) (SHIN * Math.sin(Math.toRadians(shinLean)))
+                    + (faulty ? centerward * 0.035f * depth : 0f);
+            float kneeY = 0.88f - (float) (SHIN * Math.cos(Math.toRadians(shinLean)));
+            leg(side, ankleX, 0.88f, kneeX, kneeY, kneeAngle);
+            torso(side, torsoLean);
+            hangingArm(side, 20f * depth);
+        }
+        head(torsoLean);
+    }
+
+    /**
+     * Side view with the left leg leading; the knee drifts past the toes on
+     * faulty reps.
+     */
+    private void lunge(float depth, boolean faulty) {
+        float kneeAngle = 170f - 85f * depth;
+        float shinLean = (faulty ? 30f : 8f) * depth;
+        float leadKneeX = 0.62f + (float) (SHIN * Math.sin(Math.toRadians(shinLean)));
+        float leadKneeY = 0.885f - (float) (SHIN * Math.cos(Math.toRadians(shinLean)));
+        leg(0, 0.62f, 0.885f, leadKneeX, leadKneeY, kneeAngle);
+
+        // Rear leg hangs from the same hip, knee dropping towards the floor
+        float hipX = x(Landmarks.LEFT_HIP);
+        float hipY = y(Landmarks.LEFT_HIP);
+        set(Landmarks.RIGHT_HIP, hipX - 0.005f, hipY, 0.6f);
+        set(Landmarks.RIGHT_ANKLE, 0.36f, 0.875f, 0.6f);
+        set(Landmarks.RIGHT_KNEE, (hipX + 0.36f) / 2f - 0.02f, Math.min(0.86f, (hipY + 0.875f) / 2f + 0.08f * depth), 0.6f);
+        feet(1);
+        for (int side = 0; side < 2; side++) {
+            torso(side, 0f);
+            hangingArm(side, 0f);
+        }
+        head(0f);
+    }
+
+    /**
+     * Front view, curling both arms; the upper arm swings forward on faulty reps.
+     */
+    private void bicepCurl(float depth, boolean faulty) {
+        for (int side = 0; side < 2; side++) {
+            float ankleX = side == 0 ? 0.45f : 0.55f;
+            leg(side, ankleX, 0.88f, ankleX, 0.88f - SHIN, 178f);
+            torso(side, 0f);
+
+            float outward = side == 0 ? -1f : 1f;
+            int shoulder = side == 0 ? Landmarks.LEFT_SHOULDER : Landmarks.RIGHT_SHOULDER;
+            float upperArmAngle = faulty ? 50f * depth : 5f;
+            double upper = Math.toRadians(upperArmAngle) * outward;
+            float elbowX = x(shoulder) + (float) (UPPER_ARM * Math.sin(upper));
+            float elbowY = y(shoulder) + (float) (UPPER_ARM * Math.cos(upper));
+            double forearm = upper + Math.toRadians(180f - (165f - 135f * depth)) * outward;
+            float wristX = elbowX + (float) (FOREARM * Math.sin(forearm));
+            float wristY = elbowY + (float) (FOREARM * Math.cos(forearm));
+            arm(side, elbowX, elbowY, wristX, wristY);
+        }
+        head(0f);
+    }
+
+    /**
+     * Side view holding a plank; hips slowly sag and pike, and the session
+     * starts standing so the hold has a beginning.
+     */
+    private void plank(float seconds) {
+        if (seconds < 2f) {
+            bicepCurl(0f, false);
+            return;
+        }
+        float sag = 0.06f * (float) Math.sin(2.0 * Math.PI * (seconds - 2f) / 8.0);
+        for (int side = 0; side < 2; side++) {
+            float visibility = side == 0 ? 0.95f : 0.5f;
+            float offset = side == 0 ? 0f : 0.01f;
+            set(side == 0 ? Landmarks.LEFT_SHOULDER : Landmarks.RIGHT_SHOULDER, 0.32f + offset, 0.55f, visibility);
+            set(side == 0 ? Landmarks.LEFT_HIP : Landmarks.RIGHT_HIP, 0.52f + offset, 0.57f + sag, visibility);
+            set(side == 0 ? Landmarks.LEFT_KNEE : Landmarks.RIGHT_KNEE, 0.66f + offset, 0.60f + sag / 2f, visibility);
+            set(side == 0 ? Landmarks.LEFT_ANKLE : Landmarks.RIGHT_ANKLE, 0.80f + offset, 0.62f, visibility);
+            feet(side);
+            arm(side, 0.32f + offset, 0.635f, 0.32f + offset, 0.72f);
+        }
+        set(Landmarks.NOSE, 0.24f, 0.56f, 1f);
+        for (int i = Landmarks.LEFT_EYE_INNER; i <= Landmarks.MOUTH_RIGHT; i++) {
+            set(i, 0.24f + (i % 2) * 0.005f, 0.55f + (i - 1) * 0.002f, 0.9f);
+        }
+    }
+
+    /**
+     * Place one leg: ankle and knee given, hip at {@code kneeAngle} behind the shin.
+     */
+    private void leg(int side, float ankleX, float ankleY, float kneeX, float kneeY, float kneeAngle) {
+        // Shin direction from ankle to knee, rotated back by the bend to get the thigh
+        double shin = Math.atan2(kneeY - ankleY, kneeX - ankleX);
+        double thigh = shin - Math.toRadians(180f - kneeAngle);
+        float hipX = kneeX + (float) (THIGH * Math.cos(thigh));
+        float hipY = kneeY + (float) (THIGH * Math.sin(thigh));
+        set(side == 0 ? Landmarks.LEFT_ANKLE : Landmarks.RIGHT_ANKLE, ankleX, ankleY, 0.9f);
+        set(side == 0 ? Landmarks.LEFT_KNEE : Landmarks.RIGHT_KNEE, kneeX, kneeY, 0.95f);
+        set(side == 0 ? Landmarks.LEFT_HIP : Landmarks.RIGHT_HIP, hipX, hipY, 0.98f);
+        feet(side);
+    }
+
+    private void feet(int side) {
+        int ankle = side == 0 ? Landmarks.LEFT_ANKLE : Landmarks.RIGHT_ANKLE;
+        set(side == 0 ? Landmarks.LEFT_HEEL : Landmarks.RIGHT_HEEL, x(ankle) - 0.01f, y(ankle) + 0.02f, 0.8f);
+        set(side == 0 ? Landmarks.LEFT_FOOT_INDEX : Landmarks.RIGHT_FOOT_INDEX, x(ankle) + 0.03f, y(ankle) + 0.03f, 0.8f);
+    }
+
+    /**
+     * Shoulder above the hip, leaning {@code leanDegrees} (positive = +x).
+     */
+    private void torso(int side, float leanDegrees) {
+        int hip = side == 0 ? Landmarks.LEFT_HIP : Landmarks.RIGHT_HIP;
+        double lean = Math.toRadians(leanDegrees);
+        float shoulderX = x(hip) + (float) (TORSO * Math.sin(lean)) + (side == 0 ? -0.01f : 0.01f);
+        float shoulderY = y(hip) - (float) (TORSO * Math.cos(lean));
+        set(side == 0 ? Landmarks.LEFT_SHOULDER : Landmarks.RIGHT_SHOULDER, shoulderX, shoulderY, 0.99f);
+    }
+
+    private void hangingArm(int side, float forwardDegrees) {
+        int shoulder = side == 0 ? Landmarks.LEFT_SHOULDER : Landmarks.RIGHT_SHOULDER;
+        double angle = Math.toRadians(forwardDegrees);
+        float elbowX = x(shoulder) + (float) (UPPER_ARM * Math.sin(angle));
+        float elbowY = y(shoulder) + (float) (UPPER_ARM * Math.cos(angle));
+        arm(side, elbowX, elbowY, elbowX + (float) (FOREARM * Math.sin(angle)),
+                elbowY + (float) (FOREARM * Math.cos(angle)));
+    }
+
+    private void arm(int side, float elbowX, float elbowY, float wristX, float wristY) {
+        set(side == 0 ? Landmarks.LEFT_ELBOW : Landmarks.RIGHT_ELBOW, elbowX, elbowY, 0.9f);
+        set(side == 0 ? Landmarks.LEFT_WRIST : Landmarks.RIGHT_WRIST, wristX, wristY, 0.85f);
+        // Hand landmarks cluster just past the wrist
+        set(side == 0 ? Landmarks.LEFT_PINKY : Landmarks.RIGHT_PINKY, wristX - 0.01f, wristY + 0.02f, 0.7f);
+        set(side == 0 ? Landmarks.LEFT_INDEX : Landmarks.RIGHT_INDEX, wristX, wristY + 0.025f, 0.7f);
+        set(side == 0 ? Landmarks.LEFT_THUMB : Landmarks.RIGHT_THUMB, wristX + 0.01f, wristY + 0.015f, 0.7f);
+    }
+
+    /**
+     * Face centred over the shoulders, tilted with the torso.
+     */
+    private void head(float leanDegrees) {
+        float centerX = (x(Landmarks.LEFT_SHOULDER) + x(Landmarks.RIGHT_SHOULDER)) / 2f;
+        float topY = (y(Landmarks.LEFT_SHOULDER) + y(Landmarks.RIGHT_SHOULDER)) / 2f;
+        float forward = (float) (0.1 * Math.sin(Math.toRadians(leanDegrees)));
+        set(Landmarks.NOSE, centerX + forward, topY - 0.1f, 1f);
+        set(Landmarks.LEFT_EYE_INNER, centerX + forward - 0.01f, topY - 0.11f, 1f);
+        set(Landmarks.LEFT_EYE, centerX + forward - 0.015f, topY - 0.11f, 1f);
+        set(Landmarks.LEFT_EYE_OUTER, centerX + forward - 0.02f, topY - 0.11f, 1f);
+        set(Landmarks.RIGHT_EYE_INNER, centerX + forward + 0.01f, topY - 0.11f, 1f);
+        set(Landmarks.RIGHT_EYE, centerX + forward + 0.015f, topY - 0.11f, 1f);
+        set(Landmarks.RIGHT_EYE_OUTER, centerX + forward + 0.02f, topY - 0.11f, 1f);
+        set(Landmarks.LEFT_EAR, centerX + forward - 0.035f, topY - 0.1f, 0.9f);
+        set(Landmarks.RIGHT_EAR, centerX + forward + 0.035f, topY - 0.1f, 0.9f);
+        set(Landmarks.MOUTH_LEFT, centerX + forward - 0.01f, topY - 0.08f, 1f);
+        set(Landmarks.MOUTH_RIGHT, centerX + forward + 0.01f, topY - 0.08f, 1f);
+    }
+
+    private void addNoise() {
+        for (int i = 0; i < PoseFrame.NUM_LANDMARKS; i++) {
+            int offset = i * PoseFrame.STRIDE;
+            pose[offset] += (float) random.nextGaussian() * POSITION_NOISE;
+            pose[offset + 1] += (float) random.nextGaussian() * POSITION_NOISE;
+            pose[offset + 2] = (float) random.nextGaussian() * 0.05f;
+            pose[offset + 3] = Math.max(0f, Math.min(1f, pose[offset + 3] - random.nextFloat() * 0.1f));
+        }
+    }
+
+    private void set(int landmark, float x, float y, float visibility) {
+        int offset = landmark * PoseFrame.STRIDE;
+        pose[offset] = x;
+        pose[offset + 1] = y;
+        pose[offset + 3] = visibility;
+    }
+
+    private float x(int landmark) {
+        return pose[landmark * PoseFrame.STRIDE];
+    }
+
+    private float y(int landmark) {
+        return pose[landmark * PoseFrame.STRIDE + 1];
+    }
+}
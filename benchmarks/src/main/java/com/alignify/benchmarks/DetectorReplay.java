@@ -0,0 +1,123 @@
+package com.alignify.benchmarks;
+
+import com.alignify.analysis.LandmarkRecording;
+import com.alignify.analysis.PoseStreamAnalyzer;
+import com.alignify.analysis.RepTimeline;
+import com.alignify.exercises.ExerciseDetector;
+import com.alignify.ml.PostureClassifier;
+import com.alignify.pose.OneEuroLandmarkFilter;
+import com.alignify.pose.PoseFrame;
+import com.alignify.pose.PoseSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Replays {@link LandmarkRecording}s through the exercise detectors and the
+ * posture classifier and reports throughput in frames per second after JIT
+ * warmup, along with what each replay detected.
+ *
+ * Detection goes through {@link PoseStreamAnalyzer} with the same smoothing
+ * filter as the app, on the detectors' rules only. Expectations in the
+ * recordings' metadata are checked by the app's unit tests, not here.
+ *
+ * {@code ./gradlew :benchmarks:replay -Precordings=<dir>}, or directly:
+ * {@code DetectorReplay [--warmup N] [--iterations N] <recording or directory>...}
+ */
+public final class DetectorReplay {
+
+    private static final int DEFAULT_WARMUP_ITERATIONS = 3;
+    private static final int DEFAULT_ITERATIONS = 10;
+
+    private DetectorReplay() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int warmup = DEFAULT_WARMUP_ITERATIONS;
+        int iterations = DEFAULT_ITERATIONS;
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--warmup") && i + 1 < args.length) {
+                warmup = Math.max(0, Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--iterations") && i + 1 < args.length) {
+                iterations = Math.max(1, Integer.parseInt(args[++i]));
+            } else {
+                File file = new File(args[i]);
+                File[] recordings = file.isDirectory()
+                        ? file.listFiles((dir, name) -> name.endsWith(LandmarkRecording.FILE_SUFFIX))
+                        : new File[] { file };
+                if (recordings != null) {
+                    Arrays.sort(recordings);
+                    files.addAll(Arrays.asList(recordings));
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "usage: DetectorReplay [--warmup N] [--iterations N] <recording or directory>...");
+        }
+
+        for (File file : files) {
+            LandmarkRecording recording = LandmarkRecording.read(file);
+            String exerciseType = recording.get(LandmarkRecording.KEY_EXERCISE);
+            if (exerciseType == null) {
+                System.out.println("SKIP " + file.getName() + ": no " + LandmarkRecording.KEY_EXERCISE + " metadata");
+                continue;
+            }
+            report(file.getName(), recording, exerciseType, warmup, iterations);
+        }
+    }
+
+    private static void report(String name, LandmarkRecording recording, String exerciseType, int warmup,
+            int iterations) throws IOException {
+        ExerciseDetector detector = ExerciseDetector.create(exerciseType, null);
+        RepTimeline timeline = null;
+        long detectorNanos;
+        try {
+            PoseStreamAnalyzer analyzer = new PoseStreamAnalyzer(detector, new OneEuroLandmarkFilter());
+            for (int i = 0; i < warmup; i++) {
+                analyzer.analyze(recording.source());
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                timeline = analyzer.analyze(recording.source());
+            }
+            detectorNanos = System.nanoTime() - start;
+        } finally {
+            detector.close();
+        }
+
+        // Posture is classified on smoothed frames, as in the live pipeline
+        PostureClassifier classifier = new PostureClassifier();
+        OneEuroLandmarkFilter filter = new OneEuroLandmarkFilter();
+        long postureNanos = 0L;
+        for (int i = 0; i < warmup + iterations; i++) {
+            boolean measured = i >= warmup;
+            filter.reset();
+            PoseSource frames = recording.source();
+            PoseFrame frame;
+            while ((frame = frames.next()) != null) {
+                filter.apply(frame);
+                long frameStart = measured ? System.nanoTime() : 0L;
+                classifier.classify(frame);
+                if (measured) {
+                    postureNanos += System.nanoTime() - frameStart;
+                }
+            }
+        }
+
+        long replayedFrames = (long) recording.getFrameCount() * iterations;
+        System.out.println(String.format(Locale.US,
+                "%s (%s): %d frames, %d reps, errors=%s, %.0f fps detector, %.0f fps posture",
+                name, exerciseType, timeline.getFrames(), timeline.getRepCount(), timeline.getErrorFrames(),
+                framesPerSecond(replayedFrames, detectorNanos), framesPerSecond(replayedFrames, postureNanos)));
+    }
+
+    private static double framesPerSecond(long frames, long nanos) {
+        return nanos > 0L ? frames * 1e9 / nanos : 0.0;
+    }
+}
@@ -3,4 +3,5 @@ plugins {
     id("com.android.application") version "8.2.2" apply false
     id("org.jetbrains.kotlin.android") version "1.9.22" apply false
     id("com.google.gms.google-services") version "4.4.0" apply false
+    id("me.champeau.jmh") version "0.7.2" apply false
 }
@@ -23,3 +23,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "Alighnify"
 include(":app")
+include(":benchmarks")